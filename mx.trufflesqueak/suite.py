@@ -169,6 +169,19 @@ suite = {
             "workingSets": "TruffleSqueak",
             "testProject": True,
         },
+        "de.hpi.swa.trufflesqueak.benchmarks": {
+            "subDir": "src",
+            "sourceDirs": ["src"],
+            "dependencies": [
+                "de.hpi.swa.trufflesqueak.test",
+                "mx:JMH_1_21",
+            ],
+            "checkstyle": "de.hpi.swa.trufflesqueak",
+            "javaCompliance": "8+",
+            "annotationProcessors": ["mx:JMH_1_21"],
+            "workingSets": "TruffleSqueak",
+            "testProject": True,
+        },
     },
 
     # ==========================================================================
@@ -276,5 +289,16 @@ suite = {
             "distDependencies": ["TRUFFLESQUEAK"],
             "testDistribution": True,
         },
+
+        "TRUFFLESQUEAK_BENCHMARKS": {
+            "description": "TruffleSqueak JMH benchmarks",
+            "javaCompliance": "8+",
+            "dependencies": [
+                "de.hpi.swa.trufflesqueak.benchmarks",
+            ],
+            "exclude": ["mx:JUNIT", "mx:HAMCREST", "mx:JMH_1_21"],
+            "distDependencies": ["TRUFFLESQUEAK_TEST"],
+            "testDistribution": True,
+        },
     },
 }
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2017-2021 Software Architecture Group, Hasso Plattner Institute
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.hpi.swa.trufflesqueak.image.SqueakImageChunk;
+import de.hpi.swa.trufflesqueak.model.ClassObject;
+import de.hpi.swa.trufflesqueak.model.PointersObject;
+import de.hpi.swa.trufflesqueak.nodes.accessing.SqueakObjectNewNode;
+import de.hpi.swa.trufflesqueak.test.AbstractSqueakTestCaseWithDummyImage;
+
+/**
+ * Base class for JMH benchmarks that exercise TruffleSqueak internals directly, without loading a
+ * real image. Subclasses set up their objects in {@link #setUpBenchmark()}.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public abstract class AbstractSqueakBenchmark extends AbstractSqueakTestCaseWithDummyImage {
+    /* Spur format for classes with fixed pointer fields only. */
+    private static final long FIXED_POINTERS_FORMAT = 1L << 16;
+
+    @Setup(Level.Trial)
+    public final void setUp() {
+        setUpSqueakImageContext();
+        setUpBenchmark();
+    }
+
+    @TearDown(Level.Trial)
+    public final void tearDownImage() {
+        tearDown();
+    }
+
+    protected abstract void setUpBenchmark();
+
+    protected static ClassObject createClass(final int instSize) {
+        final ClassObject aClass = new ClassObject(image);
+        aClass.fillin(SqueakImageChunk.createDummyChunk(image, new Object[]{image.nilClass.getSuperclass(), null, FIXED_POINTERS_FORMAT | instSize, null, null}));
+        return aClass;
+    }
+
+    protected static PointersObject instantiate(final ClassObject aClass, final Object... values) {
+        final PointersObject object = (PointersObject) SqueakObjectNewNode.getUncached().execute(image, aClass);
+        for (int i = 0; i < values.length; i++) {
+            object.instVarAtPut0Slow(i, values[i]);
+        }
+        return object;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2017-2021 Software Architecture Group, Hasso Plattner Institute
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.hpi.swa.trufflesqueak.test.AbstractSqueakTestCaseWithImage;
+
+/**
+ * Renders a vector-heavy scene with the Balloon engine into an offscreen 32-bit form. Requires the
+ * test image (see {@link AbstractSqueakTestCaseWithImage}).
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class B2DBenchmark extends AbstractSqueakTestCaseWithImage {
+    private static final String SCENE_NAME = "TruffleSqueakB2DBenchmarkScene";
+    private static final String SCENE = String.join("\n",
+                    "[ | form canvas |",
+                    "form := Form extent: 800 @ 600 depth: 32.",
+                    "canvas := form getCanvas asBalloonCanvas.",
+                    "canvas aaLevel: 4.",
+                    "1 to: 100 do: [:i | | origin |",
+                    "  origin := (i * 7 \\\\ 700) @ (i * 13 \\\\ 500).",
+                    "  canvas drawOval: (origin extent: 90 @ 60) color: (Color h: i * 3.6 s: 0.8 v: 0.9) borderWidth: 2 borderColor: Color black.",
+                    "  canvas drawPolygon: {origin. origin + (80 @ 10). origin + (40 @ 90)} color: ((Color r: 0.2 g: 0.4 b: 0.8) alpha: 0.5) borderWidth: 1 borderColor: Color red.",
+                    "  canvas fillRectangle: (origin + (10 @ 10) extent: 50 @ 30) fillStyle: ((GradientFillStyle ramp: {0.0 -> Color white. 1.0 -> Color blue}) origin: origin; direction: 50 @ 0; yourself)].",
+                    "canvas flush.",
+                    "form]");
+
+    @Setup(Level.Trial)
+    public void setUpScene() {
+        loadTestImage();
+        evaluate("Smalltalk at: #" + SCENE_NAME + " put: " + SCENE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownScene() {
+        evaluate("Smalltalk removeKey: #" + SCENE_NAME + " ifAbsent: []");
+        cleanUp();
+    }
+
+    @Benchmark
+    public Object renderScene() {
+        return evaluate("(Smalltalk at: #" + SCENE_NAME + ") value");
+    }
+}
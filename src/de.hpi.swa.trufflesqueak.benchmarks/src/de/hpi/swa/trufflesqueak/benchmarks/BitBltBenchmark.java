@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2017-2021 Software Architecture Group, Hasso Plattner Institute
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+
+import de.hpi.swa.trufflesqueak.model.ClassObject;
+import de.hpi.swa.trufflesqueak.model.NativeObject;
+import de.hpi.swa.trufflesqueak.model.NilObject;
+import de.hpi.swa.trufflesqueak.model.PointersObject;
+
+/**
+ * Compares the 32-bit BitBlt fast paths with the generic copy loops (which are used when
+ * `--smalltalk.bitblt-fast-paths=false`).
+ */
+public class BitBltBenchmark extends AbstractSqueakBenchmark {
+    private static final String GENERIC_PATH = "-Dpolyglot.smalltalk.bitblt-fast-paths=false";
+    private static final int WIDTH = 1920;
+    private static final int HEIGHT = 1080;
+    private static final int FORM_INST_SIZE = 5;
+    private static final int BITBLT_INST_SIZE = 15;
+
+    @Param({"3", "24", "25", "34"}) public long combinationRule;
+
+    private PointersObject copyBitBlt;
+    private PointersObject fillBitBlt;
+
+    @Override
+    protected void setUpBenchmark() {
+        final ClassObject formClass = createClass(FORM_INST_SIZE);
+        final ClassObject bitBltClass = createClass(BITBLT_INST_SIZE);
+        final PointersObject sourceForm = createForm(formClass);
+        final PointersObject destForm = createForm(formClass);
+        final int[] sourceBits = ((NativeObject) sourceForm.instVarAt0Slow(0)).getIntStorage();
+        for (int i = 0; i < sourceBits.length; i++) {
+            /* Mix of transparent, translucent, and opaque pixels. */
+            final int alpha = i % 3 == 0 ? 0 : i % 3 == 1 ? 0x80 : 0xFF;
+            sourceBits[i] = alpha << 24 | i & 0xFFFFFF;
+        }
+        final NativeObject fillColor = NativeObject.newNativeInts(image, image.bitmapClass, new int[]{0x80336699});
+        copyBitBlt = createBitBlt(bitBltClass, destForm, sourceForm, NilObject.SINGLETON);
+        fillBitBlt = createBitBlt(bitBltClass, destForm, NilObject.SINGLETON, fillColor);
+    }
+
+    private static PointersObject createForm(final ClassObject formClass) {
+        final NativeObject bits = NativeObject.newNativeInts(image, image.bitmapClass, WIDTH * HEIGHT);
+        return instantiate(formClass, bits, (long) WIDTH, (long) HEIGHT, 32L, NilObject.SINGLETON);
+    }
+
+    private PointersObject createBitBlt(final ClassObject bitBltClass, final PointersObject destForm, final Object sourceForm, final Object halftoneForm) {
+        return instantiate(bitBltClass, destForm, sourceForm, halftoneForm, combinationRule,
+                        0L, 0L, (long) WIDTH, (long) HEIGHT, 0L, 0L,
+                        0L, 0L, (long) WIDTH, (long) HEIGHT, NilObject.SINGLETON);
+    }
+
+    @Benchmark
+    public long copyBits() {
+        image.bitblt.resetSuccessFlag();
+        return image.bitblt.primitiveCopyBits(copyBitBlt, -1);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = GENERIC_PATH)
+    public long copyBitsGeneric() {
+        image.bitblt.resetSuccessFlag();
+        return image.bitblt.primitiveCopyBits(copyBitBlt, -1);
+    }
+
+    @Benchmark
+    public long fillBits() {
+        image.bitblt.resetSuccessFlag();
+        return image.bitblt.primitiveCopyBits(fillBitBlt, -1);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = GENERIC_PATH)
+    public long fillBitsGeneric() {
+        image.bitblt.resetSuccessFlag();
+        return image.bitblt.primitiveCopyBits(fillBitBlt, -1);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2017-2021 Software Architecture Group, Hasso Plattner Institute
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.hpi.swa.trufflesqueak.nodes.plugins.FloatArrayKernels;
+
+/**
+ * Measures the loops of {@link FloatArrayKernels} on 1K and 1M element arrays. Run with
+ * <code>-prof perfasm</code> to check which of them the JIT vectorizes.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FloatArrayBenchmark {
+    @Param({"1000", "1000000"}) public int size;
+
+    private int[] floats1;
+    private int[] floats2;
+    private long[] doubles1;
+    private long[] doubles2;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = new Random(42);
+        floats1 = new int[size];
+        floats2 = new int[size];
+        doubles1 = new long[size];
+        doubles2 = new long[size];
+        for (int i = 0; i < size; i++) {
+            /* Values around one, so that repeated multiplications neither overflow nor underflow. */
+            floats1[i] = Float.floatToRawIntBits(0.5f + random.nextFloat());
+            floats2[i] = Float.floatToRawIntBits(0.5f + random.nextFloat());
+            doubles1[i] = Double.doubleToRawLongBits(0.5 + random.nextDouble());
+            doubles2[i] = Double.doubleToRawLongBits(0.5 + random.nextDouble());
+        }
+    }
+
+    @Benchmark
+    public int[] floatArrayMul() {
+        FloatArrayKernels.mul(floats1, floats2);
+        return floats1;
+    }
+
+    @Benchmark
+    public double floatArrayDot() {
+        return FloatArrayKernels.dot(floats1, floats2);
+    }
+
+    @Benchmark
+    public long[] float64ArrayMul() {
+        FloatArrayKernels.mul(doubles1, doubles2);
+        return doubles1;
+    }
+
+    @Benchmark
+    public double float64ArraySum() {
+        return FloatArrayKernels.sum(doubles1);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2017-2021 Software Architecture Group, Hasso Plattner Institute
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.benchmarks;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.hpi.swa.trufflesqueak.test.AbstractSqueakTestCaseWithImage;
+
+/**
+ * Compares modular exponentiation with primModPow of the LargeIntegers plugin against
+ * Integer>>raisedTo:modulo:, which runs the square-and-multiply loop in bytecode. Requires the test
+ * image (see {@link AbstractSqueakTestCaseWithImage}).
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LargeIntegersBenchmark extends AbstractSqueakTestCaseWithImage {
+    private static final String OPERANDS_NAME = "TruffleSqueakLargeIntegersBenchmarkOperands";
+    private static final String SELECTOR = "truffleSqueakModPow:modulo:";
+    private static final String METHOD = "truffleSqueakModPow: exponent modulo: modulus <primitive: ''primModPow'' module: ''LargeIntegers''> ^ self primitiveFailed";
+
+    @Param({"2048", "4096"}) public int bits;
+
+    @Setup(Level.Trial)
+    public void setUpOperands() {
+        loadTestImage();
+        final Random random = new Random(42);
+        final BigInteger base = new BigInteger(bits, random).setBit(bits - 1);
+        final BigInteger exponent = new BigInteger(bits, random).setBit(bits - 1);
+        final BigInteger modulus = new BigInteger(bits, random).setBit(bits - 1).setBit(0);
+        evaluate("Integer compile: '" + METHOD + "'");
+        evaluate("Smalltalk at: #" + OPERANDS_NAME + " put: {" + base + ". " + exponent + ". " + modulus + "}");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownOperands() {
+        evaluate("Smalltalk removeKey: #" + OPERANDS_NAME + " ifAbsent: []");
+        evaluate("Integer removeSelector: #" + SELECTOR);
+        cleanUp();
+    }
+
+    @Benchmark
+    public Object modPowPrimitive() {
+        return evaluate("(Smalltalk at: #" + OPERANDS_NAME + ") in: [:ops | (ops at: 1) truffleSqueakModPow: (ops at: 2) modulo: (ops at: 3)]");
+    }
+
+    @Benchmark
+    public Object modPowSmalltalk() {
+        return evaluate("(Smalltalk at: #" + OPERANDS_NAME + ") in: [:ops | (ops at: 1) raisedTo: (ops at: 2) modulo: (ops at: 3)]");
+    }
+}
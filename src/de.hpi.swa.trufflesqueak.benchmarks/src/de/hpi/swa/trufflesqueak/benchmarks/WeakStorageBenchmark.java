@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2017-2021 Software Architecture Group, Hasso Plattner Institute
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+
+import com.oracle.truffle.api.profiles.ConditionProfile;
+import com.oracle.truffle.api.utilities.TruffleWeakReference;
+
+import de.hpi.swa.trufflesqueak.model.ClassObject;
+import de.hpi.swa.trufflesqueak.model.PointersObject;
+import de.hpi.swa.trufflesqueak.model.WeakVariablePointersObject;
+import de.hpi.swa.trufflesqueak.util.MiscUtils;
+
+/**
+ * Measures full GC pauses and weak slot stores for a number of weak slots. The referents are held
+ * by {@link #CONTAINERS} weak containers, as if they were registered in a WeakRegistry, a WeakSet,
+ * and a WeakIdentityKeyDictionary at the same time. With the "perSlot" storage, the same slots are
+ * held with one {@link TruffleWeakReference} per slot, as {@link WeakVariablePointersObject} did
+ * before its slots shared the references of their referents.
+ */
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WeakStorageBenchmark extends AbstractSqueakBenchmark {
+    private static final int CONTAINERS = 3;
+
+    @Param({"10000", "100000", "1000000"}) public int slotCount;
+    @Param({"shared", "perSlot"}) public String storage;
+
+    private ClassObject weakClass;
+    private PointersObject[] referents;
+    private Object[] containers;
+
+    @Override
+    protected void setUpBenchmark() {
+        weakClass = createClass(0);
+        final ClassObject referentClass = createClass(0);
+        referents = new PointersObject[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            referents[i] = instantiate(referentClass);
+        }
+        containers = new Object[CONTAINERS];
+        for (int i = 0; i < CONTAINERS; i++) {
+            containers[i] = newContainer();
+        }
+    }
+
+    private Object newContainer() {
+        if ("perSlot".equals(storage)) {
+            final Object[] container = new Object[slotCount];
+            for (int i = 0; i < slotCount; i++) {
+                container[i] = new TruffleWeakReference<>(referents[i], image.weakPointersQueue);
+            }
+            return container;
+        } else {
+            final WeakVariablePointersObject container = new WeakVariablePointersObject(image, weakClass, slotCount);
+            final ConditionProfile profile = ConditionProfile.getUncached();
+            for (int i = 0; i < slotCount; i++) {
+                container.putIntoVariablePart(i, referents[i], profile);
+            }
+            return container;
+        }
+    }
+
+    @Benchmark
+    public Object fullGC() {
+        MiscUtils.systemGC();
+        return containers;
+    }
+
+    /* Stores all referents into a new weak container, as when a WeakSet grows. */
+    @Benchmark
+    public Object grow() {
+        return newContainer();
+    }
+}
@@ -6,9 +6,19 @@
 package de.hpi.swa.trufflesqueak.shared;
 
 public final class SqueakLanguageOptions {
+    public static final String ASYNC_DISPLAY = "async-display";
+    public static final String ASYNC_DISPLAY_HELP = "Present display updates from a dedicated render thread at the screen refresh rate";
+    public static final String BITBLT_FAST_PATHS = "bitblt-fast-paths";
+    public static final String BITBLT_FAST_PATHS_HELP = "Use fast paths for common 32-bit BitBlt operations";
+    public static final String BITBLT_PARALLEL = "bitblt-parallel";
+    public static final String BITBLT_PARALLEL_HELP = "Process large 32-bit BitBlt operations in parallel bands";
     public static final String CODE_FLAG = "--code";
     public static final String CODE_FLAG_SHORT = "-c";
     public static final String CODE_HELP = "Smalltalk code to be executed without display";
+    public static final String CONTEXT_STATS = "context-stats";
+    public static final String CONTEXT_STATS_HELP = "Count context materializations, sender assumption invalidations, and thisContext accesses per method and print the top offenders on exit";
+    public static final String FRAMEBUFFER = "framebuffer";
+    public static final String FRAMEBUFFER_HELP = "Render into an in-memory framebuffer when running headless";
     public static final String HEADLESS = "headless";
     public static final String HEADLESS_FLAG = "--" + HEADLESS;
     public static final String HEADLESS_HELP = "Run without a display";
@@ -18,6 +28,8 @@ public final class SqueakLanguageOptions {
     public static final String IMAGE_PATH = "image-path";
     public static final String IMAGE_PATH_FLAG = "--" + IMAGE_PATH;
     public static final String IMAGE_PATH_HELP = "Path to image";
+    public static final String INCREMENTAL_GC = "incremental-gc";
+    public static final String INCREMENTAL_GC_HELP = "Policy for the incremental GC primitive ('full' forces a GC, 'young' leaves collections to the JVM)";
     public static final String INTERCEPT_MESSAGES = "intercept-messages";
     public static final String INTERCEPT_MESSAGES_HELP = "Comma-separated list of messages to intercept with an instrument";
     public static final String INTERRUPTS = "disable-interrupts";
@@ -25,6 +37,8 @@ public final class SqueakLanguageOptions {
     public static final String INTERRUPTS_HELP = "Disable interrupt handler";
     public static final String LOG_HANDLER_FLAG = "--log-handler";
     public static final String LOG_HANDLER_HELP = "Enable log handler (supported modes are 'mapped', 'file', 'err', 'out')";
+    public static final String PERFORM_CACHE_SIZE = "perform-cache-size";
+    public static final String PERFORM_CACHE_SIZE_HELP = "Number of selectors cached per perform: site before it turns megamorphic";
     public static final String PRINT_IMAGE_PATH_FLAG = "--print-image-path";
     public static final String PRINT_IMAGE_PATH_HELP = "Print the path to default Squeak/Smalltalk image";
     public static final String QUIET = "quiet";
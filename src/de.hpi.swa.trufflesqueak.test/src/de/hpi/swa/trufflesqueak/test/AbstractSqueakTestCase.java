@@ -9,6 +9,8 @@ import static org.junit.Assert.fail;
 
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
 
 import org.graalvm.polyglot.Context;
 import org.graalvm.polyglot.Context.Builder;
@@ -23,6 +25,7 @@ import de.hpi.swa.trufflesqueak.exceptions.Returns.NonLocalReturn;
 import de.hpi.swa.trufflesqueak.exceptions.Returns.NonVirtualReturn;
 import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
 import de.hpi.swa.trufflesqueak.model.AbstractSqueakObject;
+import de.hpi.swa.trufflesqueak.model.ArrayObject;
 import de.hpi.swa.trufflesqueak.model.CompiledCodeObject;
 import de.hpi.swa.trufflesqueak.model.ContextObject;
 import de.hpi.swa.trufflesqueak.model.NilObject;
@@ -114,6 +117,11 @@ public abstract class AbstractSqueakTestCase {
         return runPrim(new Object[]{68222979L}, primCode, rcvr, arguments);
     }
 
+    protected Object runNamedPrimitive(final String moduleName, final String functionName, final Object rcvr, final Object... arguments) {
+        final ArrayObject description = image.asArrayOfObjects(image.asByteString(moduleName), image.asByteString(functionName), 0L, 0L);
+        return runPrim(new Object[]{makeHeader(arguments.length, arguments.length, 2, true, false), description}, 117, rcvr, arguments);
+    }
+
     protected Object runPrim(final Object[] literals, final int primCode, final Object rcvr, final Object... arguments) {
         final CompiledCodeObject method = makeMethod(literals, 139, primCode & 0xFF, (primCode & 0xFF00) >> 8);
         return runMethod(method, rcvr, arguments);
@@ -125,9 +133,14 @@ public abstract class AbstractSqueakTestCase {
     }
 
     protected static SqueakImage loadImageContext(final String imagePath) {
+        return loadImageContext(imagePath, Collections.emptyMap());
+    }
+
+    protected static SqueakImage loadImageContext(final String imagePath, final Map<String, String> extraOptions) {
         assert context == null && image == null;
         final Builder contextBuilder = Context.newBuilder();
         contextBuilder.allowAllAccess(true);
+        contextBuilder.options(extraOptions);
         contextBuilder.option(SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.IMAGE_PATH, imagePath);
         contextBuilder.option(SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.HEADLESS, "true");
         contextBuilder.option(SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.TESTING, "true");
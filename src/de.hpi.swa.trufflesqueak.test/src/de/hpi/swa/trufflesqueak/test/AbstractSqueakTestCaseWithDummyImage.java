@@ -5,6 +5,8 @@
  */
 package de.hpi.swa.trufflesqueak.test;
 
+import java.util.Collections;
+
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 
@@ -17,6 +19,8 @@ import de.hpi.swa.trufflesqueak.model.PointersObject;
 import de.hpi.swa.trufflesqueak.model.layout.ObjectLayouts.CLASS_DESCRIPTION;
 import de.hpi.swa.trufflesqueak.model.layout.ObjectLayouts.METACLASS;
 import de.hpi.swa.trufflesqueak.model.layout.ObjectLayouts.SPECIAL_OBJECT;
+import de.hpi.swa.trufflesqueak.shared.SqueakLanguageConfig;
+import de.hpi.swa.trufflesqueak.shared.SqueakLanguageOptions;
 import de.hpi.swa.trufflesqueak.util.MiscUtils;
 
 public abstract class AbstractSqueakTestCaseWithDummyImage extends AbstractSqueakTestCase {
@@ -24,7 +28,8 @@ public abstract class AbstractSqueakTestCaseWithDummyImage extends AbstractSquea
     @BeforeClass
     public static void setUpSqueakImageContext() {
         SqueakImageContext.initializeBeforeLoadingImage();
-        loadImageContext("fake.image");
+        /* The framebuffer is only attached on demand, see SqueakPluginTest. */
+        loadImageContext("fake.image", Collections.singletonMap(SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.FRAMEBUFFER, "true"));
         final Object[] dummySpecialObjects = new Object[100];
         final ArrayObject dummySpecialSelectors = createDummySpecialSelectors();
         dummySpecialObjects[SPECIAL_OBJECT.SPECIAL_SELECTORS] = dummySpecialSelectors;
@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2017-2021 Software Architecture Group, Hasso Plattner Institute
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigInteger;
+
+import org.junit.Test;
+
+import de.hpi.swa.trufflesqueak.model.ArrayObject;
+import de.hpi.swa.trufflesqueak.model.BooleanObject;
+import de.hpi.swa.trufflesqueak.model.CompiledCodeObject;
+import de.hpi.swa.trufflesqueak.model.LargeIntegerObject;
+
+@SuppressWarnings("static-method")
+public final class LargeIntegerObjectTest extends AbstractSqueakTestCaseWithDummyImage {
+    private static final BigInteger TWO_TO_64 = BigInteger.ONE.shiftLeft(64);
+    private static final BigInteger TWO_TO_128 = BigInteger.ONE.shiftLeft(128);
+
+    /* Values in two longs, at limb boundaries, and in limbs. */
+    private static final BigInteger[] VALUES = {
+                    BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE),
+                    TWO_TO_64.subtract(BigInteger.ONE),
+                    TWO_TO_64,
+                    TWO_TO_64.add(BigInteger.ONE),
+                    TWO_TO_128.subtract(BigInteger.ONE),
+                    TWO_TO_128,
+                    TWO_TO_128.add(TWO_TO_64),
+                    BigInteger.ONE.shiftLeft(200).subtract(BigInteger.ONE),
+                    new BigInteger("123456789012345678901234567890123456789012345678901234567890")};
+
+    /* Zero, ones, values with and without common factors, and values around the long range. */
+    private static final BigInteger[] OPERANDS = {
+                    BigInteger.ZERO, BigInteger.ONE, BigInteger.ONE.negate(), BigInteger.valueOf(2), BigInteger.valueOf(6), BigInteger.valueOf(-9), BigInteger.valueOf(97),
+                    BigInteger.valueOf(65537), BigInteger.valueOf(Long.MAX_VALUE), BigInteger.valueOf(Long.MIN_VALUE), TWO_TO_64, TWO_TO_64.add(BigInteger.ONE).negate(),
+                    TWO_TO_128.subtract(BigInteger.valueOf(159)) /* Prime. */, new BigInteger("123456789012345678901234567890123456789012345678901234567890")};
+
+    private static byte[] magnitudeBytes(final BigInteger value) {
+        final byte[] bigEndian = value.abs().toByteArray();
+        final int leadingZeros = bigEndian[0] == 0 ? 1 : 0;
+        final byte[] littleEndian = new byte[bigEndian.length - leadingZeros];
+        for (int i = 0; i < littleEndian.length; i++) {
+            littleEndian[i] = bigEndian[bigEndian.length - 1 - i];
+        }
+        return littleEndian;
+    }
+
+    private static LargeIntegerObject fromBytes(final BigInteger value) {
+        return new LargeIntegerObject(image, value.signum() < 0 ? image.largeNegativeIntegerClass : image.largePositiveIntegerClass, magnitudeBytes(value));
+    }
+
+    private static BigInteger toBigInteger(final Object value) {
+        return value instanceof Long ? BigInteger.valueOf((long) value) : ((LargeIntegerObject) value).getBigInteger();
+    }
+
+    private static Object toIntegerObject(final BigInteger value) {
+        return value.bitLength() < Long.SIZE ? (Object) value.longValue() : new LargeIntegerObject(image, value);
+    }
+
+    /* Answers false if the primitive fails (callPrimitive, pushFalse, returnTop). */
+    private static Object runLargeIntegersPrimitive(final String functionName, final BigInteger receiver, final BigInteger... arguments) {
+        final ArrayObject description = image.asArrayOfObjects(image.asByteString("LargeIntegers"), image.asByteString(functionName), 0L, 0L);
+        final CompiledCodeObject method = makeMethod(new Object[]{makeHeader(arguments.length, arguments.length, 2, true, false), description}, 139, 117, 0, 114, 124);
+        final Object[] argumentObjects = new Object[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            argumentObjects[i] = toIntegerObject(arguments[i]);
+        }
+        return runMethod(method, toIntegerObject(receiver), argumentObjects);
+    }
+
+    private static void assertPrimitiveResult(final String message, final BigInteger expected, final Object result) {
+        if (expected == null) {
+            assertEquals(message + " should fail", BooleanObject.FALSE, result);
+        } else {
+            assertEquals(message, expected, toBigInteger(result));
+            assertTrue(message + " should be reduced", (result instanceof Long) == (expected.bitLength() < Long.SIZE));
+        }
+    }
+
+    private static BigInteger[] valuesWithNegations() {
+        final BigInteger[] result = new BigInteger[VALUES.length * 2];
+        for (int i = 0; i < VALUES.length; i++) {
+            result[2 * i] = VALUES[i];
+            result[2 * i + 1] = VALUES[i].negate();
+        }
+        return result;
+    }
+
+    @Test
+    public void testGetNativeAt0() {
+        for (final BigInteger value : valuesWithNegations()) {
+            final byte[] expected = magnitudeBytes(value);
+            for (final LargeIntegerObject object : new LargeIntegerObject[]{new LargeIntegerObject(image, value), fromBytes(value)}) {
+                for (int i = 0; i < expected.length + 8; i++) {
+                    final long expectedByte = i < expected.length ? expected[i] & 0xFF : 0;
+                    assertEquals(value + " at " + i, expectedByte, object.getNativeAt0(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSetNativeAt0() {
+        for (final BigInteger value : valuesWithNegations()) {
+            final byte[] bytes = magnitudeBytes(value);
+            final LargeIntegerObject object = new LargeIntegerObject(image, value.signum() < 0 ? image.largeNegativeIntegerClass : image.largePositiveIntegerClass, bytes.length);
+            for (int i = 0; i < bytes.length; i++) {
+                object.setNativeAt0(i, bytes[i] & 0xFF);
+            }
+            assertEquals(value, object.getBigInteger());
+            assertEquals(value.bitLength(), object.bitLength());
+            /* Overwrite the lowest byte of an existing value. */
+            object.setNativeAt0(0, 0);
+            assertEquals(value.abs().shiftRight(8).shiftLeft(8).multiply(BigInteger.valueOf(value.signum())), object.getBigInteger());
+        }
+    }
+
+    @Test
+    public void testSetBytes() {
+        for (final BigInteger value : VALUES) {
+            final byte[] bytes = magnitudeBytes(value);
+            final LargeIntegerObject object = new LargeIntegerObject(image, image.largePositiveIntegerClass, bytes.length);
+            object.setBytes(bytes);
+            assertEquals(value, object.getBigInteger());
+
+            final LargeIntegerObject copy = new LargeIntegerObject(image, image.largePositiveIntegerClass, bytes.length);
+            copy.setBytes(object, 0, 0, bytes.length);
+            assertEquals(value, copy.getBigInteger());
+
+            /* Partial copies crossing limb boundaries. */
+            final LargeIntegerObject partial = new LargeIntegerObject(image, image.largePositiveIntegerClass, bytes.length);
+            partial.setBytes(bytes, 3, 3, bytes.length - 3);
+            assertEquals(value.shiftRight(24).shiftLeft(24), partial.getBigInteger());
+        }
+    }
+
+    @Test
+    public void testAddAndSubtractWithCarry() {
+        final BigInteger[] values = valuesWithNegations();
+        final long[] longs = {1L, -1L, Long.MAX_VALUE, Long.MIN_VALUE};
+        for (final BigInteger a : values) {
+            for (final BigInteger b : values) {
+                for (final LargeIntegerObject objectA : new LargeIntegerObject[]{new LargeIntegerObject(image, a), fromBytes(a)}) {
+                    assertEquals(a + " + " + b, a.add(b), toBigInteger(objectA.add(new LargeIntegerObject(image, b))));
+                    assertEquals(a + " - " + b, a.subtract(b), toBigInteger(objectA.subtract(fromBytes(b))));
+                }
+            }
+            for (final long b : longs) {
+                final BigInteger bigB = BigInteger.valueOf(b);
+                assertEquals(a + " + " + b, a.add(bigB), toBigInteger(new LargeIntegerObject(image, a).add(b)));
+                assertEquals(a + " - " + b, a.subtract(bigB), toBigInteger(new LargeIntegerObject(image, a).subtract(b)));
+                assertEquals(b + " - " + a, bigB.subtract(a), toBigInteger(LargeIntegerObject.subtract(b, new LargeIntegerObject(image, a))));
+            }
+        }
+        /* Carry out of and borrow into the high word of the two-long representation. */
+        assertEquals(TWO_TO_64, toBigInteger(((LargeIntegerObject) LargeIntegerObject.add(image, Long.MAX_VALUE, Long.MAX_VALUE)).add(2L)));
+        assertEquals(TWO_TO_64.negate(), toBigInteger(((LargeIntegerObject) LargeIntegerObject.subtract(image, Long.MIN_VALUE, Long.MAX_VALUE)).subtract(1L)));
+        assertEquals(TWO_TO_64.subtract(BigInteger.ONE), toBigInteger(new LargeIntegerObject(image, TWO_TO_64).subtract(1L)));
+    }
+
+    @Test
+    public void testCompareTo() {
+        final BigInteger[] values = valuesWithNegations();
+        for (final BigInteger a : values) {
+            for (final BigInteger b : values) {
+                final int expected = Integer.signum(a.compareTo(b));
+                assertEquals(a + " <=> " + b, expected, Integer.signum(new LargeIntegerObject(image, a).compareTo(new LargeIntegerObject(image, b))));
+                assertEquals(a + " <=> " + b, expected, Integer.signum(fromBytes(a).compareTo(new LargeIntegerObject(image, b))));
+                assertEquals(a + " <=> " + b, expected, Integer.signum(fromBytes(a).compareTo(fromBytes(b))));
+            }
+            assertEquals(Integer.signum(a.signum()), Integer.signum(new LargeIntegerObject(image, a).compareTo(0L)));
+        }
+    }
+
+    @Test
+    public void testBitLengthOfNegativePowersOfTwo() {
+        for (final int exponent : new int[]{64, 65, 127, 128, 129, 191, 192, 200}) {
+            final BigInteger value = BigInteger.ONE.shiftLeft(exponent).negate();
+            assertEquals("-2^" + exponent, value.bitLength(), new LargeIntegerObject(image, value).bitLength());
+            assertEquals("-2^" + exponent, value.bitLength(), fromBytes(value).bitLength());
+        }
+        /* -2^63 fits into a long. */
+        final LargeIntegerObject longMin = fromBytes(BigInteger.valueOf(Long.MIN_VALUE));
+        assertEquals(63, longMin.bitLength());
+        assertEquals(Long.MIN_VALUE, longMin.reduceIfPossible());
+    }
+
+    @Test
+    public void testSetBytesWithZeroLength() {
+        /* Large results of arithmetic only have a BigInteger until their bytes are accessed. */
+        for (final BigInteger value : new BigInteger[]{TWO_TO_128.add(TWO_TO_64), BigInteger.ONE.shiftLeft(200).subtract(BigInteger.ONE).negate()}) {
+            final LargeIntegerObject object = new LargeIntegerObject(image, value);
+            object.setBytes(new byte[0], 0, 0, 0);
+            assertEquals(value, object.getBigInteger());
+            assertEquals(value.bitLength(), object.bitLength());
+            final LargeIntegerObject other = new LargeIntegerObject(image, value);
+            other.setBytes(fromBytes(value), 0, 0, 0);
+            assertEquals(value, other.getBigInteger());
+            assertEquals(value.bitLength(), other.bitLength());
+        }
+    }
+
+    @Test
+    public void testNonNormalizedSizes() {
+        final LargeIntegerObject small = new LargeIntegerObject(image, image.largePositiveIntegerClass, 20);
+        small.setNativeAt0(0, 5);
+        assertEquals(20, small.size());
+        assertEquals(BigInteger.valueOf(5), small.getBigInteger());
+        assertEquals(5L, small.reduceIfPossible());
+
+        final byte[] bytes = new byte[32];
+        bytes[16] = 1;
+        final LargeIntegerObject padded = new LargeIntegerObject(image, image.largeNegativeIntegerClass, bytes);
+        assertEquals(32, padded.size());
+        assertEquals(TWO_TO_128.negate(), padded.getBigInteger());
+        assertEquals(0L, padded.getNativeAt0(31));
+        assertEquals(padded, padded.reduceIfPossible());
+        assertEquals(17, padded.size());
+    }
+
+    @Test
+    public void testReplaceInternalValue() {
+        for (final BigInteger value : VALUES) {
+            final int size = magnitudeBytes(value).length;
+            for (final LargeIntegerObject source : new LargeIntegerObject[]{new LargeIntegerObject(image, value), fromBytes(value), new LargeIntegerObject(image, value.negate())}) {
+                final LargeIntegerObject positive = new LargeIntegerObject(image, image.largePositiveIntegerClass, size);
+                positive.replaceInternalValue(source);
+                assertEquals(value, positive.getBigInteger());
+                assertEquals(value.bitLength(), positive.bitLength());
+
+                final LargeIntegerObject negative = new LargeIntegerObject(image, image.largeNegativeIntegerClass, size);
+                negative.replaceInternalValue(source);
+                assertEquals(value.negate(), negative.getBigInteger());
+                assertEquals(value.negate().bitLength(), negative.bitLength());
+            }
+        }
+    }
+
+    @Test
+    public void testGCD() {
+        for (final BigInteger a : OPERANDS) {
+            for (final BigInteger b : OPERANDS) {
+                assertPrimitiveResult("gcd(" + a + ", " + b + ")", a.gcd(b), runLargeIntegersPrimitive("primGCD", a, b));
+            }
+        }
+    }
+
+    @Test
+    public void testModInverse() {
+        for (final BigInteger a : OPERANDS) {
+            for (final BigInteger m : OPERANDS) {
+                BigInteger expected = null; /* Zero and negative moduli, and operands without inverse fail. */
+                if (m.signum() > 0) {
+                    try {
+                        expected = a.modInverse(m);
+                    } catch (final ArithmeticException e) {
+                        assertNotEquals(BigInteger.ONE, a.gcd(m));
+                    }
+                }
+                assertPrimitiveResult(a + " modInverse: " + m, expected, runLargeIntegersPrimitive("primModInverse", a, m));
+            }
+        }
+        /* 6 and 9 share the factor 3, 6 * 5 = 30 = 1 mod 29. */
+        assertEquals(BooleanObject.FALSE, runLargeIntegersPrimitive("primModInverse", BigInteger.valueOf(6), BigInteger.valueOf(9)));
+        assertEquals(5L, runLargeIntegersPrimitive("primModInverse", BigInteger.valueOf(6), BigInteger.valueOf(29)));
+    }
+
+    @Test
+    public void testModPow() {
+        final BigInteger[] exponents = {BigInteger.ZERO, BigInteger.ONE, BigInteger.valueOf(2), BigInteger.valueOf(65537), BigInteger.valueOf(-1), BigInteger.valueOf(-3), TWO_TO_64.add(BigInteger.ONE)};
+        for (final BigInteger a : OPERANDS) {
+            for (final BigInteger e : exponents) {
+                for (final BigInteger m : OPERANDS) {
+                    /* Zero and negative moduli fail, as do negative exponents of operands without inverse. */
+                    BigInteger expected = null;
+                    if (m.signum() > 0) {
+                        try {
+                            expected = a.modPow(e, m);
+                        } catch (final ArithmeticException ex) {
+                            assertTrue(e.signum() < 0);
+                        }
+                    }
+                    assertPrimitiveResult(a + " raisedTo: " + e + " modulo: " + m, expected, runLargeIntegersPrimitive("primModPow", a, e, m));
+                }
+            }
+        }
+    }
+}
@@ -6,11 +6,14 @@
 package de.hpi.swa.trufflesqueak.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteOrder;
 
 import org.graalvm.polyglot.Context;
 import org.graalvm.polyglot.Value;
@@ -161,4 +164,204 @@ public final class SqueakBasicImageTest extends AbstractSqueakTestCaseWithImage
             }
         }
     }
+
+    @Test
+    public void test15InteropInvokeMember() {
+        final Value collection = context.eval(SqueakLanguageConfig.ID, "OrderedCollection new");
+        for (int i = 0; i < 10; i++) { /* Repeated invocations go through the inline cache. */
+            collection.invokeMember("add:", i);
+        }
+        assertEquals(10, collection.invokeMember("size").asInt());
+        final Value array = context.eval(SqueakLanguageConfig.ID, "Array new: 2");
+        array.invokeMember("at_put_", 1, 42);
+        assertEquals(42, array.invokeMember("at:", 1).asInt());
+        assertEquals(42, array.invokeMember("first").asInt());
+    }
+
+    @Test
+    public void test16InteropInvokeMemberOverride() {
+        evaluate("Object subclass: #TruffleSqueakInteropOverride instanceVariableNames: '' classVariableNames: '' package: 'TruffleSqueak-Tests'");
+        try {
+            evaluate("TruffleSqueakInteropOverride compile: 'foo ^ 1'");
+            evaluate("TruffleSqueakInteropOverride compile: 'interopInvokeMember: member and: arguments ^ 42'");
+            final Value object = context.eval(SqueakLanguageConfig.ID, "TruffleSqueakInteropOverride new");
+            for (int i = 0; i < 3; i++) { /* The image-side override must see every invocation. */
+                assertEquals(42, object.invokeMember("foo").asInt());
+            }
+        } finally {
+            evaluate("TruffleSqueakInteropOverride removeFromSystem");
+        }
+    }
+
+    @Test
+    public void test17FusedArithmetic() {
+        assertEquals(55L, evaluate("| sum | sum := 0. 1 to: 10 do: [:i | sum := sum + i]. sum"));
+        assertEquals(12L, evaluate("| a b | a := 5. b := 7. a := a * 2. b := b bitAnd: 3. a := a - 1. a := a bitOr: b. a + 1"));
+        // Overflow falls back to the unfused bytecodes, later iterations compute LargeIntegers.
+        assertEquals("9223372036854775810", evaluate("| a | a := SmallInteger maxVal - 2. 1 to: 5 do: [:i | a := a + 1]. a").toString());
+        assertEquals("-9223372036854775811", evaluate("| a | a := SmallInteger minVal + 2. 1 to: 5 do: [:i | a := a - 1]. a").toString());
+        assertEquals("18446744073709551614", evaluate("| a | a := SmallInteger maxVal. a := a * 2. a").toString());
+        // Operands that are not SmallIntegers fall back as well.
+        assertSame(BooleanObject.TRUE, evaluate("| a | a := 1.5. 1 to: 3 do: [:i | a := a + 1]. a = 4.5"));
+        assertSame(BooleanObject.TRUE, evaluate("| a | a := 0. 1 to: 4 do: [:i | a := a + (i = 2 ifTrue: [0.5] ifFalse: [1])]. a = 3.5"));
+        // Jumps to the second push of a fused sequence: <pushTemp: b> <pushConstant: 1> <send: +> <popIntoTemp: i>
+        assertEquals(4L, evaluate("| c a b i | c := true. a := 3. b := 7. i := (c ifTrue: [a] ifFalse: [b]) + 1. i"));
+        assertEquals(8L, evaluate("| c a b i | c := false. a := 3. b := 7. i := (c ifTrue: [a] ifFalse: [b]) + 1. i"));
+        assertEquals(24L, evaluate("| a b i | i := 0. 1 to: 6 do: [:n | a := n. b := 2. i := (n odd ifTrue: [a] ifFalse: [b]) + i]. i + 9"));
+    }
+
+    @Test
+    public void test18FusedCompareAndJump() {
+        final String[] selectors = {"<", ">", "<=", ">=", "=", "~="};
+        final long[][] operands = {{3, 4}, {4, 3}, {4, 4}, {Long.MIN_VALUE, Long.MAX_VALUE}};
+        for (final String selector : selectors) {
+            for (final long[] pair : operands) {
+                final boolean expected = compare(selector, pair[0], pair[1]);
+                final String prefix = "| a b r | a := " + pair[0] + ". b := " + pair[1] + ". ";
+                // jumpFalse: taken and not taken
+                assertEquals(expected ? 1L : 2L, evaluate(prefix + "(a " + selector + " b) ifTrue: [1] ifFalse: [2]"));
+                // jumpTrue: taken and not taken
+                assertEquals(expected ? 0L : 2L, evaluate(prefix + "r := 0. (a " + selector + " b) ifFalse: [r := 2]. r"));
+                // Non-SmallInteger operands fall back to the unfused bytecodes.
+                assertEquals(expected ? 1L : 2L, evaluate(prefix + "a := a asFloat. (a " + selector + " b) ifTrue: [1] ifFalse: [2]"));
+            }
+        }
+        // Loop conditions first succeed and then fail.
+        assertEquals(10L, evaluate("| i | i := 0. [i < 10] whileTrue: [i := i + 1]. i"));
+        assertEquals(0L, evaluate("| i | i := 10. [i > 0] whileTrue: [i := i - 1]. i"));
+        assertSame(BooleanObject.TRUE, evaluate("| i | i := 0. [i < 10] whileTrue: [i := i + 0.5]. i = 10"));
+    }
+
+    private static final String[] PERFORM_EXPRESSIONS = {
+                    /* More selectors than the default perform cache size at a single site. */
+                    "(#(#abs #negated #squared #sqrt #isZero #even #odd #sign #factorial #isPrime #yourself #reciprocal) collect: [:s | 4 perform: s])" +
+                                    " = {4. -4. 16. 2.0. false. true. false. 1. 24. false. 4. 1/4}",
+                    "(#(#+ #- #* #/ #// #\\\\ #max: #min: #gcd: #lcm: #bitAnd: #bitOr:) collect: [:s | 12 perform: s with: 8])" +
+                                    " = {20. 4. 96. 3/2. 1. 4. 12. 8. 4. 24. 8. 12}",
+                    /* Cached argument counts per selector. */
+                    "({#abs -> #(). #+ -> #(1). #between:and: -> #(1 5). #max: -> #(7). #printString: -> #(2). #@ -> #(3). #yourself -> #()." +
+                                    " #raisedTo: -> #(2). #min:max: -> #(0 2). #rem: -> #(3). #isZero -> #(). #gcd: -> #(6)} collect: [:a | 4 perform: a key withArguments: a value])" +
+                                    " = {4. 5. true. 7. '100'. 4@3. 4. 16. 2. 1. false. 2}",
+                    "(#(#isNumber #isInteger #isString #yourself #isNil #notNil #isSymbol #isCharacter #isFloat #isFraction) collect: [:s | 4 perform: s withArguments: #() inSuperclass: Object])" +
+                                    " = {false. false. false. 4. false. true. false. false. false. false}"};
+
+    @Test
+    public void test19PerformCaches() {
+        for (int i = 0; i < 3; i++) { /* Repeated evaluations hit both the cached and the megamorphic paths. */
+            for (final String expression : PERFORM_EXPRESSIONS) {
+                assertTrue(expression, context.eval(SqueakLanguageConfig.ID, expression).asBoolean());
+            }
+        }
+    }
+
+    @Test
+    public void test20PerformCacheSize() {
+        for (final String cacheSize : new String[]{"0", "1", "32"}) {
+            final Context newContext = Context.newBuilder(SqueakLanguageConfig.ID).allowAllAccess(true).option(SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.IMAGE_PATH,
+                            image.getImagePath()).option(SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.HEADLESS, "true").option(
+                                            SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.PERFORM_CACHE_SIZE, cacheSize).build();
+            newContext.enter();
+            try {
+                for (final String expression : PERFORM_EXPRESSIONS) {
+                    assertTrue(cacheSize + ": " + expression, newContext.eval(SqueakLanguageConfig.ID, expression).asBoolean());
+                }
+            } finally {
+                newContext.leave();
+                newContext.close();
+            }
+        }
+    }
+
+    @Test
+    public void test21InteropBuffers() {
+        final Value bytes = context.eval(SqueakLanguageConfig.ID, "#[1 2 3 4 5 6 7 8] copy");
+        assertTrue(bytes.hasBufferElements());
+        assertTrue(bytes.isBufferWritable());
+        assertEquals(8, bytes.getBufferSize());
+        assertEquals(1, bytes.readBufferByte(0));
+        assertEquals(0x0403, bytes.readBufferShort(ByteOrder.LITTLE_ENDIAN, 2));
+        assertEquals(0x05060708, bytes.readBufferInt(ByteOrder.BIG_ENDIAN, 4));
+        bytes.writeBufferInt(ByteOrder.BIG_ENDIAN, 0, 0x0A0B0C0D);
+        assertTrue(context.eval(SqueakLanguageConfig.ID, "[:b | b = #[10 11 12 13 5 6 7 8]]").execute(bytes).asBoolean());
+        try {
+            bytes.readBufferLong(ByteOrder.LITTLE_ENDIAN, 1);
+            fail("Read beyond the end of the buffer");
+        } catch (final IndexOutOfBoundsException e) {
+            /* Expected. */
+        }
+
+        /* Arrays with long or double storage are read-only, and nil slots read as zero bytes. */
+        final Value longs = context.eval(SqueakLanguageConfig.ID, "(Array new: 3) at: 1 put: 42; at: 3 put: -1; yourself");
+        assertTrue(longs.hasBufferElements());
+        assertFalse(longs.isBufferWritable());
+        assertEquals(24, longs.getBufferSize());
+        assertEquals(42L, longs.readBufferLong(ByteOrder.nativeOrder(), 0));
+        assertEquals(0L, longs.readBufferLong(ByteOrder.nativeOrder(), 8));
+        assertEquals(-1L, longs.readBufferLong(ByteOrder.nativeOrder(), 16));
+        /* Four zero bytes of the nil slot followed by four 0xFF bytes of -1, on any platform. */
+        assertEquals(0xFFFFFFFF00000000L, longs.readBufferLong(ByteOrder.LITTLE_ENDIAN, 12));
+        try {
+            longs.writeBufferLong(ByteOrder.nativeOrder(), 8, 1L);
+            fail("Arrays must not be writable buffers");
+        } catch (final UnsupportedOperationException e) {
+            /* Expected. */
+        }
+        final Value doubles = context.eval(SqueakLanguageConfig.ID, "(Array new: 2) at: 2 put: 1.5; yourself");
+        assertEquals(0D, doubles.readBufferDouble(ByteOrder.nativeOrder(), 0), 0);
+        assertEquals(1.5D, doubles.readBufferDouble(ByteOrder.nativeOrder(), 8), 0);
+        assertFalse(context.eval(SqueakLanguageConfig.ID, "{Object new}").hasBufferElements());
+    }
+
+    @Test
+    public void test22InteropBufferOverride() {
+        evaluate("ByteArray variableByteSubclass: #TruffleSqueakBufferOverride instanceVariableNames: '' classVariableNames: '' package: 'TruffleSqueak-Tests'");
+        try {
+            evaluate("TruffleSqueakBufferOverride compile: 'interopGetBufferSize ^ 2'");
+            final Value object = context.eval(SqueakLanguageConfig.ID, "TruffleSqueakBufferOverride new: 4");
+            for (int i = 0; i < 3; i++) { /* The image-side override must see every message. */
+                assertEquals(2, object.getBufferSize());
+                /* Messages that are not overridden still access the storage directly. */
+                assertTrue(object.hasBufferElements());
+                assertEquals(0, object.readBufferInt(ByteOrder.BIG_ENDIAN, 0));
+            }
+        } finally {
+            evaluate("TruffleSqueakBufferOverride removeFromSystem");
+        }
+    }
+
+    @Test
+    public void test23ContextStatistics() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final Context newContext = Context.newBuilder(SqueakLanguageConfig.ID).allowAllAccess(true).out(out).option(SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.IMAGE_PATH,
+                        image.getImagePath()).option(SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.HEADLESS, "true").option(
+                                        SqueakLanguageConfig.ID + "." + SqueakLanguageOptions.CONTEXT_STATS, "true").build();
+        try {
+            assertTrue(newContext.eval(SqueakLanguageConfig.ID, "thisContext sender notNil").asBoolean());
+        } finally {
+            newContext.close();
+        }
+        /* Disposing the context prints the statistics and flushes stdout. */
+        final String output = out.toString();
+        assertTrue(output, output.contains("[trufflesqueak] Context statistics (top 20 per kind):"));
+        assertTrue(output, output.contains("  Context materializations: "));
+        assertTrue(output, output.contains("  doesNotNeedSender assumption invalidations: "));
+        assertFalse(output, output.contains("  thisContext accesses: 0 in 0 methods and blocks"));
+    }
+
+    private static boolean compare(final String selector, final long lhs, final long rhs) {
+        switch (selector) {
+            case "<":
+                return lhs < rhs;
+            case ">":
+                return lhs > rhs;
+            case "<=":
+                return lhs <= rhs;
+            case ">=":
+                return lhs >= rhs;
+            case "=":
+                return lhs == rhs;
+            default:
+                return lhs != rhs;
+        }
+    }
 }
@@ -6,6 +6,7 @@
 package de.hpi.swa.trufflesqueak.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -590,6 +591,19 @@ public final class SqueakBytecodeTest extends AbstractSqueakTestCaseWithDummyIma
         assertTrue(closure.getCompiledBlock().getSqueakClass().isCompiledMethodClassType());
     }
 
+    @Test
+    public void testBlockNeedsOuterContext() {
+        final Object[] literals = new Object[]{2L, NilObject.SINGLETON, NilObject.SINGLETON};
+        // ^ [ :arg1 :arg2 | arg1 + arg2 ]
+        assertFalse(makeMethod(literals, 0x8F, 0x02, 0x00, 0x04, 0x10, 0x11, 0xB0, 0x7D, 0x7C).blockNeedsOuterContext(4, 8));
+        // ^ [ ^ 1 ]
+        assertTrue(makeMethod(literals, 0x8F, 0x00, 0x00, 0x03, 0x76, 0x7C, 0x7D, 0x7C).blockNeedsOuterContext(4, 7));
+        // ^ [ thisContext ]
+        assertTrue(makeMethod(literals, 0x8F, 0x00, 0x00, 0x02, 0x89, 0x7D, 0x7C).blockNeedsOuterContext(4, 6));
+        // ^ [ [ ^ 1 ] ]
+        assertTrue(makeMethod(literals, 0x8F, 0x00, 0x00, 0x08, 0x8F, 0x00, 0x00, 0x03, 0x76, 0x7C, 0x7D, 0x7D, 0x7C).blockNeedsOuterContext(4, 12));
+    }
+
     @Test
     public void testUnconditionalJump() {
         // 18 <90+x> jump: x
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2017-2021 Software Architecture Group, Hasso Plattner Institute
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.oracle.truffle.api.interop.InteropException;
+import com.oracle.truffle.api.interop.InteropLibrary;
+
+import de.hpi.swa.trufflesqueak.interop.JavaObjectWrapper;
+
+public final class SqueakInteropTest extends AbstractSqueakTestCaseWithDummyImage {
+
+    @Test
+    public void testInvokeOverloadedMethodWithDifferentArgumentTypes() throws InteropException {
+        final StringBuilder builder = new StringBuilder();
+        final Object wrapper = JavaObjectWrapper.wrap(builder);
+        final InteropLibrary lib = InteropLibrary.getFactory().create(wrapper);
+        lib.invokeMember(wrapper, "append", 1.5D); // caches append(double)
+        lib.invokeMember(wrapper, "append", 2L); // must select append(long)
+        lib.invokeMember(wrapper, "append", 3.5D);
+        assertEquals("1.523.5", builder.toString());
+    }
+
+    @Test
+    public void testInvokeOverloadedMethodByIndexAndByValue() throws InteropException {
+        final List<String> list = new ArrayList<>(Arrays.asList("a", "b", "c"));
+        final Object wrapper = JavaObjectWrapper.wrap(list);
+        final InteropLibrary lib = InteropLibrary.getFactory().create(wrapper);
+        assertEquals(true, lib.invokeMember(wrapper, "remove", JavaObjectWrapper.wrap("a"))); // remove(Object)
+        lib.invokeMember(wrapper, "remove", 0L); // remove(int)
+        assertEquals(Arrays.asList("c"), list);
+    }
+
+    @Test
+    public void testInvokeOverloadedMethodUncached() throws InteropException {
+        final List<String> list = new ArrayList<>(Arrays.asList("a", "b", "c"));
+        final Object wrapper = JavaObjectWrapper.wrap(list);
+        final InteropLibrary lib = InteropLibrary.getUncached();
+        lib.invokeMember(wrapper, "remove", JavaObjectWrapper.wrap("c"));
+        lib.invokeMember(wrapper, "remove", 0L);
+        assertEquals(Arrays.asList("b"), list);
+    }
+}
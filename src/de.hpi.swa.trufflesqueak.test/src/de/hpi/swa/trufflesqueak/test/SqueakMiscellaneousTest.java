@@ -8,6 +8,9 @@ package de.hpi.swa.trufflesqueak.test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
 import org.junit.Test;
 
 import de.hpi.swa.trufflesqueak.image.SqueakImageChunk;
@@ -16,6 +19,7 @@ import de.hpi.swa.trufflesqueak.model.FloatObject;
 import de.hpi.swa.trufflesqueak.model.NilObject;
 import de.hpi.swa.trufflesqueak.model.layout.ObjectLayouts.CONTEXT;
 import de.hpi.swa.trufflesqueak.nodes.bytecodes.SqueakBytecodeV3PlusClosuresDecoder;
+import de.hpi.swa.trufflesqueak.tools.ContextStatistics;
 import de.hpi.swa.trufflesqueak.util.UnsafeUtils;
 
 @SuppressWarnings("static-method")
@@ -186,4 +190,32 @@ public final class SqueakMiscellaneousTest extends AbstractSqueakTestCaseWithDum
         chunk.setSqClass(image.floatClass);
         return chunk;
     }
+
+    @Test
+    public void testContextStatistics() {
+        final ContextStatistics statistics = new ContextStatistics();
+        final CompiledCodeObject[] methods = new CompiledCodeObject[25];
+        for (int i = 0; i < methods.length; i++) {
+            methods[i] = makeMethod(new Object[]{makeHeader(0, 0, 0, false, false)}, 120 /* returnSelf */);
+            for (int j = 0; j <= i; j++) {
+                statistics.recordMaterialization(methods[i]);
+            }
+        }
+        for (int i = 0; i < 3; i++) {
+            statistics.recordSenderInvalidation(methods[0]);
+        }
+        final StringWriter writer = new StringWriter();
+        statistics.print(new PrintWriter(writer));
+        final String[] lines = writer.toString().split("\\R");
+        assertEquals(25, lines.length);
+        assertEquals("[trufflesqueak] Context statistics (top 20 per kind):", lines[0]);
+        assertEquals("  Context materializations: 325 in 25 methods and blocks", lines[1]);
+        /* Only the top 20 offenders, in descending order. */
+        for (int i = 0; i < 20; i++) {
+            assertEquals(lines[2 + i], 25 - i, Long.parseLong(lines[2 + i].trim().split("\\s+")[0]));
+        }
+        assertEquals("  doesNotNeedSender assumption invalidations: 3 in 1 methods and blocks", lines[22]);
+        assertEquals(3, Long.parseLong(lines[23].trim().split("\\s+")[0]));
+        assertEquals("  thisContext accesses: 0 in 0 methods and blocks", lines[24]);
+    }
 }
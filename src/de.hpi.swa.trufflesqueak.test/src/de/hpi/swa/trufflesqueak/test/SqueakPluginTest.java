@@ -0,0 +1,461 @@
+/*
+ * Copyright (c) 2017-2021 Software Architecture Group, Hasso Plattner Institute
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+import de.hpi.swa.trufflesqueak.image.SqueakImageChunk;
+import de.hpi.swa.trufflesqueak.io.SqueakFramebufferDisplay;
+import de.hpi.swa.trufflesqueak.model.ArrayObject;
+import de.hpi.swa.trufflesqueak.model.BooleanObject;
+import de.hpi.swa.trufflesqueak.model.ClassObject;
+import de.hpi.swa.trufflesqueak.model.NativeObject;
+import de.hpi.swa.trufflesqueak.model.NilObject;
+import de.hpi.swa.trufflesqueak.model.PointersObject;
+import de.hpi.swa.trufflesqueak.model.layout.ObjectLayouts.FORM;
+import de.hpi.swa.trufflesqueak.model.layout.ObjectLayouts.SPECIAL_OBJECT;
+import de.hpi.swa.trufflesqueak.nodes.accessing.SqueakObjectNewNode;
+
+public final class SqueakPluginTest extends AbstractSqueakTestCaseWithDummyImage {
+    private static final String FILE_PLUGIN = "FilePlugin";
+    private static final String FLOAT_ARRAY_PLUGIN = "FloatArrayPlugin";
+    private static final String FLOAT64_ARRAY_PLUGIN = "Float64ArrayPlugin";
+    private static final String FRAMEBUFFER_PLUGIN = "FramebufferPlugin";
+    private static final int[] FRAMEBUFFER_PIXELS = {
+                    0xFF000000, 0xFFFF0000, 0xFF00FF00, 0xFF0000FF,
+                    0xFFFFFFFF, 0xFF123456, 0xFF654321, 0xFF808080,
+                    0xFF010203, 0xFFFEFDFC, 0xFF7F7F7F, 0xFFABCDEF};
+
+    private static byte[] ascendingBytes(final int size) {
+        final byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) i;
+        }
+        return bytes;
+    }
+
+    private Object openFile(final Path path, final boolean writable) {
+        return runNamedPrimitive(FILE_PLUGIN, "primitiveFileOpen", NilObject.SINGLETON, image.asByteString(path.toString()), writable);
+    }
+
+    private void closeFile(final Object fd) {
+        runNamedPrimitive(FILE_PLUGIN, "primitiveFileClose", NilObject.SINGLETON, fd);
+    }
+
+    private static NativeObject newFloatArray(final float... values) {
+        final int[] ints = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            ints[i] = Float.floatToRawIntBits(values[i]);
+        }
+        return NativeObject.newNativeInts(image, image.bitmapClass, ints);
+    }
+
+    private static NativeObject newFloat64Array(final double... values) {
+        final long[] longs = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            longs[i] = Double.doubleToRawLongBits(values[i]);
+        }
+        return NativeObject.newNativeLongs(image, image.bitmapClass, longs);
+    }
+
+    private static void assertFloatArrayEquals(final NativeObject floatArray, final float... expected) {
+        final int[] ints = floatArray.getIntStorage();
+        assertEquals(expected.length, ints.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], Float.intBitsToFloat(ints[i]), 0);
+        }
+    }
+
+    private static void assertFloat64ArrayEquals(final NativeObject float64Array, final double... expected) {
+        final long[] longs = float64Array.getLongStorage();
+        assertEquals(expected.length, longs.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], Double.longBitsToDouble(longs[i]), 0);
+        }
+    }
+
+    @Test
+    public void testFloatArrayPrimitives() {
+        final NativeObject receiver = newFloatArray(1, 2, 3, 4);
+        final NativeObject argument = newFloatArray(0.5f, 0.25f, 2, 8);
+        assertSame(receiver, runNamedPrimitive(FLOAT_ARRAY_PLUGIN, "primitiveAddFloatArray", receiver, argument));
+        assertFloatArrayEquals(receiver, 1.5f, 2.25f, 5, 12);
+        runNamedPrimitive(FLOAT_ARRAY_PLUGIN, "primitiveSubFloatArray", receiver, argument);
+        assertFloatArrayEquals(receiver, 1, 2, 3, 4);
+        runNamedPrimitive(FLOAT_ARRAY_PLUGIN, "primitiveMulFloatArray", receiver, argument);
+        assertFloatArrayEquals(receiver, 0.5f, 0.5f, 6, 32);
+        runNamedPrimitive(FLOAT_ARRAY_PLUGIN, "primitiveDivFloatArray", receiver, argument);
+        assertFloatArrayEquals(receiver, 1, 2, 3, 4);
+
+        runNamedPrimitive(FLOAT_ARRAY_PLUGIN, "primitiveAddScalar", receiver, 1.5D);
+        assertFloatArrayEquals(receiver, 2.5f, 3.5f, 4.5f, 5.5f);
+        runNamedPrimitive(FLOAT_ARRAY_PLUGIN, "primitiveSubScalar", receiver, 0.5D);
+        assertFloatArrayEquals(receiver, 2, 3, 4, 5);
+        runNamedPrimitive(FLOAT_ARRAY_PLUGIN, "primitiveMulScalar", receiver, 3D);
+        assertFloatArrayEquals(receiver, 6, 9, 12, 15);
+        runNamedPrimitive(FLOAT_ARRAY_PLUGIN, "primitiveDivScalar", receiver, 3D);
+        assertFloatArrayEquals(receiver, 2, 3, 4, 5);
+        /* FloatArrays store 32-bit floats. */
+        runNamedPrimitive(FLOAT_ARRAY_PLUGIN, "primitiveDivScalar", receiver, 10D);
+        assertFloatArrayEquals(receiver, 0.2f, 0.3f, 0.4f, 0.5f);
+
+        assertEquals(0.2f + 0.3f + 0.4f + 0.5f, (double) runNamedPrimitive(FLOAT_ARRAY_PLUGIN, "primitiveSum", receiver), 1e-6);
+        assertEquals((double) 0.2f * 0.5f + (double) 0.3f * 0.25f + (double) 0.4f * 2 + (double) 0.5f * 8,
+                        (double) runNamedPrimitive(FLOAT_ARRAY_PLUGIN, "primitiveDotProduct", receiver, argument), 1e-6);
+        assertEquals((double) 0.3f, runNamedPrimitive(FLOAT_ARRAY_PLUGIN, "primitiveAt", receiver, 2L));
+        assertEquals(0.75D, runNamedPrimitive(FLOAT_ARRAY_PLUGIN, "primitiveAtPut", receiver, 2L, 0.75D));
+        assertFloatArrayEquals(receiver, 0.2f, 0.75f, 0.4f, 0.5f);
+        assertEquals(BooleanObject.TRUE, runNamedPrimitive(FLOAT_ARRAY_PLUGIN, "primitiveEqual", receiver, newFloatArray(0.2f, 0.75f, 0.4f, 0.5f)));
+        assertEquals(BooleanObject.FALSE, runNamedPrimitive(FLOAT_ARRAY_PLUGIN, "primitiveEqual", receiver, argument));
+    }
+
+    @Test
+    public void testFloat64ArrayPrimitives() {
+        final NativeObject receiver = newFloat64Array(1, 2, 3, 4);
+        final NativeObject argument = newFloat64Array(0.5, 0.25, 2, 8);
+        assertSame(receiver, runNamedPrimitive(FLOAT64_ARRAY_PLUGIN, "primitiveAddFloat64Array", receiver, argument));
+        assertFloat64ArrayEquals(receiver, 1.5, 2.25, 5, 12);
+        runNamedPrimitive(FLOAT64_ARRAY_PLUGIN, "primitiveSubFloat64Array", receiver, argument);
+        assertFloat64ArrayEquals(receiver, 1, 2, 3, 4);
+        runNamedPrimitive(FLOAT64_ARRAY_PLUGIN, "primitiveMulFloat64Array", receiver, argument);
+        assertFloat64ArrayEquals(receiver, 0.5, 0.5, 6, 32);
+        runNamedPrimitive(FLOAT64_ARRAY_PLUGIN, "primitiveDivFloat64Array", receiver, argument);
+        assertFloat64ArrayEquals(receiver, 1, 2, 3, 4);
+
+        /* Scalars are not narrowed to 32-bit floats. */
+        runNamedPrimitive(FLOAT64_ARRAY_PLUGIN, "primitiveAddScalar", receiver, 0.1D);
+        assertFloat64ArrayEquals(receiver, 1 + 0.1, 2 + 0.1, 3 + 0.1, 4 + 0.1);
+        runNamedPrimitive(FLOAT64_ARRAY_PLUGIN, "primitiveSubScalar", receiver, 0.1D);
+        assertFloat64ArrayEquals(receiver, 1 + 0.1 - 0.1, 2 + 0.1 - 0.1, 3 + 0.1 - 0.1, 4 + 0.1 - 0.1);
+        runNamedPrimitive(FLOAT64_ARRAY_PLUGIN, "primitiveMulScalar", receiver, 0.1D);
+        final double[] expected = {(1 + 0.1 - 0.1) * 0.1, (2 + 0.1 - 0.1) * 0.1, (3 + 0.1 - 0.1) * 0.1, (4 + 0.1 - 0.1) * 0.1};
+        assertFloat64ArrayEquals(receiver, expected);
+        runNamedPrimitive(FLOAT64_ARRAY_PLUGIN, "primitiveDivScalar", receiver, 0.3D);
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] /= 0.3;
+        }
+        assertFloat64ArrayEquals(receiver, expected);
+
+        assertEquals(expected[0] + expected[1] + expected[2] + expected[3], (double) runNamedPrimitive(FLOAT64_ARRAY_PLUGIN, "primitiveSum", receiver), 0);
+        assertEquals(expected[0] * 0.5 + expected[1] * 0.25 + expected[2] * 2 + expected[3] * 8,
+                        (double) runNamedPrimitive(FLOAT64_ARRAY_PLUGIN, "primitiveDotProduct", receiver, argument), 0);
+        assertEquals(0.1D, runNamedPrimitive(FLOAT64_ARRAY_PLUGIN, "primitiveAtPut", receiver, 2L, 0.1D));
+        assertEquals(0.1D, runNamedPrimitive(FLOAT64_ARRAY_PLUGIN, "primitiveAt", receiver, 2L));
+        assertEquals(BooleanObject.FALSE, runNamedPrimitive(FLOAT64_ARRAY_PLUGIN, "primitiveEqual", receiver, argument));
+
+        /* Floats are converted to doubles, not copied bit by bit. */
+        final NativeObject floats = newFloatArray(0.1f, -2, Float.POSITIVE_INFINITY, 0);
+        runNamedPrimitive(FLOAT64_ARRAY_PLUGIN, "primitiveFromFloatArray", receiver, floats);
+        assertFloat64ArrayEquals(receiver, 0.1f, -2, Double.POSITIVE_INFINITY, 0);
+        assertEquals(BooleanObject.TRUE, runNamedPrimitive(FLOAT64_ARRAY_PLUGIN, "primitiveEqual", receiver, newFloat64Array(0.1f, -2, Double.POSITIVE_INFINITY, 0)));
+        final long[] longs = receiver.getLongStorage();
+        assertEquals(longs[0] + longs[1] + longs[2] + longs[3] & 0x1fffffff, runNamedPrimitive(FLOAT64_ARRAY_PLUGIN, "primitiveHashArray", receiver));
+    }
+
+    @Test
+    public void testFileMappingReadAndWrite() throws IOException {
+        final Path file = Files.createTempFile("trufflesqueak", ".bin");
+        try {
+            Files.write(file, ascendingBytes(100));
+            final Object fd = openFile(file, true);
+            final Object mapping = runNamedPrimitive(FILE_PLUGIN, "primitiveFileMap", NilObject.SINGLETON, fd, 10L, 20L, true);
+            assertEquals(20L, runNamedPrimitive(FILE_PLUGIN, "primitiveFileMappingSize", NilObject.SINGLETON, mapping));
+
+            final NativeObject target = image.asByteArray(new byte[20]);
+            assertEquals(20L, runNamedPrimitive(FILE_PLUGIN, "primitiveFileMappingRead", NilObject.SINGLETON, mapping, 0L, target, 1L, 20L));
+            assertArrayEquals(Arrays.copyOfRange(ascendingBytes(100), 10, 30), target.getByteStorage());
+
+            final NativeObject source = image.asByteArray(new byte[]{-1, -1});
+            assertEquals(2L, runNamedPrimitive(FILE_PLUGIN, "primitiveFileMappingWrite", NilObject.SINGLETON, mapping, 5L, source, 1L, 2L));
+            runNamedPrimitive(FILE_PLUGIN, "primitiveFileMappingUnmap", NilObject.SINGLETON, mapping);
+            closeFile(fd);
+
+            final byte[] expected = ascendingBytes(100);
+            expected[15] = -1;
+            expected[16] = -1;
+            assertArrayEquals(expected, Files.readAllBytes(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testFileMappingReadOnly() throws IOException {
+        final Path file = Files.createTempFile("trufflesqueak", ".bin");
+        try {
+            Files.write(file, ascendingBytes(8));
+            final Object fd = openFile(file, false);
+            final Object mapping = runNamedPrimitive(FILE_PLUGIN, "primitiveFileMap", NilObject.SINGLETON, fd, 4L, 4L, false);
+            final NativeObject target = image.asByteArray(new byte[4]);
+            assertEquals(4L, runNamedPrimitive(FILE_PLUGIN, "primitiveFileMappingRead", NilObject.SINGLETON, mapping, 0L, target, 1L, 4L));
+            assertArrayEquals(new byte[]{4, 5, 6, 7}, target.getByteStorage());
+            runNamedPrimitive(FILE_PLUGIN, "primitiveFileMappingUnmap", NilObject.SINGLETON, mapping);
+            closeFile(fd);
+            assertArrayEquals(ascendingBytes(8), Files.readAllBytes(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private String lookupEntryName(final Path directory, final long index) {
+        final Object entry = runNamedPrimitive(FILE_PLUGIN, "primitiveDirectoryLookup", NilObject.SINGLETON, image.asByteString(directory.toString()), index);
+        return entry == NilObject.SINGLETON ? null : ((NativeObject) ((ArrayObject) entry).getObject(0)).asStringUnsafe();
+    }
+
+    private static Path createDirectoryWithFiles(final String... names) throws IOException {
+        final Path directory = Files.createTempDirectory("trufflesqueak");
+        for (final String name : names) {
+            Files.write(directory.resolve(name), name.getBytes());
+        }
+        return directory;
+    }
+
+    private static void deleteDirectory(final Path directory) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (final Path file : stream) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testDirectoryLookup() throws IOException {
+        final Path directory = createDirectoryWithFiles("a", "b", "c");
+        try {
+            final Set<String> names = new HashSet<>();
+            for (long index = 1; index <= 3; index++) {
+                names.add(lookupEntryName(directory, index));
+            }
+            assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), names);
+            assertNull(lookupEntryName(directory, 4));
+            assertNull(lookupEntryName(directory, 5));
+
+            /* A lookup of the first entry starts a new enumeration that sees new files. */
+            Files.write(directory.resolve("d"), new byte[0]);
+            names.clear();
+            for (long index = 1; index <= 4; index++) {
+                names.add(lookupEntryName(directory, index));
+            }
+            assertEquals(new HashSet<>(Arrays.asList("a", "b", "c", "d")), names);
+            assertNull(lookupEntryName(directory, 5));
+
+            final ArrayObject entries = (ArrayObject) runNamedPrimitive(FILE_PLUGIN, "primitiveDirectoryEntries", NilObject.SINGLETON, image.asByteString(directory.toString()));
+            assertEquals(4, entries.size());
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void testDirectoryLookupDoesNotKeepDirectoriesOpen() throws IOException {
+        final Path openFileDescriptors = Paths.get("/proc/self/fd");
+        assumeTrue(Files.isDirectory(openFileDescriptors));
+        final Path directory = createDirectoryWithFiles("a", "b");
+        try {
+            assertNotNull(lookupEntryName(directory, 1));
+            final long numOpenFileDescriptors = countEntries(openFileDescriptors);
+            /* Abandon enumerations after their first entry. */
+            for (int i = 0; i < 10; i++) {
+                assertNotNull(lookupEntryName(directory, 1));
+            }
+            assertEquals(numOpenFileDescriptors, countEntries(openFileDescriptors));
+            /* Abandoned enumerations can be resumed. */
+            assertNotNull(lookupEntryName(directory, 2));
+            assertNull(lookupEntryName(directory, 3));
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    private static long countEntries(final Path directory) throws IOException {
+        long count = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (@SuppressWarnings("unused") final Path entry : stream) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testFileTransfer() throws IOException {
+        final Path sourceFile = Files.createTempFile("trufflesqueak", ".bin");
+        final Path targetFile = Files.createTempFile("trufflesqueak", ".bin");
+        try {
+            Files.write(sourceFile, ascendingBytes(100));
+            final Object source = openFile(sourceFile, false);
+            final Object target = openFile(targetFile, true);
+            assertEquals(30L, runNamedPrimitive(FILE_PLUGIN, "primitiveFileTransfer", NilObject.SINGLETON, source, 20L, 30L, target));
+            /* Copying stops at the end of the source, and appends at the position of the target. */
+            assertEquals(10L, runNamedPrimitive(FILE_PLUGIN, "primitiveFileTransfer", NilObject.SINGLETON, source, 90L, 50L, target));
+            closeFile(source);
+            closeFile(target);
+            final byte[] expected = new byte[40];
+            System.arraycopy(ascendingBytes(100), 20, expected, 0, 30);
+            System.arraycopy(ascendingBytes(100), 90, expected, 30, 10);
+            assertArrayEquals(expected, Files.readAllBytes(targetFile));
+        } finally {
+            Files.delete(sourceFile);
+            Files.delete(targetFile);
+        }
+    }
+
+    private static PointersObject newForm(final int width, final int height, final int[] pixels) {
+        final ClassObject formClass = new ClassObject(image);
+        formClass.fillin(SqueakImageChunk.createDummyChunk(image, new Object[]{
+                        image.nilClass.getSuperclass(), null, 65541L /* 5 slots, like Form. */, null, null}));
+        final PointersObject form = (PointersObject) SqueakObjectNewNode.getUncached().execute(image, formClass);
+        form.instVarAtPut0Slow(FORM.BITS, NativeObject.newNativeInts(image, image.bitmapClass, pixels.clone()));
+        form.instVarAtPut0Slow(FORM.WIDTH, (long) width);
+        form.instVarAtPut0Slow(FORM.HEIGHT, (long) height);
+        form.instVarAtPut0Slow(FORM.DEPTH, 32L);
+        return form;
+    }
+
+    /* The dummy image enables the framebuffer option, but only attaches a display on demand. */
+    private static SqueakFramebufferDisplay openFramebuffer(final PointersObject form) {
+        image.attachDisplayIfNecessary();
+        image.setSpecialObject(SPECIAL_OBJECT.THE_DISPLAY, form);
+        final SqueakFramebufferDisplay display = (SqueakFramebufferDisplay) image.getDisplay();
+        display.open(form);
+        return display;
+    }
+
+    @Test
+    public void testFramebufferDisplay() {
+        final PointersObject form = newForm(4, 3, FRAMEBUFFER_PIXELS);
+        final SqueakFramebufferDisplay display = openFramebuffer(form);
+        assertTrue(display.isVisible());
+        assertEquals(4, display.getWidth());
+        assertEquals(3, display.getHeight());
+        assertEquals(4, display.getWindowWidth());
+        assertEquals(3, display.getWindowHeight());
+        final IntBuffer pixels = display.getPixels();
+        assertTrue(pixels.isReadOnly());
+        final int[] actualPixels = new int[pixels.remaining()];
+        pixels.get(actualPixels);
+        assertArrayEquals(FRAMEBUFFER_PIXELS, actualPixels);
+
+        /* Opening damages the whole display, taking the damage resets it. */
+        assertEquals(new Rectangle(0, 0, 4, 3), display.takeDamage());
+        assertNull(display.takeDamage());
+        assertEquals(0, display.getFrameCount());
+
+        /* Updates are accumulated and clipped to the display. */
+        display.showDisplayBitsLeftTopRightBottom(form, 1, 1, 2, 2);
+        display.showDisplayBitsLeftTopRightBottom(form, 3, 0, 10, 1);
+        assertEquals(2, display.getFrameCount());
+        assertEquals(new Rectangle(1, 0, 3, 2), display.takeDamage());
+
+        /* Other forms, deferred updates, empty and off-screen regions cause no damage. */
+        display.showDisplayBitsLeftTopRightBottom(newForm(4, 3, FRAMEBUFFER_PIXELS), 0, 0, 4, 3);
+        display.showDisplayBitsLeftTopRightBottom(form, 2, 2, 2, 3);
+        display.showDisplayBitsLeftTopRightBottom(form, 5, 5, 8, 8);
+        display.setDeferUpdates(true);
+        display.showDisplayBitsLeftTopRightBottom(form, 0, 0, 4, 3);
+        display.setDeferUpdates(false);
+        assertNull(display.takeDamage());
+        assertEquals(2, display.getFrameCount());
+
+        display.showDisplayRect(0, 2, 1, 3);
+        assertEquals(new Rectangle(0, 1, 2, 2), display.takeDamage());
+        assertEquals(3, display.getFrameCount());
+
+        /* Resizing only changes the virtual screen size reported to the image. */
+        display.resizeTo(800, 600);
+        assertEquals(800, display.getWindowWidth());
+        assertEquals(600, display.getWindowHeight());
+        assertEquals(4, display.getWidth());
+
+        display.close();
+        assertFalse(display.isVisible());
+        assertNull(display.getPixels());
+        assertNull(display.takeDamage());
+    }
+
+    @Test
+    public void testFramebufferDamagePrimitive() {
+        final PointersObject form = newForm(4, 3, FRAMEBUFFER_PIXELS);
+        final SqueakFramebufferDisplay display = openFramebuffer(form);
+        final ArrayObject damage = (ArrayObject) runNamedPrimitive(FRAMEBUFFER_PLUGIN, "primitiveFramebufferDamage", NilObject.SINGLETON);
+        assertArrayEquals(new long[]{0, 0, 4, 3}, damage.getLongStorage());
+        assertSame(NilObject.SINGLETON, runNamedPrimitive(FRAMEBUFFER_PLUGIN, "primitiveFramebufferDamage", NilObject.SINGLETON));
+        display.showDisplayBitsLeftTopRightBottom(form, 1, 2, 3, 3);
+        final ArrayObject partialDamage = (ArrayObject) runNamedPrimitive(FRAMEBUFFER_PLUGIN, "primitiveFramebufferDamage", NilObject.SINGLETON);
+        assertArrayEquals(new long[]{1, 2, 3, 3}, partialDamage.getLongStorage());
+        display.close();
+    }
+
+    @Test
+    public void testFramebufferWritePNG() throws IOException {
+        openFramebuffer(newForm(4, 3, FRAMEBUFFER_PIXELS));
+        final Path file = Files.createTempFile("trufflesqueak", ".png");
+        try {
+            final Object fd = openFile(file, true);
+            assertSame(NilObject.SINGLETON, runNamedPrimitive(FRAMEBUFFER_PLUGIN, "primitiveFramebufferWritePNG", NilObject.SINGLETON, fd));
+            closeFile(fd);
+            final BufferedImage png = ImageIO.read(file.toFile());
+            assertEquals(4, png.getWidth());
+            assertEquals(3, png.getHeight());
+            for (int i = 0; i < FRAMEBUFFER_PIXELS.length; i++) {
+                assertEquals("pixel " + i, FRAMEBUFFER_PIXELS[i] & 0xFFFFFF, png.getRGB(i % 4, i / 4) & 0xFFFFFF);
+            }
+        } finally {
+            image.getDisplay().close();
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testFramebufferWriteRGBA() throws IOException {
+        openFramebuffer(newForm(4, 3, FRAMEBUFFER_PIXELS));
+        final Path file = Files.createTempFile("trufflesqueak", ".rgba");
+        try {
+            final Object fd = openFile(file, true);
+            /* Frames are appended, so a handle can be used for a stream of frames. */
+            runNamedPrimitive(FRAMEBUFFER_PLUGIN, "primitiveFramebufferWriteRGBA", NilObject.SINGLETON, fd);
+            runNamedPrimitive(FRAMEBUFFER_PLUGIN, "primitiveFramebufferWriteRGBA", NilObject.SINGLETON, fd);
+            closeFile(fd);
+            final int frameSize = FRAMEBUFFER_PIXELS.length * 4;
+            final byte[] expected = new byte[frameSize * 2];
+            for (int i = 0; i < expected.length; i += 4) {
+                final int pixel = FRAMEBUFFER_PIXELS[i % frameSize / 4];
+                expected[i] = (byte) (pixel >> 16);
+                expected[i + 1] = (byte) (pixel >> 8);
+                expected[i + 2] = (byte) pixel;
+                expected[i + 3] = (byte) 0xFF;
+            }
+            assertArrayEquals(expected, Files.readAllBytes(file));
+        } finally {
+            image.getDisplay().close();
+            Files.delete(file);
+        }
+    }
+}
@@ -77,4 +77,17 @@ public final class SqueakPrimitiveTest extends AbstractSqueakTestCaseWithDummyIm
         assertEquals(wrapNode.executeWrap(Long.MAX_VALUE),
                         runBinaryPrimitive(22, wrapNode.executeWrap(new LargeIntegerObject(image, BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE))), wrapNode.executeWrap(1L)));
     }
+
+    @Test
+    public void testMul() {
+        final Object[][] testValues = new Object[][]{
+                        {(long) Integer.MAX_VALUE, 2L, 2 * (long) Integer.MAX_VALUE},
+                        {Long.MAX_VALUE, Long.MAX_VALUE, new LargeIntegerObject(image, BigInteger.valueOf(Long.MAX_VALUE).multiply(BigInteger.valueOf(Long.MAX_VALUE)))},
+                        {Long.MIN_VALUE, Long.MAX_VALUE, new LargeIntegerObject(image, BigInteger.valueOf(Long.MIN_VALUE).multiply(BigInteger.valueOf(Long.MAX_VALUE)))},
+                        {Long.MIN_VALUE, -1L, new LargeIntegerObject(image, BigInteger.valueOf(Long.MIN_VALUE).negate())}};
+        final WrapToSqueakNode wrapNode = WrapToSqueakNode.getUncached();
+        for (final Object[] values : testValues) {
+            assertEquals(wrapNode.executeWrap(values[2]), runBinaryPrimitive(9, wrapNode.executeWrap(values[0]), wrapNode.executeWrap(values[1])));
+        }
+    }
 }
@@ -58,6 +58,14 @@ public final class SqueakLanguage extends TruffleLanguage<SqueakImageContext> {
         }
     }
 
+    @Override
+    protected void disposeContext(final SqueakImageContext context) {
+        if (context.contextStatistics != null) {
+            context.contextStatistics.print(context.getOutput());
+        }
+        context.stdio.shutdown();
+    }
+
     @Override
     protected boolean isThreadAccessAllowed(final Thread thread, final boolean singleThreaded) {
         return true; // TODO: Experimental, make TruffleSqueak work in multiple threads.
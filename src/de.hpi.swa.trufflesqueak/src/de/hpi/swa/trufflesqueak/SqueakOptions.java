@@ -9,6 +9,7 @@ import org.graalvm.options.OptionCategory;
 import org.graalvm.options.OptionDescriptors;
 import org.graalvm.options.OptionKey;
 import org.graalvm.options.OptionStability;
+import org.graalvm.options.OptionType;
 import org.graalvm.options.OptionValues;
 
 import com.oracle.truffle.api.Option;
@@ -26,12 +27,33 @@ public final class SqueakOptions {
     @Option(name = SqueakLanguageOptions.IMAGE_ARGUMENTS, category = OptionCategory.USER, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.IMAGE_ARGUMENTS_HELP)//
     public static final OptionKey<String> ImageArguments = new OptionKey<>("");
 
+    @Option(name = SqueakLanguageOptions.ASYNC_DISPLAY, category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.ASYNC_DISPLAY_HELP)//
+    public static final OptionKey<Boolean> AsyncDisplay = new OptionKey<>(false);
+
+    @Option(name = SqueakLanguageOptions.BITBLT_FAST_PATHS, category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.BITBLT_FAST_PATHS_HELP)//
+    public static final OptionKey<Boolean> BitBltFastPaths = new OptionKey<>(true);
+
+    @Option(name = SqueakLanguageOptions.BITBLT_PARALLEL, category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.BITBLT_PARALLEL_HELP)//
+    public static final OptionKey<Boolean> BitBltParallel = new OptionKey<>(false);
+
+    @Option(name = SqueakLanguageOptions.CONTEXT_STATS, category = OptionCategory.INTERNAL, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.CONTEXT_STATS_HELP)//
+    public static final OptionKey<Boolean> ContextStats = new OptionKey<>(false);
+
+    @Option(name = SqueakLanguageOptions.FRAMEBUFFER, category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.FRAMEBUFFER_HELP)//
+    public static final OptionKey<Boolean> Framebuffer = new OptionKey<>(false);
+
     @Option(name = SqueakLanguageOptions.HEADLESS, category = OptionCategory.USER, stability = OptionStability.STABLE, help = SqueakLanguageOptions.HEADLESS_HELP)//
     public static final OptionKey<Boolean> Headless = new OptionKey<>(true);
 
+    @Option(name = SqueakLanguageOptions.INCREMENTAL_GC, category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.INCREMENTAL_GC_HELP)//
+    public static final OptionKey<GCPolicy> IncrementalGC = new OptionKey<>(GCPolicy.YOUNG, new OptionType<>("GCPolicy", GCPolicy::fromString));
+
     @Option(name = SqueakLanguageOptions.INTERCEPT_MESSAGES, category = OptionCategory.INTERNAL, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.INTERCEPT_MESSAGES_HELP)//
     public static final OptionKey<String> InterceptMessages = new OptionKey<>("");
 
+    @Option(name = SqueakLanguageOptions.PERFORM_CACHE_SIZE, category = OptionCategory.EXPERT, stability = OptionStability.EXPERIMENTAL, help = SqueakLanguageOptions.PERFORM_CACHE_SIZE_HELP)//
+    public static final OptionKey<Integer> PerformCacheSize = new OptionKey<>(8);
+
     @Option(name = SqueakLanguageOptions.QUIET, category = OptionCategory.USER, stability = OptionStability.STABLE, help = SqueakLanguageOptions.QUIET_HELP)//
     public static final OptionKey<Boolean> Quiet = new OptionKey<>(true);
 
@@ -53,6 +75,20 @@ public final class SqueakOptions {
     private SqueakOptions() { // no instances
     }
 
+    public enum GCPolicy {
+        FULL,
+        YOUNG;
+
+        private static GCPolicy fromString(final String value) {
+            for (final GCPolicy policy : values()) {
+                if (policy.name().equalsIgnoreCase(value)) {
+                    return policy;
+                }
+            }
+            throw new IllegalArgumentException("Unknown GC policy '" + value + "' (expected 'full' or 'young')");
+        }
+    }
+
     public static OptionDescriptors createDescriptors() {
         return new SqueakOptionsOptionDescriptors();
     }
@@ -64,7 +100,14 @@ public final class SqueakOptions {
         public final boolean isQuiet;
         public final boolean disableInterruptHandler;
         public final boolean disableStartup;
+        public final boolean enableAsyncDisplay;
+        public final boolean enableBitBltFastPaths;
+        public final boolean enableParallelBitBlt;
+        public final boolean enableContextStatistics;
+        public final boolean enableFramebuffer;
         public final boolean enableStorageStrategies;
+        public final GCPolicy incrementalGCPolicy;
+        public final int performCacheSize;
         public final boolean isTesting;
         public final boolean signalInputSemaphore;
 
@@ -76,8 +119,15 @@ public final class SqueakOptions {
             isQuiet = options.get(Quiet);
             disableInterruptHandler = options.get(Interrupts);
             disableStartup = options.get(Startup);
+            enableAsyncDisplay = options.get(AsyncDisplay);
+            enableBitBltFastPaths = options.get(BitBltFastPaths);
+            enableParallelBitBlt = options.get(BitBltParallel);
+            enableContextStatistics = options.get(ContextStats);
+            enableFramebuffer = options.get(Framebuffer);
             signalInputSemaphore = options.get(SignalInputSemaphore);
             enableStorageStrategies = options.get(StorageStrategies);
+            incrementalGCPolicy = options.get(IncrementalGC);
+            performCacheSize = options.get(PerformCacheSize);
             isTesting = options.get(Testing);
         }
     }
@@ -10,6 +10,7 @@ import java.lang.ref.ReferenceQueue;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
@@ -32,6 +33,7 @@ import de.hpi.swa.trufflesqueak.exceptions.SqueakExceptions.SqueakException;
 import de.hpi.swa.trufflesqueak.interop.LookupMethodByStringNode;
 import de.hpi.swa.trufflesqueak.io.SqueakDisplay;
 import de.hpi.swa.trufflesqueak.io.SqueakDisplayInterface;
+import de.hpi.swa.trufflesqueak.io.SqueakFramebufferDisplay;
 import de.hpi.swa.trufflesqueak.model.AbstractSqueakObject;
 import de.hpi.swa.trufflesqueak.model.AbstractSqueakObjectWithClassAndHash;
 import de.hpi.swa.trufflesqueak.model.ArrayObject;
@@ -54,12 +56,17 @@ import de.hpi.swa.trufflesqueak.nodes.ExecuteTopLevelContextNode;
 import de.hpi.swa.trufflesqueak.nodes.accessing.AbstractPointersObjectNodes.AbstractPointersObjectWriteNode;
 import de.hpi.swa.trufflesqueak.nodes.bytecodes.MiscellaneousBytecodes.CallPrimitiveNode;
 import de.hpi.swa.trufflesqueak.nodes.interrupts.CheckForInterruptsState;
+import de.hpi.swa.trufflesqueak.nodes.plugins.AioEventDispatcher;
 import de.hpi.swa.trufflesqueak.nodes.plugins.B2D;
 import de.hpi.swa.trufflesqueak.nodes.plugins.BitBlt;
+import de.hpi.swa.trufflesqueak.nodes.plugins.DirectoryLookupCache;
 import de.hpi.swa.trufflesqueak.nodes.plugins.JPEGReader;
+import de.hpi.swa.trufflesqueak.nodes.plugins.PolyglotEvalCache;
+import de.hpi.swa.trufflesqueak.nodes.plugins.StdioChannels;
 import de.hpi.swa.trufflesqueak.nodes.plugins.Zip;
 import de.hpi.swa.trufflesqueak.nodes.process.GetActiveProcessNode;
 import de.hpi.swa.trufflesqueak.shared.SqueakImageLocator;
+import de.hpi.swa.trufflesqueak.tools.ContextStatistics;
 import de.hpi.swa.trufflesqueak.tools.SqueakMessageInterceptor;
 import de.hpi.swa.trufflesqueak.util.ArrayUtils;
 import de.hpi.swa.trufflesqueak.util.MethodCacheEntry;
@@ -129,6 +136,7 @@ public final class SqueakImageContext {
     private long globalClassCounter = -1;
     @CompilationFinal private SqueakDisplayInterface display;
     public final CheckForInterruptsState interrupt;
+    public final ContextStatistics contextStatistics;
     public final long startUpMillis = System.currentTimeMillis();
     public final ReferenceQueue<Object> weakPointersQueue = new ReferenceQueue<>();
 
@@ -140,6 +148,7 @@ public final class SqueakImageContext {
     @CompilationFinal private PrintWriter output;
     @CompilationFinal private PrintWriter error;
     private final HashMap<Message, NativeObject> interopMessageToSelectorMap = new HashMap<>();
+    private final ConcurrentHashMap<String, NativeObject> symbolTable = new ConcurrentHashMap<>();
 
     @CompilationFinal private SqueakImage squeakImage;
 
@@ -156,10 +165,14 @@ public final class SqueakImageContext {
     @CompilationFinal private ClassObject wideStringClass;
 
     /* Plugins */
+    public final AioEventDispatcher aio = new AioEventDispatcher(this);
     public final B2D b2d = new B2D(this);
     public final BitBlt bitblt = new BitBlt(this);
+    public final DirectoryLookupCache directoryLookupCache = new DirectoryLookupCache();
     public String[] dropPluginFileList = new String[0];
     public final JPEGReader jpegReader = new JPEGReader();
+    public final PolyglotEvalCache polyglotEvalCache = new PolyglotEvalCache();
+    public final StdioChannels stdio = new StdioChannels(this);
     public final Zip zip = new Zip();
 
     /* Error detection for headless execution */
@@ -174,6 +187,7 @@ public final class SqueakImageContext {
         options = new SqueakContextOptions(env);
         isHeadless = options.isHeadless;
         interrupt = new CheckForInterruptsState(this);
+        contextStatistics = options.enableContextStatistics ? new ContextStatistics() : null;
         allocationReporter = env.lookup(AllocationReporter.class);
         SqueakMessageInterceptor.enableIfRequested(environment);
         final String truffleLanguageHome = language.getTruffleLanguageHome();
@@ -243,8 +257,11 @@ public final class SqueakImageContext {
     public boolean patch(final SqueakLanguage.Env newEnv) {
         CompilerDirectives.transferToInterpreterAndInvalidate();
         env = newEnv;
-        output = new PrintWriter(env.out(), true);
-        error = new PrintWriter(env.err(), true);
+        stdio.reset();
+        polyglotEvalCache.clear();
+        /* Share the batched stdio streams, so that output of the VM and the image stays in order. */
+        output = new PrintWriter(stdio.getOut(), true);
+        error = new PrintWriter(stdio.getErr(), true);
         return true;
     }
 
@@ -603,6 +620,9 @@ public final class SqueakImageContext {
         if (!isHeadless) {
             CompilerDirectives.transferToInterpreterAndInvalidate();
             display = new SqueakDisplay(this);
+        } else if (options.enableFramebuffer) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            display = new SqueakFramebufferDisplay(this);
         }
     }
 
@@ -739,9 +759,20 @@ public final class SqueakImageContext {
         return NativeObject.newNativeBytes(this, byteStringClass, MiscUtils.stringToBytes(value));
     }
 
+    /**
+     * Interns symbols through Smalltalk only once. Symbols are unique and never change, so the
+     * table keeps them alive but never needs to be invalidated.
+     */
     public NativeObject asByteSymbol(final String value) {
         CompilerAsserts.neverPartOfCompilation();
-        return (NativeObject) asByteString(value).send(this, "asSymbol");
+        final NativeObject symbol = symbolTable.get(value);
+        if (symbol != null) {
+            return symbol;
+        }
+        /* Not computeIfAbsent, interning runs Smalltalk code, which may intern symbols itself. */
+        final NativeObject newSymbol = (NativeObject) asByteString(value).send(this, "asSymbol");
+        final NativeObject existing = symbolTable.putIfAbsent(value, newSymbol);
+        return existing != null ? existing : newSymbol;
     }
 
     public NativeObject asWideString(final String value) {
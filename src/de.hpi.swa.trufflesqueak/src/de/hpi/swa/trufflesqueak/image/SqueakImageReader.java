@@ -7,6 +7,9 @@ package de.hpi.swa.trufflesqueak.image;
 
 import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 
@@ -30,6 +33,13 @@ import de.hpi.swa.trufflesqueak.util.MiscUtils;
 import de.hpi.swa.trufflesqueak.util.UnsafeUtils;
 
 public final class SqueakImageReader {
+    /*
+     * Bytecodes decoded from the image file loaded last. Contexts that load the same, unmodified
+     * image share these arrays instead of allocating their own copies. CompiledCodeObjects copy
+     * their bytecodes before the first write, so that contexts stay isolated from each other.
+     */
+    private static SoftReference<SharedBytecodes> sharedBytecodes = new SoftReference<>(null);
+
     protected SqueakImageChunk hiddenRootsChunk;
 
     private final BufferedInputStream stream;
@@ -43,6 +53,7 @@ public final class SqueakImageReader {
     private int position;
     private long currentAddressSwizzle;
     private final byte[] emptyBytes = new byte[0];
+    private final SharedBytecodes bytecodes;
 
     private SqueakImageChunk freePageList;
 
@@ -52,17 +63,73 @@ public final class SqueakImageReader {
             throw SqueakException.create(MiscUtils.format("Image at '%s' does not exist.", image.getImagePath()));
         }
         BufferedInputStream inputStream = null;
+        SharedBytecodes sharedBytecodesOrNull = null;
         try {
             inputStream = new BufferedInputStream(truffleFile.newInputStream());
+            sharedBytecodesOrNull = getSharedBytecodes(truffleFile);
         } catch (final IOException e) {
             if (!image.isTesting()) {
                 throw SqueakException.create(e);
             }
         }
         stream = inputStream;
+        bytecodes = sharedBytecodesOrNull;
         this.image = image;
     }
 
+    private static final class SharedBytecodes {
+        private final TruffleFile file;
+        private final long size;
+        private final FileTime lastModifiedTime;
+        private final HashMap<Integer, byte[]> bytecodesByPosition = new HashMap<>();
+
+        private SharedBytecodes(final TruffleFile file, final long size, final FileTime lastModifiedTime) {
+            this.file = file;
+            this.size = size;
+            this.lastModifiedTime = lastModifiedTime;
+        }
+
+        private boolean isValidFor(final TruffleFile otherFile, final long otherSize, final FileTime otherLastModifiedTime) {
+            return size == otherSize && lastModifiedTime.equals(otherLastModifiedTime) && file.getPath().equals(otherFile.getPath());
+        }
+
+        private synchronized byte[] share(final int position, final byte[] chunkBytes, final int start) {
+            final byte[] shared = bytecodesByPosition.get(position);
+            if (shared != null && shared.length == chunkBytes.length - start) {
+                return shared;
+            }
+            final byte[] bytes = Arrays.copyOfRange(chunkBytes, start, chunkBytes.length);
+            bytecodesByPosition.put(position, bytes);
+            return bytes;
+        }
+    }
+
+    private static synchronized SharedBytecodes getSharedBytecodes(final TruffleFile truffleFile) throws IOException {
+        final TruffleFile file = truffleFile.getCanonicalFile();
+        final long size = file.size();
+        final FileTime lastModifiedTime = file.getLastModifiedTime();
+        final SharedBytecodes shared = sharedBytecodes.get();
+        if (shared != null && shared.isValidFor(file, size, lastModifiedTime)) {
+            return shared;
+        }
+        final SharedBytecodes newShared = new SharedBytecodes(file, size, lastModifiedTime);
+        sharedBytecodes = new SoftReference<>(newShared);
+        return newShared;
+    }
+
+    /**
+     * Returns the bytecodes of a CompiledCode chunk, starting at the given byte offset. The
+     * returned array may be shared with other contexts that loaded the same image and must be
+     * copied before it is modified.
+     */
+    public byte[] getSharedBytecodes(final SqueakImageChunk chunk, final int start) {
+        final byte[] chunkBytes = chunk.getBytes();
+        if (bytecodes == null) {
+            return Arrays.copyOfRange(chunkBytes, start, chunkBytes.length);
+        }
+        return bytecodes.share(chunk.getPosition(), chunkBytes, start);
+    }
+
     /*
      * Image reading happens only once per TruffleSqueak instance and should therefore be excluded
      * from Truffle compilation.
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2017-2021 Software Architecture Group, Hasso Plattner Institute
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.interop;
+
+import java.nio.ByteOrder;
+
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.interop.InteropLibrary;
+import com.oracle.truffle.api.interop.InvalidBufferOffsetException;
+import com.oracle.truffle.api.interop.UnsupportedMessageException;
+import com.oracle.truffle.api.library.Message;
+
+import de.hpi.swa.trufflesqueak.model.AbstractSqueakObject;
+import de.hpi.swa.trufflesqueak.model.ArrayObject;
+import de.hpi.swa.trufflesqueak.model.NativeObject;
+import de.hpi.swa.trufflesqueak.util.UnsafeUtils;
+
+/**
+ * Implements the buffer messages of the {@link InteropLibrary} directly on the storage of Squeak
+ * objects, so that other languages can access their bytes without copying. All storage types of
+ * {@link NativeObject}s are exposed as writable buffers. {@link ArrayObject}s with long or double
+ * storage are exposed as read-only buffers, as arbitrary writes could produce the tag values that
+ * these storage strategies use to encode nil. Reads see nil slots as zero bytes instead of the tag
+ * values.
+ */
+public final class InteropBufferAccess {
+    private static final Message HAS_BUFFER_ELEMENTS = Message.resolve(InteropLibrary.class, "hasBufferElements");
+    private static final Message IS_BUFFER_WRITABLE = Message.resolve(InteropLibrary.class, "isBufferWritable");
+    private static final Message GET_BUFFER_SIZE = Message.resolve(InteropLibrary.class, "getBufferSize");
+    private static final Message READ_BUFFER_BYTE = Message.resolve(InteropLibrary.class, "readBufferByte");
+    private static final Message WRITE_BUFFER_BYTE = Message.resolve(InteropLibrary.class, "writeBufferByte");
+    private static final Message READ_BUFFER_SHORT = Message.resolve(InteropLibrary.class, "readBufferShort");
+    private static final Message WRITE_BUFFER_SHORT = Message.resolve(InteropLibrary.class, "writeBufferShort");
+    private static final Message READ_BUFFER_INT = Message.resolve(InteropLibrary.class, "readBufferInt");
+    private static final Message WRITE_BUFFER_INT = Message.resolve(InteropLibrary.class, "writeBufferInt");
+    private static final Message READ_BUFFER_LONG = Message.resolve(InteropLibrary.class, "readBufferLong");
+    private static final Message WRITE_BUFFER_LONG = Message.resolve(InteropLibrary.class, "writeBufferLong");
+    private static final Message READ_BUFFER_FLOAT = Message.resolve(InteropLibrary.class, "readBufferFloat");
+    private static final Message WRITE_BUFFER_FLOAT = Message.resolve(InteropLibrary.class, "writeBufferFloat");
+    private static final Message READ_BUFFER_DOUBLE = Message.resolve(InteropLibrary.class, "readBufferDouble");
+    private static final Message WRITE_BUFFER_DOUBLE = Message.resolve(InteropLibrary.class, "writeBufferDouble");
+
+    private InteropBufferAccess() {
+    }
+
+    public static boolean isBufferMessage(final Message message) {
+        return message == HAS_BUFFER_ELEMENTS || message == IS_BUFFER_WRITABLE || message == GET_BUFFER_SIZE || message == READ_BUFFER_BYTE || message == WRITE_BUFFER_BYTE ||
+                        message == READ_BUFFER_SHORT || message == WRITE_BUFFER_SHORT || message == READ_BUFFER_INT || message == WRITE_BUFFER_INT || message == READ_BUFFER_LONG ||
+                        message == WRITE_BUFFER_LONG || message == READ_BUFFER_FLOAT || message == WRITE_BUFFER_FLOAT || message == READ_BUFFER_DOUBLE || message == WRITE_BUFFER_DOUBLE;
+    }
+
+    public static Object send(final AbstractSqueakObject receiver, final Message message, final Object[] arguments) throws UnsupportedMessageException, InvalidBufferOffsetException {
+        final Object storage = getStorageOrNull(receiver);
+        if (message == HAS_BUFFER_ELEMENTS) {
+            return storage != null;
+        } else if (storage == null) {
+            throw UnsupportedMessageException.create();
+        } else if (message == IS_BUFFER_WRITABLE) {
+            return receiver instanceof NativeObject;
+        } else if (message == GET_BUFFER_SIZE) {
+            return UnsafeUtils.getArrayByteSize(storage);
+        }
+        final long byteOffset = (long) arguments[message == READ_BUFFER_BYTE || message == WRITE_BUFFER_BYTE ? 0 : 1];
+        if (isReadMessage(message)) {
+            return read(receiver, storage, message, arguments, byteOffset);
+        } else if (!(receiver instanceof NativeObject)) {
+            throw UnsupportedMessageException.create();
+        } else if (message == WRITE_BUFFER_BYTE) {
+            UnsafeUtils.putByteAt(storage, address(storage, byteOffset, Byte.BYTES), (byte) arguments[1]);
+        } else if (message == WRITE_BUFFER_SHORT) {
+            UnsafeUtils.putShortAt(storage, address(storage, byteOffset, Short.BYTES), order(arguments, (short) arguments[2]));
+        } else if (message == WRITE_BUFFER_INT) {
+            UnsafeUtils.putIntAt(storage, address(storage, byteOffset, Integer.BYTES), order(arguments, (int) arguments[2]));
+        } else if (message == WRITE_BUFFER_LONG) {
+            UnsafeUtils.putLongAt(storage, address(storage, byteOffset, Long.BYTES), order(arguments, (long) arguments[2]));
+        } else if (message == WRITE_BUFFER_FLOAT) {
+            UnsafeUtils.putIntAt(storage, address(storage, byteOffset, Float.BYTES), order(arguments, Float.floatToRawIntBits((float) arguments[2])));
+        } else if (message == WRITE_BUFFER_DOUBLE) {
+            UnsafeUtils.putLongAt(storage, address(storage, byteOffset, Double.BYTES), order(arguments, Double.doubleToRawLongBits((double) arguments[2])));
+        } else {
+            throw CompilerDirectives.shouldNotReachHere("Unexpected buffer message: " + message);
+        }
+        return null; /* Write messages return void. */
+    }
+
+    private static boolean isReadMessage(final Message message) {
+        return message == READ_BUFFER_BYTE || message == READ_BUFFER_SHORT || message == READ_BUFFER_INT || message == READ_BUFFER_LONG || message == READ_BUFFER_FLOAT ||
+                        message == READ_BUFFER_DOUBLE;
+    }
+
+    private static Object read(final AbstractSqueakObject receiver, final Object storage, final Message message, final Object[] arguments, final long byteOffset)
+                    throws InvalidBufferOffsetException {
+        final int length = message == READ_BUFFER_BYTE ? Byte.BYTES : message == READ_BUFFER_SHORT ? Short.BYTES : message == READ_BUFFER_INT || message == READ_BUFFER_FLOAT ? Integer.BYTES : Long.BYTES;
+        final long storageAddress = address(storage, byteOffset, length);
+        final Object source;
+        final long address;
+        if (receiver instanceof ArrayObject) {
+            source = slotsWithoutNilTags(storage, byteOffset, length);
+            address = UnsafeUtils.getArrayBaseOffset(source) + byteOffset % Long.BYTES;
+        } else {
+            source = storage;
+            address = storageAddress;
+        }
+        if (message == READ_BUFFER_BYTE) {
+            return UnsafeUtils.getByteAt(source, address);
+        } else if (message == READ_BUFFER_SHORT) {
+            return order(arguments, UnsafeUtils.getShortAt(source, address));
+        } else if (message == READ_BUFFER_INT) {
+            return order(arguments, UnsafeUtils.getIntAt(source, address));
+        } else if (message == READ_BUFFER_LONG) {
+            return order(arguments, UnsafeUtils.getLongAt(source, address));
+        } else if (message == READ_BUFFER_FLOAT) {
+            return Float.intBitsToFloat(order(arguments, UnsafeUtils.getIntAt(source, address)));
+        } else {
+            assert message == READ_BUFFER_DOUBLE;
+            return Double.longBitsToDouble(order(arguments, UnsafeUtils.getLongAt(source, address)));
+        }
+    }
+
+    /* Copies the (at most two) slots covered by a read, with nil slots replaced by zero. */
+    private static long[] slotsWithoutNilTags(final Object storage, final long byteOffset, final int length) {
+        final int first = (int) (byteOffset / Long.BYTES);
+        final int last = (int) ((byteOffset + length - 1) / Long.BYTES);
+        final long[] slots = new long[2];
+        for (int i = first; i <= last; i++) {
+            final long bits;
+            if (storage instanceof long[]) {
+                final long value = ((long[]) storage)[i];
+                bits = ArrayObject.isLongNilTag(value) ? 0L : value;
+            } else {
+                final double value = ((double[]) storage)[i];
+                bits = ArrayObject.isDoubleNilTag(value) ? 0L : Double.doubleToRawLongBits(value);
+            }
+            slots[i - first] = bits;
+        }
+        return slots;
+    }
+
+    private static Object getStorageOrNull(final AbstractSqueakObject receiver) {
+        if (receiver instanceof NativeObject) {
+            final NativeObject object = (NativeObject) receiver;
+            if (object.isByteType()) {
+                return object.getByteStorage();
+            } else if (object.isShortType()) {
+                return object.getShortStorage();
+            } else if (object.isIntType()) {
+                return object.getIntStorage();
+            } else {
+                assert object.isLongType();
+                return object.getLongStorage();
+            }
+        } else if (receiver instanceof ArrayObject) {
+            final ArrayObject object = (ArrayObject) receiver;
+            if (object.isLongType()) {
+                return object.getLongStorage();
+            } else if (object.isDoubleType()) {
+                return object.getDoubleStorage();
+            }
+        }
+        return null;
+    }
+
+    private static long address(final Object storage, final long byteOffset, final int length) throws InvalidBufferOffsetException {
+        if (byteOffset < 0 || byteOffset > UnsafeUtils.getArrayByteSize(storage) - length) {
+            throw InvalidBufferOffsetException.create(byteOffset, length);
+        }
+        return UnsafeUtils.getArrayBaseOffset(storage) + byteOffset;
+    }
+
+    /* Except for byte accesses, the byte order is the first argument and precedes the byte offset. */
+
+    private static short order(final Object[] arguments, final short value) {
+        return isNativeOrder(arguments) ? value : Short.reverseBytes(value);
+    }
+
+    private static int order(final Object[] arguments, final int value) {
+        return isNativeOrder(arguments) ? value : Integer.reverseBytes(value);
+    }
+
+    private static long order(final Object[] arguments, final long value) {
+        return isNativeOrder(arguments) ? value : Long.reverseBytes(value);
+    }
+
+    private static boolean isNativeOrder(final Object[] arguments) {
+        return arguments[0] == ByteOrder.nativeOrder();
+    }
+}
@@ -5,15 +5,23 @@
  */
 package de.hpi.swa.trufflesqueak.interop;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.WeakHashMap;
 
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Cached.Shared;
@@ -30,6 +38,7 @@ import com.oracle.truffle.api.interop.UnsupportedTypeException;
 import com.oracle.truffle.api.library.CachedLibrary;
 import com.oracle.truffle.api.library.ExportLibrary;
 import com.oracle.truffle.api.library.ExportMessage;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
 import com.oracle.truffle.api.nodes.Node;
 
 import de.hpi.swa.trufflesqueak.model.BooleanObject;
@@ -40,102 +49,397 @@ import de.hpi.swa.trufflesqueak.nodes.SqueakGuards;
 @ExportLibrary(InteropLibrary.class)
 public final class JavaObjectWrapper implements TruffleObject {
     protected static final int LIMIT = 2;
-    private static final WeakHashMap<Object, JavaObjectWrapper> CACHE = new WeakHashMap<>();
-    private static final ClassValue<HashMap<String, Field>> CLASSES_TO_FIELDS = new ClassValue<HashMap<String, Field>>() {
+    protected static final int INLINE_CACHE_SIZE = 3;
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final WrapperCache CACHE = new WrapperCache();
+    private static final ClassValue<ClassMembers> CLASSES_TO_MEMBERS = new ClassValue<ClassMembers>() {
         @Override
-        @SuppressWarnings("deprecation") // isAccessible deprecated in Java 11
-        protected HashMap<String, Field> computeValue(final Class<?> type) {
-            final HashMap<String, Field> result = new HashMap<>();
+        protected ClassMembers computeValue(final Class<?> type) {
+            return new ClassMembers(type);
+        }
+    };
+
+    private final Object wrappedObject;
+
+    private JavaObjectWrapper(final Object object) {
+        wrappedObject = object;
+    }
+
+    @TruffleBoundary
+    public static Object wrap(final Object object) {
+        if (object == null) {
+            return NilObject.SINGLETON;
+        } else if (SqueakGuards.isUsedJavaPrimitive(object) || object instanceof JavaObjectWrapper) {
+            return object;
+        } else if (object instanceof Byte) {
+            return (long) (byte) object;
+        } else if (object instanceof Integer) {
+            return (long) (int) object;
+        } else if (object instanceof Float) {
+            return (double) (float) object;
+        } else {
+            return CACHE.get(object);
+        }
+    }
+
+    /**
+     * Wrappers by identity of the wrapped object. Entries only reference their wrappers weakly, and
+     * wrappers keep their objects alive, so an entry is dropped as soon as its wrapper is no longer
+     * used. Wrappers compare by identity of the wrapped object, so a new wrapper for the same object
+     * is indistinguishable from the old one.
+     */
+    private static final class WrapperCache {
+        private static final int INITIAL_CAPACITY = 64;
+
+        private final ReferenceQueue<JavaObjectWrapper> queue = new ReferenceQueue<>();
+        private Entry[] table = new Entry[INITIAL_CAPACITY]; // guarded by this
+        private int size; // guarded by this
+
+        private static final class Entry extends WeakReference<JavaObjectWrapper> {
+            private final int hash;
+            private Entry next;
+
+            private Entry(final JavaObjectWrapper wrapper, final int hash, final Entry next, final ReferenceQueue<JavaObjectWrapper> queue) {
+                super(wrapper, queue);
+                this.hash = hash;
+                this.next = next;
+            }
+        }
+
+        private synchronized JavaObjectWrapper get(final Object object) {
+            expungeStaleEntries();
+            final int hash = System.identityHashCode(object);
+            final int index = hash & table.length - 1;
+            for (Entry entry = table[index]; entry != null; entry = entry.next) {
+                final JavaObjectWrapper wrapper = entry.get();
+                if (wrapper != null && wrapper.wrappedObject == object) {
+                    return wrapper;
+                }
+            }
+            final JavaObjectWrapper wrapper = new JavaObjectWrapper(object);
+            table[index] = new Entry(wrapper, hash, table[index], queue);
+            if (++size > table.length / 4 * 3) {
+                resize();
+            }
+            return wrapper;
+        }
+
+        private void expungeStaleEntries() {
+            Object stale;
+            while ((stale = queue.poll()) != null) {
+                final int index = ((Entry) stale).hash & table.length - 1;
+                Entry previous = null;
+                for (Entry entry = table[index]; entry != null; previous = entry, entry = entry.next) {
+                    if (entry == stale) {
+                        if (previous == null) {
+                            table[index] = entry.next;
+                        } else {
+                            previous.next = entry.next;
+                        }
+                        size--;
+                        break;
+                    }
+                }
+            }
+        }
+
+        private void resize() {
+            final Entry[] newTable = new Entry[table.length * 2];
+            for (Entry entry : table) {
+                while (entry != null) {
+                    final Entry next = entry.next;
+                    final int index = entry.hash & newTable.length - 1;
+                    entry.next = newTable[index];
+                    newTable[index] = entry;
+                    entry = next;
+                }
+            }
+            table = newTable;
+        }
+    }
+
+    /**
+     * Fields and methods of a class and its superclasses. Methods are grouped by name so that
+     * overloads can be selected by arity and argument types. Fields of subclasses shadow fields of
+     * superclasses, and overridden methods are only included once.
+     */
+    private static final class ClassMembers {
+        private final HashMap<String, JavaField> fields = new HashMap<>();
+        private final HashMap<String, JavaMethod[]> methods = new HashMap<>();
+        private final InteropArray members;
+
+        private ClassMembers(final Class<?> type) {
+            final HashMap<String, ArrayList<JavaMethod>> overloads = new HashMap<>();
+            final HashSet<String> signatures = new HashSet<>();
             Class<?> currentClass = type;
             while (currentClass != null) {
                 for (final Field field : currentClass.getDeclaredFields()) {
-                    if (!field.isAccessible()) {
-                        try {
-                            field.setAccessible(true);
-                        } catch (final Exception e) {
-                            continue; // skip inaccessible fields
+                    final String name = field.getName();
+                    if (name.indexOf('$') < 0 && !fields.containsKey(name)) {
+                        final JavaField javaField = JavaField.create(field);
+                        if (javaField != null) { // skip inaccessible fields
+                            fields.put(name, javaField);
                         }
                     }
-                    final String name = field.getName();
-                    if (name.indexOf('$') < 0) {
-                        result.put(field.getName(), field);
+                }
+                for (final Method method : currentClass.getDeclaredMethods()) {
+                    final String name = method.getName();
+                    if (name.indexOf('$') < 0 && !method.isBridge() && signatures.add(name + Arrays.toString(method.getParameterTypes()))) {
+                        final JavaMethod javaMethod = JavaMethod.create(method);
+                        if (javaMethod != null) { // skip inaccessible methods
+                            overloads.computeIfAbsent(name, n -> new ArrayList<>()).add(javaMethod);
+                        }
                     }
                 }
                 currentClass = currentClass.getSuperclass();
             }
-            return result;
+            overloads.forEach((name, list) -> methods.put(name, list.toArray(new JavaMethod[0])));
+            final HashSet<String> names = new HashSet<>(fields.keySet());
+            names.addAll(methods.keySet());
+            members = new InteropArray(names.toArray(new String[0]));
         }
-    };
-    private static final ClassValue<HashMap<String, Method>> CLASSES_TO_METHODS = new ClassValue<HashMap<String, Method>>() {
-        @Override
+    }
+
+    /** A field accessed through method handles. The setter is null for final fields. */
+    protected static final class JavaField {
+        private final Class<?> type;
+        private final MethodHandle getter; // (Object)Object
+        private final MethodHandle setter; // (Object, Object)void
+
+        private JavaField(final Class<?> type, final MethodHandle getter, final MethodHandle setter) {
+            this.type = type;
+            this.getter = getter;
+            this.setter = setter;
+        }
+
         @SuppressWarnings("deprecation") // isAccessible deprecated in Java 11
-        protected HashMap<String, Method> computeValue(final Class<?> type) {
-            final HashMap<String, Method> result = new HashMap<>();
-            Class<?> currentClass = type;
-            while (currentClass != null) {
-                for (final Method method : currentClass.getDeclaredMethods()) {
-                    if (!method.isAccessible()) {
-                        try {
-                            method.setAccessible(true);
-                        } catch (final Exception e) {
-                            continue; // skip inaccessible methods
+        private static JavaField create(final Field field) {
+            try {
+                if (!field.isAccessible()) {
+                    field.setAccessible(true);
+                }
+                final boolean isStatic = Modifier.isStatic(field.getModifiers());
+                MethodHandle getter = LOOKUP.unreflectGetter(field);
+                if (isStatic) {
+                    getter = MethodHandles.dropArguments(getter, 0, Object.class);
+                }
+                MethodHandle setter = null;
+                if (!(isStatic && Modifier.isFinal(field.getModifiers()))) {
+                    try {
+                        setter = LOOKUP.unreflectSetter(field);
+                        if (isStatic) {
+                            setter = MethodHandles.dropArguments(setter, 0, Object.class);
                         }
-                    }
-                    final String name = method.getName();
-                    if (name.indexOf('$') < 0) {
-                        result.put(method.getName(), method);
+                        setter = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+                    } catch (final IllegalAccessException e) {
+                        setter = null; // read-only
                     }
                 }
-                currentClass = currentClass.getSuperclass();
+                return new JavaField(field.getType(), getter.asType(MethodType.methodType(Object.class, Object.class)), setter);
+            } catch (final Exception e) {
+                return null;
             }
-            return result;
         }
-    };
-    private static final ClassValue<InteropArray> CLASSES_TO_MEMBERS = new ClassValue<InteropArray>() {
-        @Override
-        protected InteropArray computeValue(final Class<?> type) {
-            final HashSet<String> members = new HashSet<>(CLASSES_TO_FIELDS.get(type).keySet());
-            members.addAll(CLASSES_TO_METHODS.get(type).keySet());
-            return new InteropArray(members.toArray(new String[0]));
+
+        protected boolean isWritable() {
+            return setter != null;
         }
-    };
 
-    private final Object wrappedObject;
+        protected Object read(final Object receiver, final String member) throws UnknownIdentifierException {
+            try {
+                return wrap((Object) getter.invokeExact(receiver));
+            } catch (final Error e) {
+                throw e;
+            } catch (final Throwable e) {
+                throw UnknownIdentifierException.create(member);
+            }
+        }
 
-    private JavaObjectWrapper(final Object object) {
-        wrappedObject = object;
+        protected void write(final Object receiver, final Object value) throws UnsupportedMessageException, UnsupportedTypeException {
+            if (setter == null) {
+                throw UnsupportedMessageException.create();
+            }
+            if (conversionCost(value, type) < 0) {
+                throw UnsupportedTypeException.create(new Object[]{value});
+            }
+            try {
+                setter.invokeExact(receiver, convert(value, type));
+            } catch (final Error e) {
+                throw e;
+            } catch (final Throwable e) {
+                throw UnsupportedTypeException.create(new Object[]{value});
+            }
+        }
     }
 
-    @TruffleBoundary
-    public static Object wrap(final Object object) {
+    /** A method invoked through a spreading method handle, which is constant in compiled code. */
+    protected static final class JavaMethod {
+        @CompilationFinal(dimensions = 1) private final Class<?>[] parameterTypes;
+        private final MethodHandle handle; // (Object, Object[])Object
+
+        private JavaMethod(final Class<?>[] parameterTypes, final MethodHandle handle) {
+            this.parameterTypes = parameterTypes;
+            this.handle = handle;
+        }
+
+        @SuppressWarnings("deprecation") // isAccessible deprecated in Java 11
+        private static JavaMethod create(final Method method) {
+            try {
+                if (!method.isAccessible()) {
+                    method.setAccessible(true);
+                }
+                MethodHandle handle = LOOKUP.unreflect(method);
+                if (Modifier.isStatic(method.getModifiers())) {
+                    handle = MethodHandles.dropArguments(handle, 0, Object.class);
+                }
+                final int arity = method.getParameterCount();
+                handle = handle.asType(MethodType.genericMethodType(1 + arity)).asSpreader(Object[].class, arity);
+                return new JavaMethod(method.getParameterTypes(), handle);
+            } catch (final Exception e) {
+                return null;
+            }
+        }
+
+        /** Returns the cost of converting the arguments, or -1 if they do not fit. */
+        @ExplodeLoop
+        private int conversionCost(final Object[] arguments) {
+            if (arguments.length != parameterTypes.length) {
+                return -1;
+            }
+            int cost = 0;
+            for (int i = 0; i < parameterTypes.length; i++) {
+                final int argumentCost = JavaObjectWrapper.conversionCost(arguments[i], parameterTypes[i]);
+                if (argumentCost < 0) {
+                    return -1;
+                }
+                cost += argumentCost;
+            }
+            return cost;
+        }
+
+        @ExplodeLoop
+        protected Object invoke(final Object receiver, final Object[] arguments) throws UnsupportedTypeException {
+            final Object[] convertedArguments = new Object[parameterTypes.length];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                convertedArguments[i] = convert(arguments[i], parameterTypes[i]);
+            }
+            final Object result;
+            try {
+                result = (Object) handle.invokeExact(receiver, convertedArguments);
+            } catch (final Error e) {
+                throw e;
+            } catch (final Throwable e) {
+                throw UnsupportedTypeException.create(arguments);
+            }
+            return wrap(result);
+        }
+    }
+
+    /**
+     * Returns the cost of passing a value as the given type, or -1 if it cannot be converted.
+     * Wrappers are unwrapped, nil becomes null, and integers and floats are narrowed if they fit.
+     * Exact matches are cheapest, so that the most specific overload is selected.
+     */
+    private static int conversionCost(final Object value, final Class<?> type) {
+        final Object object = unwrap(value);
         if (object == null) {
-            return NilObject.SINGLETON;
-        } else if (SqueakGuards.isUsedJavaPrimitive(object) || object instanceof JavaObjectWrapper) {
-            return object;
-        } else if (object instanceof Byte) {
-            return (long) (byte) object;
-        } else if (object instanceof Integer) {
-            return (long) (int) object;
-        } else if (object instanceof Float) {
-            return (double) (float) object;
+            return type.isPrimitive() ? -1 : 0;
+        } else if (type == long.class || type == Long.class) {
+            return object instanceof Long ? 0 : -1;
+        } else if (type == double.class || type == Double.class) {
+            return object instanceof Double ? 0 : object instanceof Long ? 1 : -1;
+        } else if (type == boolean.class || type == Boolean.class) {
+            return object instanceof Boolean ? 0 : -1;
+        } else if (type == int.class || type == Integer.class) {
+            return object instanceof Long && (long) object == (int) (long) object ? 1 : -1;
+        } else if (type == float.class || type == Float.class) {
+            return object instanceof Double || object instanceof Long ? 1 : -1;
+        } else if (type == short.class || type == Short.class) {
+            return object instanceof Long && (long) object == (short) (long) object ? 1 : -1;
+        } else if (type == byte.class || type == Byte.class) {
+            return object instanceof Long && (long) object == (byte) (long) object ? 1 : -1;
+        } else if (type == char.class || type == Character.class) {
+            return object instanceof Character ? 0 : object instanceof Long && (long) object == (char) (long) object ? 1 : -1;
+        } else if (object.getClass() == type) {
+            return 0;
         } else {
-            return CACHE.computeIfAbsent(object, o -> new JavaObjectWrapper(o));
+            return type.isInstance(object) ? 2 : -1;
+        }
+    }
+
+    private static Object convert(final Object value, final Class<?> type) {
+        final Object object = unwrap(value);
+        if (object instanceof Long) {
+            final long longValue = (long) object;
+            if (type == int.class || type == Integer.class) {
+                return (int) longValue;
+            } else if (type == double.class || type == Double.class) {
+                return (double) longValue;
+            } else if (type == float.class || type == Float.class) {
+                return (float) longValue;
+            } else if (type == short.class || type == Short.class) {
+                return (short) longValue;
+            } else if (type == byte.class || type == Byte.class) {
+                return (byte) longValue;
+            } else if (type == char.class || type == Character.class) {
+                return (char) longValue;
+            }
+        } else if (object instanceof Double && (type == float.class || type == Float.class)) {
+            return (float) (double) object;
+        }
+        return object;
+    }
+
+    private static Object unwrap(final Object value) {
+        if (value instanceof JavaObjectWrapper) {
+            return ((JavaObjectWrapper) value).wrappedObject;
+        } else if (value == NilObject.SINGLETON) {
+            return null;
+        } else {
+            return value;
         }
     }
 
     @TruffleBoundary
-    private HashMap<String, Field> lookupFields() {
-        return CLASSES_TO_FIELDS.get(wrappedObject.getClass());
+    private static ClassMembers lookupMembers(final Class<?> type) {
+        return CLASSES_TO_MEMBERS.get(type);
     }
 
     @TruffleBoundary
-    private HashMap<String, Method> lookupMethods() {
-        return CLASSES_TO_METHODS.get(wrappedObject.getClass());
+    protected static JavaField lookupField(final Class<?> type, final String member) {
+        return lookupMembers(type).fields.get(member);
     }
 
     @TruffleBoundary
-    private InteropArray lookupMembers() {
-        return CLASSES_TO_MEMBERS.get(wrappedObject.getClass());
+    protected static JavaMethod[] lookupOverloads(final Class<?> type, final String member) {
+        return lookupMembers(type).methods.get(member);
+    }
+
+    /**
+     * Selects the overload that fits the arguments best, or returns null if none fits. Ties are
+     * broken by declaration order. Also used as guard of cached invocations, because the best
+     * overload not only depends on the types but also on the values of the arguments (e.g. whether
+     * an integer fits into an int).
+     */
+    @ExplodeLoop
+    protected static JavaMethod selectMethod(final JavaMethod[] overloads, final Object[] arguments) {
+        if (overloads == null) {
+            return null;
+        }
+        JavaMethod bestMethod = null;
+        int bestCost = Integer.MAX_VALUE;
+        for (final JavaMethod method : overloads) {
+            final int cost = method.conversionCost(arguments);
+            if (cost >= 0 && cost < bestCost) {
+                bestMethod = method;
+                bestCost = cost;
+            }
+        }
+        return bestMethod;
+    }
+
+    protected Class<?> getWrappedClass() {
+        return wrappedObject.getClass();
     }
 
     protected boolean isClass() {
@@ -163,7 +467,7 @@ public final class JavaObjectWrapper implements TruffleObject {
     @Override
     public boolean equals(final Object other) {
         if (other instanceof JavaObjectWrapper) {
-            return wrappedObject.equals(((JavaObjectWrapper) other).wrappedObject);
+            return wrappedObject == ((JavaObjectWrapper) other).wrappedObject;
         }
         return false;
     }
@@ -174,23 +478,30 @@ public final class JavaObjectWrapper implements TruffleObject {
     }
 
     @ExportMessage
-    @TruffleBoundary
-    protected Object readMember(final String member) throws UnknownIdentifierException {
-        final Field field = lookupFields().get(member);
-        if (field != null) {
-            try {
-                return wrap(field.get(wrappedObject));
-            } catch (final Exception e) {
+    protected static final class ReadMember {
+        @Specialization(guards = {"receiver.getWrappedClass() == cachedClass", "cachedMember.equals(member)", "cachedField != null"}, limit = "INLINE_CACHE_SIZE")
+        protected static final Object doCached(final JavaObjectWrapper receiver, @SuppressWarnings("unused") final String member,
+                        @SuppressWarnings("unused") @Cached("receiver.getWrappedClass()") final Class<?> cachedClass,
+                        @Cached("member") final String cachedMember,
+                        @Cached("lookupField(cachedClass, member)") final JavaField cachedField) throws UnknownIdentifierException {
+            return cachedField.read(receiver.wrappedObject, cachedMember);
+        }
+
+        @TruffleBoundary
+        @Specialization(replaces = "doCached")
+        protected static final Object doUncached(final JavaObjectWrapper receiver, final String member) throws UnknownIdentifierException {
+            final JavaField field = lookupField(receiver.getWrappedClass(), member);
+            if (field == null) {
                 throw UnknownIdentifierException.create(member);
             }
-        } else {
-            throw UnknownIdentifierException.create(member);
+            return field.read(receiver.wrappedObject, member);
         }
     }
 
     @ExportMessage
+    @TruffleBoundary
     protected Object getMembers(@SuppressWarnings("unused") final boolean includeInternal) {
-        return lookupMembers();
+        return lookupMembers(getWrappedClass()).members;
     }
 
     @ExportMessage
@@ -198,11 +509,17 @@ public final class JavaObjectWrapper implements TruffleObject {
         return true;
     }
 
+    @ExportMessage
+    @TruffleBoundary
+    protected boolean isMemberReadable(final String member) {
+        return lookupField(getWrappedClass(), member) != null;
+    }
+
+    @ExportMessage
     @TruffleBoundary
-    @ExportMessage(name = "isMemberReadable")
-    @ExportMessage(name = "isMemberModifiable")
-    protected boolean containsField(final String member) {
-        return lookupFields().containsKey(member);
+    protected boolean isMemberModifiable(final String member) {
+        final JavaField field = lookupField(getWrappedClass(), member);
+        return field != null && field.isWritable();
     }
 
     @ExportMessage
@@ -213,37 +530,61 @@ public final class JavaObjectWrapper implements TruffleObject {
     @ExportMessage
     @TruffleBoundary
     protected boolean isMemberInvocable(final String member) {
-        return lookupMethods().containsKey(member);
+        return lookupMembers(getWrappedClass()).methods.containsKey(member);
     }
 
     @ExportMessage
-    @TruffleBoundary
-    protected Object invokeMember(final String member, final Object... arguments) throws UnknownIdentifierException, UnsupportedTypeException {
-        final Method method = lookupMethods().get(member);
-        if (method != null) {
-            try {
-                return wrap(method.invoke(wrappedObject, arguments));
-            } catch (final Exception e) {
-                throw UnsupportedTypeException.create(arguments);
+    protected static final class InvokeMember {
+        @Specialization(guards = {"receiver.getWrappedClass() == cachedClass", "cachedMember.equals(member)", "cachedMethod != null",
+                        "selectMethod(cachedOverloads, arguments) == cachedMethod"}, limit = "INLINE_CACHE_SIZE")
+        protected static final Object doCached(final JavaObjectWrapper receiver, @SuppressWarnings("unused") final String member, final Object[] arguments,
+                        @SuppressWarnings("unused") @Cached("receiver.getWrappedClass()") final Class<?> cachedClass,
+                        @SuppressWarnings("unused") @Cached("member") final String cachedMember,
+                        @Cached(value = "lookupOverloads(cachedClass, member)", dimensions = 1) final JavaMethod[] cachedOverloads,
+                        @Cached("selectMethod(cachedOverloads, arguments)") final JavaMethod cachedMethod) throws UnsupportedTypeException {
+            return cachedMethod.invoke(receiver.wrappedObject, arguments);
+        }
+
+        @TruffleBoundary
+        @Specialization(replaces = "doCached")
+        protected static final Object doUncached(final JavaObjectWrapper receiver, final String member, final Object[] arguments)
+                        throws UnknownIdentifierException, UnsupportedTypeException, ArityException {
+            final JavaMethod[] overloads = lookupOverloads(receiver.getWrappedClass(), member);
+            if (overloads == null) {
+                throw UnknownIdentifierException.create(member);
             }
-        } else {
-            throw UnknownIdentifierException.create(member);
+            final JavaMethod method = selectMethod(overloads, arguments);
+            if (method != null) {
+                return method.invoke(receiver.wrappedObject, arguments);
+            }
+            for (final JavaMethod overload : overloads) {
+                if (overload.parameterTypes.length == arguments.length) {
+                    throw UnsupportedTypeException.create(arguments);
+                }
+            }
+            throw ArityException.create(overloads[0].parameterTypes.length, arguments.length);
         }
     }
 
     @ExportMessage
-    @TruffleBoundary
-    @SuppressWarnings("deprecation") // isAccessible deprecated in Java 11
-    protected void writeMember(final String key, final Object value) {
-        final Field field = lookupFields().get(key);
-        if (field != null) {
-            try {
-                field.set(wrappedObject, value instanceof JavaObjectWrapper ? ((JavaObjectWrapper) value).wrappedObject : value);
-            } catch (final Exception e) {
-                throw new UnsupportedOperationException(e);
+    protected static final class WriteMember {
+        @Specialization(guards = {"receiver.getWrappedClass() == cachedClass", "cachedMember.equals(member)", "cachedField != null"}, limit = "INLINE_CACHE_SIZE")
+        protected static final void doCached(final JavaObjectWrapper receiver, @SuppressWarnings("unused") final String member, final Object value,
+                        @SuppressWarnings("unused") @Cached("receiver.getWrappedClass()") final Class<?> cachedClass,
+                        @SuppressWarnings("unused") @Cached("member") final String cachedMember,
+                        @Cached("lookupField(cachedClass, member)") final JavaField cachedField) throws UnsupportedMessageException, UnsupportedTypeException {
+            cachedField.write(receiver.wrappedObject, value);
+        }
+
+        @TruffleBoundary
+        @Specialization(replaces = "doCached")
+        protected static final void doUncached(final JavaObjectWrapper receiver, final String member, final Object value)
+                        throws UnknownIdentifierException, UnsupportedMessageException, UnsupportedTypeException {
+            final JavaField field = lookupField(receiver.getWrappedClass(), member);
+            if (field == null) {
+                throw UnknownIdentifierException.create(member);
             }
-        } else {
-            throw new UnsupportedOperationException(wrappedObject + " has not member " + key);
+            field.write(receiver.wrappedObject, value);
         }
     }
 
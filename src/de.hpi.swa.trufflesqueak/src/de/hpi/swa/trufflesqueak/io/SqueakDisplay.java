@@ -8,10 +8,14 @@ package de.hpi.swa.trufflesqueak.io;
 import java.awt.Component;
 import java.awt.Cursor;
 import java.awt.Dimension;
+import java.awt.DisplayMode;
 import java.awt.Frame;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
 import java.awt.Image;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.Toolkit;
 import java.awt.datatransfer.Clipboard;
 import java.awt.datatransfer.DataFlavor;
@@ -28,12 +32,17 @@ import java.awt.event.InputEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.net.URL;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.RepaintManager;
 
@@ -65,6 +74,7 @@ public final class SqueakDisplay implements SqueakDisplayInterface {
     public final SqueakImageContext image;
     private final Frame frame = new Frame(DEFAULT_WINDOW_TITLE);
     private final Canvas canvas = new Canvas();
+    private final Presenter presenter;
     private final SqueakMouse mouse;
     private final SqueakKeyboard keyboard;
     private final ArrayDeque<long[]> deferredEvents = new ArrayDeque<>();
@@ -82,6 +92,7 @@ public final class SqueakDisplay implements SqueakDisplayInterface {
 
     public SqueakDisplay(final SqueakImageContext image) {
         this.image = image;
+        presenter = image.options.enableAsyncDisplay ? new Presenter(canvas) : null;
         frame.add(canvas);
         mouse = new SqueakMouse(this);
         keyboard = new SqueakKeyboard(this);
@@ -138,7 +149,10 @@ public final class SqueakDisplay implements SqueakDisplayInterface {
 
     private static final class Canvas extends Component {
         private static final long serialVersionUID = 1L;
-        private BufferedImage bufferedImage;
+        private volatile BufferedImage bufferedImage;
+        private int[] displayBits;
+        private int displayWidth;
+        private int displayHeight;
 
         private Canvas() {
             /* Drawing is very simple, so double buffering is not needed. */
@@ -182,7 +196,242 @@ public final class SqueakDisplay implements SqueakDisplayInterface {
             final int height = readNode.executeInt(squeakDisplay, FORM.HEIGHT);
             assert (long) squeakDisplay.instVarAt0Slow(FORM.DEPTH) == 32 : "Unsupported display depth";
             if (width > 0 && height > 0) {
-                bufferedImage = MiscUtils.new32BitBufferedImage(bitmap.getIntStorage(), width, height, false);
+                displayBits = bitmap.getIntStorage();
+                displayWidth = width;
+                displayHeight = height;
+                bufferedImage = MiscUtils.new32BitBufferedImage(displayBits, width, height, false);
+            }
+        }
+    }
+
+    /**
+     * Presents display updates from a dedicated render thread instead of the interpreter thread.
+     * When the image forces a region to the screen, the interpreter thread copies it from the
+     * display bitmap into a frame buffer owned by the presenter and records it as damaged. Damage
+     * rectangles are coalesced until the next frame, when the render thread takes them and copies
+     * the damaged pixels into its own render buffer. Only these array copies happen while holding
+     * the presenter's lock, so the interpreter at most waits for a few memory copies, never for AWT.
+     * Drawing into the {@link VolatileImage} back buffer and onto the canvas happens afterwards
+     * from the render buffer. The render thread never reads the live display bitmap, so it only
+     * shows regions in the state in which the image last forced them.
+     */
+    private static final class Presenter {
+        private static final String RENDER_THREAD_NAME = "TruffleSqueakRenderThread";
+        private static final int DEFAULT_REFRESH_RATE = 60;
+        private static final int MAX_DAMAGE_RECTANGLES = 16;
+
+        private final Canvas canvas;
+        private final ArrayList<Rectangle> damage = new ArrayList<>(); // guarded by this
+        private int[] frameBits; // guarded by this
+        private BufferedImage frameImage; // guarded by this
+        private ScheduledExecutorService executor;
+        /* Render thread only: a copy of the frame buffer as of the last taken damage. */
+        private int[] renderBits;
+        private BufferedImage renderImage;
+        private VolatileImage backBuffer;
+
+        private Presenter(final Canvas canvas) {
+            this.canvas = canvas;
+        }
+
+        private synchronized void start() {
+            if (executor != null) {
+                return;
+            }
+            executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread t = new Thread(r, RENDER_THREAD_NAME);
+                t.setDaemon(true);
+                return t;
+            });
+            final long frameNanos = TimeUnit.SECONDS.toNanos(1) / getRefreshRate();
+            executor.scheduleAtFixedRate(this::presentDamage, frameNanos, frameNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private synchronized void stop() {
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
+            }
+            damage.clear();
+            frameBits = null;
+            frameImage = null;
+        }
+
+        private int getRefreshRate() {
+            final GraphicsConfiguration gc = canvas.getGraphicsConfiguration();
+            if (gc != null) {
+                final int refreshRate = gc.getDevice().getDisplayMode().getRefreshRate();
+                if (refreshRate != DisplayMode.REFRESH_RATE_UNKNOWN) {
+                    return refreshRate;
+                }
+            }
+            return DEFAULT_REFRESH_RATE;
+        }
+
+        /**
+         * Copies a region of the display bitmap into the frame buffer and records it as damaged.
+         * Must be called on the interpreter thread, which is the only one writing the bitmap.
+         */
+        private synchronized void snapshotDamage(final int left, final int top, final int right, final int bottom) {
+            final int[] bits = canvas.displayBits;
+            if (bits == null) {
+                return;
+            }
+            final int width = canvas.displayWidth;
+            final int height = canvas.displayHeight;
+            if (frameImage == null || frameImage.getWidth() != width || frameImage.getHeight() != height) {
+                frameBits = new int[width * height];
+                frameImage = MiscUtils.new32BitBufferedImage(frameBits, width, height, false);
+                System.arraycopy(bits, 0, frameBits, 0, frameBits.length);
+                damage.clear();
+                addDamage(0, 0, width, height);
+                return;
+            }
+            final int clippedLeft = Math.max(left, 0);
+            final int clippedTop = Math.max(top, 0);
+            final int clippedRight = Math.min(right, width);
+            final int clippedBottom = Math.min(bottom, height);
+            if (clippedLeft >= clippedRight || clippedTop >= clippedBottom) {
+                return;
+            }
+            for (int y = clippedTop; y < clippedBottom; y++) {
+                final int offset = y * width + clippedLeft;
+                System.arraycopy(bits, offset, frameBits, offset, clippedRight - clippedLeft);
+            }
+            addDamage(clippedLeft, clippedTop, clippedRight, clippedBottom);
+        }
+
+        /**
+         * Records a damaged region. Overlapping or adjacent regions are merged, and too many
+         * disjoint regions collapse into their bounding box, so that each frame only draws a few
+         * rectangles no matter how many updates the image issued in the meantime.
+         */
+        private void addDamage(final int left, final int top, final int right, final int bottom) {
+            assert Thread.holdsLock(this);
+            Rectangle region = new Rectangle(left, top, right - left, bottom - top);
+            for (int i = damage.size() - 1; i >= 0; i--) {
+                final Rectangle existing = damage.get(i);
+                if (existing.contains(region)) {
+                    return;
+                }
+                if (touches(existing, region)) {
+                    region = region.union(existing);
+                    damage.remove(i);
+                    i = damage.size(); /* Restart, merged region may touch others now. */
+                }
+            }
+            if (damage.size() < MAX_DAMAGE_RECTANGLES) {
+                damage.add(region);
+            } else {
+                for (final Rectangle existing : damage) {
+                    region = region.union(existing);
+                }
+                damage.clear();
+                damage.add(region);
+            }
+        }
+
+        /* Like Rectangle.intersects, but also true for rectangles that share an edge. */
+        private static boolean touches(final Rectangle a, final Rectangle b) {
+            final boolean overlapX = a.x <= b.x + b.width && b.x <= a.x + a.width;
+            final boolean overlapY = a.y <= b.y + b.height && b.y <= a.y + a.height;
+            return overlapX && overlapY;
+        }
+
+        private void presentDamage() {
+            final GraphicsConfiguration gc = canvas.getGraphicsConfiguration();
+            if (gc == null) {
+                return;
+            }
+            Rectangle[] regions = takeDamage();
+            if (regions == null) {
+                return;
+            }
+            final int width = renderImage.getWidth();
+            final int height = renderImage.getHeight();
+            try {
+                do {
+                    if (validateBackBuffer(gc, width, height)) {
+                        regions = new Rectangle[]{new Rectangle(0, 0, width, height)};
+                    }
+                    final Graphics2D bg = backBuffer.createGraphics();
+                    try {
+                        for (final Rectangle r : regions) {
+                            drawRegion(bg, renderImage, r);
+                        }
+                    } finally {
+                        bg.dispose();
+                    }
+                    final Graphics g = canvas.getGraphics();
+                    if (g == null) {
+                        return;
+                    }
+                    try {
+                        for (final Rectangle r : regions) {
+                            drawRegion(g, backBuffer, r);
+                        }
+                    } finally {
+                        g.dispose();
+                    }
+                } while (backBuffer.contentsLost());
+            } catch (final RuntimeException e) {
+                /* Do not kill the render thread, repaint everything with the next frame instead. */
+                backBuffer = null;
+                synchronized (this) {
+                    if (frameImage != null) {
+                        addDamage(0, 0, frameImage.getWidth(), frameImage.getHeight());
+                    }
+                }
+            }
+        }
+
+        /**
+         * Takes the pending damage and copies the damaged pixels from the frame buffer into the
+         * render buffer. This is all the render thread does while holding the lock. Returns null if
+         * there is nothing to present.
+         */
+        private synchronized Rectangle[] takeDamage() {
+            if (damage.isEmpty() || frameImage == null) {
+                return null;
+            }
+            final Rectangle[] regions = damage.toArray(new Rectangle[0]);
+            damage.clear();
+            final int width = frameImage.getWidth();
+            final int height = frameImage.getHeight();
+            if (renderImage == null || renderImage.getWidth() != width || renderImage.getHeight() != height) {
+                renderBits = frameBits.clone();
+                renderImage = MiscUtils.new32BitBufferedImage(renderBits, width, height, false);
+                return new Rectangle[]{new Rectangle(0, 0, width, height)};
+            }
+            for (final Rectangle r : regions) {
+                for (int y = r.y; y < r.y + r.height; y++) {
+                    final int offset = y * width + r.x;
+                    System.arraycopy(frameBits, offset, renderBits, offset, r.width);
+                }
+            }
+            return regions;
+        }
+
+        private static void drawRegion(final Graphics g, final Image image, final Rectangle r) {
+            final int right = r.x + r.width;
+            final int bottom = r.y + r.height;
+            g.drawImage(image, r.x, r.y, right, bottom, r.x, r.y, right, bottom, null);
+        }
+
+        /** Returns true if the back buffer has been (re)created and needs to be refilled. */
+        private boolean validateBackBuffer(final GraphicsConfiguration gc, final int width, final int height) {
+            if (backBuffer == null || backBuffer.getWidth() != width || backBuffer.getHeight() != height) {
+                backBuffer = gc.createCompatibleVolatileImage(width, height);
+                return true;
+            }
+            switch (backBuffer.validate(gc)) {
+                case VolatileImage.IMAGE_OK:
+                    return false;
+                case VolatileImage.IMAGE_INCOMPATIBLE:
+                    backBuffer = gc.createCompatibleVolatileImage(width, height);
+                    return true;
+                default:
+                    return true;
             }
         }
     }
@@ -191,7 +440,7 @@ public final class SqueakDisplay implements SqueakDisplayInterface {
     @TruffleBoundary
     public void showDisplayBitsLeftTopRightBottom(final PointersObject destForm, final int left, final int top, final int right, final int bottom) {
         if (left < right && top < bottom && !deferUpdates && destForm.isDisplay(image)) {
-            canvas.paintImmediately(left, top, right, bottom);
+            present(left, top, right, bottom);
         }
     }
 
@@ -199,12 +448,23 @@ public final class SqueakDisplay implements SqueakDisplayInterface {
     @TruffleBoundary
     public void showDisplayRect(final int left, final int right, final int top, final int bottom) {
         assert left < right && top < bottom;
-        canvas.paintImmediately(left, top, right, bottom);
+        present(left, top, right, bottom);
+    }
+
+    private void present(final int left, final int top, final int right, final int bottom) {
+        if (presenter != null) {
+            presenter.snapshotDamage(left, top, right, bottom);
+        } else {
+            canvas.paintImmediately(left, top, right, bottom);
+        }
     }
 
     @Override
     @TruffleBoundary
     public void close() {
+        if (presenter != null) {
+            presenter.stop();
+        }
         frame.setVisible(false);
         frame.dispose();
     }
@@ -277,6 +537,9 @@ public final class SqueakDisplay implements SqueakDisplayInterface {
             frame.setVisible(true);
             frame.requestFocus();
         }
+        if (presenter != null) {
+            presenter.start();
+        }
     }
 
     @Override
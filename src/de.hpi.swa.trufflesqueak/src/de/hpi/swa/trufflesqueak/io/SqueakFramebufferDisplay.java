@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2017-2021 Software Architecture Group, Hasso Plattner Institute
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.io;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import javax.imageio.ImageIO;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import de.hpi.swa.trufflesqueak.exceptions.SqueakExceptions.SqueakException;
+import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
+import de.hpi.swa.trufflesqueak.model.NativeObject;
+import de.hpi.swa.trufflesqueak.model.PointersObject;
+import de.hpi.swa.trufflesqueak.model.layout.ObjectLayouts.FORM;
+import de.hpi.swa.trufflesqueak.nodes.accessing.AbstractPointersObjectNodes.AbstractPointersObjectReadNode;
+import de.hpi.swa.trufflesqueak.util.MiscUtils;
+
+/**
+ * Display for headless mode that renders into the display bitmap only. Updates reported by the
+ * image are accumulated as damage, which can be queried and reset together with the current frame,
+ * for example to dump frames for UI regression tests or thumbnails without an X server.
+ */
+public final class SqueakFramebufferDisplay implements SqueakDisplayInterface {
+    private static final int RGBA_OPAQUE = 0xFF;
+
+    private final SqueakImageContext image;
+
+    private int[] pixels;
+    private int width;
+    private int height;
+    private int windowWidth;
+    private int windowHeight;
+    private Rectangle damage; // guarded by this
+    private long frameCount; // guarded by this
+    private boolean deferUpdates;
+    private String clipboardData = "";
+
+    public SqueakFramebufferDisplay(final SqueakImageContext image) {
+        this.image = image;
+        windowWidth = image.flags.getSnapshotScreenWidth();
+        windowHeight = image.flags.getSnapshotScreenHeight();
+    }
+
+    /** Returns the ARGB pixels of the display bitmap without copying them. */
+    public synchronized IntBuffer getPixels() {
+        if (pixels == null) {
+            return null;
+        }
+        return IntBuffer.wrap(pixels, 0, width * height).asReadOnlyBuffer();
+    }
+
+    public synchronized int getWidth() {
+        return width;
+    }
+
+    public synchronized int getHeight() {
+        return height;
+    }
+
+    /** Returns the number of display updates reported by the image so far. */
+    public synchronized long getFrameCount() {
+        return frameCount;
+    }
+
+    /** Returns the bounding box of all updates since the last call, or null if there were none. */
+    public synchronized Rectangle takeDamage() {
+        final Rectangle result = damage;
+        damage = null;
+        return result;
+    }
+
+    private synchronized void addDamage(final int left, final int top, final int right, final int bottom) {
+        final Rectangle region = new Rectangle(left, top, right - left, bottom - top).intersection(new Rectangle(0, 0, width, height));
+        if (region.isEmpty()) {
+            return;
+        }
+        damage = damage == null ? region : damage.union(region);
+        frameCount++;
+    }
+
+    @TruffleBoundary
+    public synchronized void writePNG(final OutputStream out) throws IOException {
+        ensureOpen();
+        if (!ImageIO.write(MiscUtils.new32BitBufferedImage(pixels, width, height, false), "png", out)) {
+            throw new IOException("No PNG writer available");
+        }
+    }
+
+    /**
+     * Writes the current frame as raw, row-major RGBA bytes (four bytes per pixel, alpha always
+     * opaque). The frame is converted and written row by row to avoid copying the whole bitmap.
+     */
+    @TruffleBoundary
+    public synchronized void writeRGBA(final WritableByteChannel channel) throws IOException {
+        ensureOpen();
+        final ByteBuffer row = ByteBuffer.allocate(width * Integer.BYTES); /* Big-endian. */
+        final IntBuffer rowInts = row.asIntBuffer();
+        for (int y = 0; y < height; y++) {
+            rowInts.clear();
+            final int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                rowInts.put(pixels[offset + x] << 8 | RGBA_OPAQUE);
+            }
+            row.clear();
+            while (row.hasRemaining()) {
+                channel.write(row);
+            }
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (pixels == null) {
+            throw new IOException("Display has not been opened yet");
+        }
+    }
+
+    @Override
+    @TruffleBoundary
+    public void showDisplayBitsLeftTopRightBottom(final PointersObject destForm, final int left, final int top, final int right, final int bottom) {
+        if (left < right && top < bottom && !deferUpdates && destForm.isDisplay(image)) {
+            addDamage(left, top, right, bottom);
+        }
+    }
+
+    @Override
+    @TruffleBoundary
+    public void showDisplayRect(final int left, final int right, final int top, final int bottom) {
+        assert left < right && top < bottom;
+        addDamage(left, top, right, bottom);
+    }
+
+    @Override
+    @TruffleBoundary
+    public synchronized void close() {
+        pixels = null;
+        damage = null;
+    }
+
+    @Override
+    public void resizeTo(final int newWidth, final int newHeight) {
+        windowWidth = newWidth;
+        windowHeight = newHeight;
+    }
+
+    @Override
+    public int getWindowWidth() {
+        return windowWidth;
+    }
+
+    @Override
+    public int getWindowHeight() {
+        return windowHeight;
+    }
+
+    @Override
+    public void setFullscreen(final boolean enable) {
+        // Nothing to do.
+    }
+
+    @Override
+    @TruffleBoundary
+    public synchronized void open(final PointersObject sqDisplay) {
+        final AbstractPointersObjectReadNode readNode = AbstractPointersObjectReadNode.getUncached();
+        final NativeObject bitmap = readNode.executeNative(sqDisplay, FORM.BITS);
+        if (!bitmap.isIntType()) {
+            throw SqueakException.create("Display bitmap expected to be a words object");
+        }
+        assert (long) sqDisplay.instVarAt0Slow(FORM.DEPTH) == 32 : "Unsupported display depth";
+        pixels = bitmap.getIntStorage();
+        width = readNode.executeInt(sqDisplay, FORM.WIDTH);
+        height = readNode.executeInt(sqDisplay, FORM.HEIGHT);
+        windowWidth = width;
+        windowHeight = height;
+        damage = new Rectangle(0, 0, width, height);
+    }
+
+    @Override
+    @TruffleBoundary
+    public synchronized boolean isVisible() {
+        return pixels != null;
+    }
+
+    @Override
+    public void setCursor(final int[] cursorWords, final int[] mask, final int cursorWidth, final int cursorHeight, final int depth, final int offsetX, final int offsetY) {
+        // Nothing to do.
+    }
+
+    @Override
+    public long[] getNextEvent() {
+        return null;
+    }
+
+    @Override
+    public void setDeferUpdates(final boolean flag) {
+        deferUpdates = flag;
+    }
+
+    @Override
+    public boolean getDeferUpdates() {
+        return deferUpdates;
+    }
+
+    @Override
+    public void setWindowTitle(final String title) {
+        // Nothing to do.
+    }
+
+    @Override
+    public void setInputSemaphoreIndex(final int interruptSemaphoreIndex) {
+        // Nothing to do, there are no input events.
+    }
+
+    @Override
+    public String getClipboardData() {
+        return clipboardData;
+    }
+
+    @Override
+    public void setClipboardData(final String text) {
+        clipboardData = text;
+    }
+
+    @Override
+    public void beep() {
+        // Nothing to do.
+    }
+
+    @Override
+    public void pollEvents() {
+        // Nothing to do, there are no input events.
+    }
+}
@@ -10,6 +10,7 @@ import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.CachedContext;
+import com.oracle.truffle.api.dsl.ImportStatic;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.interop.InteropLibrary;
 import com.oracle.truffle.api.interop.TruffleObject;
@@ -23,6 +24,8 @@ import com.oracle.truffle.api.nodes.ExplodeLoop;
 import de.hpi.swa.trufflesqueak.SqueakLanguage;
 import de.hpi.swa.trufflesqueak.exceptions.ProcessSwitch;
 import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
+import de.hpi.swa.trufflesqueak.interop.InteropBufferAccess;
+import de.hpi.swa.trufflesqueak.interop.LookupMethodByStringNode;
 import de.hpi.swa.trufflesqueak.interop.WrapToSqueakNode;
 import de.hpi.swa.trufflesqueak.nodes.LookupMethodNode;
 import de.hpi.swa.trufflesqueak.nodes.accessing.SqueakObjectClassNode;
@@ -49,7 +52,61 @@ public abstract class AbstractSqueakObject implements TruffleObject {
     }
 
     @ExportMessage
+    @ImportStatic(InteropBufferAccess.class)
     protected static class Send {
+        protected static final Message INVOKE_MEMBER = Message.resolve(InteropLibrary.class, "invokeMember");
+
+        /**
+         * Answers buffer messages directly on the storage of the receiver. Like invokeMember below,
+         * only used for classes that do not override the interop selector of the message.
+         */
+        @SuppressWarnings("unused")
+        @Specialization(guards = {"message == cachedMessage", "isBufferMessage(cachedMessage)", "classNode.executeLookup(receiver) == cachedClass", "usesDefault"}, limit = "8", //
+                        assumptions = {"cachedClass.getClassHierarchyStable()", "cachedClass.getMethodDictStable()"})
+        protected static final Object doBufferMessage(final AbstractSqueakObject receiver, final Message message, final Object[] arguments,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image,
+                        @Cached final SqueakObjectClassNode classNode,
+                        @Cached("message") final Message cachedMessage,
+                        @Cached("classNode.executeLookup(receiver)") final ClassObject cachedClass,
+                        @Cached("usesDefaultInteropMethod(image, cachedClass, cachedMessage)") final boolean usesDefault) throws Exception {
+            return InteropBufferAccess.send(receiver, cachedMessage, arguments);
+        }
+
+        /**
+         * Invokes methods by member name without going through the interop implementation of the
+         * image, which interns and looks up the selector on every call. Only used for classes that
+         * inherit the default implementation of the interop selector, so that image-side overrides
+         * still see every invocation. Unknown members and arity mismatches are left to the image.
+         */
+        @SuppressWarnings("unused")
+        @ExplodeLoop
+        @Specialization(guards = {"message == INVOKE_MEMBER", "classNode.executeLookup(receiver) == cachedClass", "cachedMethod != null", "cachedMember.equals(arguments[0])",
+                        "getInvokeArgumentCount(arguments) == cachedMethod.getNumArgs()"}, limit = "8", //
+                        assumptions = {"cachedClass.getClassHierarchyStable()", "cachedClass.getMethodDictStable()", "cachedMethod.getCallTargetStable()"})
+        protected static final Object doInvokeMemberCached(final AbstractSqueakObject receiver, final Message message, final Object[] arguments,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image,
+                        @Cached final SqueakObjectClassNode classNode,
+                        @Cached("classNode.executeLookup(receiver)") final ClassObject cachedClass,
+                        @Cached("getMemberOrNull(arguments)") final String cachedMember,
+                        @Cached("lookupMemberOrNull(image, cachedClass, cachedMember)") final CompiledCodeObject cachedMethod,
+                        @Cached("create(cachedMethod.getCallTarget())") final DirectCallNode callNode,
+                        @Cached final WrapToSqueakNode wrapNode) {
+            final Object[] invokeArguments = (Object[]) arguments[1];
+            final int numArgs = cachedMethod.getNumArgs();
+            final Object[] frameArguments = FrameAccess.newWith(cachedMethod, NilObject.SINGLETON, null, 1 + numArgs);
+            frameArguments[FrameAccess.getReceiverStartIndex()] = receiver;
+            for (int i = 0; i < numArgs; i++) {
+                frameArguments[FrameAccess.getArgumentStartIndex() + i] = wrapNode.executeWrap(invokeArguments[i]);
+            }
+            try {
+                return callNode.call(frameArguments);
+            } catch (final ProcessSwitch ps) {
+                CompilerDirectives.transferToInterpreter();
+                image.printToStdErr(ps);
+                throw new IllegalArgumentException();
+            }
+        }
+
         @SuppressWarnings("unused")
         @ExplodeLoop
         @Specialization(guards = {"message == cachedMessage", "classNode.executeLookup(receiver) == cachedClass", "cachedMethod != null"}, limit = "8", //
@@ -80,6 +137,9 @@ public abstract class AbstractSqueakObject implements TruffleObject {
                         @Cached final DispatchUneagerlyNode dispatchNode,
                         @Cached final WrapToSqueakNode wrapNode,
                         @CachedContext(SqueakLanguage.class) final SqueakImageContext image) throws Exception {
+            if (InteropBufferAccess.isBufferMessage(message) && usesDefaultInteropMethod(image, classNode.executeLookup(receiver), message)) {
+                return InteropBufferAccess.send(receiver, message, arguments);
+            }
             if (message.getLibraryClass() == InteropLibrary.class) {
                 final NativeObject selector = image.toInteropSelector(message);
                 final Object method = lookupNode.executeLookup(classNode.executeLookup(receiver), selector);
@@ -105,5 +165,61 @@ public abstract class AbstractSqueakObject implements TruffleObject {
             // Fall back to other, concrete or the default library implementation
             return ReflectionLibrary.getFactory().getUncached().send(DEFAULT, message, arguments);
         }
+
+        protected static final String getMemberOrNull(final Object[] arguments) {
+            return arguments[0] instanceof String ? (String) arguments[0] : null;
+        }
+
+        protected static final int getInvokeArgumentCount(final Object[] arguments) {
+            return ((Object[]) arguments[1]).length;
+        }
+
+        /*
+         * Member names may use underscores in place of colons, e.g. `at_put_` for `at:put:`. A
+         * selector that really contains underscores is found by its own name first.
+         */
+        @TruffleBoundary
+        protected static final CompiledCodeObject lookupMemberOrNull(final SqueakImageContext image, final ClassObject classObject, final String member) {
+            if (member == null || !inheritsDefaultInteropMethod(classObject, image.toInteropSelector(INVOKE_MEMBER))) {
+                return null;
+            }
+            final LookupMethodByStringNode lookupNode = LookupMethodByStringNode.getUncached();
+            Object method = lookupNode.executeLookup(classObject, member);
+            if (!(method instanceof CompiledCodeObject) && member.indexOf('_') >= 0) {
+                method = lookupNode.executeLookup(classObject, member.replace('_', ':'));
+            }
+            return method instanceof CompiledCodeObject ? (CompiledCodeObject) method : null;
+        }
+
+        /*
+         * True if the image does not implement the message for the class, or only provides a
+         * default next to the other interop defaults (the class of the invokeMember default).
+         */
+        @TruffleBoundary
+        protected static final boolean usesDefaultInteropMethod(final SqueakImageContext image, final ClassObject classObject, final Message message) {
+            final NativeObject selector = image.toInteropSelector(message);
+            final Object method = classObject.lookupInMethodDictSlow(selector);
+            if (method == null) {
+                return true;
+            }
+            final NativeObject invokeMemberSelector = image.toInteropSelector(INVOKE_MEMBER);
+            final Object invokeMemberMethod = classObject.lookupInMethodDictSlow(invokeMemberSelector);
+            return inheritsDefaultInteropMethod(classObject, selector) && inheritsDefaultInteropMethod(classObject, invokeMemberSelector) &&
+                            ((CompiledCodeObject) method).getMethodClassSlow() == ((CompiledCodeObject) invokeMemberMethod).getMethodClassSlow();
+        }
+
+        /* True if the method for the selector is the only one in the class hierarchy. */
+        private static boolean inheritsDefaultInteropMethod(final ClassObject classObject, final NativeObject selector) {
+            final Object method = classObject.lookupInMethodDictSlow(selector);
+            if (!(method instanceof CompiledCodeObject)) {
+                return false;
+            }
+            final ClassObject methodClass = ((CompiledCodeObject) method).getMethodClassSlow();
+            if (methodClass == null) {
+                return false;
+            }
+            final ClassObject superclass = methodClass.getSuperclassOrNull();
+            return superclass == null || superclass.lookupInMethodDictSlow(selector) == null;
+        }
     }
 }
@@ -5,9 +5,12 @@
  */
 package de.hpi.swa.trufflesqueak.model;
 
+import java.lang.ref.ReferenceQueue;
+
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.profiles.BranchProfile;
+import com.oracle.truffle.api.utilities.TruffleWeakReference;
 
 import de.hpi.swa.trufflesqueak.exceptions.SqueakExceptions;
 import de.hpi.swa.trufflesqueak.image.SqueakImageChunk;
@@ -28,6 +31,8 @@ public abstract class AbstractSqueakObjectWithClassAndHash extends AbstractSquea
     private long squeakHash;
     private ClassObject squeakClass;
     private boolean markingFlag;
+    /* Shared by all weak slots that point to this object (see WeakVariablePointersObject). */
+    private TruffleWeakReference<AbstractSqueakObjectWithClassAndHash> weakReference;
 
     // For special/well-known objects only.
     protected AbstractSqueakObjectWithClassAndHash(final SqueakImageContext image) {
@@ -84,6 +89,13 @@ public abstract class AbstractSqueakObjectWithClassAndHash extends AbstractSquea
         setSqueakClass(otherSqClass);
     }
 
+    public final TruffleWeakReference<AbstractSqueakObjectWithClassAndHash> getWeakReference(final ReferenceQueue<Object> queue) {
+        if (weakReference == null) {
+            weakReference = new TruffleWeakReference<>(this, queue);
+        }
+        return weakReference;
+    }
+
     public final boolean hasFormatOf(final ClassObject other) {
         return getSqueakClass().getFormat() == other.getFormat();
     }
@@ -10,6 +10,8 @@ import java.util.Arrays;
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.frame.MaterializedFrame;
 
 import de.hpi.swa.trufflesqueak.exceptions.SqueakExceptions.SqueakException;
 import de.hpi.swa.trufflesqueak.image.SqueakImageChunk;
@@ -17,10 +19,14 @@ import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
 import de.hpi.swa.trufflesqueak.image.SqueakImageWriter;
 import de.hpi.swa.trufflesqueak.model.layout.ObjectLayouts.BLOCK_CLOSURE;
 import de.hpi.swa.trufflesqueak.util.ArrayUtils;
+import de.hpi.swa.trufflesqueak.util.FrameAccess;
 import de.hpi.swa.trufflesqueak.util.ObjectGraphUtils.ObjectTracer;
 
 public final class BlockClosureObject extends AbstractSqueakObjectWithClassAndHash {
-    @CompilationFinal private ContextObject outerContext;
+    /* Not @CompilationFinal, as it is written lazily for closures created with an outer frame. */
+    private ContextObject outerContext;
+    /* Frame of the outer context if it has not been materialized yet (see #getOuterContextOrNull). */
+    private MaterializedFrame outerFrame;
     @CompilationFinal private CompiledCodeObject block;
     @CompilationFinal private long startPC = -1;
     @CompilationFinal private long numArgs = -1;
@@ -48,10 +54,22 @@ public final class BlockClosureObject extends AbstractSqueakObjectWithClassAndHa
         this.receiver = receiver;
     }
 
+    /**
+     * Creates a closure whose outer context is only allocated on demand. This is used for blocks
+     * that neither return non-locally nor access thisContext, so that creating them does not force
+     * the context of their outer frame to be materialized.
+     */
+    public BlockClosureObject(final SqueakImageContext image, final ClassObject squeakClass, final CompiledCodeObject block, final int startPC, final int numArgs, final Object[] copied,
+                    final Object receiver, final MaterializedFrame outerFrame) {
+        this(image, squeakClass, block, startPC, numArgs, copied, receiver, (ContextObject) null);
+        this.outerFrame = outerFrame;
+    }
+
     private BlockClosureObject(final BlockClosureObject original) {
         super(original);
         block = original.block;
         outerContext = original.outerContext;
+        outerFrame = original.outerFrame;
         copiedValues = original.copiedValues;
         startPC = original.startPC;
         numArgs = original.numArgs;
@@ -86,13 +104,32 @@ public final class BlockClosureObject extends AbstractSqueakObjectWithClassAndHa
     }
 
     public AbstractSqueakObject getOuterContext() {
-        return NilObject.nullToNil(outerContext);
+        return NilObject.nullToNil(getOuterContextOrNull());
     }
 
     public ContextObject getOuterContextOrNull() {
+        if (outerFrame != null) {
+            materializeOuterContext(); /* Behind a boundary, so compiled code does not deoptimize. */
+        }
+        return outerContext;
+    }
+
+    /** Returns the outer context without allocating it, or null if it does not exist yet. */
+    private ContextObject getOuterContextIfAllocated() {
+        if (outerFrame != null) {
+            return FrameAccess.getContext(outerFrame, FrameAccess.getMethodOrBlock(outerFrame));
+        }
         return outerContext;
     }
 
+    @TruffleBoundary
+    private void materializeOuterContext() {
+        final CompiledCodeObject code = FrameAccess.getMethodOrBlock(outerFrame);
+        final ContextObject context = FrameAccess.getContext(outerFrame, code);
+        outerContext = context != null ? context : ContextObject.create(getSqueakClass().getImage(), outerFrame, code);
+        outerFrame = null;
+    }
+
     public long getStartPC() {
         if (startPC == -1) {
             CompilerDirectives.transferToInterpreterAndInvalidate();
@@ -137,11 +174,13 @@ public final class BlockClosureObject extends AbstractSqueakObjectWithClassAndHa
     public void setOuterContext(final ContextObject outerContext) {
         CompilerDirectives.transferToInterpreterAndInvalidate();
         this.outerContext = outerContext;
+        outerFrame = null;
     }
 
     public void removeOuterContext() {
         CompilerDirectives.transferToInterpreterAndInvalidate();
         outerContext = null;
+        outerFrame = null;
     }
 
     public void setStartPC(final int pc) {
@@ -196,14 +235,14 @@ public final class BlockClosureObject extends AbstractSqueakObjectWithClassAndHa
     public String toString() {
         CompilerAsserts.neverPartOfCompilation();
         return "a " + getSqueakClassName() + " @" + Integer.toHexString(hashCode()) + " (with " + (numArgs == -1 && block == null ? "no block" : getNumArgs() + " args") + " and " +
-                        copiedValues.length + " copied values in " + outerContext + ")";
+                        copiedValues.length + " copied values in " + (outerFrame != null ? "an unmaterialized context" : outerContext) + ")";
     }
 
     public CompiledCodeObject getCompiledBlock() {
         if (block == null) {
             CompilerDirectives.transferToInterpreterAndInvalidate();
             /* `outerContext.getMethod()` should not be part of compilation. */
-            block = outerContext.getCodeObject().getOrCreateShadowBlock((int) getStartPC());
+            block = getOuterContextOrNull().getCodeObject().getOrCreateShadowBlock((int) getStartPC());
         }
         return block;
     }
@@ -217,7 +256,7 @@ public final class BlockClosureObject extends AbstractSqueakObjectWithClassAndHa
     }
 
     public ContextObject getHomeContext() {
-        ContextObject currentContext = outerContext;
+        ContextObject currentContext = getOuterContextOrNull();
         while (currentContext.hasClosure()) {
             currentContext = currentContext.getClosure().getOuterContextOrNull();
         }
@@ -269,6 +308,7 @@ public final class BlockClosureObject extends AbstractSqueakObjectWithClassAndHa
 
     @Override
     public void pointersBecomeOneWay(final Object[] from, final Object[] to) {
+        final ContextObject currentOuterContext = getOuterContextIfAllocated();
         for (int i = 0; i < from.length; i++) {
             final Object fromPointer = from[i];
             if (receiver == fromPointer) {
@@ -277,7 +317,7 @@ public final class BlockClosureObject extends AbstractSqueakObjectWithClassAndHa
             if (block == fromPointer && to[i] instanceof CompiledCodeObject) {
                 block = (CompiledCodeObject) to[i];
             }
-            if (outerContext == fromPointer && fromPointer != to[i] && to[i] instanceof ContextObject) {
+            if (currentOuterContext != null && currentOuterContext == fromPointer && fromPointer != to[i] && to[i] instanceof ContextObject) {
                 setOuterContext((ContextObject) to[i]);
             }
             for (int j = 0; j < copiedValues.length; j++) {
@@ -291,7 +331,12 @@ public final class BlockClosureObject extends AbstractSqueakObjectWithClassAndHa
 
     @Override
     public void tracePointers(final ObjectTracer tracer) {
-        tracer.addIfUnmarked(getOuterContext());
+        if (outerFrame != null) {
+            /* Trace the contents of the outer frame instead of materializing its context. */
+            tracer.addObjectsFromFrame(outerFrame);
+        } else {
+            tracer.addIfUnmarked(outerContext);
+        }
         for (final Object value : getCopiedValues()) {
             tracer.addIfUnmarked(value);
         }
@@ -300,7 +345,7 @@ public final class BlockClosureObject extends AbstractSqueakObjectWithClassAndHa
     @Override
     public void trace(final SqueakImageWriter writer) {
         super.trace(writer);
-        writer.traceIfNecessary(outerContext);
+        writer.traceIfNecessary(getOuterContextOrNull());
         writer.traceAllIfNecessary(getCopiedValues());
     }
 
@@ -5,8 +5,6 @@
  */
 package de.hpi.swa.trufflesqueak.model;
 
-import java.util.Arrays;
-
 import org.graalvm.collections.EconomicMap;
 
 import com.oracle.truffle.api.Assumption;
@@ -70,6 +68,8 @@ public final class CompiledCodeObject extends AbstractSqueakObjectWithClassAndHa
     // header info and data
     @CompilationFinal(dimensions = 1) protected Object[] literals;
     @CompilationFinal(dimensions = 1) protected byte[] bytes;
+    /* Bytecodes loaded from an image may be shared with other contexts (copy-on-write). */
+    private boolean bytesShared;
     @CompilationFinal protected int numArgs;
     @CompilationFinal protected int numLiterals;
     @CompilationFinal protected boolean hasPrimitive;
@@ -144,6 +144,7 @@ public final class CompiledCodeObject extends AbstractSqueakObjectWithClassAndHa
         // header info and data
         literals = outerCode.literals;
         bytes = outerCode.bytes;
+        bytesShared = outerCode.bytesShared;
         numArgs = outerCode.numArgs;
         numLiterals = outerCode.numLiterals;
         hasPrimitive = outerCode.hasPrimitive;
@@ -325,7 +326,8 @@ public final class CompiledCodeObject extends AbstractSqueakObjectWithClassAndHa
         literals = chunk.getPointers(1 + numLiterals);
         decodeHeader();
         assert bytes == null;
-        bytes = Arrays.copyOfRange(chunk.getBytes(), literals.length * SqueakImageConstants.WORD_SIZE, chunk.getBytes().length);
+        bytes = chunk.getReader().getSharedBytecodes(chunk, literals.length * SqueakImageConstants.WORD_SIZE);
+        bytesShared = true;
     }
 
     public AbstractBytecodeNode[] asBytecodeNodesEmpty() {
@@ -355,8 +357,11 @@ public final class CompiledCodeObject extends AbstractSqueakObjectWithClassAndHa
         CompilerDirectives.transferToInterpreterAndInvalidate();
         final Object[] literals2 = other.literals;
         final byte[] bytes2 = other.bytes;
+        final boolean bytesShared2 = other.bytesShared;
         other.setLiteralsAndBytes(literals, bytes);
+        other.bytesShared = bytesShared;
         setLiteralsAndBytes(literals2, bytes2);
+        bytesShared = bytesShared2;
         other.callTargetStable.invalidate();
         callTargetStable.invalidate();
     }
@@ -386,6 +391,9 @@ public final class CompiledCodeObject extends AbstractSqueakObjectWithClassAndHa
         } else {
             final int realIndex = index - getBytecodeOffset();
             assert realIndex < bytes.length;
+            if (bytesShared) {
+                unshareBytes(bytes, bytes.clone());
+            }
             if (obj instanceof Integer) {
                 bytes[realIndex] = (byte) (int) obj;
             } else if (obj instanceof Long) {
@@ -397,6 +405,20 @@ public final class CompiledCodeObject extends AbstractSqueakObjectWithClassAndHa
         }
     }
 
+    /* Replaces shared bytecodes with a private copy, also in shadow blocks that alias them. */
+    private void unshareBytes(final byte[] sharedBytes, final byte[] copy) {
+        if (bytes != sharedBytes) {
+            return;
+        }
+        bytes = copy;
+        bytesShared = false;
+        if (shadowBlocks != null) {
+            for (final CompiledCodeObject shadowBlock : shadowBlocks.getValues()) {
+                shadowBlock.unshareBytes(sharedBytes, copy);
+            }
+        }
+    }
+
     public Object getLiteral(final long longIndex) {
         return literals[(int) (1 + longIndex)]; // +1 for skipping header.
     }
@@ -621,6 +643,10 @@ public final class CompiledCodeObject extends AbstractSqueakObjectWithClassAndHa
         return decoder.hasStoreIntoTemp1AfterCallPrimitive(this);
     }
 
+    public boolean blockNeedsOuterContext(final int start, final int end) {
+        return decoder.blockNeedsOuterContext(this, start, end);
+    }
+
     /*
      * CompiledBlock
      */
@@ -107,6 +107,9 @@ public final class ContextObject extends AbstractSqueakObjectWithClassAndHash {
     public static ContextObject create(final SqueakImageContext image, final MaterializedFrame frame, final CompiledCodeObject blockOrMethod) {
         final ContextObject context = new ContextObject(image, frame, blockOrMethod.getSqueakContextSize());
         FrameAccess.setContext(frame, blockOrMethod, context);
+        if (image.contextStatistics != null) {
+            image.contextStatistics.recordMaterialization(blockOrMethod);
+        }
         return context;
     }
 
@@ -248,6 +251,10 @@ public final class ContextObject extends AbstractSqueakObjectWithClassAndHash {
                  * opened, example: `1/0`), except if the method is unwind marked or marked as
                  * exception handler.
                  */
+                final SqueakImageContext image = getSqueakClass().getImage();
+                if (image.contextStatistics != null && methodOrBlock.getDoesNotNeedSenderAssumption().isValid()) {
+                    image.contextStatistics.recordSenderInvalidation(methodOrBlock);
+                }
                 methodOrBlock.getDoesNotNeedSenderAssumption().invalidate("Sender requested");
             }
             final ContextObject previousContext = ((FrameMarker) value).getMaterializedContext();
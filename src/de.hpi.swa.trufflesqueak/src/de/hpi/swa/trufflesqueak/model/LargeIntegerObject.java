@@ -19,164 +19,340 @@ import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
 import de.hpi.swa.trufflesqueak.image.SqueakImageWriter;
 import de.hpi.swa.trufflesqueak.util.ArrayUtils;
 
+/**
+ * LargePositiveIntegers and LargeNegativeIntegers. The magnitude of values up to 128 bits is stored
+ * in two longs, so that arithmetic on overflowed SmallIntegers, hashes, and timestamps does not
+ * allocate intermediate {@link BigInteger}s. Larger magnitudes are stored as little-endian 64-bit
+ * limbs, which can be accessed bytewise without conversion, or as a {@link BigInteger} if they are
+ * the result of an arithmetic operation. Conversions between limbs and {@link BigInteger}s happen
+ * lazily and are cached until the next write.
+ */
 public final class LargeIntegerObject extends AbstractSqueakObjectWithClassAndHash {
-    private static final BigInteger ONE_SHIFTED_BY_64 = BigInteger.ONE.shiftLeft(64);
     public static final BigInteger LONG_MIN_OVERFLOW_RESULT = BigInteger.valueOf(Long.MIN_VALUE).abs();
-    @CompilationFinal(dimensions = 1) private static final byte[] LONG_MIN_OVERFLOW_RESULT_BYTES = toBytes(LONG_MIN_OVERFLOW_RESULT);
-
+    @CompilationFinal(dimensions = 1) private static final byte[] LONG_MIN_OVERFLOW_RESULT_BYTES = {0, 0, 0, 0, 0, 0, 0, (byte) 0x80};
+    private static final int SMALL_MAGNITUDE_BYTES = 2 * Long.BYTES;
+
+    /* Magnitude if isSmall, as unsigned high and low words. */
+    private boolean isSmall;
+    private long high;
+    private long low;
+    /* Otherwise, limbs or integer (or both) are set. */
+    private long[] limbs;
     private BigInteger integer;
     private int bitLength;
     private int exposedSize;
 
     public LargeIntegerObject(final SqueakImageContext image, final BigInteger integer) {
         super(image, integer.signum() >= 0 ? image.largePositiveIntegerClass : image.largeNegativeIntegerClass);
-        this.integer = integer;
-        bitLength = integer.bitLength();
-        exposedSize = calculateExposedSize(integer);
+        setValue(integer);
+        exposedSize = (magnitudeBitLength() + 7) / 8;
         assert integer.signum() != 0 : "LargePositiveInteger>>isZero returns 'false'";
     }
 
     public LargeIntegerObject(final SqueakImageContext image, final long hash, final ClassObject klass, final byte[] bytes) {
         super(image, hash, klass);
-        integer = new BigInteger(isPositive() ? 1 : -1, ArrayUtils.swapOrderInPlace(bytes));
-        bitLength = integer.bitLength();
+        setMagnitudeBytes(bytes);
         exposedSize = bytes.length;
     }
 
     public LargeIntegerObject(final SqueakImageContext image, final ClassObject klass, final byte[] bytes) {
         super(image, klass);
-        integer = new BigInteger(isPositive() ? 1 : -1, ArrayUtils.swapOrderInPlace(bytes));
-        bitLength = integer.bitLength();
+        setMagnitudeBytes(bytes);
         exposedSize = bytes.length;
     }
 
     public LargeIntegerObject(final SqueakImageContext image, final ClassObject klass, final int size) {
         super(image, klass);
-        integer = BigInteger.ZERO;
-        bitLength = 0;
+        setSmallMagnitude(0L, 0L);
         exposedSize = size;
     }
 
+    private LargeIntegerObject(final SqueakImageContext image, final boolean isNegative, final long high, final long low) {
+        super(image, isNegative ? image.largeNegativeIntegerClass : image.largePositiveIntegerClass);
+        setSmallMagnitude(high, low);
+        exposedSize = (magnitudeBitLength(high, low) + 7) / 8;
+        assert (high | low) != 0 : "LargePositiveInteger>>isZero returns 'false'";
+    }
+
     private LargeIntegerObject(final LargeIntegerObject original) {
         super(original);
+        isSmall = original.isSmall;
+        high = original.high;
+        low = original.low;
+        limbs = original.limbs == null ? null : original.limbs.clone();
         integer = original.integer;
         bitLength = original.bitLength;
         exposedSize = original.exposedSize;
     }
 
-    private static int calculateExposedSize(final BigInteger integer) {
-        return (integer.abs().bitLength() + 7) / 8;
-    }
-
     @Override
     public void fillin(final SqueakImageChunk chunk) {
         // Nothing to do.
     }
 
-    @TruffleBoundary
     public static LargeIntegerObject createLongMinOverflowResult(final SqueakImageContext image) {
-        return new LargeIntegerObject(image, LONG_MIN_OVERFLOW_RESULT);
+        return new LargeIntegerObject(image, false, 0L, Long.MIN_VALUE);
     }
 
     public static byte[] getLongMinOverflowResultBytes() {
         return LONG_MIN_OVERFLOW_RESULT_BYTES;
     }
 
-    private static byte[] toBytes(final BigInteger bigInteger) {
-        final byte[] bigEndianBytes = toBigEndianBytes(bigInteger);
-        final byte[] bytes = bigEndianBytes[0] != 0 ? bigEndianBytes : Arrays.copyOfRange(bigEndianBytes, 1, bigEndianBytes.length);
-        return ArrayUtils.swapOrderInPlace(bytes);
+    /*
+     * Representation
+     */
+
+    private void setSmallMagnitude(final long newHigh, final long newLow) {
+        isSmall = true;
+        high = newHigh;
+        low = newLow;
+        limbs = null;
+        integer = null;
+        bitLength = signedBitLength(isNegative(), magnitudeBitLength(newHigh, newLow), isPowerOfTwo(newHigh, newLow));
     }
 
     @TruffleBoundary
-    private static byte[] toBigEndianBytes(final BigInteger bigInteger) {
-        return bigInteger.abs().toByteArray();
+    private void setValue(final BigInteger value) {
+        final BigInteger magnitude = value.abs();
+        if (magnitude.bitLength() <= SMALL_MAGNITUDE_BYTES * Byte.SIZE) {
+            setSmallMagnitude(magnitude.shiftRight(Long.SIZE).longValue(), magnitude.longValue());
+        } else {
+            isSmall = false;
+            limbs = null;
+        }
+        integer = value;
+        bitLength = value.bitLength();
     }
 
-    public long getNativeAt0(final long index) {
-        return absShiftRightIntValue((int) index * Byte.SIZE) & 0xFF;
+    private void setMagnitudeBytes(final byte[] bytes) {
+        if (bytes.length <= SMALL_MAGNITUDE_BYTES) {
+            setSmallMagnitude(readLong(bytes, Long.BYTES), readLong(bytes, 0));
+        } else {
+            isSmall = false;
+            limbs = toLimbs(bytes);
+            integer = null;
+            bitLength = signedBitLength(isNegative(), magnitudeBitLength(limbs), isPowerOfTwo(limbs));
+        }
+    }
+
+    /** Reads up to eight little-endian bytes starting at offset. */
+    private static long readLong(final byte[] bytes, final int offset) {
+        long value = 0;
+        for (int i = Math.min(bytes.length - offset, Long.BYTES) - 1; i >= 0; i--) {
+            value = value << Byte.SIZE | bytes[offset + i] & 0xFFL;
+        }
+        return value;
     }
 
     @TruffleBoundary
-    private long absShiftRightIntValue(final int n) {
-        return integer.abs().shiftRight(n).intValue();
+    private static long[] toLimbs(final byte[] bytes) {
+        final long[] result = new long[(bytes.length + Long.BYTES - 1) / Long.BYTES];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = readLong(bytes, i * Long.BYTES);
+        }
+        return result;
     }
 
+    /** Switches to limbs with room for at least {@link #size()} bytes, e.g. before byte writes. */
     @TruffleBoundary
+    private void ensureLimbs() {
+        final int minLength = Math.max(2, (Math.max(exposedSize, (magnitudeBitLength() + 7) / 8) + Long.BYTES - 1) / Long.BYTES);
+        if (isSmall) {
+            limbs = new long[minLength];
+            limbs[0] = low;
+            limbs[1] = high;
+            isSmall = false;
+            /* The cached integer stays valid. */
+        } else if (limbs == null) {
+            limbs = toLimbs(ArrayUtils.swapOrderInPlace(integer.abs().toByteArray()));
+        }
+        if (limbs.length < minLength) {
+            limbs = Arrays.copyOf(limbs, minLength);
+        }
+    }
+
+    private int getMagnitudeByte(final int index) {
+        if (isSmall) {
+            if (index < Long.BYTES) {
+                return (int) (low >>> index * Byte.SIZE) & 0xFF;
+            } else if (index < SMALL_MAGNITUDE_BYTES) {
+                return (int) (high >>> (index - Long.BYTES) * Byte.SIZE) & 0xFF;
+            } else {
+                return 0;
+            }
+        }
+        if (limbs == null) {
+            ensureLimbs();
+        }
+        final int limbIndex = index / Long.BYTES;
+        return limbIndex < limbs.length ? (int) (limbs[limbIndex] >>> index % Long.BYTES * Byte.SIZE) & 0xFF : 0;
+    }
+
+    /** Writes a byte of the magnitude. Callers must call {@link #magnitudeChanged()} afterwards. */
+    private void putMagnitudeByte(final int index, final long value) {
+        final long byteValue = value & 0xFF;
+        if (isSmall && index < SMALL_MAGNITUDE_BYTES) {
+            if (index < Long.BYTES) {
+                final int shift = index * Byte.SIZE;
+                low = low & ~(0xFFL << shift) | byteValue << shift;
+            } else {
+                final int shift = (index - Long.BYTES) * Byte.SIZE;
+                high = high & ~(0xFFL << shift) | byteValue << shift;
+            }
+            return;
+        }
+        if (isSmall || limbs == null || index / Long.BYTES >= limbs.length) {
+            ensureLimbs();
+        }
+        final int shift = index % Long.BYTES * Byte.SIZE;
+        final int limbIndex = index / Long.BYTES;
+        limbs[limbIndex] = limbs[limbIndex] & ~(0xFFL << shift) | byteValue << shift;
+    }
+
+    private void magnitudeChanged() {
+        if (!isSmall && limbs == null) {
+            return; /* Nothing was written (empty replace), so integer is still the value. */
+        }
+        integer = null;
+        if (isSmall) {
+            bitLength = signedBitLength(isNegative(), magnitudeBitLength(high, low), isPowerOfTwo(high, low));
+        } else {
+            bitLength = signedBitLength(isNegative(), magnitudeBitLength(limbs), isPowerOfTwo(limbs));
+        }
+    }
+
+    private int magnitudeBitLength() {
+        if (isSmall) {
+            return magnitudeBitLength(high, low);
+        } else if (limbs != null) {
+            return magnitudeBitLength(limbs);
+        } else {
+            return bitLength(integer.abs());
+        }
+    }
+
+    private static int magnitudeBitLength(final long high, final long low) {
+        return high != 0 ? 2 * Long.SIZE - Long.numberOfLeadingZeros(high) : Long.SIZE - Long.numberOfLeadingZeros(low);
+    }
+
+    private static int magnitudeBitLength(final long[] limbs) {
+        for (int i = limbs.length - 1; i >= 0; i--) {
+            if (limbs[i] != 0) {
+                return (i + 1) * Long.SIZE - Long.numberOfLeadingZeros(limbs[i]);
+            }
+        }
+        return 0;
+    }
+
+    private static boolean isPowerOfTwo(final long high, final long low) {
+        return Long.bitCount(high) + Long.bitCount(low) == 1;
+    }
+
+    private static boolean isPowerOfTwo(final long[] limbs) {
+        int bitCount = 0;
+        for (final long limb : limbs) {
+            bitCount += Long.bitCount(limb);
+        }
+        return bitCount == 1;
+    }
+
+    /** Same as {@link BigInteger#bitLength()}, which excludes the sign bit of two's complement. */
+    private static int signedBitLength(final boolean isNegative, final int magnitudeBitLength, final boolean isPowerOfTwo) {
+        return isNegative && isPowerOfTwo ? magnitudeBitLength - 1 : magnitudeBitLength;
+    }
+
+    private int signum() {
+        final boolean isZero;
+        if (isSmall) {
+            isZero = (high | low) == 0;
+        } else if (limbs != null) {
+            isZero = magnitudeBitLength(limbs) == 0;
+        } else {
+            return integer.signum();
+        }
+        return isZero ? 0 : isPositive() ? 1 : -1;
+    }
+
+    private BigInteger bigInteger() {
+        if (integer == null) {
+            integer = toBigInteger();
+        }
+        return integer;
+    }
+
+    @TruffleBoundary
+    private BigInteger toBigInteger() {
+        final int numBytes = isSmall ? SMALL_MAGNITUDE_BYTES : limbs.length * Long.BYTES;
+        final byte[] bigEndianBytes = new byte[numBytes];
+        for (int i = 0; i < numBytes; i++) {
+            bigEndianBytes[numBytes - 1 - i] = (byte) getMagnitudeByte(i);
+        }
+        return new BigInteger(isPositive() ? 1 : -1, bigEndianBytes);
+    }
+
+    /*
+     * Byte access
+     */
+
+    public long getNativeAt0(final long index) {
+        return getMagnitudeByte((int) index);
+    }
+
     public void setNativeAt0(final long index, final long value) {
         assert index < size() : "Illegal index: " + index;
         assert 0 <= value && value <= NativeObject.BYTE_MAX : "Illegal value for LargeIntegerObject: " + value;
-        final byte[] bytes;
-        final byte[] bigIntegerBytes = toBigEndianBytes(integer);
-        final int offset = bigIntegerBytes[0] != 0 ? 0 : 1;
-        final int bigIntegerBytesActualLength = bigIntegerBytes.length - offset;
-        if (bigIntegerBytesActualLength <= index) {
-            final int newLength = Math.min(size(), (int) index + 1);
-            bytes = new byte[newLength];
-            System.arraycopy(bigIntegerBytes, offset, bytes, newLength - bigIntegerBytesActualLength, bigIntegerBytesActualLength);
-        } else {
-            bytes = bigIntegerBytes;
-        }
-        bytes[bytes.length - 1 - (int) index] = (byte) value;
-        integer = new BigInteger(isPositive() ? 1 : -1, bytes);
-        bitLength = integer.bitLength();
+        putMagnitudeByte((int) index, value);
+        magnitudeChanged();
     }
 
+    /** Returns the magnitude as little-endian bytes without leading zeros. */
     @TruffleBoundary
     public byte[] getBytes() {
-        return toBytes(integer);
+        final byte[] bytes = new byte[(magnitudeBitLength() + 7) / 8];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) getMagnitudeByte(i);
+        }
+        return bytes;
     }
 
-    @TruffleBoundary
     public void replaceInternalValue(final LargeIntegerObject other) {
         assert size() == other.size();
-        integer = other.getSqueakClass() == getSqueakClass() ? other.integer : other.integer.negate();
-        bitLength = integer.bitLength();
+        isSmall = other.isSmall;
+        high = other.high;
+        low = other.low;
+        limbs = other.limbs == null ? null : other.limbs.clone();
+        if (!isSmall && limbs == null) {
+            setValue(other.getSqueakClass() == getSqueakClass() ? other.integer : negate(other.integer));
+        } else {
+            magnitudeChanged();
+            integer = other.getSqueakClass() == getSqueakClass() ? other.integer : null;
+        }
     }
 
     @TruffleBoundary
+    private static BigInteger negate(final BigInteger value) {
+        return value.negate();
+    }
+
     public void setBytes(final byte[] bytes) {
         assert size() == bytes.length;
-        integer = new BigInteger(isPositive() ? 1 : -1, ArrayUtils.swapOrderCopy(bytes));
-        bitLength = integer.bitLength();
+        setMagnitudeBytes(bytes);
     }
 
     @TruffleBoundary
     public void setBytes(final LargeIntegerObject src, final int srcPos, final int destPos, final int length) {
-        final byte[] bytes;
-        final byte[] srcBytes = toBigEndianBytes(src.integer);
-        final byte[] bigIntegerBytes = toBigEndianBytes(integer);
-        final int offset = bigIntegerBytes[0] != 0 ? 0 : 1;
-        final int bigIntegerBytesActualLength = bigIntegerBytes.length - offset;
-        if (bigIntegerBytesActualLength < destPos + length) {
-            bytes = new byte[size()];
-            System.arraycopy(bigIntegerBytes, offset, bytes, 0, bigIntegerBytesActualLength);
-        } else {
-            bytes = bigIntegerBytes;
+        for (int i = 0; i < length; i++) {
+            putMagnitudeByte(destPos + i, src.getMagnitudeByte(srcPos + i));
         }
-        System.arraycopy(srcBytes, srcBytes.length - length - srcPos, bytes, bytes.length - length - destPos, length);
-        integer = new BigInteger(isPositive() ? 1 : -1, bytes);
-        bitLength = integer.bitLength();
+        magnitudeChanged();
     }
 
     @TruffleBoundary
     public void setBytes(final byte[] srcBytes, final int srcPos, final int destPos, final int length) {
-        // destination bytes are big-endian, source bytes are not
-        final byte[] bytes;
-        final byte[] bigIntegerBytes = toBigEndianBytes(integer);
-        final int offset = bigIntegerBytes[0] != 0 ? 0 : 1;
-        final int bigIntegerBytesActualLength = bigIntegerBytes.length - offset;
-        if (bigIntegerBytesActualLength < destPos + length) {
-            bytes = new byte[size()];
-            System.arraycopy(bigIntegerBytes, offset, bytes, 0, bigIntegerBytesActualLength);
-        } else {
-            bytes = bigIntegerBytes;
-        }
         for (int i = 0; i < length; i++) {
-            bytes[bytes.length - 1 - (destPos + i)] = srcBytes[srcPos + i];
+            putMagnitudeByte(destPos + i, srcBytes[srcPos + i]);
         }
-        integer = new BigInteger(isPositive() ? 1 : -1, bytes);
-        bitLength = integer.bitLength();
+        magnitudeChanged();
     }
 
     @Override
@@ -198,17 +374,25 @@ public final class LargeIntegerObject extends AbstractSqueakObjectWithClassAndHa
     @TruffleBoundary(transferToInterpreterOnException = false)
     public String toString() {
         CompilerAsserts.neverPartOfCompilation();
-        assert bitLength == integer.bitLength();
+        assert bitLength == bigInteger().bitLength();
         if (bitLength < Long.SIZE) {
-            return integer.longValue() + " - non-normalized " + getSqueakClass() + " of size " + exposedSize;
-        } else if (exposedSize != calculateExposedSize(integer)) {
-            return integer + " - non-normalized " + getSqueakClass() + " of size " + exposedSize;
+            return longValue() + " - non-normalized " + getSqueakClass() + " of size " + exposedSize;
+        } else if (exposedSize != (magnitudeBitLength() + 7) / 8) {
+            return bigInteger() + " - non-normalized " + getSqueakClass() + " of size " + exposedSize;
         }
-        return integer.toString();
+        return bigInteger().toString();
     }
 
     public boolean equals(final LargeIntegerObject other) {
-        return integer.equals(other.integer);
+        if (isSmall && other.isSmall) {
+            return signum() == other.signum() && high == other.high && low == other.low;
+        }
+        return equalsSlow(other);
+    }
+
+    @TruffleBoundary
+    private boolean equalsSlow(final LargeIntegerObject other) {
+        return bigInteger().equals(other.bigInteger());
     }
 
     @Override
@@ -250,7 +434,7 @@ public final class LargeIntegerObject extends AbstractSqueakObjectWithClassAndHa
         return reduceIfPossible(getSqueakClass().getImage(), value);
     }
 
-    private static Object reduceIfPossible(final SqueakImageContext image, final BigInteger value) {
+    public static Object reduceIfPossible(final SqueakImageContext image, final BigInteger value) {
         if (bitLength(value) < Long.SIZE) {
             return value.longValue();
         } else {
@@ -258,39 +442,73 @@ public final class LargeIntegerObject extends AbstractSqueakObjectWithClassAndHa
         }
     }
 
-    @TruffleBoundary
+    /** Answers a normalized long or large integer for a sign and a 128-bit magnitude. */
+    private static Object reduceIfPossible(final SqueakImageContext image, final boolean isNegative, final long high, final long low) {
+        if (high == 0 && (low >= 0 || isNegative && low == Long.MIN_VALUE)) {
+            return isNegative ? -low : low;
+        } else {
+            return new LargeIntegerObject(image, isNegative, high, low);
+        }
+    }
+
     public Object reduceIfPossible() {
         if (bitLength < Long.SIZE) {
-            return integer.longValue();
+            return longValue();
         } else {
-            exposedSize = calculateExposedSize(integer);
+            exposedSize = (magnitudeBitLength() + 7) / 8;
             return this;
         }
     }
 
-    @TruffleBoundary
+    /** Same as {@link BigInteger#longValue()}, the low 64 bits in two's complement. */
     public long longValue() {
+        final long lowMagnitude;
+        if (isSmall) {
+            lowMagnitude = low;
+        } else if (limbs != null) {
+            lowMagnitude = limbs[0];
+        } else {
+            return longValueSlow();
+        }
+        return isPositive() ? lowMagnitude : -lowMagnitude;
+    }
+
+    @TruffleBoundary
+    private long longValueSlow() {
         return integer.longValue();
     }
 
-    @TruffleBoundary(transferToInterpreterOnException = false)
     public long longValueExact() throws ArithmeticException {
-        return integer.longValueExact();
+        if (bitLength < Long.SIZE) {
+            return longValue();
+        }
+        throw outOfRange("long");
     }
 
-    @TruffleBoundary(transferToInterpreterOnException = false)
     private byte byteValueExact() throws ArithmeticException {
-        return integer.byteValueExact();
+        if (bitLength < Byte.SIZE) {
+            return (byte) longValue();
+        }
+        throw outOfRange("byte");
     }
 
-    @TruffleBoundary(transferToInterpreterOnException = false)
     private short shortValueExact() throws ArithmeticException {
-        return integer.shortValueExact();
+        if (bitLength < Short.SIZE) {
+            return (short) longValue();
+        }
+        throw outOfRange("short");
     }
 
-    @TruffleBoundary(transferToInterpreterOnException = false)
     public int intValueExact() throws ArithmeticException {
-        return integer.intValueExact();
+        if (bitLength < Integer.SIZE) {
+            return (int) longValue();
+        }
+        throw outOfRange("int");
+    }
+
+    @TruffleBoundary
+    private static ArithmeticException outOfRange(final String type) {
+        return new ArithmeticException("BigInteger out of " + type + " range");
     }
 
     public boolean fitsIntoLong() {
@@ -318,69 +536,179 @@ public final class LargeIntegerObject extends AbstractSqueakObjectWithClassAndHa
      * Arithmetic Operations
      */
 
+    /** Adds two 128-bit magnitudes with signs, or answers null if the result may not fit. */
+    private static Object addMagnitudes(final SqueakImageContext image, final boolean isNegativeA, final long highA, final long lowA, final boolean isNegativeB, final long highB,
+                    final long lowB) {
+        if (isNegativeA == isNegativeB) {
+            if (highA < 0 || highB < 0) {
+                return null; /* Sum could exceed 128 bits. */
+            }
+            final long resultLow = lowA + lowB;
+            final long carry = Long.compareUnsigned(resultLow, lowA) < 0 ? 1L : 0L;
+            return reduceIfPossible(image, isNegativeA, highA + highB + carry, resultLow);
+        } else {
+            final int comparison = compareMagnitudes(highA, lowA, highB, lowB);
+            if (comparison == 0) {
+                return 0L;
+            } else if (comparison > 0) {
+                return reduceIfPossible(image, isNegativeA, highA - highB - (Long.compareUnsigned(lowA, lowB) < 0 ? 1L : 0L), lowA - lowB);
+            } else {
+                return reduceIfPossible(image, isNegativeB, highB - highA - (Long.compareUnsigned(lowB, lowA) < 0 ? 1L : 0L), lowB - lowA);
+            }
+        }
+    }
+
+    private static int compareMagnitudes(final long highA, final long lowA, final long highB, final long lowB) {
+        final int highComparison = Long.compareUnsigned(highA, highB);
+        return highComparison != 0 ? highComparison : Long.compareUnsigned(lowA, lowB);
+    }
+
+    /** The magnitude of a long as an unsigned long, which is also correct for Long.MIN_VALUE. */
+    private static long magnitude(final long value) {
+        return value < 0 ? -value : value;
+    }
+
+    /** Same as Math.multiplyHigh(long, long) of Java 9+, but for unsigned values. */
+    private static long unsignedMultiplyHigh(final long x, final long y) {
+        final long x1 = x >>> 32;
+        final long x0 = x & 0xFFFFFFFFL;
+        final long y1 = y >>> 32;
+        final long y0 = y & 0xFFFFFFFFL;
+        final long w0 = x0 * y0;
+        final long t = x1 * y0 + (w0 >>> 32);
+        final long w1 = x0 * y1 + (t & 0xFFFFFFFFL);
+        return x1 * y1 + (t >>> 32) + (w1 >>> 32);
+    }
+
     // TODO: Find out when reduceIfPossible is really necessary
-    @TruffleBoundary(transferToInterpreterOnException = false)
     public Object add(final LargeIntegerObject b) {
-        return reduceIfPossible(integer.add(b.integer));
+        if (isSmall && b.isSmall) {
+            final Object result = addMagnitudes(getSqueakClass().getImage(), isNegative(), high, low, b.isNegative(), b.high, b.low);
+            if (result != null) {
+                return result;
+            }
+        }
+        return addSlow(b);
     }
 
     @TruffleBoundary(transferToInterpreterOnException = false)
+    private Object addSlow(final LargeIntegerObject b) {
+        return reduceIfPossible(bigInteger().add(b.bigInteger()));
+    }
+
     public Object add(final long b) {
-        return reduceIfPossible(integer.add(BigInteger.valueOf(b)));
+        if (isSmall) {
+            final Object result = addMagnitudes(getSqueakClass().getImage(), isNegative(), high, low, b < 0, 0L, magnitude(b));
+            if (result != null) {
+                return result;
+            }
+        }
+        return addSlow(b);
     }
 
     @TruffleBoundary(transferToInterpreterOnException = false)
+    private Object addSlow(final long b) {
+        return reduceIfPossible(bigInteger().add(BigInteger.valueOf(b)));
+    }
+
     public static Object add(final SqueakImageContext image, final long lhs, final long rhs) {
         /* Inlined version of Math.addExact(x, y) with large integer fallback. */
         final long result = lhs + rhs;
         // HD 2-12 Overflow iff both arguments have the opposite sign of the result
         if (((lhs ^ result) & (rhs ^ result)) < 0) {
-            return new LargeIntegerObject(image, BigInteger.valueOf(lhs).add(BigInteger.valueOf(rhs)));
+            /* Both arguments have the same sign, so the magnitudes add up to at most 2^64. */
+            final long magnitudeLow = magnitude(lhs) + magnitude(rhs);
+            return new LargeIntegerObject(image, lhs < 0, Long.compareUnsigned(magnitudeLow, magnitude(lhs)) < 0 ? 1L : 0L, magnitudeLow);
         }
         return result;
     }
 
-    @TruffleBoundary(transferToInterpreterOnException = false)
     public Object subtract(final LargeIntegerObject b) {
-        return reduceIfPossible(integer.subtract(b.integer));
+        if (isSmall && b.isSmall) {
+            final Object result = addMagnitudes(getSqueakClass().getImage(), isNegative(), high, low, !b.isNegative(), b.high, b.low);
+            if (result != null) {
+                return result;
+            }
+        }
+        return subtractSlow(b);
     }
 
     @TruffleBoundary(transferToInterpreterOnException = false)
+    private Object subtractSlow(final LargeIntegerObject b) {
+        return reduceIfPossible(bigInteger().subtract(b.bigInteger()));
+    }
+
     public Object subtract(final long b) {
-        return reduceIfPossible(integer.subtract(BigInteger.valueOf(b)));
+        if (isSmall) {
+            final Object result = addMagnitudes(getSqueakClass().getImage(), isNegative(), high, low, b > 0, 0L, magnitude(b));
+            if (result != null) {
+                return result;
+            }
+        }
+        return subtractSlow(b);
     }
 
     @TruffleBoundary(transferToInterpreterOnException = false)
+    private Object subtractSlow(final long b) {
+        return reduceIfPossible(bigInteger().subtract(BigInteger.valueOf(b)));
+    }
+
     public static Object subtract(final SqueakImageContext image, final long lhs, final long rhs) {
         /* Inlined version of Math.subtractExact(x, y) with large integer fallback. */
         final long result = lhs - rhs;
         // HD 2-12 Overflow iff the arguments have different signs and
         // the sign of the result is different than the sign of x
         if (((lhs ^ rhs) & (lhs ^ result)) < 0) {
-            return new LargeIntegerObject(image, BigInteger.valueOf(lhs).subtract(BigInteger.valueOf(rhs)));
+            /* The arguments have different signs, so the magnitudes add up to at most 2^64. */
+            final long magnitudeLow = magnitude(lhs) + magnitude(rhs);
+            return new LargeIntegerObject(image, lhs < 0, Long.compareUnsigned(magnitudeLow, magnitude(lhs)) < 0 ? 1L : 0L, magnitudeLow);
         }
         return result;
     }
 
-    @TruffleBoundary(transferToInterpreterOnException = false)
     public static Object subtract(final long a, final LargeIntegerObject b) {
-        return b.reduceIfPossible(BigInteger.valueOf(a).subtract(b.integer));
+        if (b.isSmall) {
+            final Object result = addMagnitudes(b.getSqueakClass().getImage(), a < 0, 0L, magnitude(a), !b.isNegative(), b.high, b.low);
+            if (result != null) {
+                return result;
+            }
+        }
+        return subtractSlow(a, b);
     }
 
     @TruffleBoundary(transferToInterpreterOnException = false)
+    private static Object subtractSlow(final long a, final LargeIntegerObject b) {
+        return b.reduceIfPossible(BigInteger.valueOf(a).subtract(b.bigInteger()));
+    }
+
     public Object multiply(final LargeIntegerObject b) {
-        return reduceIfPossible(integer.multiply(b.integer));
+        if (isSmall && b.isSmall && high == 0 && b.high == 0) {
+            return reduceIfPossible(getSqueakClass().getImage(), isNegative() != b.isNegative(), unsignedMultiplyHigh(low, b.low), low * b.low);
+        }
+        return multiplySlow(b);
     }
 
     @TruffleBoundary(transferToInterpreterOnException = false)
+    private Object multiplySlow(final LargeIntegerObject b) {
+        return reduceIfPossible(bigInteger().multiply(b.bigInteger()));
+    }
+
     public Object multiply(final long b) {
         if (b == 0) {
             return 0L;
         }
-        return reduceIfPossible(integer.multiply(BigInteger.valueOf(b)));
+        if (isSmall && high == 0) {
+            final long magnitudeB = magnitude(b);
+            return reduceIfPossible(getSqueakClass().getImage(), isNegative() != b < 0, unsignedMultiplyHigh(low, magnitudeB), low * magnitudeB);
+        }
+        return multiplySlow(b);
     }
 
     @TruffleBoundary(transferToInterpreterOnException = false)
+    private Object multiplySlow(final long b) {
+        return reduceIfPossible(bigInteger().multiply(BigInteger.valueOf(b)));
+    }
+
     public static Object multiply(final SqueakImageContext image, final long lhs, final long rhs) {
         /* Inlined version of Math.multiplyExact(x, y) with large integer fallback. */
         final long result = lhs * rhs;
@@ -391,7 +719,9 @@ public final class LargeIntegerObject extends AbstractSqueakObjectWithClassAndHa
             // Check the result using the divide operator
             // and check for the special case of Long.MIN_VALUE * -1
             if (rhs != 0 && result / rhs != lhs || lhs == Long.MIN_VALUE && rhs == -1) {
-                return new LargeIntegerObject(image, BigInteger.valueOf(lhs).multiply(BigInteger.valueOf(rhs)));
+                final long magnitudeLhs = magnitude(lhs);
+                final long magnitudeRhs = magnitude(rhs);
+                return new LargeIntegerObject(image, lhs < 0 != rhs < 0, unsignedMultiplyHigh(magnitudeLhs, magnitudeRhs), magnitudeLhs * magnitudeRhs);
             }
         }
         return result;
@@ -399,12 +729,12 @@ public final class LargeIntegerObject extends AbstractSqueakObjectWithClassAndHa
 
     @TruffleBoundary(transferToInterpreterOnException = false)
     public Object divide(final LargeIntegerObject b) {
-        return reduceIfPossible(integer.divide(b.integer));
+        return reduceIfPossible(bigInteger().divide(b.bigInteger()));
     }
 
     @TruffleBoundary(transferToInterpreterOnException = false)
     public Object divide(final long b) {
-        return reduceIfPossible(integer.divide(BigInteger.valueOf(b)));
+        return reduceIfPossible(bigInteger().divide(BigInteger.valueOf(b)));
     }
 
     public static long divide(@SuppressWarnings("unused") final long a, final LargeIntegerObject b) {
@@ -414,17 +744,17 @@ public final class LargeIntegerObject extends AbstractSqueakObjectWithClassAndHa
 
     @TruffleBoundary(transferToInterpreterOnException = false)
     public Object floorDivide(final LargeIntegerObject b) {
-        return reduceIfPossible(floorDivide(integer, b.integer));
+        return reduceIfPossible(floorDivide(bigInteger(), b.bigInteger()));
     }
 
     @TruffleBoundary(transferToInterpreterOnException = false)
     public Object floorDivide(final long b) {
-        return reduceIfPossible(floorDivide(integer, BigInteger.valueOf(b)));
+        return reduceIfPossible(floorDivide(bigInteger(), BigInteger.valueOf(b)));
     }
 
     public static long floorDivide(final long a, final LargeIntegerObject b) {
         assert !b.fitsIntoLong() : "non-reduced large integer!";
-        if (a != 0 && a < 0 ^ b.integer.signum() < 0) {
+        if (a != 0 && a < 0 ^ b.signum() < 0) {
             return -1L;
         } else {
             return 0L;
@@ -443,17 +773,17 @@ public final class LargeIntegerObject extends AbstractSqueakObjectWithClassAndHa
 
     @TruffleBoundary(transferToInterpreterOnException = false)
     public Object floorMod(final LargeIntegerObject b) {
-        return floorMod(integer, b.integer);
+        return floorMod(bigInteger(), b.bigInteger());
     }
 
     @TruffleBoundary(transferToInterpreterOnException = false)
     public Object floorMod(final long b) {
-        return floorMod(integer, BigInteger.valueOf(b));
+        return floorMod(bigInteger(), BigInteger.valueOf(b));
     }
 
     @TruffleBoundary(transferToInterpreterOnException = false)
     public Object floorModReverseOrder(final long a) {
-        return floorMod(BigInteger.valueOf(a), integer);
+        return floorMod(BigInteger.valueOf(a), bigInteger());
     }
 
     private Object floorMod(final BigInteger a, final BigInteger b) {
@@ -462,49 +792,67 @@ public final class LargeIntegerObject extends AbstractSqueakObjectWithClassAndHa
 
     @TruffleBoundary(transferToInterpreterOnException = false)
     public long remainder(final long other) {
-        return integer.remainder(BigInteger.valueOf(other)).longValue();
+        return bigInteger().remainder(BigInteger.valueOf(other)).longValue();
     }
 
     @TruffleBoundary(transferToInterpreterOnException = false)
     public Object remainder(final LargeIntegerObject b) {
-        return reduceIfPossible(integer.remainder(b.integer));
+        return reduceIfPossible(bigInteger().remainder(b.bigInteger()));
     }
 
-    @TruffleBoundary(transferToInterpreterOnException = false)
     public int compareTo(final LargeIntegerObject b) {
-        return integer.compareTo(b.integer);
+        if (isSmall && b.isSmall) {
+            final int signum = signum();
+            final int otherSignum = b.signum();
+            if (signum != otherSignum) {
+                return Integer.compare(signum, otherSignum);
+            }
+            final int comparison = compareMagnitudes(high, low, b.high, b.low);
+            return signum >= 0 ? comparison : -comparison;
+        }
+        return compareToSlow(b);
     }
 
     @TruffleBoundary(transferToInterpreterOnException = false)
+    private int compareToSlow(final LargeIntegerObject b) {
+        return bigInteger().compareTo(b.bigInteger());
+    }
+
     public int compareTo(final long b) {
         if (bitLength < Long.SIZE) {
-            return Long.compare(integer.longValue(), b);
+            return Long.compare(longValue(), b);
         } else {
-            return integer.signum();
+            return signum();
         }
     }
 
-    @TruffleBoundary(transferToInterpreterOnException = false)
     public double doubleValue() {
-        return integer.doubleValue();
+        if (isSmall && high == 0) {
+            /* Unsigned conversion, rounding the lowest bit into the sticky bit. */
+            final double magnitude = low >= 0 ? (double) low : ((double) (low >>> 1 | low & 1)) * 2.0;
+            return isPositive() ? magnitude : -magnitude;
+        }
+        return doubleValueSlow();
+    }
+
+    @TruffleBoundary(transferToInterpreterOnException = false)
+    private double doubleValueSlow() {
+        return bigInteger().doubleValue();
     }
 
-    /** {@link BigInteger#signum()} does not need a {@link TruffleBoundary}. */
     public boolean isZero() {
-        return integer.signum() == 0;
+        return signum() == 0;
     }
 
-    /** {@link BigInteger#signum()} does not need a {@link TruffleBoundary}. */
     public boolean isZeroOrPositive() {
-        return integer.signum() >= 0;
+        return signum() >= 0;
     }
 
-    @TruffleBoundary(transferToInterpreterOnException = false)
     public boolean lessThanOrEqualTo(final long value) {
         if (bitLength < Long.SIZE) {
-            return integer.longValue() <= value;
+            return longValue() <= value;
         } else {
-            return integer.signum() < 0;
+            return signum() < 0;
         }
     }
 
@@ -512,10 +860,9 @@ public final class LargeIntegerObject extends AbstractSqueakObjectWithClassAndHa
         return bitLength < Long.SIZE + 1;
     }
 
-    @TruffleBoundary(transferToInterpreterOnException = false)
     public boolean inRange(final long minValue, final long maxValue) {
         if (bitLength < Long.SIZE) {
-            final long longValueExact = integer.longValue();
+            final long longValueExact = longValue();
             return minValue <= longValueExact && longValueExact <= maxValue;
         }
         return false;
@@ -523,12 +870,12 @@ public final class LargeIntegerObject extends AbstractSqueakObjectWithClassAndHa
 
     @TruffleBoundary(transferToInterpreterOnException = false)
     public boolean isIntegralWhenDividedBy(final LargeIntegerObject other) {
-        return integer.remainder(other.integer).signum() == 0;
+        return bigInteger().remainder(other.bigInteger()).signum() == 0;
     }
 
     @TruffleBoundary(transferToInterpreterOnException = false)
     public boolean isIntegralWhenDividedBy(final long other) {
-        return integer.remainder(BigInteger.valueOf(other)).signum() == 0;
+        return bigInteger().remainder(BigInteger.valueOf(other)).signum() == 0;
     }
 
     public boolean sameSign(final LargeIntegerObject other) {
@@ -539,20 +886,15 @@ public final class LargeIntegerObject extends AbstractSqueakObjectWithClassAndHa
         return isNegative() ^ other < 0;
     }
 
-    @TruffleBoundary(transferToInterpreterOnException = false)
     public long toSignedLong() {
         assert isPositive() && bitLength <= Long.SIZE;
-        if (bitLength == Long.SIZE) {
-            return integer.subtract(ONE_SHIFTED_BY_64).longValue();
-        } else {
-            return integer.longValue();
-        }
+        /* The low 64 bits of the magnitude, reinterpreted in two's complement. */
+        return longValue();
     }
 
-    @TruffleBoundary(transferToInterpreterOnException = false)
     public static LargeIntegerObject toUnsigned(final SqueakImageContext image, final long value) {
         assert value < 0;
-        return new LargeIntegerObject(image, BigInteger.valueOf(value).add(ONE_SHIFTED_BY_64));
+        return new LargeIntegerObject(image, false, 0L, value);
     }
 
     @TruffleBoundary(transferToInterpreterOnException = false)
@@ -566,40 +908,41 @@ public final class LargeIntegerObject extends AbstractSqueakObjectWithClassAndHa
 
     @TruffleBoundary(transferToInterpreterOnException = false)
     public Object and(final LargeIntegerObject b) {
-        return reduceIfPossible(integer.and(b.integer));
+        return reduceIfPossible(bigInteger().and(b.bigInteger()));
     }
 
     @TruffleBoundary(transferToInterpreterOnException = false)
     public Object and(final long b) {
-        return reduceIfPossible(integer.and(BigInteger.valueOf(b)));
+        return reduceIfPossible(bigInteger().and(BigInteger.valueOf(b)));
     }
 
     @TruffleBoundary(transferToInterpreterOnException = false)
     public Object or(final LargeIntegerObject b) {
-        return reduceIfPossible(integer.or(b.integer));
+        return reduceIfPossible(bigInteger().or(b.bigInteger()));
     }
 
     @TruffleBoundary(transferToInterpreterOnException = false)
     public Object or(final long b) {
-        return reduceIfPossible(integer.or(BigInteger.valueOf(b)));
+        return reduceIfPossible(bigInteger().or(BigInteger.valueOf(b)));
     }
 
     @TruffleBoundary(transferToInterpreterOnException = false)
     public Object xor(final LargeIntegerObject b) {
-        return reduceIfPossible(integer.xor(b.integer));
+        return reduceIfPossible(bigInteger().xor(b.bigInteger()));
     }
 
     @TruffleBoundary(transferToInterpreterOnException = false)
     public Object xor(final long b) {
-        return reduceIfPossible(integer.xor(BigInteger.valueOf(b)));
+        return reduceIfPossible(bigInteger().xor(BigInteger.valueOf(b)));
     }
 
     @TruffleBoundary(transferToInterpreterOnException = false)
     public Object shiftLeft(final int b) {
-        if (integer.signum() < 0 && b < 0) {
-            return reduceIfPossible(integer.abs().shiftLeft(b).negate());
+        final BigInteger value = bigInteger();
+        if (value.signum() < 0 && b < 0) {
+            return reduceIfPossible(value.abs().shiftLeft(b).negate());
         }
-        return reduceIfPossible(integer.shiftLeft(b));
+        return reduceIfPossible(value.shiftLeft(b));
     }
 
     @TruffleBoundary(transferToInterpreterOnException = false)
@@ -608,7 +951,8 @@ public final class LargeIntegerObject extends AbstractSqueakObjectWithClassAndHa
         return reduceIfPossible(image, BigInteger.valueOf(a).shiftLeft(b));
     }
 
+    @TruffleBoundary
     public BigInteger getBigInteger() {
-        return integer;
+        return bigInteger();
     }
 }
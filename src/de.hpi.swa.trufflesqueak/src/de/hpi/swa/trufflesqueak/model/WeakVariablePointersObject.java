@@ -19,6 +19,13 @@ import de.hpi.swa.trufflesqueak.nodes.accessing.SqueakObjectIdentityNode;
 import de.hpi.swa.trufflesqueak.util.ObjectGraphUtils.ObjectTracer;
 import de.hpi.swa.trufflesqueak.util.UnsafeUtils;
 
+/**
+ * Weak slots hold the {@link TruffleWeakReference} of their referent, which is created once per
+ * referent and shared by all weak slots pointing to it. Storing into a weak slot therefore does not
+ * allocate (except for the first weak slot of an object), and the GC processes one reference per
+ * weakly referenced object rather than one per weak slot. Nil and characters are never collected
+ * and are stored directly.
+ */
 public final class WeakVariablePointersObject extends AbstractPointersObject {
     private Object[] variablePart;
     private final ReferenceQueue<Object> weakPointersQueue;
@@ -53,8 +60,8 @@ public final class WeakVariablePointersObject extends AbstractPointersObject {
         variablePart = Arrays.copyOfRange(pointers, instSize, pointers.length);
         for (int i = 0; i < variablePart.length; i++) {
             final Object value = variablePart[i];
-            if (value instanceof AbstractSqueakObject) {
-                variablePart[i] = new TruffleWeakReference<>(value, weakPointersQueue);
+            if (value instanceof AbstractSqueakObjectWithClassAndHash) {
+                variablePart[i] = ((AbstractSqueakObjectWithClassAndHash) value).getWeakReference(weakPointersQueue);
             }
         }
     }
@@ -104,7 +111,7 @@ public final class WeakVariablePointersObject extends AbstractPointersObject {
     }
 
     public void putIntoVariablePart(final int index, final Object value, final ConditionProfile profile) {
-        UnsafeUtils.putObject(variablePart, index, profile.profile(value instanceof AbstractSqueakObject) ? new TruffleWeakReference<>(value, weakPointersQueue) : value);
+        UnsafeUtils.putObject(variablePart, index, profile.profile(value instanceof AbstractSqueakObjectWithClassAndHash) ? ((AbstractSqueakObjectWithClassAndHash) value).getWeakReference(weakPointersQueue) : value);
     }
 
     public boolean pointsTo(final SqueakObjectIdentityNode identityNode, final Object thang) {
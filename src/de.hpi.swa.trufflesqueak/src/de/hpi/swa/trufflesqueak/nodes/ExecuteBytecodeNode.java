@@ -21,6 +21,8 @@ import de.hpi.swa.trufflesqueak.exceptions.Returns.NonLocalReturn;
 import de.hpi.swa.trufflesqueak.model.CompiledCodeObject;
 import de.hpi.swa.trufflesqueak.model.ContextObject;
 import de.hpi.swa.trufflesqueak.nodes.bytecodes.AbstractBytecodeNode;
+import de.hpi.swa.trufflesqueak.nodes.bytecodes.FusedBytecodes.FusedArithmeticNode;
+import de.hpi.swa.trufflesqueak.nodes.bytecodes.FusedBytecodes.FusedCompareAndJumpNode;
 import de.hpi.swa.trufflesqueak.nodes.bytecodes.JumpBytecodes.ConditionalJumpNode;
 import de.hpi.swa.trufflesqueak.nodes.bytecodes.JumpBytecodes.UnconditionalJumpNode;
 import de.hpi.swa.trufflesqueak.nodes.bytecodes.ReturnBytecodes.AbstractReturnNode;
@@ -118,6 +120,29 @@ public final class ExecuteBytecodeNode extends AbstractExecuteContextNode {
                     pc = successor;
                     continue bytecode_loop;
                 }
+            } else if (node instanceof FusedArithmeticNode) {
+                final FusedArithmeticNode fusedNode = (FusedArithmeticNode) node;
+                if (fusedNode.executeFused(frame)) {
+                    pc = fusedNode.getSuccessorIndex();
+                } else {
+                    pc = fusedNode.getUnfusedSuccessorIndex();
+                }
+                continue bytecode_loop;
+            } else if (node instanceof FusedCompareAndJumpNode) {
+                final FusedCompareAndJumpNode fusedNode = (FusedCompareAndJumpNode) node;
+                final int outcome = fusedNode.executeFused(frame);
+                if (outcome == FusedCompareAndJumpNode.JUMP) {
+                    final int successor = fusedNode.getJumpSuccessorIndex();
+                    if (CompilerDirectives.inInterpreter() && successor <= pc) {
+                        backJumpCounter++;
+                    }
+                    pc = successor;
+                } else if (outcome == FusedCompareAndJumpNode.NO_JUMP) {
+                    pc = fusedNode.getSuccessorIndex();
+                } else {
+                    pc = fusedNode.getUnfusedSuccessorIndex();
+                }
+                continue bytecode_loop;
             } else if (node instanceof UnconditionalJumpNode) {
                 final int successor = ((UnconditionalJumpNode) node).getSuccessorIndex();
                 if (CompilerDirectives.inInterpreter() && successor <= pc) {
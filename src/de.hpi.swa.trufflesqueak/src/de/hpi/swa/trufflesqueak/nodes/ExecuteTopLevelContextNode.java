@@ -60,6 +60,8 @@ public final class ExecuteTopLevelContextNode extends RootNode {
         } finally {
             if (isImageResuming) {
                 image.interrupt.shutdown();
+                image.aio.shutdown();
+                image.stdio.shutdown();
                 if (image.hasDisplay()) {
                     image.getDisplay().close();
                 }
@@ -11,7 +11,11 @@ import de.hpi.swa.trufflesqueak.model.CompiledCodeObject;
 
 public abstract class AbstractSqueakBytecodeDecoder {
 
-    public abstract AbstractBytecodeNode decodeBytecode(VirtualFrame frame, CompiledCodeObject code, int index);
+    public final AbstractBytecodeNode decodeBytecode(final VirtualFrame frame, final CompiledCodeObject code, final int index) {
+        return FusedBytecodes.tryFuse(this, frame, code, decodeUnfusedBytecode(frame, code, index));
+    }
+
+    protected abstract AbstractBytecodeNode decodeUnfusedBytecode(VirtualFrame frame, CompiledCodeObject code, int index);
 
     public abstract String decodeToString(CompiledCodeObject code);
 
@@ -20,4 +24,11 @@ public abstract class AbstractSqueakBytecodeDecoder {
     public abstract int trailerPosition(CompiledCodeObject code);
 
     public abstract boolean hasStoreIntoTemp1AfterCallPrimitive(CompiledCodeObject code);
+
+    /**
+     * Answers whether the bytecodes from start (inclusive) to end (exclusive), including those of
+     * nested blocks, return non-locally or access thisContext and thus need the outer context of
+     * their closure.
+     */
+    public abstract boolean blockNeedsOuterContext(CompiledCodeObject code, int start, int end);
 }
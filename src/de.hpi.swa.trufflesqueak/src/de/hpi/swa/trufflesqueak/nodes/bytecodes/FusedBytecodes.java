@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2017-2021 Software Architecture Group, Hasso Plattner Institute
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.nodes.bytecodes;
+
+import com.oracle.truffle.api.CompilerAsserts;
+import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.NodeCost;
+import com.oracle.truffle.api.nodes.NodeInfo;
+import com.oracle.truffle.api.profiles.ConditionProfile;
+
+import de.hpi.swa.trufflesqueak.exceptions.SqueakExceptions.SqueakException;
+import de.hpi.swa.trufflesqueak.model.CompiledCodeObject;
+import de.hpi.swa.trufflesqueak.nodes.AbstractNode;
+import de.hpi.swa.trufflesqueak.nodes.bytecodes.JumpBytecodes.ConditionalJumpNode;
+import de.hpi.swa.trufflesqueak.nodes.bytecodes.JumpBytecodes.ConditionalJumpOnTrueNode;
+import de.hpi.swa.trufflesqueak.nodes.bytecodes.PushBytecodes.PushConstantNode;
+import de.hpi.swa.trufflesqueak.nodes.bytecodes.PushBytecodes.PushLiteralConstantNode;
+import de.hpi.swa.trufflesqueak.nodes.bytecodes.PushBytecodes.PushSmallIntegerNode;
+import de.hpi.swa.trufflesqueak.nodes.bytecodes.PushBytecodes.PushTemporaryLocationNode;
+import de.hpi.swa.trufflesqueak.nodes.bytecodes.SendBytecodes.AbstractSendSpecialSelectorQuickNode;
+import de.hpi.swa.trufflesqueak.nodes.bytecodes.StoreBytecodes.PopIntoTemporaryLocationNode;
+import de.hpi.swa.trufflesqueak.nodes.context.TemporaryWriteMarkContextsNode;
+import de.hpi.swa.trufflesqueak.nodes.context.frame.FrameStackReadNode;
+
+/**
+ * Superinstructions for the SmallInteger arithmetic and comparisons found in most loops. Two pushes
+ * of temporaries or SmallInteger constants followed by an arithmetic special selector send and a
+ * pop into a temporary (e.g., <code>i := i + 1</code>), or by a comparison special selector send and
+ * a conditional jump (e.g., <code>i <= n</code> in an inlined <code>#to:do:</code>), are fused into
+ * a single node. Fused nodes read their operands directly from the frame and keep the intermediate
+ * result in a Java local instead of going through the frame stack. If an operand is not a
+ * SmallInteger or the arithmetic overflows, a fused node replaces itself with the first of its
+ * bytecodes and the remaining ones are decoded and executed individually.
+ */
+public final class FusedBytecodes {
+
+    public static AbstractBytecodeNode tryFuse(final AbstractSqueakBytecodeDecoder decoder, final VirtualFrame frame, final CompiledCodeObject code, final AbstractBytecodeNode first) {
+        CompilerAsserts.neverPartOfCompilation();
+        final AbstractOperandNode lhsNode = createOperandOrNull(first);
+        if (lhsNode == null) {
+            return first;
+        }
+        final AbstractBytecodeNode second = decoder.decodeUnfusedBytecode(frame, code, first.getSuccessorIndex() - code.getInitialPC());
+        final AbstractOperandNode rhsNode = createOperandOrNull(second);
+        if (rhsNode == null) {
+            return first;
+        }
+        final AbstractBytecodeNode third = decoder.decodeUnfusedBytecode(frame, code, second.getSuccessorIndex() - code.getInitialPC());
+        if (!(third instanceof AbstractSendSpecialSelectorQuickNode)) {
+            return first;
+        }
+        final int selectorIndex = ((AbstractSendSpecialSelectorQuickNode) third).selectorIndex;
+        if (FusedArithmeticNode.isArithmetic(selectorIndex)) {
+            final AbstractBytecodeNode fourth = decoder.decodeUnfusedBytecode(frame, code, third.getSuccessorIndex() - code.getInitialPC());
+            if (fourth instanceof PopIntoTemporaryLocationNode) {
+                return new FusedArithmeticNode(first, fourth, lhsNode, rhsNode, selectorIndex, ((PopIntoTemporaryLocationNode) fourth).tempIndex);
+            }
+        } else if (FusedCompareAndJumpNode.isComparison(selectorIndex)) {
+            final AbstractBytecodeNode fourth = decoder.decodeUnfusedBytecode(frame, code, third.getSuccessorIndex() - code.getInitialPC());
+            if (fourth instanceof ConditionalJumpNode) {
+                return new FusedCompareAndJumpNode(first, (ConditionalJumpNode) fourth, lhsNode, rhsNode, selectorIndex);
+            }
+        }
+        return first;
+    }
+
+    private static AbstractOperandNode createOperandOrNull(final AbstractBytecodeNode node) {
+        if (node instanceof PushTemporaryLocationNode) {
+            return new TemporaryOperandNode(((PushTemporaryLocationNode) node).getTempIndex());
+        } else if (node instanceof PushSmallIntegerNode) {
+            return new ConstantOperandNode(((PushSmallIntegerNode) node).getValue());
+        } else if (node instanceof PushConstantNode) {
+            return createConstantOperandOrNull(((PushConstantNode) node).getConstant());
+        } else if (node instanceof PushLiteralConstantNode) {
+            return createConstantOperandOrNull(((PushLiteralConstantNode) node).getLiteral());
+        } else {
+            return null;
+        }
+    }
+
+    private static AbstractOperandNode createConstantOperandOrNull(final Object value) {
+        return value instanceof Long ? new ConstantOperandNode((long) value) : null;
+    }
+
+    private abstract static class AbstractOperandNode extends AbstractNode {
+        protected abstract Object execute(VirtualFrame frame);
+    }
+
+    @NodeInfo(cost = NodeCost.NONE)
+    private static final class TemporaryOperandNode extends AbstractOperandNode {
+        @Child private FrameStackReadNode tempNode;
+        private final int tempIndex;
+
+        private TemporaryOperandNode(final int tempIndex) {
+            this.tempIndex = tempIndex;
+        }
+
+        @Override
+        protected Object execute(final VirtualFrame frame) {
+            if (tempNode == null) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                tempNode = insert(FrameStackReadNode.create(frame, tempIndex, false));
+            }
+            return tempNode.executeRead(frame);
+        }
+
+        @Override
+        public String toString() {
+            CompilerAsserts.neverPartOfCompilation();
+            return "temp: " + tempIndex;
+        }
+    }
+
+    @NodeInfo(cost = NodeCost.NONE)
+    private static final class ConstantOperandNode extends AbstractOperandNode {
+        private final long value;
+
+        private ConstantOperandNode(final long value) {
+            this.value = value;
+        }
+
+        @Override
+        protected Object execute(final VirtualFrame frame) {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            CompilerAsserts.neverPartOfCompilation();
+            return Long.toString(value);
+        }
+    }
+
+    private abstract static class AbstractFusedNode extends AbstractBytecodeNode {
+        protected final int selectorIndex;
+        private final AbstractBytecodeNode unfusedNode;
+
+        @Child protected AbstractOperandNode lhsNode;
+        @Child protected AbstractOperandNode rhsNode;
+
+        private AbstractFusedNode(final AbstractBytecodeNode first, final AbstractBytecodeNode last, final AbstractOperandNode lhsNode, final AbstractOperandNode rhsNode,
+                        final int selectorIndex) {
+            super(first.code, first.index - first.code.getInitialPC(), last.getSuccessorIndex() - first.index);
+            unfusedNode = first;
+            this.lhsNode = lhsNode;
+            this.rhsNode = rhsNode;
+            this.selectorIndex = selectorIndex;
+        }
+
+        @Override
+        public final void executeVoid(final VirtualFrame frame) {
+            throw SqueakException.create("Fused bytecodes must be executed with executeFused():", this);
+        }
+
+        public final int getUnfusedSuccessorIndex() {
+            return unfusedNode.getSuccessorIndex();
+        }
+
+        /*
+         * Like AbstractSendSpecialSelectorQuickNode>>replaceWithSend, give up on the fast path for
+         * good, but only execute the first bytecode here. The caller continues with its successor.
+         */
+        protected final void replaceWithUnfused(final VirtualFrame frame) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            replace(unfusedNode).executeVoid(frame);
+        }
+
+        protected final String getSelectorString() {
+            return code.getSqueakClass().getImage().getSpecialSelector(selectorIndex).asStringUnsafe();
+        }
+    }
+
+    public static final class FusedArithmeticNode extends AbstractFusedNode {
+        private final int tempIndex;
+
+        @Child private TemporaryWriteMarkContextsNode storeNode;
+
+        private FusedArithmeticNode(final AbstractBytecodeNode first, final AbstractBytecodeNode last, final AbstractOperandNode lhsNode, final AbstractOperandNode rhsNode,
+                        final int selectorIndex, final int tempIndex) {
+            super(first, last, lhsNode, rhsNode, selectorIndex);
+            this.tempIndex = tempIndex;
+        }
+
+        private static boolean isArithmetic(final int selectorIndex) {
+            return selectorIndex == 0 || selectorIndex == 1 || selectorIndex == 8 || selectorIndex == 14 || selectorIndex == 15;
+        }
+
+        /** Returns false if the unfused bytecode was executed instead. */
+        public boolean executeFused(final VirtualFrame frame) {
+            final Object lhs = lhsNode.execute(frame);
+            final Object rhs = rhsNode.execute(frame);
+            if (lhs instanceof Long && rhs instanceof Long) {
+                try {
+                    getStoreNode(frame).executeWrite(frame, calculate((long) lhs, (long) rhs));
+                    return true;
+                } catch (final ArithmeticException e) {
+                    /* Overflow, result is a LargeInteger. */
+                }
+            }
+            replaceWithUnfused(frame);
+            return false;
+        }
+
+        private long calculate(final long lhs, final long rhs) {
+            switch (selectorIndex) {
+                case 0: // #+
+                    return Math.addExact(lhs, rhs);
+                case 1: // #-
+                    return Math.subtractExact(lhs, rhs);
+                case 8: // #*
+                    return Math.multiplyExact(lhs, rhs);
+                case 14: // #bitAnd:
+                    return lhs & rhs;
+                case 15: // #bitOr:
+                    return lhs | rhs;
+                default:
+                    throw SqueakException.create("Unexpected arithmetic selector index:", selectorIndex);
+            }
+        }
+
+        private TemporaryWriteMarkContextsNode getStoreNode(final VirtualFrame frame) {
+            if (storeNode == null) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                storeNode = insert(TemporaryWriteMarkContextsNode.create(frame, tempIndex));
+            }
+            return storeNode;
+        }
+
+        @Override
+        public String toString() {
+            CompilerAsserts.neverPartOfCompilation();
+            return "temp: " + tempIndex + " := " + lhsNode + " " + getSelectorString() + " " + rhsNode;
+        }
+    }
+
+    public static final class FusedCompareAndJumpNode extends AbstractFusedNode {
+        public static final int UNFUSED = 0;
+        public static final int JUMP = 1;
+        public static final int NO_JUMP = 2;
+
+        private final int jumpSuccessorIndex;
+        private final boolean jumpOnTrue;
+        private final ConditionProfile conditionProfile = ConditionProfile.createCountingProfile();
+
+        private FusedCompareAndJumpNode(final AbstractBytecodeNode first, final ConditionalJumpNode jumpNode, final AbstractOperandNode lhsNode, final AbstractOperandNode rhsNode,
+                        final int selectorIndex) {
+            super(first, jumpNode, lhsNode, rhsNode, selectorIndex);
+            jumpSuccessorIndex = jumpNode.getJumpSuccessorIndex();
+            jumpOnTrue = jumpNode instanceof ConditionalJumpOnTrueNode;
+        }
+
+        private static boolean isComparison(final int selectorIndex) {
+            return 2 <= selectorIndex && selectorIndex <= 7;
+        }
+
+        /** Returns {@link #JUMP}, {@link #NO_JUMP}, or {@link #UNFUSED} if the unfused bytecode was executed instead. */
+        public int executeFused(final VirtualFrame frame) {
+            final Object lhs = lhsNode.execute(frame);
+            final Object rhs = rhsNode.execute(frame);
+            if (lhs instanceof Long && rhs instanceof Long) {
+                return conditionProfile.profile(compare((long) lhs, (long) rhs) == jumpOnTrue) ? JUMP : NO_JUMP;
+            }
+            replaceWithUnfused(frame);
+            return UNFUSED;
+        }
+
+        private boolean compare(final long lhs, final long rhs) {
+            switch (selectorIndex) {
+                case 2: // #<
+                    return lhs < rhs;
+                case 3: // #>
+                    return lhs > rhs;
+                case 4: // #<=
+                    return lhs <= rhs;
+                case 5: // #>=
+                    return lhs >= rhs;
+                case 6: // #=
+                    return lhs == rhs;
+                case 7: // #~=
+                    return lhs != rhs;
+                default:
+                    throw SqueakException.create("Unexpected comparison selector index:", selectorIndex);
+            }
+        }
+
+        public int getJumpSuccessorIndex() {
+            return jumpSuccessorIndex;
+        }
+
+        @Override
+        public String toString() {
+            CompilerAsserts.neverPartOfCompilation();
+            return "jump" + (jumpOnTrue ? "True" : "False") + ": " + jumpSuccessorIndex + " if: " + lhsNode + " " + getSelectorString() + " " + rhsNode;
+        }
+    }
+}
@@ -15,6 +15,7 @@ import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.nodes.NodeCost;
 import com.oracle.truffle.api.nodes.NodeInfo;
+import com.oracle.truffle.api.profiles.ConditionProfile;
 
 import de.hpi.swa.trufflesqueak.SqueakLanguage;
 import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
@@ -91,6 +92,14 @@ public final class PushBytecodes {
         }
     }
 
+    /**
+     * Pushes a closure for a block embedded in the bytecodes of its method. Unless the block returns
+     * non-locally or accesses thisContext, the context of the current frame is not materialized when
+     * the closure is created. Instead, the closure holds on to the frame and only creates the context
+     * if it is requested later (e.g. via BlockClosure>>#outerContext). Together with the frame, the
+     * closure of such a block can then be virtualized by partial escape analysis if it does not escape
+     * the compilation unit, which is the case for most blocks passed to inlined iterators.
+     */
     public static final class PushClosureNode extends AbstractPushClosureNode {
         public static final int NUM_BYTECODES = 4;
 
@@ -98,14 +107,21 @@ public final class PushBytecodes {
         private final int numArgs;
 
         private final int blockSize;
+        private final boolean needsOuterContext;
+        private final ConditionProfile hasContextProfile = ConditionProfile.createBinaryProfile();
 
-        @Child private GetOrCreateContextNode getOrCreateContextNode = GetOrCreateContextNode.create();
+        @Child private GetOrCreateContextNode getOrCreateContextNode;
 
         private PushClosureNode(final CompiledCodeObject code, final int index, final int numBytecodes, final int numArgs, final int numCopied, final int blockSize) {
             super(code, index, numBytecodes + blockSize, numCopied);
             this.numArgs = numArgs;
             this.blockSize = blockSize;
             shadowBlock = code.getOrCreateShadowBlock(getSuccessorIndex() - blockSize);
+            final int blockEnd = getSuccessorIndex() - code.getInitialPC();
+            needsOuterContext = code.blockNeedsOuterContext(blockEnd - blockSize, blockEnd);
+            if (needsOuterContext) {
+                getOrCreateContextNode = GetOrCreateContextNode.create();
+            }
         }
 
         public PushClosureNode(final PushClosureNode node) {
@@ -113,6 +129,10 @@ public final class PushBytecodes {
             shadowBlock = node.shadowBlock;
             numArgs = node.numArgs;
             blockSize = node.blockSize;
+            needsOuterContext = node.needsOuterContext;
+            if (needsOuterContext) {
+                getOrCreateContextNode = GetOrCreateContextNode.create();
+            }
         }
 
         public static PushClosureNode create(final CompiledCodeObject code, final int index, final byte i, final byte j, final byte k) {
@@ -131,10 +151,19 @@ public final class PushBytecodes {
 
         @Override
         protected BlockClosureObject createClosure(final VirtualFrame frame, final Object[] copiedValues) {
-            final ContextObject outerContext = getOrCreateContextNode.executeGet(frame);
             final int startPC = getSuccessorIndex() - blockSize;
             final SqueakImageContext image = getSqueakImageContext();
-            return new BlockClosureObject(getSqueakImageContext(), image.blockClosureClass, shadowBlock, startPC, numArgs, copiedValues, FrameAccess.getReceiver(frame), outerContext);
+            final Object receiver = FrameAccess.getReceiver(frame);
+            if (needsOuterContext) {
+                final ContextObject outerContext = getOrCreateContextNode.executeGet(frame);
+                return new BlockClosureObject(image, image.blockClosureClass, shadowBlock, startPC, numArgs, copiedValues, receiver, outerContext);
+            }
+            final ContextObject outerContext = getContext(frame);
+            if (hasContextProfile.profile(outerContext != null)) {
+                return new BlockClosureObject(image, image.blockClosureClass, shadowBlock, startPC, numArgs, copiedValues, receiver, outerContext);
+            } else {
+                return new BlockClosureObject(image, image.blockClosureClass, shadowBlock, startPC, numArgs, copiedValues, receiver, frame.materialize());
+            }
         }
 
         public int getBlockSize() {
@@ -257,6 +286,8 @@ public final class PushBytecodes {
 
     @NodeInfo(cost = NodeCost.NONE)
     public static final class PushActiveContextNode extends AbstractPushNode {
+        @CompilationFinal private ContextReference<SqueakImageContext> contextReference;
+
         @Child private GetOrCreateContextNode getContextNode = GetOrCreateContextNode.create();
 
         public PushActiveContextNode(final CompiledCodeObject code, final int index) {
@@ -265,6 +296,14 @@ public final class PushBytecodes {
 
         @Override
         public void executeVoid(final VirtualFrame frame) {
+            if (contextReference == null) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                contextReference = lookupContextReference(SqueakLanguage.class);
+            }
+            final SqueakImageContext image = contextReference.get();
+            if (image.contextStatistics != null) {
+                image.contextStatistics.recordThisContextAccess(code);
+            }
             pushNode.execute(frame, getContextNode.executeGet(frame));
         }
 
@@ -276,7 +315,7 @@ public final class PushBytecodes {
     }
 
     @NodeInfo(cost = NodeCost.NONE)
-    private abstract static class PushConstantNode extends AbstractPushNode {
+    abstract static class PushConstantNode extends AbstractPushNode {
         private PushConstantNode(final CompiledCodeObject code, final int index) {
             super(code, index);
         }
@@ -386,6 +425,10 @@ public final class PushBytecodes {
             pushNode.execute(frame, literal);
         }
 
+        Object getLiteral() {
+            return literal;
+        }
+
         @Override
         public String toString() {
             CompilerAsserts.neverPartOfCompilation();
@@ -583,6 +626,10 @@ public final class PushBytecodes {
             pushNode.execute(frame, tempNode.executeRead(frame));
         }
 
+        int getTempIndex() {
+            return tempIndex;
+        }
+
         @Override
         public String toString() {
             CompilerAsserts.neverPartOfCompilation();
@@ -604,6 +651,10 @@ public final class PushBytecodes {
             pushNode.execute(frame, value);
         }
 
+        long getValue() {
+            return value;
+        }
+
         @Override
         public String toString() {
             CompilerAsserts.neverPartOfCompilation();
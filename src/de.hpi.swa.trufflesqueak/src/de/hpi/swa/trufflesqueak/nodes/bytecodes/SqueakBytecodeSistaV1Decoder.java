@@ -83,7 +83,24 @@ public final class SqueakBytecodeSistaV1Decoder extends AbstractSqueakBytecodeDe
     }
 
     @Override
-    public AbstractBytecodeNode decodeBytecode(final VirtualFrame frame, final CompiledCodeObject code, final int index) {
+    public boolean blockNeedsOuterContext(final CompiledCodeObject code, final int start, final int end) {
+        final byte[] bytes = code.getBytes();
+        int index = start;
+        while (index < end) {
+            final int b = Byte.toUnsignedInt(bytes[index]);
+            if (0x58 <= b && b <= 0x5C || b == 0x52) { // method returns or pushActiveContext
+                return true;
+            }
+            if (b == 0xF9 && (bytes[index + 2] >> 6 & 1) == 0) { // full closure with outer context
+                return true;
+            }
+            index += decodeNumBytes(code, index);
+        }
+        return false;
+    }
+
+    @Override
+    protected AbstractBytecodeNode decodeUnfusedBytecode(final VirtualFrame frame, final CompiledCodeObject code, final int index) {
         return decodeBytecode(frame, code, index, 0, 0, 0);
     }
 
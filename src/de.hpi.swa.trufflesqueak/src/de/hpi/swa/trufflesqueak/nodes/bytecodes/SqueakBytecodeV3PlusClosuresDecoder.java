@@ -82,7 +82,21 @@ public final class SqueakBytecodeV3PlusClosuresDecoder extends AbstractSqueakByt
     }
 
     @Override
-    public AbstractBytecodeNode decodeBytecode(final VirtualFrame frame, final CompiledCodeObject code, final int index) {
+    public boolean blockNeedsOuterContext(final CompiledCodeObject code, final int start, final int end) {
+        final byte[] bytes = code.getBytes();
+        int index = start;
+        while (index < end) {
+            final int b = Byte.toUnsignedInt(bytes[index]);
+            if (0x78 <= b && b <= 0x7C || b == 0x89) { // method returns or pushActiveContext
+                return true;
+            }
+            index += decodeNumBytes(code, index);
+        }
+        return false;
+    }
+
+    @Override
+    protected AbstractBytecodeNode decodeUnfusedBytecode(final VirtualFrame frame, final CompiledCodeObject code, final int index) {
         CompilerAsserts.neverPartOfCompilation();
         final byte[] bytecode = code.getBytes();
         final int b = Byte.toUnsignedInt(bytecode[index]);
@@ -5,11 +5,13 @@
  */
 package de.hpi.swa.trufflesqueak.nodes.interrupts;
 
-import java.util.ArrayDeque;
+import java.lang.ref.ReferenceQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
@@ -23,17 +25,20 @@ import de.hpi.swa.trufflesqueak.util.LogUtils;
 
 public final class CheckForInterruptsState {
     private static final String CHECK_FOR_INTERRUPTS_THREAD_NAME = "TruffleSqueakCheckForInterrupts";
+    private static final String REFERENCE_HANDLER_THREAD_NAME = "TruffleSqueakReferenceHandler";
 
     private static final int INTERRUPT_CHECKS_EVERY_N_MILLISECONDS = 20;
 
     private final SqueakImageContext image;
     private ScheduledExecutorService executor;
-    private final ArrayDeque<Integer> semaphoresToSignal = new ArrayDeque<>();
+    private Thread referenceHandler;
+    private final ConcurrentLinkedDeque<Integer> semaphoresToSignal = new ConcurrentLinkedDeque<>();
 
     private boolean isActive = true;
     protected long nextWakeupTick;
     protected boolean interruptPending;
-    private boolean pendingFinalizationSignals;
+    /* Set by the reference handler thread, so changes must become visible to the interpreter. */
+    private volatile boolean pendingFinalizationSignals;
 
     /**
      * `shouldTrigger` is set to `true` by a dedicated thread. To guarantee atomicity, it would be
@@ -83,6 +88,9 @@ public final class CheckForInterruptsState {
                 shouldTriggerNoTimer = isActive && (pendingFinalizationSignals() || hasSemaphoresToSignal());
             }
         }, INTERRUPT_CHECKS_EVERY_N_MILLISECONDS, INTERRUPT_CHECKS_EVERY_N_MILLISECONDS, TimeUnit.MILLISECONDS);
+        referenceHandler = new Thread(this::processWeakPointersQueue, REFERENCE_HANDLER_THREAD_NAME);
+        referenceHandler.setDaemon(true);
+        referenceHandler.start();
     }
 
     @TruffleBoundary
@@ -90,6 +98,36 @@ public final class CheckForInterruptsState {
         if (executor != null) {
             executor.shutdown();
         }
+        if (referenceHandler != null) {
+            referenceHandler.interrupt();
+            referenceHandler = null;
+        }
+    }
+
+    /**
+     * Waits for the JVM to clear weak slots of WeakPointersObjects and requests a signal of the
+     * finalization semaphore for each batch of cleared slots. The image rescans its weak registries
+     * when signaled. This thread is the only consumer of the queue, the GC primitives leave it alone.
+     * Batches are coalesced further by the interrupt checks, which run every
+     * {@link #INTERRUPT_CHECKS_EVERY_N_MILLISECONDS} milliseconds.
+     */
+    private void processWeakPointersQueue() {
+        final ReferenceQueue<Object> queue = image.weakPointersQueue;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                queue.remove();
+                int count = 1;
+                while (queue.poll() != null) {
+                    count++;
+                }
+                if (LogUtils.GC_IS_LOGGABLE_FINE) {
+                    LogUtils.GC.log(Level.FINE, "Number of garbage collected WeakPointersObjects: {0}", count);
+                }
+                setPendingFinalizations(true);
+            }
+        } catch (final InterruptedException e) {
+            // Shutting down.
+        }
     }
 
     public void setInterruptPending() {
@@ -0,0 +1,366 @@
+/*
+ * Copyright (c) 2017-2021 Software Architecture Group, Hasso Plattner Institute
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.nodes.plugins;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.Channel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.IllegalBlockingModeException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.file.OpenOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import com.oracle.truffle.api.TruffleFile;
+
+import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
+
+/**
+ * State of the {@link AioPlugin}. Readiness of sockets is detected with a selector on a dedicated
+ * thread, and asynchronous file operations run on a dedicated worker thread. Files are opened via
+ * {@link TruffleFile}, so they are subject to the file system and IO policy of the context. Both
+ * signal external semaphores, so that Smalltalk processes can wait for I/O without blocking the
+ * interpreter.
+ */
+public final class AioEventDispatcher {
+    public static final int AIO_X = 1 << 0;
+    public static final int AIO_R = 1 << 1;
+    public static final int AIO_W = 1 << 2;
+
+    private static final String SELECTOR_THREAD_NAME = "TruffleSqueakAioSelector";
+    private static final String FILE_WORKER_THREAD_NAME = "TruffleSqueakAioFileWorker";
+    private static final Set<OpenOption> OPTIONS_READ = Collections.singleton(StandardOpenOption.READ);
+    private static final Set<OpenOption> OPTIONS_READ_WRITE = EnumSet.of(StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+    private static final long FIRST_HANDLE = 3; // 0, 1, and 2 denote stdio.
+
+    private final SqueakImageContext image;
+    private final Map<Object, Long> handles = new IdentityHashMap<>(); // guarded by this
+    private final Map<Long, Descriptor> descriptors = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Consumer<Selector>> pendingSelectorTasks = new ConcurrentLinkedQueue<>();
+    private final Set<AsyncFile> openFiles = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private long nextHandle = FIRST_HANDLE; // guarded by this
+    private Selector selector; // guarded by this
+    private ExecutorService fileWorker; // guarded by this
+
+    /**
+     * A file, stdio stream, or socket known to the AioPlugin. Files and stdio streams are always
+     * ready, sockets are watched by the selector.
+     */
+    private static final class Descriptor {
+        private final Object target;
+        private volatile int semaphoreIndex = -1;
+        private SelectionKey key; // Only accessed by the selector thread.
+
+        private Descriptor(final Object target) {
+            this.target = target;
+        }
+    }
+
+    /** An asynchronous file read or write. */
+    public static final class Operation {
+        private static final int PENDING = -1;
+
+        private final int semaphoreIndex;
+        private volatile int result = PENDING;
+        private volatile Throwable error;
+
+        private Operation(final int semaphoreIndex) {
+            this.semaphoreIndex = semaphoreIndex;
+        }
+
+        public boolean isDone() {
+            return result != PENDING || error != null;
+        }
+
+        /** Returns the number of bytes transferred, zero at the end of the file. */
+        public int getResult() throws IOException {
+            if (error != null) {
+                throw error instanceof IOException ? (IOException) error : new IOException(error);
+            }
+            return result;
+        }
+    }
+
+    /** A file opened for asynchronous reads and writes, which are serialized on the channel. */
+    public static final class AsyncFile {
+        private final SeekableByteChannel channel;
+
+        private AsyncFile(final SeekableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        private int transfer(final long position, final ByteBuffer buffer, final boolean isRead) throws IOException {
+            synchronized (channel) {
+                channel.position(position);
+                int transferred = 0;
+                while (buffer.hasRemaining()) {
+                    final int count = isRead ? channel.read(buffer) : channel.write(buffer);
+                    if (count < 0) {
+                        break; // End of file, Squeak expects the number of bytes read so far.
+                    }
+                    transferred += count;
+                }
+                return transferred;
+            }
+        }
+    }
+
+    public AioEventDispatcher(final SqueakImageContext image) {
+        this.image = image;
+    }
+
+    /**
+     * Returns the descriptor handle for a file channel, a stdio handle, or a socket channel. The
+     * same target always gets the same handle until it is disabled.
+     */
+    public synchronized long handleFor(final Object target) {
+        if (target instanceof Byte) {
+            final long handle = (byte) target;
+            descriptors.computeIfAbsent(handle, h -> new Descriptor(target));
+            return handle;
+        }
+        Long handle = handles.get(target);
+        if (handle == null) {
+            removeClosedChannels();
+            handle = nextHandle++;
+            handles.put(target, handle);
+            descriptors.put(handle, new Descriptor(target));
+        }
+        return handle;
+    }
+
+    public boolean enable(final long handle, final int semaphoreIndex) {
+        final Descriptor descriptor = descriptors.get(handle);
+        if (descriptor == null) {
+            return false;
+        }
+        descriptor.semaphoreIndex = semaphoreIndex;
+        return true;
+    }
+
+    /**
+     * Watches for the given events and signals the semaphore of the descriptor once one of them
+     * occurs. Events are one-shot and need to be watched again afterwards. Exceptional conditions
+     * cannot be detected with NIO, so {@link #AIO_X} is accepted but never signaled.
+     */
+    public boolean handle(final long handle, final int flags) throws IOException {
+        final Descriptor descriptor = descriptors.get(handle);
+        if (descriptor == null) {
+            return false;
+        }
+        if (descriptor.target instanceof SelectableChannel) {
+            final int ops = toInterestOps((SelectableChannel) descriptor.target, flags);
+            runOnSelector(s -> updateInterestOps(s, descriptor, ops, true));
+        } else if (isStdin(descriptor) && (flags & AIO_R) != 0) {
+            image.stdio.setInputSemaphoreIndex(descriptor.semaphoreIndex);
+        } else if ((flags & (AIO_R | AIO_W)) != 0) {
+            signal(descriptor.semaphoreIndex);
+        }
+        return true;
+    }
+
+    public boolean suspend(final long handle, final int flags) throws IOException {
+        final Descriptor descriptor = descriptors.get(handle);
+        if (descriptor == null) {
+            return false;
+        }
+        if (descriptor.target instanceof SelectableChannel) {
+            final int ops = toInterestOps((SelectableChannel) descriptor.target, flags);
+            runOnSelector(s -> updateInterestOps(s, descriptor, ops, false));
+        }
+        return true;
+    }
+
+    public boolean disable(final long handle) throws IOException {
+        final Descriptor descriptor;
+        synchronized (this) {
+            descriptor = descriptors.remove(handle);
+            if (descriptor == null) {
+                return false;
+            }
+            handles.remove(descriptor.target);
+        }
+        descriptor.semaphoreIndex = -1;
+        if (descriptor.target instanceof SelectableChannel) {
+            runOnSelector(s -> {
+                if (descriptor.key != null) {
+                    descriptor.key.cancel();
+                }
+            });
+        }
+        return true;
+    }
+
+    public AsyncFile openFile(final TruffleFile file, final boolean writable) throws IOException {
+        final AsyncFile asyncFile = new AsyncFile(file.newByteChannel(writable ? OPTIONS_READ_WRITE : OPTIONS_READ));
+        openFiles.add(asyncFile);
+        return asyncFile;
+    }
+
+    public void closeFile(final AsyncFile file) throws IOException {
+        openFiles.remove(file);
+        file.channel.close();
+    }
+
+    public Operation read(final AsyncFile file, final long position, final ByteBuffer dst, final int semaphoreIndex) {
+        return submit(file, position, dst, true, semaphoreIndex);
+    }
+
+    public Operation write(final AsyncFile file, final long position, final ByteBuffer src, final int semaphoreIndex) {
+        return submit(file, position, src, false, semaphoreIndex);
+    }
+
+    private synchronized Operation submit(final AsyncFile file, final long position, final ByteBuffer buffer, final boolean isRead, final int semaphoreIndex) {
+        if (fileWorker == null) {
+            fileWorker = Executors.newSingleThreadExecutor(r -> {
+                final Thread thread = new Thread(r, FILE_WORKER_THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        final Operation operation = new Operation(semaphoreIndex);
+        fileWorker.execute(() -> {
+            try {
+                operation.result = file.transfer(position, buffer, isRead);
+            } catch (final IOException | RuntimeException e) {
+                operation.error = e;
+            }
+            signal(operation.semaphoreIndex);
+        });
+        return operation;
+    }
+
+    /**
+     * Stops the selector and the file worker, closes all files opened asynchronously, and forgets
+     * all descriptors, so that no channels are kept alive after the image has terminated.
+     */
+    public synchronized void shutdown() {
+        if (selector != null) {
+            try {
+                selector.close();
+            } catch (final IOException e) {
+                // Ignore, shutting down anyway.
+            }
+            selector = null;
+        }
+        if (fileWorker != null) {
+            fileWorker.shutdownNow();
+            fileWorker = null;
+        }
+        for (final AsyncFile file : openFiles) {
+            try {
+                file.channel.close();
+            } catch (final IOException e) {
+                // Ignore, shutting down anyway.
+            }
+        }
+        openFiles.clear();
+        handles.clear();
+        descriptors.clear();
+        nextHandle = FIRST_HANDLE;
+    }
+
+    /* Drops descriptors of channels that have been closed without disabling them first. */
+    private void removeClosedChannels() {
+        assert Thread.holdsLock(this);
+        final Iterator<Map.Entry<Object, Long>> entries = handles.entrySet().iterator();
+        while (entries.hasNext()) {
+            final Map.Entry<Object, Long> entry = entries.next();
+            if (entry.getKey() instanceof Channel && !((Channel) entry.getKey()).isOpen()) {
+                descriptors.remove(entry.getValue());
+                entries.remove();
+            }
+        }
+    }
+
+    private void signal(final int semaphoreIndex) {
+        if (semaphoreIndex > 0) {
+            image.interrupt.signalSemaphoreWithIndex(semaphoreIndex);
+        }
+    }
+
+    private static boolean isStdin(final Descriptor descriptor) {
+        return descriptor.target instanceof Byte && (byte) descriptor.target == FilePlugin.STDIO_HANDLES.IN;
+    }
+
+    private static int toInterestOps(final SelectableChannel channel, final int flags) {
+        final int validOps = channel.validOps();
+        int ops = 0;
+        if ((flags & AIO_R) != 0) {
+            ops |= validOps & (SelectionKey.OP_READ | SelectionKey.OP_ACCEPT);
+        }
+        if ((flags & AIO_W) != 0) {
+            ops |= validOps & (SelectionKey.OP_WRITE | SelectionKey.OP_CONNECT);
+        }
+        return ops;
+    }
+
+    private synchronized void runOnSelector(final Consumer<Selector> task) throws IOException {
+        if (selector == null) {
+            selector = Selector.open();
+            final Selector newSelector = selector;
+            final Thread thread = new Thread(() -> runSelector(newSelector), SELECTOR_THREAD_NAME);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        pendingSelectorTasks.add(task);
+        selector.wakeup();
+    }
+
+    private static void updateInterestOps(final Selector ownSelector, final Descriptor descriptor, final int ops, final boolean add) {
+        try {
+            if (descriptor.key == null || !descriptor.key.isValid()) {
+                if (add) {
+                    descriptor.key = ((SelectableChannel) descriptor.target).register(ownSelector, ops, descriptor);
+                }
+            } else {
+                final int oldOps = descriptor.key.interestOps();
+                descriptor.key.interestOps(add ? oldOps | ops : oldOps & ~ops);
+            }
+        } catch (final ClosedChannelException | CancelledKeyException | IllegalBlockingModeException e) {
+            descriptor.key = null;
+        }
+    }
+
+    private void runSelector(final Selector ownSelector) {
+        try {
+            while (ownSelector.isOpen()) {
+                ownSelector.select();
+                Consumer<Selector> task;
+                while ((task = pendingSelectorTasks.poll()) != null) {
+                    task.accept(ownSelector);
+                }
+                final Iterator<SelectionKey> keys = ownSelector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isValid()) {
+                        key.interestOps(0); // Events are one-shot, see #handle.
+                        signal(((Descriptor) key.attachment()).semaphoreIndex);
+                    }
+                }
+            }
+        } catch (final IOException | ClosedSelectorException | CancelledKeyException e) {
+            // Selector has been closed, stop.
+        }
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2017-2021 Software Architecture Group, Hasso Plattner Institute
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.nodes.plugins;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.util.List;
+import java.util.logging.Level;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.CachedContext;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.NodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+
+import de.hpi.swa.trufflesqueak.SqueakLanguage;
+import de.hpi.swa.trufflesqueak.exceptions.PrimitiveExceptions.PrimitiveFailed;
+import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
+import de.hpi.swa.trufflesqueak.model.NativeObject;
+import de.hpi.swa.trufflesqueak.model.NilObject;
+import de.hpi.swa.trufflesqueak.model.PointersObject;
+import de.hpi.swa.trufflesqueak.nodes.plugins.AioEventDispatcher.AsyncFile;
+import de.hpi.swa.trufflesqueak.nodes.plugins.AioEventDispatcher.Operation;
+import de.hpi.swa.trufflesqueak.nodes.plugins.network.SqueakSocket;
+import de.hpi.swa.trufflesqueak.nodes.primitives.AbstractPrimitiveFactoryHolder;
+import de.hpi.swa.trufflesqueak.nodes.primitives.AbstractPrimitiveNode;
+import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveFallbacks.BinaryPrimitiveFallback;
+import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveFallbacks.QuaternaryPrimitiveFallback;
+import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveFallbacks.QuinaryPrimitiveFallback;
+import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveFallbacks.SeptenaryPrimitiveFallback;
+import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveFallbacks.TernaryPrimitiveFallback;
+import de.hpi.swa.trufflesqueak.nodes.primitives.SqueakPrimitive;
+import de.hpi.swa.trufflesqueak.util.LogUtils;
+
+/**
+ * Asynchronous I/O event notification as used by the AioEventHandler of OSProcess, plus
+ * asynchronous file reads and writes. See {@link AioEventDispatcher} for details.
+ */
+public final class AioPlugin extends AbstractPrimitiveFactoryHolder {
+    private static final String MODULE_NAME = "AioPlugin (TruffleSqueak)";
+    private static final String VERSION_STRING = "1.0";
+
+    @Override
+    public List<? extends NodeFactory<? extends AbstractPrimitiveNode>> getFactories() {
+        return AioPluginFactory.getFactories();
+    }
+
+    private static int toFlags(final boolean exceptionWatch, final boolean readWatch, final boolean writeWatch) {
+        return (exceptionWatch ? AioEventDispatcher.AIO_X : 0) | (readWatch ? AioEventDispatcher.AIO_R : 0) | (writeWatch ? AioEventDispatcher.AIO_W : 0);
+    }
+
+    private static AsyncFile getAsyncFileOrPrimFail(final PointersObject handle) {
+        final Object hiddenObject = handle.getHiddenObject();
+        if (hiddenObject instanceof AsyncFile) {
+            return (AsyncFile) hiddenObject;
+        } else {
+            throw PrimitiveFailed.andTransferToInterpreter();
+        }
+    }
+
+    private static void log(final String message, final Throwable e) {
+        LogUtils.IO.log(Level.FINE, message, e);
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveModuleName")
+    protected abstract static class PrimModuleNameNode extends AbstractPrimitiveNode {
+        @Specialization
+        protected static final NativeObject doName(@SuppressWarnings("unused") final Object receiver,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            return image.asByteString(MODULE_NAME);
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveVersionString")
+    protected abstract static class PrimVersionStringNode extends AbstractPrimitiveNode {
+        @Specialization
+        protected static final NativeObject doVersion(@SuppressWarnings("unused") final Object receiver,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            return image.asByteString(VERSION_STRING);
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveOSFileHandle")
+    protected abstract static class PrimOSFileHandleNode extends AbstractPrimitiveNode implements BinaryPrimitiveFallback {
+        @Specialization
+        @TruffleBoundary
+        protected static final long doHandle(@SuppressWarnings("unused") final Object receiver, final PointersObject fileHandle,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            final Object hiddenObject = fileHandle.getHiddenObject();
+            if (hiddenObject instanceof SeekableByteChannel || hiddenObject instanceof Byte) {
+                return image.aio.handleFor(hiddenObject);
+            } else {
+                throw PrimitiveFailed.GENERIC_ERROR;
+            }
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveOSSocketHandle")
+    protected abstract static class PrimOSSocketHandleNode extends AbstractPrimitiveNode implements BinaryPrimitiveFallback {
+        @Specialization
+        @TruffleBoundary
+        protected static final long doHandle(@SuppressWarnings("unused") final Object receiver, final PointersObject socketHandle,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            final Object hiddenObject = socketHandle.getHiddenObject();
+            if (hiddenObject instanceof SqueakSocket && ((SqueakSocket) hiddenObject).asSelectableChannel() != null) {
+                return image.aio.handleFor(((SqueakSocket) hiddenObject).asSelectableChannel());
+            } else {
+                throw PrimitiveFailed.GENERIC_ERROR;
+            }
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveAioEnable")
+    protected abstract static class PrimAioEnableNode extends AbstractPrimitiveNode implements QuaternaryPrimitiveFallback {
+        @Specialization
+        @TruffleBoundary
+        protected static final long doEnable(@SuppressWarnings("unused") final Object receiver, final long handle, final long semaphoreIndex,
+                        @SuppressWarnings("unused") final boolean isExternalObject,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            if (image.aio.enable(handle, (int) semaphoreIndex)) {
+                return handle;
+            } else {
+                throw PrimitiveFailed.GENERIC_ERROR;
+            }
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveAioHandle")
+    protected abstract static class PrimAioHandleNode extends AbstractPrimitiveNode implements QuinaryPrimitiveFallback {
+        @Specialization
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final long doHandle(@SuppressWarnings("unused") final Object receiver, final long handle, final boolean exceptionWatch, final boolean readWatch,
+                        final boolean writeWatch,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            final int flags = toFlags(exceptionWatch, readWatch, writeWatch);
+            try {
+                if (image.aio.handle(handle, flags)) {
+                    return flags;
+                }
+            } catch (final IOException e) {
+                log("Failed to watch descriptor", e);
+            }
+            throw PrimitiveFailed.GENERIC_ERROR;
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveAioSuspend")
+    protected abstract static class PrimAioSuspendNode extends AbstractPrimitiveNode implements QuinaryPrimitiveFallback {
+        @Specialization
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final long doSuspend(@SuppressWarnings("unused") final Object receiver, final long handle, final boolean exceptionWatch, final boolean readWatch,
+                        final boolean writeWatch,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            final int flags = toFlags(exceptionWatch, readWatch, writeWatch);
+            try {
+                if (image.aio.suspend(handle, flags)) {
+                    return flags;
+                }
+            } catch (final IOException e) {
+                log("Failed to suspend descriptor", e);
+            }
+            throw PrimitiveFailed.GENERIC_ERROR;
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveAioDisable")
+    protected abstract static class PrimAioDisableNode extends AbstractPrimitiveNode implements BinaryPrimitiveFallback {
+        @Specialization
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final long doDisable(@SuppressWarnings("unused") final Object receiver, final long handle,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            try {
+                if (image.aio.disable(handle)) {
+                    return handle;
+                }
+            } catch (final IOException e) {
+                log("Failed to disable descriptor", e);
+            }
+            throw PrimitiveFailed.GENERIC_ERROR;
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveAsyncFileOpen")
+    protected abstract static class PrimAsyncFileOpenNode extends AbstractPrimitiveNode implements TernaryPrimitiveFallback {
+        @Specialization(guards = "fileName.isByteType()")
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final PointersObject doOpen(@SuppressWarnings("unused") final Object receiver, final NativeObject fileName, final boolean writableFlag,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            try {
+                final AsyncFile file = image.aio.openFile(image.env.getPublicTruffleFile(fileName.asStringUnsafe()), writableFlag);
+                return PointersObject.newHandleWithHiddenObject(image, file);
+            } catch (final IOException | UnsupportedOperationException | IllegalArgumentException | SecurityException e) {
+                log("Failed to open file asynchronously", e);
+                throw PrimitiveFailed.GENERIC_ERROR;
+            }
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveAsyncFileRead")
+    protected abstract static class PrimAsyncFileReadNode extends AbstractPrimitiveNode implements SeptenaryPrimitiveFallback {
+        /**
+         * Starts reading into the target and signals the semaphore once done. The target must not
+         * be used until then, the result is available via primitiveAsyncOperationResult.
+         */
+        @Specialization(guards = {"position >= 0", "target.isByteType()", "startIndex >= 1", "startIndex + count - 1 <= target.getByteLength()"})
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final PointersObject doRead(@SuppressWarnings("unused") final Object receiver, final PointersObject fileHandle, final long position, final NativeObject target,
+                        final long startIndex, final long count, final long semaphoreIndex,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            final ByteBuffer dst = ByteBuffer.wrap(target.getByteStorage(), (int) startIndex - 1, (int) count);
+            return PointersObject.newHandleWithHiddenObject(image, image.aio.read(getAsyncFileOrPrimFail(fileHandle), position, dst, (int) semaphoreIndex));
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveAsyncFileWrite")
+    protected abstract static class PrimAsyncFileWriteNode extends AbstractPrimitiveNode implements SeptenaryPrimitiveFallback {
+        /**
+         * Starts writing from the source and signals the semaphore once done. The source must not
+         * be modified until then, the result is available via primitiveAsyncOperationResult.
+         */
+        @Specialization(guards = {"position >= 0", "source.isByteType()", "startIndex >= 1", "startIndex + count - 1 <= source.getByteLength()"})
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final PointersObject doWrite(@SuppressWarnings("unused") final Object receiver, final PointersObject fileHandle, final long position, final NativeObject source,
+                        final long startIndex, final long count, final long semaphoreIndex,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            final ByteBuffer src = ByteBuffer.wrap(source.getByteStorage(), (int) startIndex - 1, (int) count);
+            return PointersObject.newHandleWithHiddenObject(image, image.aio.write(getAsyncFileOrPrimFail(fileHandle), position, src, (int) semaphoreIndex));
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveAsyncOperationResult")
+    protected abstract static class PrimAsyncOperationResultNode extends AbstractPrimitiveNode implements BinaryPrimitiveFallback {
+        /** Answers nil while the operation is pending, the number of bytes transferred otherwise. */
+        @Specialization
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final Object doResult(@SuppressWarnings("unused") final Object receiver, final PointersObject operationHandle) {
+            final Object hiddenObject = operationHandle.getHiddenObject();
+            if (!(hiddenObject instanceof Operation)) {
+                throw PrimitiveFailed.GENERIC_ERROR;
+            }
+            final Operation operation = (Operation) hiddenObject;
+            if (!operation.isDone()) {
+                return NilObject.SINGLETON;
+            }
+            try {
+                return (long) operation.getResult();
+            } catch (final IOException e) {
+                log("Asynchronous file operation failed", e);
+                throw PrimitiveFailed.GENERIC_ERROR;
+            }
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveAsyncFileClose")
+    protected abstract static class PrimAsyncFileCloseNode extends AbstractPrimitiveNode implements BinaryPrimitiveFallback {
+        @Specialization
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final Object doClose(final Object receiver, final PointersObject fileHandle,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            try {
+                image.aio.closeFile(getAsyncFileOrPrimFail(fileHandle));
+            } catch (final IOException e) {
+                log("Failed to close file", e);
+                throw PrimitiveFailed.GENERIC_ERROR;
+            }
+            return receiver;
+        }
+    }
+}
@@ -5,12 +5,15 @@
  */
 package de.hpi.swa.trufflesqueak.nodes.plugins;
 
+import java.util.WeakHashMap;
+
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 
 import de.hpi.swa.trufflesqueak.exceptions.PrimitiveExceptions.PrimitiveFailed;
 import de.hpi.swa.trufflesqueak.exceptions.SqueakExceptions.SqueakException;
 import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
+import de.hpi.swa.trufflesqueak.model.AbstractPointersObject;
 import de.hpi.swa.trufflesqueak.model.AbstractSqueakObject;
 import de.hpi.swa.trufflesqueak.model.AbstractSqueakObjectWithClassAndHash;
 import de.hpi.swa.trufflesqueak.model.ArrayObject;
@@ -21,6 +24,7 @@ import de.hpi.swa.trufflesqueak.model.NativeObject;
 import de.hpi.swa.trufflesqueak.model.NilObject;
 import de.hpi.swa.trufflesqueak.model.PointersObject;
 import de.hpi.swa.trufflesqueak.model.layout.ObjectLayouts.ERROR_TABLE;
+import de.hpi.swa.trufflesqueak.model.layout.ObjectLayouts.FORM;
 import de.hpi.swa.trufflesqueak.nodes.SqueakGuards;
 import de.hpi.swa.trufflesqueak.nodes.accessing.AbstractPointersObjectNodes.AbstractPointersObjectWriteNode;
 
@@ -279,6 +283,8 @@ public final class B2D {
     private PointersObject engine;
     private boolean engineStopped;
     private ArrayObject formArray;
+    /* TruffleSqueak: validated state per BalloonEngine, reused across rendering primitives. */
+    private final WeakHashMap<PointersObject, EngineState> engineStates = new WeakHashMap<>();
     private long geProfileTime;
     private int getBufferIndex;
 
@@ -3379,10 +3385,19 @@ public final class B2D {
         edgeRightFillOfput(bezier, rightFillIndex);
     }
 
-    /* BalloonEngineBase>>#loadBitBltFrom: */
+    /* BalloonEngineBase>>#loadBitBltFrom: (modified to reuse previously loaded state) */
     private boolean loadBitBltFrom(final PointersObject bbObj) {
         image.bitblt.resetSuccessFlag();
-        return image.bitblt.loadBitBltFrom(bbObj);
+        final EngineState state = engineState();
+        if (state.isBitBltLoaded(image.bitblt, bbObj)) {
+            return true;
+        }
+        if (image.bitblt.loadBitBltFrom(bbObj)) {
+            state.bitBltLoaded(image.bitblt, bbObj);
+            return true;
+        } else {
+            return false;
+        }
     }
 
     /* Load the bitmap fill. */
@@ -3711,6 +3726,20 @@ public final class B2D {
 
     /* BalloonEngineBase>>#loadFormsFrom: */
     private boolean loadFormsFrom(final ArrayObject arrayOop) {
+        final EngineState state = engineState();
+        if (state.areFormsLoaded(arrayOop)) {
+            formArray = arrayOop;
+            return true;
+        }
+        if (loadFormsFromUncached(arrayOop)) {
+            state.formsLoaded(arrayOop);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    private boolean loadFormsFromUncached(final ArrayObject arrayOop) {
         NativeObject bmBits;
         long bmBitsSize;
         long bmDepth;
@@ -7308,6 +7337,174 @@ public final class B2D {
         return workBuffer[index];
     }
 
+    private EngineState engineState() {
+        EngineState state = engineStates.get(engine);
+        if (state == null) {
+            state = new EngineState();
+            engineStates.put(engine, state);
+        }
+        return state;
+    }
+
+    /**
+     * Remembers which BitBlt and which forms were last loaded and validated for a BalloonEngine.
+     * The work buffer with all geometry, edge, and fill data is accessed directly and therefore does
+     * not need to be cached. Reloading is only skipped if the BitBlt and form slots that the loading
+     * code reads are still identical, and if the storage arrays that BitBlt caches for the dest,
+     * source, and halftone bits and the color map tables have not been replaced (e.g. by become:),
+     * so that changes made from Smalltalk are always picked up.
+     */
+    private static final class EngineState {
+        /* BitBlt slots up to the color map, plus all slots of its dest and source forms. */
+        private static final int BITBLT_SLOTS = 15;
+        private static final int FORM_SLOTS = 5;
+
+        private PointersObject bitBltOop;
+        private long bitBltLoadCount = -1;
+        private final Object[] bitBltSlots = new Object[BITBLT_SLOTS + 2 * FORM_SLOTS];
+
+        /*
+         * Dest and source bits storages, halftone bits, height, and storage, and the color map
+         * storage, tables, and their storages.
+         */
+        private static final int STORAGE_SLOTS = 12;
+
+        private final Object[] bitBltStorages = new Object[STORAGE_SLOTS];
+        private final Object[] currentStorages = new Object[STORAGE_SLOTS];
+
+        /* Form slots read by loadFormsFrom: (bits, width, height, depth), plus the size of the bits. */
+        private static final int LOADED_FORM_SLOTS = 4;
+
+        private ArrayObject formArray;
+        private Object[] forms;
+        private Object[] formSlots;
+        private int[] formBitsSizes;
+
+        private boolean isBitBltLoaded(final BitBlt bitBlt, final PointersObject bbObj) {
+            if (bbObj != bitBltOop || bitBlt.getLoadCount() != bitBltLoadCount) {
+                return false;
+            }
+            for (int i = 0; i < BITBLT_SLOTS; i++) {
+                if (!isSameSlotValue(bitBltSlots[i], bbObj.instVarAt0Slow(i))) {
+                    return false;
+                }
+            }
+            if (!isSameForm(bitBltSlots[0], BITBLT_SLOTS) || !isSameForm(bitBltSlots[1], BITBLT_SLOTS + FORM_SLOTS)) {
+                return false;
+            }
+            snapshotStorages(currentStorages);
+            for (int i = 0; i < STORAGE_SLOTS; i++) {
+                if (!isSameSlotValue(bitBltStorages[i], currentStorages[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isSameForm(final Object form, final int offset) {
+            if (form instanceof PointersObject && ((PointersObject) form).size() >= FORM_SLOTS) {
+                for (int i = 0; i < FORM_SLOTS; i++) {
+                    if (!isSameSlotValue(bitBltSlots[offset + i], ((PointersObject) form).instVarAt0Slow(i))) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        private void bitBltLoaded(final BitBlt bitBlt, final PointersObject bbObj) {
+            if (bbObj.size() < BITBLT_SLOTS) {
+                bitBltOop = null;
+                return;
+            }
+            bitBltOop = bbObj;
+            bitBltLoadCount = bitBlt.getLoadCount();
+            for (int i = 0; i < BITBLT_SLOTS; i++) {
+                bitBltSlots[i] = bbObj.instVarAt0Slow(i);
+            }
+            snapshotForm(bitBltSlots[0], BITBLT_SLOTS);
+            snapshotForm(bitBltSlots[1], BITBLT_SLOTS + FORM_SLOTS);
+            snapshotStorages(bitBltStorages);
+        }
+
+        /* Mirrors what BitBlt>>#loadBitBltFrom: caches from the (already snapshotted) slots. */
+        private void snapshotStorages(final Object[] storages) {
+            storages[0] = storageOf(bitBltSlots[BITBLT_SLOTS]);
+            storages[1] = storageOf(bitBltSlots[BITBLT_SLOTS + FORM_SLOTS]);
+            final Object halftone = bitBltSlots[2];
+            if (halftone instanceof AbstractPointersObject && ((AbstractPointersObject) halftone).size() >= 4) {
+                storages[2] = ((AbstractPointersObject) halftone).instVarAt0Slow(FORM.BITS);
+                storages[3] = ((AbstractPointersObject) halftone).instVarAt0Slow(FORM.HEIGHT);
+            } else {
+                storages[2] = halftone;
+                storages[3] = null;
+            }
+            storages[4] = storageOf(storages[2]);
+            final Object colorMap = bitBltSlots[14];
+            storages[5] = storageOf(colorMap);
+            for (int i = 0; i < 3; i++) {
+                final Object table = colorMap instanceof AbstractPointersObject && ((AbstractPointersObject) colorMap).size() >= 3 ? ((AbstractPointersObject) colorMap).instVarAt0Slow(i) : null;
+                storages[6 + i] = table;
+                storages[9 + i] = storageOf(table);
+            }
+        }
+
+        private static Object storageOf(final Object object) {
+            return object instanceof NativeObject && ((NativeObject) object).isIntType() ? ((NativeObject) object).getIntStorage() : null;
+        }
+
+        private void snapshotForm(final Object form, final int offset) {
+            for (int i = 0; i < FORM_SLOTS; i++) {
+                bitBltSlots[offset + i] = form instanceof PointersObject && ((PointersObject) form).size() >= FORM_SLOTS ? ((PointersObject) form).instVarAt0Slow(i) : null;
+            }
+        }
+
+        private boolean areFormsLoaded(final ArrayObject arrayOop) {
+            if (arrayOop != formArray || !arrayOop.isObjectType() || arrayOop.getObjectLength() != forms.length) {
+                return false;
+            }
+            final Object[] currentForms = arrayOop.getObjectStorage();
+            for (int i = 0; i < forms.length; i++) {
+                if (currentForms[i] != forms[i]) {
+                    return false;
+                }
+                final PointersObject form = (PointersObject) forms[i];
+                for (int j = 0; j < LOADED_FORM_SLOTS; j++) {
+                    if (!isSameSlotValue(formSlots[i * LOADED_FORM_SLOTS + j], form.instVarAt0Slow(j))) {
+                        return false;
+                    }
+                }
+                /* The bits may have been resized in place (e.g. by become:). */
+                if (((NativeObject) formSlots[i * LOADED_FORM_SLOTS]).getIntLength() != formBitsSizes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void formsLoaded(final ArrayObject arrayOop) {
+            if (!arrayOop.isObjectType()) {
+                formArray = null;
+                return;
+            }
+            formArray = arrayOop;
+            forms = arrayOop.getObjectStorage().clone();
+            formSlots = new Object[forms.length * LOADED_FORM_SLOTS];
+            formBitsSizes = new int[forms.length];
+            for (int i = 0; i < forms.length; i++) {
+                final PointersObject form = (PointersObject) forms[i];
+                for (int j = 0; j < LOADED_FORM_SLOTS; j++) {
+                    formSlots[i * LOADED_FORM_SLOTS + j] = form.instVarAt0Slow(j);
+                }
+                formBitsSizes[i] = ((NativeObject) formSlots[i * LOADED_FORM_SLOTS]).getIntLength();
+            }
+        }
+
+        private static boolean isSameSlotValue(final Object a, final Object b) {
+            return a == b || (a instanceof Long || a instanceof Double) && a.equals(b);
+        }
+    }
+
     private static long div(final long a, final long b) {
         return Math.floorDiv(a, b);
     }
@@ -5,7 +5,10 @@
  */
 package de.hpi.swa.trufflesqueak.nodes.plugins;
 
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.LongBinaryOperator;
+import java.util.stream.IntStream;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
@@ -66,6 +69,8 @@ public final class BitBlt {
     private static final int FIXED_PT1 = 0x4000;
     private static final int GREEN_INDEX = 1;
     private static final int OP_TABLE_SIZE = 43;
+    private static final int PARALLEL_MIN_BAND_HEIGHT = 64;
+    private static final long PARALLEL_MIN_PIXELS = 512 * 512;
     private static final int RED_INDEX = 0;
 
     /* Return the default translation table from 1..8 bit indexed colors to 32bit */
@@ -219,6 +224,9 @@ public final class BitBlt {
 
     private boolean successFlag = false;
 
+    /* TruffleSqueak: number of loaded BitBlts, allows B2D to detect whether its state is still loaded. */
+    private long loadCount;
+
     public BitBlt(final SqueakImageContext image) {
         this.image = image;
         initialiseModule();
@@ -305,7 +313,7 @@ public final class BitBlt {
      */
 
     /* BitBltSimulation>>#alphaBlendScaled:with: */
-    private long alphaBlendScaledwith(final long sourceWord, final long destinationWord) {
+    private static long alphaBlendScaledwith(final long sourceWord, final long destinationWord) {
         /* High 8 bits of source pixel is source opacity (ARGB format) */
         final long unAlpha = 0xFF - (sourceWord >>> 24);
         /* blend red and blue components */
@@ -328,7 +336,7 @@ public final class BitBlt {
      */
 
     /* BitBltSimulation>>#alphaBlend:with: */
-    private long alphaBlendwith(final long sourceWord, final long destinationWord) {
+    private static long alphaBlendwith(final long sourceWord, final long destinationWord) {
         /* High 8 bits of source pixel */
         final long alpha = sourceWord >>> 24;
         if (alpha == 0) {
@@ -786,6 +794,9 @@ public final class BitBlt {
         if (failed()) {
             PrimitiveFailed.andTransferToInterpreter();
         }
+        if (tryCopyingBits32Quickly()) {
+            return;
+        }
         if (tryCopyingBitsQuickly()) {
             return;
         }
@@ -1549,7 +1560,7 @@ public final class BitBlt {
         opTable[21 + 1] = this::rgbSubwith;
         opTable[22 + 1] = this::oLDrgbDiffwith;
         opTable[23 + 1] = this::oLDtallyIntoMapwith;
-        opTable[24 + 1] = this::alphaBlendwith;
+        opTable[24 + 1] = BitBlt::alphaBlendwith;
         opTable[25 + 1] = this::pixPaintwith;
         opTable[26 + 1] = this::pixMaskwith;
         opTable[27 + 1] = this::rgbMaxwith;
@@ -1559,9 +1570,9 @@ public final class BitBlt {
         opTable[31 + 1] = this::alphaPaintConstwith;
         opTable[32 + 1] = this::rgbDiffwith;
         opTable[33 + 1] = this::tallyIntoMapwith;
-        opTable[34 + 1] = this::alphaBlendScaledwith;
-        opTable[35 + 1] = this::alphaBlendScaledwith;
-        opTable[36 + 1] = this::alphaBlendScaledwith;
+        opTable[34 + 1] = BitBlt::alphaBlendScaledwith;
+        opTable[35 + 1] = BitBlt::alphaBlendScaledwith;
+        opTable[36 + 1] = BitBlt::alphaBlendScaledwith;
         opTable[37 + 1] = this::rgbMulwith;
         opTable[38 + 1] = this::pixSwapwith;
         opTable[39 + 1] = this::pixClearwith;
@@ -1657,6 +1668,7 @@ public final class BitBlt {
 
     /* BitBltSimulation>>#loadBitBltFrom:warping: */
     private boolean loadBitBltFromwarping(final PointersObject bbObj, final boolean aBool) {
+        loadCount++;
         bitBltOop = bbObj;
         isWarping = aBool;
         combinationRule = fetchIntegerofObject(BB_RULE_INDEX, bitBltOop);
@@ -3346,6 +3358,164 @@ public final class BitBlt {
         return true;
     }
 
+    /*
+     * TruffleSqueak: fast paths for 32-bit destinations with identity color maps. Form over (3),
+     * blend (24), paint (25), and blend scaled (34) are performed row by row directly on the int[]
+     * storage, which avoids the mergeFn dispatch and masking of the generic copy loops.
+     */
+    private boolean tryCopyingBits32Quickly() {
+        if (destDepth != 32 || !(destBits instanceof int[]) || !image.options.enableBitBltFastPaths) {
+            return false;
+        }
+        if (!(combinationRule == 3 || combinationRule == 24 || combinationRule == 25 || combinationRule == 34)) {
+            return false;
+        }
+        final int[] dstInts = (int[]) destBits;
+        if (noSource) {
+            fillBits32(dstInts);
+        } else {
+            if (sourceDepth != 32 || !(sourceBits instanceof int[]) || cmFlags != 0 || sourceMSB != destMSB || !noHalftone) {
+                return false;
+            }
+            final int[] srcInts = (int[]) sourceBits;
+            if (srcInts == dstInts && combinationRule != 3) {
+                return false; /* Let the generic copy loops deal with overlapping blends. */
+            }
+            copyBits32(srcInts, dstInts);
+        }
+        affectedL = dx;
+        affectedR = dx + bbW;
+        affectedT = dy;
+        affectedB = dy + bbH;
+        return true;
+    }
+
+    private void copyBits32(final int[] srcInts, final int[] dstInts) {
+        if (srcInts != dstInts && shouldBlitInParallel()) {
+            forEachBand((fromRow, toRow) -> copyRows32(srcInts, dstInts, fromRow, toRow, false));
+        } else {
+            /* Scrolling down within the same bitmap must start at the bottom. */
+            copyRows32(srcInts, dstInts, 0, bbH, srcInts == dstInts && dy > sy);
+        }
+    }
+
+    private void copyRows32(final int[] srcInts, final int[] dstInts, final int fromRow, final int toRow, final boolean bottomUp) {
+        final int srcPitchInts = sourcePitch >> 2;
+        final int dstPitchInts = destPitch >> 2;
+        for (int i = fromRow; i < toRow; i++) {
+            final int row = bottomUp ? toRow - 1 - (i - fromRow) : i;
+            final int srcStart = (sy + row) * srcPitchInts + sx;
+            final int dstStart = (dy + row) * dstPitchInts + dx;
+            switch (combinationRule) {
+                case 3:
+                    System.arraycopy(srcInts, srcStart, dstInts, dstStart, bbW);
+                    break;
+                case 24:
+                    alphaBlendRow32(srcInts, srcStart, dstInts, dstStart, bbW);
+                    break;
+                case 25:
+                    pixPaintRow32(srcInts, srcStart, dstInts, dstStart, bbW);
+                    break;
+                case 34:
+                    alphaBlendScaledRow32(srcInts, srcStart, dstInts, dstStart, bbW);
+                    break;
+                default:
+                    throw SqueakException.create("Unexpected combination rule", combinationRule);
+            }
+        }
+    }
+
+    private void fillBits32(final int[] dstInts) {
+        if (shouldBlitInParallel()) {
+            forEachBand((fromRow, toRow) -> fillRows32(dstInts, fromRow, toRow));
+        } else {
+            fillRows32(dstInts, 0, bbH);
+        }
+    }
+
+    private void fillRows32(final int[] dstInts, final int fromRow, final int toRow) {
+        final int dstPitchInts = destPitch >> 2;
+        for (int y = dy + fromRow; y < dy + toRow; y++) {
+            final int halftoneWord = noHalftone ? (int) ALL_ONES : (int) halftoneLongAt(y);
+            final int dstStart = y * dstPitchInts + dx;
+            final int dstEnd = dstStart + bbW;
+            switch (combinationRule) {
+                case 3:
+                    Arrays.fill(dstInts, dstStart, dstEnd, halftoneWord);
+                    break;
+                case 24:
+                    for (int i = dstStart; i < dstEnd; i++) {
+                        dstInts[i] = (int) alphaBlendwith(Integer.toUnsignedLong(halftoneWord), Integer.toUnsignedLong(dstInts[i]));
+                    }
+                    break;
+                case 25:
+                    if (halftoneWord != 0) {
+                        Arrays.fill(dstInts, dstStart, dstEnd, halftoneWord);
+                    }
+                    break;
+                case 34:
+                    for (int i = dstStart; i < dstEnd; i++) {
+                        dstInts[i] = (int) alphaBlendScaledwith(Integer.toUnsignedLong(halftoneWord), Integer.toUnsignedLong(dstInts[i]));
+                    }
+                    break;
+                default:
+                    throw SqueakException.create("Unexpected combination rule", combinationRule);
+            }
+        }
+    }
+
+    /*
+     * TruffleSqueak: large fast path blits can be split into horizontal bands that are processed in
+     * parallel. All fast path rules only depend on the source and destination pixel at the same
+     * position, so this is safe as long as source and destination do not share their bits.
+     */
+    private boolean shouldBlitInParallel() {
+        return image.options.enableParallelBitBlt && bbH >= 2 * PARALLEL_MIN_BAND_HEIGHT && (long) bbW * bbH >= PARALLEL_MIN_PIXELS;
+    }
+
+    private void forEachBand(final RowsOperation operation) {
+        final int numBands = Math.min(ForkJoinPool.getCommonPoolParallelism() * 2, bbH / PARALLEL_MIN_BAND_HEIGHT);
+        final int rows = bbH;
+        IntStream.range(0, numBands).parallel().forEach(band -> operation.apply(rows * band / numBands, rows * (band + 1) / numBands));
+    }
+
+    @FunctionalInterface
+    private interface RowsOperation {
+        void apply(int fromRow, int toRow);
+    }
+
+    private static void alphaBlendRow32(final int[] srcInts, final int srcStart, final int[] dstInts, final int dstStart, final int count) {
+        for (int i = 0; i < count; i++) {
+            final int sourceWord = srcInts[srcStart + i];
+            final int alpha = sourceWord >>> 24;
+            if (alpha == 0xFF) {
+                dstInts[dstStart + i] = sourceWord;
+            } else if (alpha != 0) {
+                dstInts[dstStart + i] = (int) alphaBlendwith(Integer.toUnsignedLong(sourceWord), Integer.toUnsignedLong(dstInts[dstStart + i]));
+            }
+        }
+    }
+
+    /* 32-bit version of pixPaint:with:, pixels with a value of zero are transparent. */
+    private static void pixPaintRow32(final int[] srcInts, final int srcStart, final int[] dstInts, final int dstStart, final int count) {
+        for (int i = 0; i < count; i++) {
+            final int sourceWord = srcInts[srcStart + i];
+            dstInts[dstStart + i] = sourceWord == 0 ? dstInts[dstStart + i] : sourceWord;
+        }
+    }
+
+    private static void alphaBlendScaledRow32(final int[] srcInts, final int srcStart, final int[] dstInts, final int dstStart, final int count) {
+        for (int i = 0; i < count; i++) {
+            final int sourceWord = srcInts[srcStart + i];
+            final int alpha = sourceWord >>> 24;
+            if (alpha == 0xFF) {
+                dstInts[dstStart + i] = sourceWord;
+            } else if (alpha != 0) {
+                dstInts[dstStart + i] = (int) alphaBlendScaledwith(Integer.toUnsignedLong(sourceWord), Integer.toUnsignedLong(dstInts[dstStart + i]));
+            }
+        }
+    }
+
     /* BitBltSimulation>>#unlockSurfaces */
     private void unlockSurfaces() {
         // Actual unlocking code not needed for TruffleSqueak.
@@ -3833,10 +4003,14 @@ public final class BitBlt {
         return !successFlag;
     }
 
-    protected void resetSuccessFlag() {
+    public void resetSuccessFlag() {
         successFlag = true;
     }
 
+    protected long getLoadCount() {
+        return loadCount;
+    }
+
     private static int div(final long a, final long b) {
         return (int) (a / b);
     }
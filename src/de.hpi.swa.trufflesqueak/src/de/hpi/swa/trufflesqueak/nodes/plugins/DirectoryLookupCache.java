@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2017-2021 Software Architecture Group, Hasso Plattner Institute
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.nodes.plugins;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.oracle.truffle.api.TruffleFile;
+
+import de.hpi.swa.trufflesqueak.nodes.plugins.FilePlugin.FileEntry;
+
+/**
+ * Cursor for primitiveDirectoryLookup. Squeak enumerates directories by calling the primitive with
+ * index 1, 2, 3, and so on. Instead of reopening the directory and skipping entries each time, a
+ * lookup of the first entry lists the directory once and closes its stream right away, so that
+ * abandoned enumerations do not leak file handles. The attributes of the listed files are only read
+ * on demand. The snapshot is discarded when the directory was modified or when the enumeration was
+ * idle for too long, so that slow enumerations of large directories are not restarted midway.
+ */
+public final class DirectoryLookupCache {
+    private static final long MAX_IDLE_MILLIS = 2000;
+
+    private final ArrayList<TruffleFile> files = new ArrayList<>();
+    private final ArrayList<FileEntry> entries = new ArrayList<>();
+    private int nextFileIndex;
+    private TruffleFile directory;
+    private FileTime directoryLastModifiedTime;
+    private long lastAccessMillis;
+
+    /** Returns the entry at the zero-based index, or null if the directory has fewer entries. */
+    public FileEntry get(final TruffleFile dir, final int index) throws IOException {
+        if (index == 0 || !isValidFor(dir)) {
+            reset(dir);
+        }
+        lastAccessMillis = System.currentTimeMillis();
+        while (entries.size() <= index && advance()) {
+            // Read entries up to the requested one.
+        }
+        return index < entries.size() ? entries.get(index) : null;
+    }
+
+    /** Returns all entries of a fresh enumeration of the directory. */
+    public List<FileEntry> getAll(final TruffleFile dir) throws IOException {
+        reset(dir);
+        while (advance()) {
+            // Read all entries.
+        }
+        return entries;
+    }
+
+    private boolean isValidFor(final TruffleFile dir) throws IOException {
+        return dir.equals(directory) && System.currentTimeMillis() - lastAccessMillis < MAX_IDLE_MILLIS && dir.getLastModifiedTime().equals(directoryLastModifiedTime);
+    }
+
+    private void reset(final TruffleFile dir) throws IOException {
+        files.clear();
+        entries.clear();
+        nextFileIndex = 0;
+        directory = null;
+        directoryLastModifiedTime = dir.getLastModifiedTime();
+        try (DirectoryStream<TruffleFile> stream = dir.newDirectoryStream()) {
+            for (final TruffleFile file : stream) {
+                files.add(file);
+            }
+        } catch (final DirectoryIteratorException e) {
+            files.clear();
+            throw e.getCause();
+        }
+        directory = dir;
+        lastAccessMillis = System.currentTimeMillis();
+    }
+
+    private boolean advance() {
+        while (nextFileIndex < files.size()) {
+            final TruffleFile file = files.get(nextFileIndex++);
+            try {
+                entries.add(FilePlugin.readFileEntry(file, file.getName()));
+                return true;
+            } catch (final IOException e) {
+                // Skip entries that vanished in the meantime.
+            }
+        }
+        return false;
+    }
+}
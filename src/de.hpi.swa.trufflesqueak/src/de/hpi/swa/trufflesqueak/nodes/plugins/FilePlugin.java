@@ -8,8 +8,14 @@ package de.hpi.swa.trufflesqueak.nodes.plugins;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.Channels;
+import java.nio.channels.NonReadableChannelException;
+import java.nio.channels.NonWritableChannelException;
 import java.nio.channels.SeekableByteChannel;
-import java.nio.file.DirectoryStream;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.FileSystems;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
@@ -36,6 +42,7 @@ import com.oracle.truffle.api.nodes.NodeInfo;
 import de.hpi.swa.trufflesqueak.SqueakLanguage;
 import de.hpi.swa.trufflesqueak.exceptions.PrimitiveExceptions.PrimitiveFailed;
 import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
+import de.hpi.swa.trufflesqueak.model.ArrayObject;
 import de.hpi.swa.trufflesqueak.model.BooleanObject;
 import de.hpi.swa.trufflesqueak.model.FloatObject;
 import de.hpi.swa.trufflesqueak.model.LargeIntegerObject;
@@ -47,6 +54,7 @@ import de.hpi.swa.trufflesqueak.nodes.primitives.AbstractPrimitiveNode;
 import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveFallbacks.BinaryPrimitiveFallback;
 import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveFallbacks.QuaternaryPrimitiveFallback;
 import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveFallbacks.QuinaryPrimitiveFallback;
+import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveFallbacks.SenaryPrimitiveFallback;
 import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveFallbacks.TernaryPrimitiveFallback;
 import de.hpi.swa.trufflesqueak.nodes.primitives.SqueakPrimitive;
 import de.hpi.swa.trufflesqueak.util.LogUtils;
@@ -59,6 +67,7 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
                     TruffleFile.LAST_MODIFIED_TIME, TruffleFile.CREATION_TIME, TruffleFile.IS_DIRECTORY, TruffleFile.SIZE);
     private static final EnumSet<StandardOpenOption> OPTIONS_DEFAULT = EnumSet.of(StandardOpenOption.READ);
     private static final EnumSet<StandardOpenOption> OPTIONS_WRITEABLE = EnumSet.of(StandardOpenOption.WRITE, StandardOpenOption.READ, StandardOpenOption.CREATE);
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
 
     public static final class STDIO_HANDLES {
         public static final byte IN = 0;
@@ -94,6 +103,18 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
             return image.env.getPublicTruffleFile(obj);
         }
 
+        protected static final TruffleFile asDirectoryOrPrimFail(final SqueakImageContext image, final NativeObject nativePathName) {
+            String pathName = nativePathName.asStringUnsafe();
+            if (OS.isWindows() && !pathName.endsWith("\\")) {
+                pathName += "\\"; // new File("C:") will fail, we need to add a trailing backslash.
+            }
+            final TruffleFile directory = asPublicTruffleFile(image, pathName);
+            if (!directory.isDirectory()) {
+                throw PrimitiveFailed.GENERIC_ERROR;
+            }
+            return directory;
+        }
+
         protected static final boolean inBounds(final long startIndex, final long count, final int slotSize) {
             return startIndex >= 1 && startIndex + count - 1 <= slotSize;
         }
@@ -102,6 +123,10 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
             return fd.getHiddenObject() instanceof Byte;
         }
 
+        protected static final boolean isStdinFileDescriptor(final PointersObject fd) {
+            return isStdioFileDescriptor(fd) && (byte) fd.getHiddenObject() == STDIO_HANDLES.IN;
+        }
+
         protected static final boolean isStdoutFileDescriptor(final PointersObject fd) {
             return isStdioFileDescriptor(fd) && (byte) fd.getHiddenObject() == STDIO_HANDLES.OUT;
         }
@@ -129,30 +154,78 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
         }
     }
 
-    private static Object newFileEntry(final SqueakImageContext image, final TruffleFile file) {
-        return newFileEntry(image, file, file.getName());
-    }
-
     private static Object newFileEntry(final SqueakImageContext image, final TruffleFile file, final String fileName) {
-        final Attributes attributes;
         try {
-            attributes = file.getAttributes(ENTRY_ATTRIBUTES);
+            return readFileEntry(file, fileName).toSqueakEntry(image);
         } catch (final IOException e) {
             // TODO: make this better
             LogUtils.IO.warning(() -> "File must exist: " + file + " (" + e + "). Falling back to nil...");
             return NilObject.SINGLETON;
         }
+    }
+
+    static FileEntry readFileEntry(final TruffleFile file, final String fileName) throws IOException {
+        final Attributes attributes = file.getAttributes(ENTRY_ATTRIBUTES);
         final Long creationTime = MiscUtils.toSqueakSecondsLocal(attributes.get(TruffleFile.CREATION_TIME).to(TimeUnit.SECONDS));
         final Long lastModifiedTime = MiscUtils.toSqueakSecondsLocal(attributes.get(TruffleFile.LAST_MODIFIED_TIME).to(TimeUnit.SECONDS));
-        final Boolean isDirectory = attributes.get(TruffleFile.IS_DIRECTORY);
-        final Long size = attributes.get(TruffleFile.SIZE);
-        return image.asArrayOfObjects(image.asByteString(fileName), creationTime, lastModifiedTime, isDirectory, size);
+        return new FileEntry(fileName, creationTime, lastModifiedTime, attributes.get(TruffleFile.IS_DIRECTORY), attributes.get(TruffleFile.SIZE));
+    }
+
+    /** Attributes of a directory entry, which can be turned into Squeak entries repeatedly. */
+    public static final class FileEntry {
+        private final String name;
+        private final Long creationTime;
+        private final Long lastModifiedTime;
+        private final Boolean isDirectory;
+        private final Long size;
+
+        private FileEntry(final String name, final Long creationTime, final Long lastModifiedTime, final Boolean isDirectory, final Long size) {
+            this.name = name;
+            this.creationTime = creationTime;
+            this.lastModifiedTime = lastModifiedTime;
+            this.isDirectory = isDirectory;
+            this.size = size;
+        }
+
+        Object toSqueakEntry(final SqueakImageContext image) {
+            return image.asArrayOfObjects(image.asByteString(name), creationTime, lastModifiedTime, isDirectory, size);
+        }
     }
 
     private static void log(final String message, final Throwable e) {
         LogUtils.IO.log(Level.FINE, message, e);
     }
 
+    /**
+     * Transfers up to count bytes starting at the zero-based position of the source to the current
+     * position of the target, without changing the position of the source. The bytes are copied
+     * through a buffer, channels of TruffleFiles do not expose the underlying FileChannel. Returns
+     * the number of bytes transferred, which may be less than requested for non-blocking targets.
+     */
+    @TruffleBoundary
+    public static long transferTo(final SeekableByteChannel source, final long position, final long count, final WritableByteChannel target) throws IOException {
+        final long oldPosition = source.position();
+        try {
+            source.position(position);
+            final ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(count, TRANSFER_BUFFER_SIZE));
+            long transferred = 0;
+            while (transferred < count) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), count - transferred));
+                if (source.read(buffer) <= 0) {
+                    break;
+                }
+                buffer.flip();
+                transferred += target.write(buffer);
+                if (buffer.hasRemaining()) {
+                    break; /* Target cannot take more at the moment. */
+                }
+            }
+            return transferred;
+        } finally {
+            source.position(oldPosition);
+        }
+    }
+
     @GenerateNodeFactory
     @SqueakPrimitive(names = "primitiveDirectoryCreate")
     protected abstract static class PrimDirectoryCreateNode extends AbstractFilePluginPrimitiveNode implements BinaryPrimitiveFallback {
@@ -260,26 +333,15 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
         @TruffleBoundary(transferToInterpreterOnException = false)
         protected static final Object doLookup(@SuppressWarnings("unused") final Object receiver, final NativeObject nativePathName, final long index,
                         @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
-            String pathName = nativePathName.asStringUnsafe();
-            if (OS.isWindows() && !pathName.endsWith("\\")) {
-                pathName += "\\"; // new File("C:") will fail, we need to add a trailing backslash.
-            }
-            final TruffleFile directory = asPublicTruffleFile(image, pathName);
-            if (!directory.isDirectory()) {
-                throw PrimitiveFailed.GENERIC_ERROR;
-            }
-            long count = index;
-            try (DirectoryStream<TruffleFile> stream = directory.newDirectoryStream()) {
-                for (final TruffleFile file : stream) {
-                    if (count-- <= 1 && file.exists()) {
-                        return newFileEntry(image, file);
-                    }
-                }
+            final TruffleFile directory = asDirectoryOrPrimFail(image, nativePathName);
+            final FileEntry entry;
+            try {
+                entry = image.directoryLookupCache.get(directory, MiscUtils.toIntExact(index - 1));
             } catch (final IOException e) {
                 log("Failed to access directory", e);
                 throw PrimitiveFailed.GENERIC_ERROR;
             }
-            return NilObject.SINGLETON;
+            return entry == null ? NilObject.SINGLETON : entry.toSqueakEntry(image);
         }
 
         @SuppressWarnings("unused")
@@ -289,6 +351,30 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
         }
     }
 
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveDirectoryEntries")
+    protected abstract static class PrimDirectoryEntriesNode extends AbstractFilePluginPrimitiveNode implements BinaryPrimitiveFallback {
+
+        @Specialization(guards = {"nativePathName.isByteType()", "nativePathName.getByteLength() > 0"})
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final ArrayObject doEntries(@SuppressWarnings("unused") final Object receiver, final NativeObject nativePathName,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            final TruffleFile directory = asDirectoryOrPrimFail(image, nativePathName);
+            final List<FileEntry> entries;
+            try {
+                entries = image.directoryLookupCache.getAll(directory);
+            } catch (final IOException e) {
+                log("Failed to access directory", e);
+                throw PrimitiveFailed.GENERIC_ERROR;
+            }
+            final Object[] squeakEntries = new Object[entries.size()];
+            for (int i = 0; i < squeakEntries.length; i++) {
+                squeakEntries[i] = entries.get(i).toSqueakEntry(image);
+            }
+            return image.asArrayOfObjects(squeakEntries);
+        }
+    }
+
     @GenerateNodeFactory
     @SqueakPrimitive(names = "primitiveDirectoryGetMacTypeAndCreator")
     protected abstract static class PrimDirectoryGetMacTypeAndCreatorNode extends AbstractPrimitiveNode implements QuaternaryPrimitiveFallback {
@@ -339,8 +425,19 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
             }
         }
 
+        @Specialization(guards = "isStdinFileDescriptor(fd)")
+        protected static final boolean doAtEndStdin(@SuppressWarnings("unused") final Object receiver, @SuppressWarnings("unused") final PointersObject fd,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            return BooleanObject.wrap(isInputAtEnd(image));
+        }
+
+        @TruffleBoundary
+        private static boolean isInputAtEnd(final SqueakImageContext image) {
+            return image.stdio.isInputAtEnd();
+        }
+
         @SuppressWarnings("unused")
-        @Specialization(guards = "isStdioFileDescriptor(fd)")
+        @Specialization(guards = {"isStdioFileDescriptor(fd)", "!isStdinFileDescriptor(fd)"})
         protected static final Object doAtEndStdio(final Object receiver, final PointersObject fd) {
             throw PrimitiveFailed.GENERIC_ERROR;
         }
@@ -399,7 +496,7 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
         @Specialization(guards = {"isStdoutFileDescriptor(fd)"})
         protected static final Object doFlushStdout(final Object receiver, final PointersObject fd,
                         @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
-            flushStdioOrFail(image.env.out());
+            flushStdioOrFail(image.stdio.getOut());
             return receiver;
         }
 
@@ -407,7 +504,7 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
         @Specialization(guards = {"isStderrFileDescriptor(fd)"})
         protected static final Object doFlushStderr(final Object receiver, final PointersObject fd,
                         @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
-            flushStdioOrFail(image.env.err());
+            flushStdioOrFail(image.stdio.getErr());
             return receiver;
         }
 
@@ -449,6 +546,234 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
         }
     }
 
+    /**
+     * Hidden object of file mapping handles. Copies of a handle share it, so that none of them can
+     * access a mapping after it has been unmapped.
+     *
+     * File handles hold channels from TruffleFile.newByteChannel, which are not FileChannels and
+     * cannot be mapped by the OS. A mapping is therefore a bounded read of the region (at most 2GB)
+     * into a heap buffer, which is written back to the channel when a writable mapping is forced or
+     * unmapped. Accesses to the mapping then need no further seeks or reads on the channel.
+     */
+    private static final class FileMapping {
+        private ByteBuffer buffer;
+        private final SeekableByteChannel channel;
+        private final long position;
+
+        private FileMapping(final ByteBuffer buffer, final SeekableByteChannel channel, final long position) {
+            this.buffer = buffer;
+            this.channel = channel;
+            this.position = position;
+        }
+
+        @TruffleBoundary
+        private static FileMapping create(final SeekableByteChannel channel, final long position, final long size, final boolean writable) throws IOException {
+            /* Mappings are limited to 2GB, larger files need to be mapped in regions. */
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Size exceeds Integer.MAX_VALUE");
+            }
+            final ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            synchronized (channel) {
+                final long oldPosition = channel.position();
+                try {
+                    channel.position(position);
+                    while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                        /* Bytes beyond the end of the file stay zero. */
+                    }
+                } finally {
+                    channel.position(oldPosition);
+                }
+            }
+            buffer.clear();
+            return new FileMapping(writable ? buffer : buffer.asReadOnlyBuffer(), channel, position);
+        }
+
+        @TruffleBoundary
+        private void force() throws IOException {
+            if (!buffer.isReadOnly()) {
+                final ByteBuffer source = buffer.duplicate();
+                source.clear();
+                synchronized (channel) {
+                    final long oldPosition = channel.position();
+                    try {
+                        channel.position(position);
+                        while (source.hasRemaining()) {
+                            channel.write(source);
+                        }
+                    } finally {
+                        channel.position(oldPosition);
+                    }
+                }
+            }
+        }
+
+        @TruffleBoundary
+        private void unmap() throws IOException {
+            try {
+                force();
+            } finally {
+                buffer = null;
+            }
+        }
+    }
+
+    protected abstract static class AbstractFileMappingPrimitiveNode extends AbstractFilePluginPrimitiveNode {
+
+        protected static final FileMapping getFileMappingOrPrimFail(final PointersObject handle) {
+            final Object hiddenObject = handle.getHiddenObject();
+            if (hiddenObject instanceof FileMapping && ((FileMapping) hiddenObject).buffer != null) {
+                return (FileMapping) hiddenObject;
+            } else {
+                throw PrimitiveFailed.andTransferToInterpreter();
+            }
+        }
+
+        protected static final ByteBuffer getMappingOrPrimFail(final PointersObject handle) {
+            final Object hiddenObject = handle.getHiddenObject();
+            if (hiddenObject instanceof FileMapping && ((FileMapping) hiddenObject).buffer != null) {
+                return ((FileMapping) hiddenObject).buffer;
+            } else {
+                throw PrimitiveFailed.andTransferToInterpreter();
+            }
+        }
+
+        /** Returns a view of the mapping positioned at the zero-based byte offset. */
+        @TruffleBoundary
+        protected static final ByteBuffer viewAt(final PointersObject handle, final long position) {
+            final ByteBuffer mapping = getMappingOrPrimFail(handle);
+            if (position < 0 || position > mapping.capacity()) {
+                throw PrimitiveFailed.BAD_INDEX;
+            }
+            final ByteBuffer view = mapping.duplicate().order(ByteOrder.nativeOrder());
+            view.position((int) position);
+            return view;
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveFileMap")
+    protected abstract static class PrimFileMapNode extends AbstractFilePluginPrimitiveNode implements QuinaryPrimitiveFallback {
+
+        @Specialization(guards = {"!isStdioFileDescriptor(fd)", "position >= 0", "size >= 0"})
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final PointersObject doMap(@SuppressWarnings("unused") final Object receiver, final PointersObject fd, final long position, final long size, final boolean writableFlag,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            try {
+                return PointersObject.newHandleWithHiddenObject(image, FileMapping.create(getChannelOrPrimFail(fd), position, size, writableFlag));
+            } catch (final IOException | IllegalArgumentException | NonReadableChannelException | NonWritableChannelException e) {
+                log("Failed to map file", e);
+                throw PrimitiveFailed.GENERIC_ERROR;
+            }
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveFileMappingForce")
+    protected abstract static class PrimFileMappingForceNode extends AbstractFileMappingPrimitiveNode implements BinaryPrimitiveFallback {
+
+        @Specialization
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final Object doForce(final Object receiver, final PointersObject mapping) {
+            try {
+                getFileMappingOrPrimFail(mapping).force();
+            } catch (final IOException | NonWritableChannelException e) {
+                log("Failed to write back file mapping", e);
+                throw PrimitiveFailed.GENERIC_ERROR;
+            }
+            return receiver;
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveFileMappingRead")
+    protected abstract static class PrimFileMappingReadNode extends AbstractFileMappingPrimitiveNode implements SenaryPrimitiveFallback {
+
+        @Specialization(guards = {"target.isByteType()", "inBounds(startIndex, count, target.getByteLength())"})
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final long doReadBytes(@SuppressWarnings("unused") final Object receiver, final PointersObject mapping, final long position, final NativeObject target,
+                        final long startIndex, final long count) {
+            final ByteBuffer view = viewAt(mapping, position);
+            final int length = (int) Math.min(count, view.remaining());
+            view.get(target.getByteStorage(), (int) startIndex - 1, length);
+            return length;
+        }
+
+        @Specialization(guards = {"target.isIntType()", "inBounds(startIndex, count, target.getIntLength())"})
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final long doReadInts(@SuppressWarnings("unused") final Object receiver, final PointersObject mapping, final long position, final NativeObject target,
+                        final long startIndex, final long count) {
+            final IntBuffer view = viewAt(mapping, position).asIntBuffer();
+            final int length = (int) Math.min(count, view.remaining());
+            view.get(target.getIntStorage(), (int) startIndex - 1, length);
+            return length;
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveFileMappingSize")
+    protected abstract static class PrimFileMappingSizeNode extends AbstractFileMappingPrimitiveNode implements BinaryPrimitiveFallback {
+
+        @Specialization
+        protected static final long doSize(@SuppressWarnings("unused") final Object receiver, final PointersObject mapping) {
+            return getCapacity(getMappingOrPrimFail(mapping));
+        }
+
+        @TruffleBoundary
+        private static long getCapacity(final ByteBuffer buffer) {
+            return buffer.capacity();
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveFileMappingUnmap")
+    protected abstract static class PrimFileMappingUnmapNode extends AbstractFileMappingPrimitiveNode implements BinaryPrimitiveFallback {
+
+        @Specialization
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final Object doUnmap(final Object receiver, final PointersObject mapping) {
+            try {
+                getFileMappingOrPrimFail(mapping).unmap();
+            } catch (final IOException | NonWritableChannelException e) {
+                log("Failed to write back file mapping", e);
+                throw PrimitiveFailed.GENERIC_ERROR;
+            }
+            return receiver;
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveFileMappingWrite")
+    protected abstract static class PrimFileMappingWriteNode extends AbstractFileMappingPrimitiveNode implements SenaryPrimitiveFallback {
+
+        @Specialization(guards = {"source.isByteType()", "inBounds(startIndex, count, source.getByteLength())"})
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final long doWriteBytes(@SuppressWarnings("unused") final Object receiver, final PointersObject mapping, final long position, final NativeObject source,
+                        final long startIndex, final long count) {
+            final ByteBuffer view = viewAt(mapping, position);
+            final int length = (int) Math.min(count, view.remaining());
+            try {
+                view.put(source.getByteStorage(), (int) startIndex - 1, length);
+            } catch (final ReadOnlyBufferException e) {
+                throw PrimitiveFailed.INAPPROPRIATE_OPERATION;
+            }
+            return length;
+        }
+
+        @Specialization(guards = {"source.isIntType()", "inBounds(startIndex, count, source.getIntLength())"})
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final long doWriteInts(@SuppressWarnings("unused") final Object receiver, final PointersObject mapping, final long position, final NativeObject source,
+                        final long startIndex, final long count) {
+            final IntBuffer view = viewAt(mapping, position).asIntBuffer();
+            final int length = (int) Math.min(count, view.remaining());
+            try {
+                view.put(source.getIntStorage(), (int) startIndex - 1, length);
+            } catch (final ReadOnlyBufferException e) {
+                throw PrimitiveFailed.INAPPROPRIATE_OPERATION;
+            }
+            return length;
+        }
+    }
+
     @GenerateNodeFactory
     @SqueakPrimitive(names = "primitiveFileOpen")
     protected abstract static class PrimFileOpenNode extends AbstractFilePluginPrimitiveNode implements TernaryPrimitiveFallback {
@@ -484,13 +809,10 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
         protected static final long doReadInts(@SuppressWarnings("unused") final Object receiver, final PointersObject fd, final NativeObject target, final long startIndex, final long count) {
             final ByteBuffer dst = allocate((int) count * Integer.BYTES);
             final long readBytes = readFrom(getChannelOrPrimFail(fd), dst);
-            final byte[] bytes = getBytes(dst);
-            assert readBytes % Integer.BYTES == 0 && readBytes == bytes.length;
-            final long readInts = readBytes / Integer.BYTES;
-            for (int index = 0; index < readInts; index++) {
-                target.setInt(startIndex - 1 + index, UnsafeUtils.getInt(bytes, index));
-            }
-            return Math.max(readInts, 0L); // `read` can be `-1`, Squeak expects zero.
+            assert readBytes % Integer.BYTES == 0;
+            final int readInts = (int) Math.max(readBytes, 0L) / Integer.BYTES; // `read` can be `-1`, Squeak expects zero.
+            copyInts(dst, target.getIntStorage(), (int) startIndex - 1, readInts);
+            return readInts;
         }
 
         @TruffleBoundary
@@ -509,12 +831,30 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
         }
 
         @TruffleBoundary
-        private static byte[] getBytes(final ByteBuffer dst) {
-            return dst.array();
+        private static void copyInts(final ByteBuffer src, final int[] ints, final int offset, final int length) {
+            src.flip();
+            src.order(ByteOrder.nativeOrder()).asIntBuffer().get(ints, offset, length);
+        }
+
+        /**
+         * Reads buffered stdin data. Blocks until data is available unless a semaphore has been
+         * registered with primitiveFileStdinSemaphore, answers zero if there is no data otherwise.
+         */
+        @Specialization(guards = {"isStdinFileDescriptor(fd)", "target.isByteType()", "inBounds(startIndex, count, target.getByteLength())"})
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final long doReadStdin(@SuppressWarnings("unused") final Object receiver, @SuppressWarnings("unused") final PointersObject fd, final NativeObject target,
+                        final long startIndex, final long count,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            try {
+                return image.stdio.read(target.getByteStorage(), (int) startIndex - 1, (int) count);
+            } catch (final IOException e) {
+                log("Failed to read from stdin", e);
+                throw PrimitiveFailed.GENERIC_ERROR;
+            }
         }
 
         @SuppressWarnings("unused")
-        @Specialization(guards = {"isStdioFileDescriptor(fd)"})
+        @Specialization(guards = {"isStdioFileDescriptor(fd)", "!isStdinFileDescriptor(fd)"})
         protected static final Object doReadStdio(final Object receiver, final PointersObject fd, final NativeObject target, final long startIndex, final long longCount) {
             throw PrimitiveFailed.GENERIC_ERROR;
         }
@@ -602,6 +942,63 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
         }
     }
 
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveFileStdinSemaphore")
+    protected abstract static class PrimFileStdinSemaphoreNode extends AbstractFilePluginPrimitiveNode implements BinaryPrimitiveFallback {
+        /**
+         * Registers the external semaphore to signal when stdin data becomes available. Afterwards,
+         * primitiveFileRead on stdin no longer blocks.
+         */
+        @Specialization
+        @TruffleBoundary
+        protected static final Object doSet(final Object receiver, final long semaphoreIndex,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            image.stdio.setInputSemaphoreIndex((int) semaphoreIndex);
+            return receiver;
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveFileTransfer")
+    protected abstract static class PrimFileTransferNode extends AbstractFilePluginPrimitiveNode implements QuinaryPrimitiveFallback {
+        /**
+         * Copies count bytes starting at the zero-based position of the source file to the current
+         * position of the target file, without passing them through the image. Answers the number
+         * of bytes copied, which is less than count if the end of the source file was reached.
+         */
+        @Specialization(guards = {"!isStdioFileDescriptor(source)", "!isStdioFileDescriptor(target)", "position >= 0", "count >= 0"})
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final long doTransfer(@SuppressWarnings("unused") final Object receiver, final PointersObject source, final long position, final long count,
+                        final PointersObject target) {
+            return transferFully(getChannelOrPrimFail(source), position, count, getChannelOrPrimFail(target));
+        }
+
+        @Specialization(guards = {"!isStdioFileDescriptor(source)", "isStdoutFileDescriptor(target)", "position >= 0", "count >= 0"})
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final long doTransferToStdout(@SuppressWarnings("unused") final Object receiver, final PointersObject source, final long position, final long count,
+                        @SuppressWarnings("unused") final PointersObject target,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            return transferFully(getChannelOrPrimFail(source), position, count, Channels.newChannel(image.stdio.getOut()));
+        }
+
+        private static long transferFully(final SeekableByteChannel source, final long position, final long count, final WritableByteChannel target) {
+            try {
+                long transferred = 0;
+                while (transferred < count) {
+                    final long chunk = transferTo(source, position + transferred, count - transferred, target);
+                    if (chunk <= 0) {
+                        break; /* End of source reached. */
+                    }
+                    transferred += chunk;
+                }
+                return transferred;
+            } catch (final IOException | NonReadableChannelException | NonWritableChannelException e) {
+                log("Failed to transfer file contents", e);
+                throw PrimitiveFailed.GENERIC_ERROR;
+            }
+        }
+    }
+
     @GenerateNodeFactory
     @SqueakPrimitive(names = "primitiveFileTruncate")
     protected abstract static class PrimFileTruncateNode extends AbstractFilePluginPrimitiveNode implements TernaryPrimitiveFallback {
@@ -642,7 +1039,7 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
         @Specialization(guards = {"isStdoutFileDescriptor(fd)", "content.isByteType()", "inBounds(startIndex, count, content.getByteLength())"})
         protected static final long doWriteByteToStdout(final Object receiver, final PointersObject fd, final NativeObject content, final long startIndex, final long count,
                         @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
-            writeToOutputStream(image.env.out(), content.getByteStorage(), (int) (startIndex - 1), (int) count);
+            writeToOutputStream(image.stdio.getOut(), content.getByteStorage(), (int) (startIndex - 1), (int) count);
             return count;
         }
 
@@ -650,7 +1047,7 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
         @Specialization(guards = {"isStderrFileDescriptor(fd)", "content.isByteType()", "inBounds(startIndex, count, content.getByteLength())"})
         protected static final long doWriteByteToStderr(final Object receiver, final PointersObject fd, final NativeObject content, final long startIndex, final long count,
                         @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
-            writeToOutputStream(image.env.err(), content.getByteStorage(), (int) (startIndex - 1), (int) count);
+            writeToOutputStream(image.stdio.getErr(), content.getByteStorage(), (int) (startIndex - 1), (int) count);
             return count;
         }
 
@@ -700,11 +1097,11 @@ public final class FilePlugin extends AbstractPrimitiveFactoryHolder {
             }
         }
 
+        /* Stdio output is batched, see StdioChannels. */
         @TruffleBoundary(transferToInterpreterOnException = false)
         private static void writeToOutputStream(final OutputStream outputStream, final byte[] content, final int offset, final int length) {
             try {
                 outputStream.write(content, offset, length);
-                outputStream.flush();
             } catch (final IOException e) {
                 log("Failed to write to OutputStream", e);
                 throw PrimitiveFailed.GENERIC_ERROR;
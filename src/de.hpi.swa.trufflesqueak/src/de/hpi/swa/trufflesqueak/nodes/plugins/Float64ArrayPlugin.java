@@ -31,7 +31,7 @@ public class Float64ArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
     @Override
     public List<? extends NodeFactory<? extends AbstractPrimitiveNode>> getFactories() {
-        return FloatArrayPluginFactory.getFactories();
+        return Float64ArrayPluginFactory.getFactories();
     }
 
     @GenerateNodeFactory
@@ -40,11 +40,7 @@ public class Float64ArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isLongType()", "floatArray.isLongType()", "receiver.getLongLength() == floatArray.getLongLength()"})
         protected static final NativeObject doAdd(final NativeObject receiver, final NativeObject floatArray) {
-            final long[] longs1 = receiver.getLongStorage();
-            final long[] longs2 = floatArray.getLongStorage();
-            for (int i = 0; i < longs1.length; i++) {
-                longs1[i] = Double.doubleToRawLongBits(Double.longBitsToDouble(longs1[i]) + Double.longBitsToDouble(longs2[i]));
-            }
+            FloatArrayKernels.add(receiver.getLongStorage(), floatArray.getLongStorage());
             return receiver;
         }
 
@@ -56,10 +52,7 @@ public class Float64ArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isLongType()"})
         protected static final NativeObject doAdd(final NativeObject receiver, final double scalarValue) {
-            final long[] longs = receiver.getLongStorage();
-            for (int i = 0; i < longs.length; i++) {
-                longs[i] = Double.doubleToRawLongBits(Double.longBitsToDouble(longs[i]) + (float) scalarValue);
-            }
+            FloatArrayKernels.addScalar(receiver.getLongStorage(), scalarValue);
             return receiver;
         }
 
@@ -81,7 +74,7 @@ public class Float64ArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isLongType()", "index <= receiver.getLongLength()"})
         protected static final double doDouble(final NativeObject receiver, final long index, final double value) {
-            receiver.getLongStorage()[(int) index - 1] = Double.doubleToRawLongBits((float) value);
+            receiver.getLongStorage()[(int) index - 1] = Double.doubleToRawLongBits(value);
             return value;
         }
 
@@ -106,14 +99,10 @@ public class Float64ArrayPlugin extends AbstractPrimitiveFactoryHolder {
             final long[] longs1 = receiver.getLongStorage();
             final long[] longs2 = floatArray.getLongStorage();
             /* "Check if any of the argument's values is zero". */
-            for (final long value : longs2) {
-                if (Double.longBitsToDouble(value) == 0) {
-                    throw PrimitiveFailed.andTransferToInterpreter();
-                }
-            }
-            for (int i = 0; i < longs1.length; i++) {
-                longs1[i] = Double.doubleToRawLongBits(Double.longBitsToDouble(longs1[i]) / Double.longBitsToDouble(longs2[i]));
+            if (FloatArrayKernels.containsZero(longs2)) {
+                throw PrimitiveFailed.andTransferToInterpreter();
             }
+            FloatArrayKernels.div(longs1, longs2);
             return receiver;
         }
 
@@ -125,10 +114,7 @@ public class Float64ArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isLongType()"})
         protected static final NativeObject doDiv(final NativeObject receiver, final double scalarValue) {
-            final long[] longs = receiver.getLongStorage();
-            for (int i = 0; i < longs.length; i++) {
-                longs[i] = Double.doubleToRawLongBits((float) (Double.longBitsToDouble(longs[i]) / scalarValue));
-            }
+            FloatArrayKernels.divScalar(receiver.getLongStorage(), scalarValue);
             return receiver;
         }
     }
@@ -139,13 +125,7 @@ public class Float64ArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isLongType()", "aFloatVector.isLongType()", "receiver.getLongLength() == aFloatVector.getLongLength()"})
         protected static final double doDot64bit(final NativeObject receiver, final NativeObject aFloatVector) {
-            final long[] longs1 = receiver.getLongStorage();
-            final long[] longs2 = aFloatVector.getLongStorage();
-            float result = 0;
-            for (int i = 0; i < longs1.length; i++) {
-                result += Double.longBitsToDouble(longs1[i]) * Double.longBitsToDouble(longs2[i]);
-            }
-            return result;
+            return FloatArrayKernels.dot(receiver.getLongStorage(), aFloatVector.getLongStorage());
         }
     }
 
@@ -177,7 +157,7 @@ public class Float64ArrayPlugin extends AbstractPrimitiveFactoryHolder {
             final long[] longs = receiver.getLongStorage();
             final int[] ints = other.getIntStorage();
             for (int i = 0; i < longs.length; i++) {
-                longs[i] = ints[i];
+                longs[i] = Double.doubleToRawLongBits(Float.intBitsToFloat(ints[i]));
             }
             return receiver;
         }
@@ -207,12 +187,7 @@ public class Float64ArrayPlugin extends AbstractPrimitiveFactoryHolder {
         @Specialization(guards = {"receiver.isLongType()", "floatArray.isLongType()",
                         "receiver.getLongLength() == floatArray.getLongLength()"})
         protected static final NativeObject doMul(final NativeObject receiver, final NativeObject floatArray) {
-            final long[] longs1 = receiver.getLongStorage();
-            final long[] longs2 = floatArray.getLongStorage();
-
-            for (int i = 0; i < longs1.length; i++) {
-                longs1[i] = Double.doubleToRawLongBits(Double.longBitsToDouble(longs1[i]) * Double.longBitsToDouble(longs2[i]));
-            }
+            FloatArrayKernels.mul(receiver.getLongStorage(), floatArray.getLongStorage());
             return receiver;
         }
 
@@ -224,20 +199,13 @@ public class Float64ArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isLongType()"})
         protected static final NativeObject doMul(final NativeObject receiver, final double scalarValue) {
-            final long[] longs = receiver.getLongStorage();
-            for (int i = 0; i < longs.length; i++) {
-                longs[i] = Double.doubleToRawLongBits(Double.longBitsToDouble(longs[i]) * (float) scalarValue);
-            }
+            FloatArrayKernels.mulScalar(receiver.getLongStorage(), scalarValue);
             return receiver;
         }
 
     }
 
-    @GenerateNodeFactory
-    @SqueakPrimitive(names = "primitiveNormalize") // TODO: implement primitive
-    public abstract static class PrimFloat64ArrayNormalizeNode extends AbstractPrimitiveNode {
-
-    }
+    // TODO: implement primitiveNormalize
 
     @GenerateNodeFactory
     @SqueakPrimitive(names = "primitiveSubFloat64Array")
@@ -245,12 +213,7 @@ public class Float64ArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isLongType()", "floatArray.isLongType()", "receiver.getLongLength() == floatArray.getLongLength()"})
         protected static final NativeObject doSub(final NativeObject receiver, final NativeObject floatArray) {
-            final long[] longs1 = receiver.getLongStorage();
-            final long[] longs2 = floatArray.getLongStorage();
-
-            for (int i = 0; i < longs1.length; i++) {
-                longs1[i] = Double.doubleToRawLongBits(Double.longBitsToDouble(longs1[i]) - Double.longBitsToDouble(longs2[i]));
-            }
+            FloatArrayKernels.sub(receiver.getLongStorage(), floatArray.getLongStorage());
             return receiver;
         }
 
@@ -262,10 +225,7 @@ public class Float64ArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isLongType()"})
         protected static final NativeObject doSub(final NativeObject receiver, final double scalarValue) {
-            final long[] longs = receiver.getLongStorage();
-            for (int i = 0; i < longs.length; i++) {
-                longs[i] = Double.doubleToRawLongBits(Double.longBitsToDouble(longs[i]) - (float) scalarValue);
-            }
+            FloatArrayKernels.subScalar(receiver.getLongStorage(), scalarValue);
             return receiver;
         }
     }
@@ -276,12 +236,7 @@ public class Float64ArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isLongType()"})
         protected static final double doSum(final NativeObject receiver) {
-            final long[] words = receiver.getLongStorage();
-            double sum = 0;
-            for (final long word : words) {
-                sum += Double.longBitsToDouble(word);
-            }
-            return sum;
+            return FloatArrayKernels.sum(receiver.getLongStorage());
         }
     }
 }
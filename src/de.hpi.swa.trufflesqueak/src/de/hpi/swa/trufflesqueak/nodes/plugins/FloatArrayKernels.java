@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2017-2021 Software Architecture Group, Hasso Plattner Institute
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.nodes.plugins;
+
+/**
+ * Loops of the {@link FloatArrayPlugin} and the {@link Float64ArrayPlugin}. They operate in place
+ * on the int and long storage of FloatArrays and Float64Arrays, which keep the raw bits of their
+ * elements. Element-wise loops are plain counted loops over the receiver (callers guarantee that
+ * both arrays have the same length), so compilers can hoist their bounds checks. The bit
+ * conversions are intrinsics that compile to register moves. Reductions accumulate in doubles and
+ * strictly in order, so that their results match those of the OpenSmalltalk VM plugins.
+ */
+public final class FloatArrayKernels {
+
+    private FloatArrayKernels() {
+    }
+
+    /*
+     * FloatArray (32-bit floats in int[] storage).
+     */
+
+    public static void add(final int[] receiver, final int[] argument) {
+        for (int i = 0; i < receiver.length; i++) {
+            receiver[i] = Float.floatToRawIntBits(Float.intBitsToFloat(receiver[i]) + Float.intBitsToFloat(argument[i]));
+        }
+    }
+
+    public static void addScalar(final int[] receiver, final float value) {
+        for (int i = 0; i < receiver.length; i++) {
+            receiver[i] = Float.floatToRawIntBits(Float.intBitsToFloat(receiver[i]) + value);
+        }
+    }
+
+    public static boolean containsZero(final int[] receiver) {
+        boolean containsZero = false;
+        for (int i = 0; i < receiver.length; i++) {
+            containsZero |= Float.intBitsToFloat(receiver[i]) == 0;
+        }
+        return containsZero;
+    }
+
+    public static void div(final int[] receiver, final int[] argument) {
+        for (int i = 0; i < receiver.length; i++) {
+            receiver[i] = Float.floatToRawIntBits(Float.intBitsToFloat(receiver[i]) / Float.intBitsToFloat(argument[i]));
+        }
+    }
+
+    public static void divScalar(final int[] receiver, final double value) {
+        for (int i = 0; i < receiver.length; i++) {
+            receiver[i] = Float.floatToRawIntBits((float) (Float.intBitsToFloat(receiver[i]) / value));
+        }
+    }
+
+    public static double dot(final int[] receiver, final int[] argument) {
+        double result = 0;
+        for (int i = 0; i < receiver.length; i++) {
+            result += Float.intBitsToFloat(receiver[i]) * Float.intBitsToFloat(argument[i]);
+        }
+        return result;
+    }
+
+    public static void mul(final int[] receiver, final int[] argument) {
+        for (int i = 0; i < receiver.length; i++) {
+            receiver[i] = Float.floatToRawIntBits(Float.intBitsToFloat(receiver[i]) * Float.intBitsToFloat(argument[i]));
+        }
+    }
+
+    public static void mulScalar(final int[] receiver, final float value) {
+        for (int i = 0; i < receiver.length; i++) {
+            receiver[i] = Float.floatToRawIntBits(Float.intBitsToFloat(receiver[i]) * value);
+        }
+    }
+
+    public static void sub(final int[] receiver, final int[] argument) {
+        for (int i = 0; i < receiver.length; i++) {
+            receiver[i] = Float.floatToRawIntBits(Float.intBitsToFloat(receiver[i]) - Float.intBitsToFloat(argument[i]));
+        }
+    }
+
+    public static void subScalar(final int[] receiver, final float value) {
+        for (int i = 0; i < receiver.length; i++) {
+            receiver[i] = Float.floatToRawIntBits(Float.intBitsToFloat(receiver[i]) - value);
+        }
+    }
+
+    public static double sum(final int[] receiver) {
+        double sum = 0;
+        for (int i = 0; i < receiver.length; i++) {
+            sum += Float.intBitsToFloat(receiver[i]);
+        }
+        return sum;
+    }
+
+    /*
+     * Float64Array (64-bit doubles in long[] storage).
+     */
+
+    public static void add(final long[] receiver, final long[] argument) {
+        for (int i = 0; i < receiver.length; i++) {
+            receiver[i] = Double.doubleToRawLongBits(Double.longBitsToDouble(receiver[i]) + Double.longBitsToDouble(argument[i]));
+        }
+    }
+
+    public static void addScalar(final long[] receiver, final double value) {
+        for (int i = 0; i < receiver.length; i++) {
+            receiver[i] = Double.doubleToRawLongBits(Double.longBitsToDouble(receiver[i]) + value);
+        }
+    }
+
+    public static boolean containsZero(final long[] receiver) {
+        boolean containsZero = false;
+        for (int i = 0; i < receiver.length; i++) {
+            containsZero |= Double.longBitsToDouble(receiver[i]) == 0;
+        }
+        return containsZero;
+    }
+
+    public static void div(final long[] receiver, final long[] argument) {
+        for (int i = 0; i < receiver.length; i++) {
+            receiver[i] = Double.doubleToRawLongBits(Double.longBitsToDouble(receiver[i]) / Double.longBitsToDouble(argument[i]));
+        }
+    }
+
+    public static void divScalar(final long[] receiver, final double value) {
+        for (int i = 0; i < receiver.length; i++) {
+            receiver[i] = Double.doubleToRawLongBits(Double.longBitsToDouble(receiver[i]) / value);
+        }
+    }
+
+    public static double dot(final long[] receiver, final long[] argument) {
+        double result = 0;
+        for (int i = 0; i < receiver.length; i++) {
+            result += Double.longBitsToDouble(receiver[i]) * Double.longBitsToDouble(argument[i]);
+        }
+        return result;
+    }
+
+    public static void mul(final long[] receiver, final long[] argument) {
+        for (int i = 0; i < receiver.length; i++) {
+            receiver[i] = Double.doubleToRawLongBits(Double.longBitsToDouble(receiver[i]) * Double.longBitsToDouble(argument[i]));
+        }
+    }
+
+    public static void mulScalar(final long[] receiver, final double value) {
+        for (int i = 0; i < receiver.length; i++) {
+            receiver[i] = Double.doubleToRawLongBits(Double.longBitsToDouble(receiver[i]) * value);
+        }
+    }
+
+    public static void sub(final long[] receiver, final long[] argument) {
+        for (int i = 0; i < receiver.length; i++) {
+            receiver[i] = Double.doubleToRawLongBits(Double.longBitsToDouble(receiver[i]) - Double.longBitsToDouble(argument[i]));
+        }
+    }
+
+    public static void subScalar(final long[] receiver, final double value) {
+        for (int i = 0; i < receiver.length; i++) {
+            receiver[i] = Double.doubleToRawLongBits(Double.longBitsToDouble(receiver[i]) - value);
+        }
+    }
+
+    public static double sum(final long[] receiver) {
+        double sum = 0;
+        for (int i = 0; i < receiver.length; i++) {
+            sum += Double.longBitsToDouble(receiver[i]);
+        }
+        return sum;
+    }
+}
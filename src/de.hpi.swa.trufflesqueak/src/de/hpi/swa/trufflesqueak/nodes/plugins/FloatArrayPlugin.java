@@ -41,11 +41,7 @@ public class FloatArrayPlugin extends AbstractPrimitiveFactoryHolder {
         @Specialization(guards = {"receiver.isIntType()", "floatArray.isIntType()",
                         "receiver.getIntLength() == floatArray.getIntLength()"})
         protected static final NativeObject doAdd(final NativeObject receiver, final NativeObject floatArray) {
-            final int[] ints1 = receiver.getIntStorage();
-            final int[] ints2 = floatArray.getIntStorage();
-            for (int i = 0; i < ints1.length; i++) {
-                ints1[i] = Float.floatToRawIntBits(Float.intBitsToFloat(ints1[i]) + Float.intBitsToFloat(ints2[i]));
-            }
+            FloatArrayKernels.add(receiver.getIntStorage(), floatArray.getIntStorage());
             return receiver;
         }
 
@@ -57,10 +53,7 @@ public class FloatArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isIntType()"})
         protected static final NativeObject doAdd(final NativeObject receiver, final double scalarValue) {
-            final int[] ints = receiver.getIntStorage();
-            for (int i = 0; i < ints.length; i++) {
-                ints[i] = Float.floatToRawIntBits(Float.intBitsToFloat(ints[i]) + (float) scalarValue);
-            }
+            FloatArrayKernels.addScalar(receiver.getIntStorage(), (float) scalarValue);
             return receiver;
         }
 
@@ -108,14 +101,10 @@ public class FloatArrayPlugin extends AbstractPrimitiveFactoryHolder {
             final int[] ints1 = receiver.getIntStorage();
             final int[] ints2 = floatArray.getIntStorage();
             /* "Check if any of the argument's values is zero". */
-            for (final int value : ints2) {
-                if (Float.intBitsToFloat(value) == 0) {
-                    throw PrimitiveFailed.andTransferToInterpreter();
-                }
-            }
-            for (int i = 0; i < ints1.length; i++) {
-                ints1[i] = Float.floatToRawIntBits(Float.intBitsToFloat(ints1[i]) / Float.intBitsToFloat(ints2[i]));
+            if (FloatArrayKernels.containsZero(ints2)) {
+                throw PrimitiveFailed.andTransferToInterpreter();
             }
+            FloatArrayKernels.div(ints1, ints2);
             return receiver;
         }
 
@@ -127,10 +116,7 @@ public class FloatArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isIntType()"})
         protected static final NativeObject doDiv(final NativeObject receiver, final double scalarValue) {
-            final int[] ints = receiver.getIntStorage();
-            for (int i = 0; i < ints.length; i++) {
-                ints[i] = Float.floatToRawIntBits((float) (Float.intBitsToFloat(ints[i]) / scalarValue));
-            }
+            FloatArrayKernels.divScalar(receiver.getIntStorage(), scalarValue);
             return receiver;
         }
     }
@@ -141,13 +127,7 @@ public class FloatArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isIntType()", "aFloatVector.isIntType()", "receiver.getIntLength() == aFloatVector.getIntLength()"})
         protected static final double doDot64bit(final NativeObject receiver, final NativeObject aFloatVector) {
-            final int[] ints1 = receiver.getIntStorage();
-            final int[] ints2 = aFloatVector.getIntStorage();
-            float result = 0;
-            for (int i = 0; i < ints1.length; i++) {
-                result += Float.intBitsToFloat(ints1[i]) * Float.intBitsToFloat(ints2[i]);
-            }
-            return result;
+            return FloatArrayKernels.dot(receiver.getIntStorage(), aFloatVector.getIntStorage());
         }
     }
 
@@ -194,12 +174,7 @@ public class FloatArrayPlugin extends AbstractPrimitiveFactoryHolder {
         @Specialization(guards = {"receiver.isIntType()", "floatArray.isIntType()",
                         "receiver.getIntLength() == floatArray.getIntLength()"})
         protected static final NativeObject doMul(final NativeObject receiver, final NativeObject floatArray) {
-            final int[] ints1 = receiver.getIntStorage();
-            final int[] ints2 = floatArray.getIntStorage();
-
-            for (int i = 0; i < ints1.length; i++) {
-                ints1[i] = Float.floatToRawIntBits(Float.intBitsToFloat(ints1[i]) * Float.intBitsToFloat(ints2[i]));
-            }
+            FloatArrayKernels.mul(receiver.getIntStorage(), floatArray.getIntStorage());
             return receiver;
         }
 
@@ -211,10 +186,7 @@ public class FloatArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isIntType()"})
         protected static final NativeObject doMul(final NativeObject receiver, final double scalarValue) {
-            final int[] ints = receiver.getIntStorage();
-            for (int i = 0; i < ints.length; i++) {
-                ints[i] = Float.floatToRawIntBits(Float.intBitsToFloat(ints[i]) * (float) scalarValue);
-            }
+            FloatArrayKernels.mulScalar(receiver.getIntStorage(), (float) scalarValue);
             return receiver;
         }
 
@@ -229,12 +201,7 @@ public class FloatArrayPlugin extends AbstractPrimitiveFactoryHolder {
         @Specialization(guards = {"receiver.isIntType()", "floatArray.isIntType()",
                         "receiver.getIntLength() == floatArray.getIntLength()"})
         protected static final NativeObject doSub(final NativeObject receiver, final NativeObject floatArray) {
-            final int[] ints1 = receiver.getIntStorage();
-            final int[] ints2 = floatArray.getIntStorage();
-
-            for (int i = 0; i < ints1.length; i++) {
-                ints1[i] = Float.floatToRawIntBits(Float.intBitsToFloat(ints1[i]) - Float.intBitsToFloat(ints2[i]));
-            }
+            FloatArrayKernels.sub(receiver.getIntStorage(), floatArray.getIntStorage());
             return receiver;
         }
 
@@ -246,10 +213,7 @@ public class FloatArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isIntType()"})
         protected static final NativeObject doSub(final NativeObject receiver, final double scalarValue) {
-            final int[] ints = receiver.getIntStorage();
-            for (int i = 0; i < ints.length; i++) {
-                ints[i] = Float.floatToRawIntBits(Float.intBitsToFloat(ints[i]) - (float) scalarValue);
-            }
+            FloatArrayKernels.subScalar(receiver.getIntStorage(), (float) scalarValue);
             return receiver;
         }
     }
@@ -260,12 +224,7 @@ public class FloatArrayPlugin extends AbstractPrimitiveFactoryHolder {
 
         @Specialization(guards = {"receiver.isIntType()"})
         protected static final double doSum(final NativeObject receiver) {
-            final int[] words = receiver.getIntStorage();
-            double sum = 0;
-            for (final int word : words) {
-                sum += Float.intBitsToFloat(word);
-            }
-            return sum;
+            return FloatArrayKernels.sum(receiver.getIntStorage());
         }
     }
 }
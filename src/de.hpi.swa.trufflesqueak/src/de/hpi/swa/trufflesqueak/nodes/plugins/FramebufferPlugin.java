@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2017-2021 Software Architecture Group, Hasso Plattner Institute
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.nodes.plugins;
+
+import java.awt.Rectangle;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.util.List;
+import java.util.logging.Level;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.CachedContext;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.NodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+
+import de.hpi.swa.trufflesqueak.SqueakLanguage;
+import de.hpi.swa.trufflesqueak.exceptions.PrimitiveExceptions.PrimitiveFailed;
+import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
+import de.hpi.swa.trufflesqueak.io.SqueakDisplayInterface;
+import de.hpi.swa.trufflesqueak.io.SqueakFramebufferDisplay;
+import de.hpi.swa.trufflesqueak.model.NilObject;
+import de.hpi.swa.trufflesqueak.model.PointersObject;
+import de.hpi.swa.trufflesqueak.nodes.plugins.FilePlugin.AbstractFilePluginPrimitiveNode;
+import de.hpi.swa.trufflesqueak.nodes.primitives.AbstractPrimitiveFactoryHolder;
+import de.hpi.swa.trufflesqueak.nodes.primitives.AbstractPrimitiveNode;
+import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveFallbacks.BinaryPrimitiveFallback;
+import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveFallbacks.UnaryPrimitiveFallback;
+import de.hpi.swa.trufflesqueak.nodes.primitives.SqueakPrimitive;
+import de.hpi.swa.trufflesqueak.util.LogUtils;
+
+/**
+ * Access to the in-memory framebuffer used with `--headless --smalltalk.framebuffer`. Frames are
+ * written to file handles of the {@link FilePlugin} (which may refer to named pipes) or to stdout.
+ */
+public final class FramebufferPlugin extends AbstractPrimitiveFactoryHolder {
+
+    @Override
+    public List<? extends NodeFactory<? extends AbstractPrimitiveNode>> getFactories() {
+        return FramebufferPluginFactory.getFactories();
+    }
+
+    private static SqueakFramebufferDisplay getFramebufferOrPrimFail(final SqueakImageContext image) {
+        final SqueakDisplayInterface display = image.getDisplay();
+        if (display instanceof SqueakFramebufferDisplay && display.isVisible()) {
+            return (SqueakFramebufferDisplay) display;
+        } else {
+            throw PrimitiveFailed.andTransferToInterpreter();
+        }
+    }
+
+    private static void writePNG(final SqueakImageContext image, final OutputStream out) {
+        try {
+            final BufferedOutputStream bufferedOut = new BufferedOutputStream(out);
+            getFramebufferOrPrimFail(image).writePNG(bufferedOut);
+            bufferedOut.flush(); /* Do not close, the handle stays open. */
+        } catch (final IOException e) {
+            LogUtils.IO.log(Level.FINE, "Failed to write PNG frame", e);
+            throw PrimitiveFailed.GENERIC_ERROR;
+        }
+    }
+
+    private static void writeRGBA(final SqueakImageContext image, final OutputStream out) {
+        try {
+            getFramebufferOrPrimFail(image).writeRGBA(Channels.newChannel(out));
+            out.flush();
+        } catch (final IOException e) {
+            LogUtils.IO.log(Level.FINE, "Failed to write RGBA frame", e);
+            throw PrimitiveFailed.GENERIC_ERROR;
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveFramebufferDamage")
+    protected abstract static class PrimFramebufferDamageNode extends AbstractPrimitiveNode implements UnaryPrimitiveFallback {
+        @Specialization
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final Object doDamage(@SuppressWarnings("unused") final Object receiver,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            final Rectangle damage = getFramebufferOrPrimFail(image).takeDamage();
+            if (damage == null) {
+                return NilObject.SINGLETON;
+            } else {
+                return image.asArrayOfLongs(damage.x, damage.y, damage.x + damage.width, damage.y + damage.height);
+            }
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveFramebufferWritePNG")
+    protected abstract static class PrimFramebufferWritePNGNode extends AbstractFilePluginPrimitiveNode implements BinaryPrimitiveFallback {
+        @Specialization(guards = "!isStdioFileDescriptor(fd)")
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final Object doWrite(final Object receiver, final PointersObject fd,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            writePNG(image, Channels.newOutputStream(getChannelOrPrimFail(fd)));
+            return receiver;
+        }
+
+        @Specialization(guards = "isStdoutFileDescriptor(fd)")
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final Object doWriteStdout(final Object receiver, @SuppressWarnings("unused") final PointersObject fd,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            writePNG(image, image.stdio.getOut());
+            return receiver;
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveFramebufferWriteRGBA")
+    protected abstract static class PrimFramebufferWriteRGBANode extends AbstractFilePluginPrimitiveNode implements BinaryPrimitiveFallback {
+        @Specialization(guards = "!isStdioFileDescriptor(fd)")
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final Object doWrite(final Object receiver, final PointersObject fd,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            try {
+                getFramebufferOrPrimFail(image).writeRGBA(getChannelOrPrimFail(fd));
+            } catch (final IOException e) {
+                LogUtils.IO.log(Level.FINE, "Failed to write RGBA frame", e);
+                throw PrimitiveFailed.GENERIC_ERROR;
+            }
+            return receiver;
+        }
+
+        @Specialization(guards = "isStdoutFileDescriptor(fd)")
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final Object doWriteStdout(final Object receiver, @SuppressWarnings("unused") final PointersObject fd,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            writeRGBA(image, image.stdio.getOut());
+            return receiver;
+        }
+    }
+}
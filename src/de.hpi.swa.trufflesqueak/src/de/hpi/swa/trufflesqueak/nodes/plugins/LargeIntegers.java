@@ -12,6 +12,7 @@ import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.CachedContext;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.ImportStatic;
 import com.oracle.truffle.api.dsl.NodeFactory;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.profiles.BranchProfile;
@@ -483,6 +484,31 @@ public final class LargeIntegers extends AbstractPrimitiveFactoryHolder {
         }
     }
 
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primGCD")
+    @ImportStatic(Long.class)
+    protected abstract static class PrimGCDNode extends AbstractArithmeticPrimitiveNode implements BinaryPrimitiveFallback {
+        /* Long.MIN_VALUE has no positive counterpart and is left to the generic case. */
+        @Specialization(guards = {"receiver != MIN_VALUE", "other != MIN_VALUE"})
+        protected static final long doLong(final long receiver, final long other) {
+            long a = Math.abs(receiver);
+            long b = Math.abs(other);
+            while (b != 0) {
+                final long remainder = a % b;
+                a = b;
+                b = remainder;
+            }
+            return a;
+        }
+
+        @Specialization(guards = {"isIntegerObject(receiver)", "isIntegerObject(other)"})
+        @TruffleBoundary
+        protected static final Object doInteger(final Object receiver, final Object other,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            return LargeIntegerObject.reduceIfPossible(image, toBigInteger(receiver).gcd(toBigInteger(other)));
+        }
+    }
+
     @GenerateNodeFactory
     @SqueakPrimitive(names = "primGetModuleName")
     protected abstract static class PrimGetModuleNameNode extends AbstractArithmeticPrimitiveNode {
@@ -493,6 +519,49 @@ public final class LargeIntegers extends AbstractPrimitiveFactoryHolder {
         }
     }
 
+    /*
+     * BigInteger multiplies with Karatsuba or Toom-Cook 3 for large operands and exponentiates with
+     * Montgomery multiplication and sliding windows, so these only need to avoid the bytecode loops.
+     */
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primModInverse")
+    protected abstract static class PrimModInverseNode extends AbstractArithmeticPrimitiveNode implements BinaryPrimitiveFallback {
+        @Specialization(guards = {"isIntegerObject(receiver)", "isIntegerObject(modulus)"})
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final Object doInteger(final Object receiver, final Object modulus,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            final BigInteger m = toBigInteger(modulus);
+            if (m.signum() <= 0) {
+                throw PrimitiveFailed.BAD_ARGUMENT;
+            }
+            try {
+                return LargeIntegerObject.reduceIfPossible(image, toBigInteger(receiver).modInverse(m));
+            } catch (final ArithmeticException e) {
+                throw PrimitiveFailed.BAD_ARGUMENT; /* Not invertible. */
+            }
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primModPow")
+    protected abstract static class PrimModPowNode extends AbstractArithmeticPrimitiveNode implements TernaryPrimitiveFallback {
+        @Specialization(guards = {"isIntegerObject(receiver)", "isIntegerObject(exponent)", "isIntegerObject(modulus)"})
+        @TruffleBoundary(transferToInterpreterOnException = false)
+        protected static final Object doInteger(final Object receiver, final Object exponent, final Object modulus,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            final BigInteger m = toBigInteger(modulus);
+            if (m.signum() <= 0) {
+                throw PrimitiveFailed.BAD_ARGUMENT;
+            }
+            try {
+                return LargeIntegerObject.reduceIfPossible(image, toBigInteger(receiver).modPow(toBigInteger(exponent), m));
+            } catch (final ArithmeticException e) {
+                throw PrimitiveFailed.BAD_ARGUMENT; /* Negative exponent, but not invertible. */
+            }
+        }
+    }
+
     @GenerateNodeFactory
     @SqueakPrimitive(names = "primMontgomeryDigitLength")
     protected abstract static class PrimMontgomeryDigitLengthNode extends AbstractArithmeticPrimitiveNode {
@@ -703,6 +772,18 @@ public final class LargeIntegers extends AbstractPrimitiveFactoryHolder {
         }
     }
 
+    protected static final boolean isIntegerObject(final Object object) {
+        return object instanceof Long || object instanceof LargeIntegerObject;
+    }
+
+    private static BigInteger toBigInteger(final Object integer) {
+        if (integer instanceof Long) {
+            return BigInteger.valueOf((long) integer);
+        } else {
+            return ((LargeIntegerObject) integer).getBigInteger();
+        }
+    }
+
     @Override
     public List<? extends NodeFactory<? extends AbstractPrimitiveNode>> getFactories() {
         return LargeIntegersFactory.getFactories();
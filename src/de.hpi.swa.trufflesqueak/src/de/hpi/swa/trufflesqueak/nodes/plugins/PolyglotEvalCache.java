@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2017-2021 Software Architecture Group, Hasso Plattner Institute
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.nodes.plugins;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import com.oracle.truffle.api.CallTarget;
+
+/**
+ * Bounded LRU cache of call targets parsed by primitiveEvalString and primitiveEvalFile. Snippets
+ * are keyed by their language and source text, files by their language, path, and modification
+ * time, so that edited files are parsed again.
+ */
+public final class PolyglotEvalCache {
+    private static final int MAX_ENTRIES = 64;
+
+    private final LinkedHashMap<Key, CallTarget> callTargets = new LinkedHashMap<Key, CallTarget>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Key, CallTarget> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private static final class Key {
+        private final String languageIdOrMimeType;
+        private final String sourceTextOrPath;
+        private final long lastModified;
+
+        private Key(final String languageIdOrMimeType, final String sourceTextOrPath, final long lastModified) {
+            this.languageIdOrMimeType = languageIdOrMimeType;
+            this.sourceTextOrPath = sourceTextOrPath;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return lastModified == other.lastModified && languageIdOrMimeType.equals(other.languageIdOrMimeType) && sourceTextOrPath.equals(other.sourceTextOrPath);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(languageIdOrMimeType, sourceTextOrPath, lastModified);
+        }
+    }
+
+    public synchronized CallTarget getString(final String languageIdOrMimeType, final String sourceText) {
+        return callTargets.get(new Key(languageIdOrMimeType, sourceText, -1));
+    }
+
+    public synchronized void putString(final String languageIdOrMimeType, final String sourceText, final CallTarget callTarget) {
+        callTargets.put(new Key(languageIdOrMimeType, sourceText, -1), callTarget);
+    }
+
+    public synchronized CallTarget getFile(final String languageIdOrMimeType, final String path, final long lastModified) {
+        return callTargets.get(new Key(languageIdOrMimeType, path, lastModified));
+    }
+
+    public synchronized void putFile(final String languageIdOrMimeType, final String path, final long lastModified, final CallTarget callTarget) {
+        callTargets.put(new Key(languageIdOrMimeType, path, lastModified), callTarget);
+    }
+
+    public synchronized void clear() {
+        callTargets.clear();
+    }
+}
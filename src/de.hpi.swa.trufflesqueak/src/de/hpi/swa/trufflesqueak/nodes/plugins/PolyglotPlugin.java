@@ -6,14 +6,18 @@
 package de.hpi.swa.trufflesqueak.nodes.plugins;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
+import com.oracle.truffle.api.CallTarget;
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.TruffleContext;
+import com.oracle.truffle.api.TruffleFile;
 import com.oracle.truffle.api.TruffleLanguage;
 import com.oracle.truffle.api.TruffleLanguage.Env;
 import com.oracle.truffle.api.dsl.Cached;
@@ -33,6 +37,7 @@ import com.oracle.truffle.api.interop.UnknownKeyException;
 import com.oracle.truffle.api.interop.UnsupportedMessageException;
 import com.oracle.truffle.api.interop.UnsupportedTypeException;
 import com.oracle.truffle.api.library.CachedLibrary;
+import com.oracle.truffle.api.nodes.DirectCallNode;
 import com.oracle.truffle.api.nodes.LanguageInfo;
 import com.oracle.truffle.api.nodes.NodeCost;
 import com.oracle.truffle.api.nodes.NodeInfo;
@@ -60,6 +65,7 @@ import de.hpi.swa.trufflesqueak.nodes.primitives.AbstractPrimitiveFactoryHolder;
 import de.hpi.swa.trufflesqueak.nodes.primitives.AbstractPrimitiveNode;
 import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveFallbacks.BinaryPrimitiveFallback;
 import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveFallbacks.QuaternaryPrimitiveFallback;
+import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveFallbacks.SenaryPrimitiveFallback;
 import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveFallbacks.TernaryPrimitiveFallback;
 import de.hpi.swa.trufflesqueak.nodes.primitives.PrimitiveFallbacks.UnaryPrimitiveFallback;
 import de.hpi.swa.trufflesqueak.nodes.primitives.SqueakPrimitive;
@@ -114,8 +120,25 @@ public final class PolyglotPlugin extends AbstractPrimitiveFactoryHolder {
     @GenerateNodeFactory
     @SqueakPrimitive(names = "primitiveEvalString")
     protected abstract static class PrimEvalStringNode extends AbstractPrimitiveNode implements QuaternaryPrimitiveFallback {
+        protected static final int CACHE_LIMIT = 2;
+
+        @Specialization(guards = {"!inInnerContext", "languageIdOrMimeTypeObj.isByteType()", "sourceObject.isByteType()",
+                        "equals(languageIdOrMimeTypeObj.getByteStorage(), cachedLanguageIdOrMimeType)", "equals(sourceObject.getByteStorage(), cachedSource)"}, limit = "CACHE_LIMIT")
+        protected static final Object doEvalCached(@SuppressWarnings("unused") final Object receiver, @SuppressWarnings("unused") final NativeObject languageIdOrMimeTypeObj,
+                        @SuppressWarnings("unused") final NativeObject sourceObject, @SuppressWarnings("unused") final boolean inInnerContext,
+                        @SuppressWarnings("unused") @Cached(value = "languageIdOrMimeTypeObj.getByteStorage().clone()", dimensions = 1) final byte[] cachedLanguageIdOrMimeType,
+                        @SuppressWarnings("unused") @Cached(value = "sourceObject.getByteStorage().clone()", dimensions = 1) final byte[] cachedSource,
+                        @Cached("create(parseString(languageIdOrMimeTypeObj, sourceObject))") final DirectCallNode callNode,
+                        @Cached final WrapToSqueakNode wrapNode) {
+            try {
+                return wrapNode.executeWrap(callNode.call());
+            } catch (final RuntimeException e) {
+                throw primitiveFailedInInterpreterCapturing(e);
+            }
+        }
+
         @TruffleBoundary(transferToInterpreterOnException = false)
-        @Specialization(guards = {"!inInnerContext", "languageIdOrMimeTypeObj.isByteType()", "sourceObject.isByteType()"})
+        @Specialization(guards = {"!inInnerContext", "languageIdOrMimeTypeObj.isByteType()", "sourceObject.isByteType()"}, replaces = "doEvalCached")
         protected static final Object doEval(@SuppressWarnings("unused") final Object receiver, final NativeObject languageIdOrMimeTypeObj, final NativeObject sourceObject,
                         @SuppressWarnings("unused") final boolean inInnerContext,
                         @Cached final WrapToSqueakNode wrapNode,
@@ -139,10 +162,22 @@ public final class PolyglotPlugin extends AbstractPrimitiveFactoryHolder {
             }
         }
 
-        private static Object evalString(final SqueakImageContext image, final NativeObject languageIdOrMimeTypeObj, final NativeObject sourceObject) {
-            final String languageIdOrMimeType = languageIdOrMimeTypeObj.asStringUnsafe();
-            final String sourceText = sourceObject.asStringUnsafe();
+        protected static final boolean equals(final byte[] bytes, final byte[] cachedBytes) {
+            return Arrays.equals(bytes, cachedBytes);
+        }
+
+        @TruffleBoundary
+        protected static final CallTarget parseString(final NativeObject languageIdOrMimeTypeObj, final NativeObject sourceObject) {
             try {
+                return parseString(SqueakLanguage.getContext(), languageIdOrMimeTypeObj.asStringUnsafe(), sourceObject.asStringUnsafe());
+            } catch (final RuntimeException e) {
+                throw primitiveFailedInInterpreterCapturing(e);
+            }
+        }
+
+        private static CallTarget parseString(final SqueakImageContext image, final String languageIdOrMimeType, final String sourceText) {
+            CallTarget callTarget = image.polyglotEvalCache.getString(languageIdOrMimeType, sourceText);
+            if (callTarget == null) {
                 final boolean mimeType = isMimeType(languageIdOrMimeType);
                 final String lang = mimeType ? findLanguageByMimeType(image.env, languageIdOrMimeType) : languageIdOrMimeType;
                 LiteralBuilder newBuilder = Source.newBuilder(lang, sourceText, EVAL_SOURCE_NAME);
@@ -150,7 +185,15 @@ public final class PolyglotPlugin extends AbstractPrimitiveFactoryHolder {
                     newBuilder = newBuilder.mimeType(languageIdOrMimeType);
                 }
                 final Source source = newBuilder.build();
-                return image.env.parsePublic(source).call();
+                callTarget = image.env.parsePublic(source);
+                image.polyglotEvalCache.putString(languageIdOrMimeType, sourceText, callTarget);
+            }
+            return callTarget;
+        }
+
+        private static Object evalString(final SqueakImageContext image, final NativeObject languageIdOrMimeTypeObj, final NativeObject sourceObject) {
+            try {
+                return parseString(image, languageIdOrMimeTypeObj.asStringUnsafe(), sourceObject.asStringUnsafe()).call();
             } catch (final RuntimeException e) {
                 throw primitiveFailedInInterpreterCapturing(e);
             }
@@ -190,13 +233,20 @@ public final class PolyglotPlugin extends AbstractPrimitiveFactoryHolder {
             final String languageIdOrMimeType = languageIdOrMimeTypeObj.asStringUnsafe();
             final String pathString = path.asStringUnsafe();
             try {
-                final boolean mimeType = isMimeType(languageIdOrMimeType);
-                final String lang = mimeType ? findLanguageByMimeType(image.env, languageIdOrMimeType) : languageIdOrMimeType;
-                SourceBuilder newBuilder = Source.newBuilder(lang, image.env.getPublicTruffleFile(pathString));
-                if (mimeType) {
-                    newBuilder = newBuilder.mimeType(languageIdOrMimeType);
+                final TruffleFile file = image.env.getPublicTruffleFile(pathString);
+                final long lastModified = file.getLastModifiedTime().toMillis();
+                CallTarget callTarget = image.polyglotEvalCache.getFile(languageIdOrMimeType, pathString, lastModified);
+                if (callTarget == null) {
+                    final boolean mimeType = isMimeType(languageIdOrMimeType);
+                    final String lang = mimeType ? findLanguageByMimeType(image.env, languageIdOrMimeType) : languageIdOrMimeType;
+                    SourceBuilder newBuilder = Source.newBuilder(lang, file);
+                    if (mimeType) {
+                        newBuilder = newBuilder.mimeType(languageIdOrMimeType);
+                    }
+                    callTarget = image.env.parsePublic(newBuilder.name(pathString).build());
+                    image.polyglotEvalCache.putFile(languageIdOrMimeType, pathString, lastModified, callTarget);
                 }
-                return image.env.parsePublic(newBuilder.name(pathString).build()).call();
+                return callTarget.call();
             } catch (IOException | RuntimeException e) {
                 throw primitiveFailedInInterpreterCapturing(e);
             }
@@ -1318,6 +1368,64 @@ public final class PolyglotPlugin extends AbstractPrimitiveFactoryHolder {
         }
     }
 
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveBufferAsByteArray")
+    protected abstract static class PrimBufferAsByteArrayNode extends AbstractPrimitiveNode implements BinaryPrimitiveFallback {
+        /* Shares the backing array of host byte arrays and heap byte buffers without copying. */
+        @Specialization(guards = "isHostByteArray(image, object)")
+        protected static final NativeObject doBufferAsByteArray(@SuppressWarnings("unused") final Object receiver, final Object object,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            return NativeObject.newNativeBytes(image, image.byteArrayClass, getHostByteArray(image, object));
+        }
+
+        protected static final boolean isHostByteArray(final SqueakImageContext image, final Object object) {
+            return getHostByteArray(image, object) != null;
+        }
+
+        @TruffleBoundary
+        private static byte[] getHostByteArray(final SqueakImageContext image, final Object object) {
+            if (!image.env.isHostObject(object)) {
+                return null;
+            }
+            final Object hostObject = image.env.asHostObject(object);
+            if (hostObject instanceof byte[]) {
+                return (byte[]) hostObject;
+            } else if (hostObject instanceof ByteBuffer) {
+                final ByteBuffer buffer = (ByteBuffer) hostObject;
+                if (buffer.hasArray() && !buffer.isReadOnly() && buffer.arrayOffset() == 0 && buffer.capacity() == buffer.array().length) {
+                    return buffer.array();
+                }
+            }
+            return null;
+        }
+    }
+
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveReadBufferInto")
+    protected abstract static class PrimReadBufferIntoNode extends AbstractPrimitiveNode implements SenaryPrimitiveFallback {
+        /* Copies count bytes into a byte object, reading eight bytes per message where possible. */
+        @Specialization(guards = {"lib.hasBufferElements(object)", "target.isByteType()", "byteOffset >= 0", "startIndex >= 1", "count >= 0",
+                        "startIndex - 1 + count <= target.getByteLength()"})
+        protected static final NativeObject doReadBufferInto(@SuppressWarnings("unused") final Object receiver, final Object object, final long byteOffset, final NativeObject target,
+                        final long startIndex, final long count,
+                        @CachedLibrary(limit = "2") final InteropLibrary lib) {
+            final byte[] bytes = target.getByteStorage();
+            final int start = (int) startIndex - 1;
+            int i = 0;
+            try {
+                for (; i + Long.BYTES <= count; i += Long.BYTES) {
+                    UnsafeUtils.putLongIntoBytes(bytes, start + i, lib.readBufferLong(object, ByteOrder.nativeOrder(), byteOffset + i));
+                }
+                for (; i < count; i++) {
+                    UnsafeUtils.putByte(bytes, start + i, lib.readBufferByte(object, byteOffset + i));
+                }
+            } catch (final UnsupportedMessageException | InvalidBufferOffsetException e) {
+                throw primitiveFailedInInterpreterCapturing(e);
+            }
+            return target;
+        }
+    }
+
     /*
      * Time/Date-related objects
      */
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2017-2021 Software Architecture Group, Hasso Plattner Institute
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.nodes.plugins;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import de.hpi.swa.trufflesqueak.image.SqueakImageContext;
+import de.hpi.swa.trufflesqueak.util.LogUtils;
+
+/**
+ * Stdio streams of the {@link FilePlugin}. Stdin is read by a background thread into a buffer, so
+ * that the image can poll it and wait on a semaphore instead of blocking the interpreter. Writes to
+ * stdout and stderr are batched and reach the underlying streams on explicit flushes, when the
+ * buffer is full, or at the latest after {@link #FLUSH_INTERVAL_MILLISECONDS}.
+ */
+public final class StdioChannels {
+    private static final String STDIN_THREAD_NAME = "TruffleSqueakStdinReader";
+    private static final String FLUSH_THREAD_NAME = "TruffleSqueakStdioFlusher";
+    private static final int INPUT_BUFFER_SIZE = 64 * 1024;
+    private static final int OUTPUT_BUFFER_SIZE = 16 * 1024;
+    private static final int FLUSH_INTERVAL_MILLISECONDS = 50;
+
+    private final SqueakImageContext image;
+
+    /* Stdin ring buffer, guarded by inputLock. */
+    private final Object inputLock = new Object();
+    private final byte[] inputBuffer = new byte[INPUT_BUFFER_SIZE];
+    private int inputStart;
+    private int inputSize;
+    private boolean inputAtEnd;
+    private int inputSemaphoreIndex = -1;
+    private Thread inputThread;
+
+    private BatchedOutputStream out;
+    private BatchedOutputStream err;
+    private ScheduledExecutorService flushExecutor;
+
+    /** Tracks whether there are unflushed bytes, so that the flusher only flushes when needed. */
+    private static final class BatchedOutputStream extends BufferedOutputStream {
+        private volatile boolean isDirty;
+
+        private BatchedOutputStream(final OutputStream out) {
+            super(out, OUTPUT_BUFFER_SIZE);
+        }
+
+        @Override
+        public synchronized void write(final int b) throws IOException {
+            super.write(b);
+            isDirty = true;
+        }
+
+        @Override
+        public synchronized void write(final byte[] b, final int off, final int len) throws IOException {
+            super.write(b, off, len);
+            isDirty = true;
+        }
+
+        @Override
+        public synchronized void flush() throws IOException {
+            isDirty = false;
+            super.flush();
+        }
+
+        private void flushIfDirty() throws IOException {
+            if (isDirty) {
+                flush();
+            }
+        }
+    }
+
+    public StdioChannels(final SqueakImageContext image) {
+        this.image = image;
+    }
+
+    /*
+     * Stdin
+     */
+
+    /**
+     * Registers the semaphore to signal whenever stdin data becomes available (or the end of stdin
+     * is reached). Once a semaphore is registered, {@link #read} no longer blocks.
+     */
+    public void setInputSemaphoreIndex(final int semaphoreIndex) {
+        synchronized (inputLock) {
+            inputSemaphoreIndex = semaphoreIndex;
+            ensureInputThread();
+            if (inputSize > 0 || inputAtEnd) {
+                signal(semaphoreIndex);
+            }
+        }
+    }
+
+    /**
+     * Reads up to length bytes of buffered stdin data. Without an input semaphore, this blocks until
+     * data is available, matching the behavior of the OpenSmalltalkVM. Returns zero when no data is
+     * available (or at the end of stdin).
+     */
+    public int read(final byte[] target, final int offset, final int length) throws IOException {
+        flush(); /* Make prompts visible before waiting for input. */
+        synchronized (inputLock) {
+            ensureInputThread();
+            while (inputSize == 0 && !inputAtEnd && inputSemaphoreIndex <= 0) {
+                try {
+                    inputLock.wait();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return 0;
+                }
+            }
+            final int count = Math.min(length, inputSize);
+            final int firstPart = Math.min(count, INPUT_BUFFER_SIZE - inputStart);
+            System.arraycopy(inputBuffer, inputStart, target, offset, firstPart);
+            System.arraycopy(inputBuffer, 0, target, offset + firstPart, count - firstPart);
+            inputStart = (inputStart + count) % INPUT_BUFFER_SIZE;
+            inputSize -= count;
+            inputLock.notifyAll(); /* Wake up the reader if it waits for space. */
+            return count;
+        }
+    }
+
+    public boolean isInputAtEnd() {
+        synchronized (inputLock) {
+            return inputSize == 0 && inputAtEnd;
+        }
+    }
+
+    private void ensureInputThread() {
+        assert Thread.holdsLock(inputLock);
+        if (inputThread == null) {
+            inputThread = new Thread(() -> readInputLoop(image.env.in()), STDIN_THREAD_NAME);
+            inputThread.setDaemon(true);
+            inputThread.start();
+        }
+    }
+
+    private void readInputLoop(final InputStream in) {
+        final byte[] chunk = new byte[INPUT_BUFFER_SIZE];
+        try {
+            while (true) {
+                final int maxLength;
+                synchronized (inputLock) {
+                    while (inputSize == INPUT_BUFFER_SIZE) {
+                        inputLock.wait(); /* Apply back pressure until the image consumes data. */
+                    }
+                    maxLength = INPUT_BUFFER_SIZE - inputSize;
+                }
+                final int read = in.read(chunk, 0, maxLength);
+                synchronized (inputLock) {
+                    if (read < 0) {
+                        inputAtEnd = true;
+                    } else {
+                        final int end = (inputStart + inputSize) % INPUT_BUFFER_SIZE;
+                        final int firstPart = Math.min(read, INPUT_BUFFER_SIZE - end);
+                        System.arraycopy(chunk, 0, inputBuffer, end, firstPart);
+                        System.arraycopy(chunk, firstPart, inputBuffer, 0, read - firstPart);
+                        inputSize += read;
+                    }
+                    inputLock.notifyAll();
+                    signal(inputSemaphoreIndex);
+                    if (inputAtEnd) {
+                        return;
+                    }
+                }
+            }
+        } catch (final IOException e) {
+            LogUtils.IO.fine(() -> "Reading from stdin failed: " + e);
+            synchronized (inputLock) {
+                inputAtEnd = true;
+                inputLock.notifyAll();
+                signal(inputSemaphoreIndex);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void signal(final int semaphoreIndex) {
+        if (semaphoreIndex > 0) {
+            image.interrupt.signalSemaphoreWithIndex(semaphoreIndex);
+        }
+    }
+
+    /*
+     * Stdout and stderr
+     */
+
+    public synchronized OutputStream getOut() {
+        if (out == null) {
+            out = new BatchedOutputStream(image.env.out());
+            ensureFlushExecutor();
+        }
+        return out;
+    }
+
+    public synchronized OutputStream getErr() {
+        if (err == null) {
+            err = new BatchedOutputStream(image.env.err());
+            ensureFlushExecutor();
+        }
+        return err;
+    }
+
+    public synchronized void flush() throws IOException {
+        if (out != null) {
+            out.flushIfDirty();
+        }
+        if (err != null) {
+            err.flushIfDirty();
+        }
+    }
+
+    private void ensureFlushExecutor() {
+        assert Thread.holdsLock(this);
+        if (flushExecutor == null) {
+            flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread t = new Thread(r, FLUSH_THREAD_NAME);
+                t.setDaemon(true);
+                return t;
+            });
+            flushExecutor.scheduleWithFixedDelay(() -> {
+                try {
+                    flush();
+                } catch (final IOException e) {
+                    LogUtils.IO.fine(() -> "Flushing stdio failed: " + e);
+                }
+            }, FLUSH_INTERVAL_MILLISECONDS, FLUSH_INTERVAL_MILLISECONDS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Flushes pending output and stops the periodic flusher. The streams stay usable, but are only
+     * flushed explicitly from then on. The stdin reader keeps running, as it cannot be interrupted
+     * while blocked in a read.
+     */
+    public synchronized void shutdown() {
+        try {
+            flush();
+        } catch (final IOException e) {
+            LogUtils.IO.fine(() -> "Flushing stdio failed: " + e);
+        }
+        if (flushExecutor != null) {
+            flushExecutor.shutdown();
+            flushExecutor = null;
+        }
+    }
+
+    /** Shuts down and forgets the streams, for example when the environment changes. */
+    public synchronized void reset() {
+        shutdown();
+        out = null;
+        err = null;
+    }
+}
@@ -8,6 +8,7 @@ package de.hpi.swa.trufflesqueak.nodes.plugins.network;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.nio.channels.SeekableByteChannel;
 import java.util.List;
 import java.util.logging.Level;
 
@@ -446,6 +447,35 @@ public final class SocketPlugin extends AbstractPrimitiveFactoryHolder {
         }
     }
 
+    @GenerateNodeFactory
+    @SqueakPrimitive(names = "primitiveSocketSendFileCount")
+    protected abstract static class PrimSocketSendFileCountNode extends AbstractPrimitiveNode implements QuinaryPrimitiveFallback {
+        /**
+         * Send count bytes starting at the zero-based position of the given FilePlugin file handle
+         * through the given TCP socket, without copying them into the image. Like
+         * primitiveSocketSendDataBufCount, return the number of bytes actually sent; the remaining
+         * bytes should be re-submitted after the current send operation has completed.
+         */
+        @Specialization(guards = {"position >= 0", "count >= 0"})
+        protected static final long doCount(
+                        @SuppressWarnings("unused") final Object receiver,
+                        final PointersObject sd,
+                        final PointersObject fileHandle,
+                        final long position,
+                        final long count) {
+            final Object file = fileHandle.getHiddenObject();
+            if (!(file instanceof SeekableByteChannel)) {
+                throw PrimitiveFailed.andTransferToInterpreter();
+            }
+            try {
+                return getSocketOrPrimFail(sd).sendFile((SeekableByteChannel) file, position, count);
+            } catch (final IOException e) {
+                LogUtils.SOCKET.log(Level.FINE, "Sending file failed", e);
+                throw PrimitiveFailed.andTransferToInterpreter();
+            }
+        }
+    }
+
     @GenerateNodeFactory
     @SqueakPrimitive(names = "primitiveSocketCloseConnection")
     protected abstract static class PrimSocketCloseConnectionNode extends AbstractPrimitiveNode implements BinaryPrimitiveFallback {
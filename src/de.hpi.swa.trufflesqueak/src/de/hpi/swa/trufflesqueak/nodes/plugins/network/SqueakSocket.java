@@ -12,6 +12,8 @@ import java.net.SocketOption;
 import java.nio.ByteBuffer;
 import java.nio.channels.NetworkChannel;
 import java.nio.channels.SelectionKey;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.SelectableChannel;
 import java.nio.channels.Selector;
 import java.util.Iterator;
 import java.util.Set;
@@ -58,6 +60,10 @@ public abstract class SqueakSocket {
 
     protected abstract NetworkChannel asNetworkChannel();
 
+    public final SelectableChannel asSelectableChannel() {
+        return (SelectableChannel) asNetworkChannel();
+    }
+
     protected abstract byte[] getLocalAddress() throws IOException;
 
     protected abstract long getLocalPort() throws IOException;
@@ -96,6 +102,28 @@ public abstract class SqueakSocket {
 
     protected abstract long sendDataTo(ByteBuffer data, SelectionKey key) throws IOException;
 
+    @TruffleBoundary
+    protected final long sendFile(final SeekableByteChannel source, final long position, final long count) throws IOException {
+        selector.selectNow();
+        final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            final SelectionKey key = keys.next();
+            if (key.isWritable()) {
+                final long written = sendFileTo(source, position, count, key);
+                LogUtils.SOCKET.finer(() -> this + " written from file: " + written);
+                keys.remove();
+                return written;
+            }
+        }
+
+        throw new IOException("No writable key found");
+    }
+
+    @SuppressWarnings("unused")
+    protected long sendFileTo(final SeekableByteChannel source, final long position, final long count, final SelectionKey key) throws IOException {
+        throw new IOException("Sending files is not supported by " + this);
+    }
+
     @TruffleBoundary
     protected final boolean isDataAvailable() throws IOException {
         selector.selectNow();
@@ -11,6 +11,7 @@ import java.net.Socket;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.NetworkChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
@@ -18,6 +19,7 @@ import java.util.Iterator;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 
+import de.hpi.swa.trufflesqueak.nodes.plugins.FilePlugin;
 import de.hpi.swa.trufflesqueak.util.LogUtils;
 
 final class SqueakTCPSocket extends SqueakSocket {
@@ -198,6 +200,16 @@ final class SqueakTCPSocket extends SqueakSocket {
         return channel.write(data);
     }
 
+    @Override
+    @TruffleBoundary
+    protected long sendFileTo(final SeekableByteChannel source, final long position, final long count, final SelectionKey key) throws IOException {
+        final SocketChannel channel = (SocketChannel) key.channel();
+        if (!channel.isConnected()) {
+            throw new IOException("Client not connected");
+        }
+        return FilePlugin.transferTo(source, position, count, channel);
+    }
+
     @Override
     @TruffleBoundary
     protected long receiveDataFrom(final SelectionKey key, final ByteBuffer data) throws IOException {
@@ -21,6 +21,7 @@ import de.hpi.swa.trufflesqueak.model.NativeObject;
 import de.hpi.swa.trufflesqueak.model.NilObject;
 import de.hpi.swa.trufflesqueak.nodes.context.ArgumentNodes.AbstractArgumentNode;
 import de.hpi.swa.trufflesqueak.nodes.context.ArgumentNodes.ArgumentNode;
+import de.hpi.swa.trufflesqueak.nodes.plugins.AioPlugin;
 import de.hpi.swa.trufflesqueak.nodes.plugins.B2DPlugin;
 import de.hpi.swa.trufflesqueak.nodes.plugins.BMPReadWriterPlugin;
 import de.hpi.swa.trufflesqueak.nodes.plugins.BitBltPlugin;
@@ -31,6 +32,7 @@ import de.hpi.swa.trufflesqueak.nodes.plugins.DropPlugin;
 import de.hpi.swa.trufflesqueak.nodes.plugins.FilePlugin;
 import de.hpi.swa.trufflesqueak.nodes.plugins.Float64ArrayPlugin;
 import de.hpi.swa.trufflesqueak.nodes.plugins.FloatArrayPlugin;
+import de.hpi.swa.trufflesqueak.nodes.plugins.FramebufferPlugin;
 import de.hpi.swa.trufflesqueak.nodes.plugins.HostWindowPlugin;
 import de.hpi.swa.trufflesqueak.nodes.plugins.JPEGReadWriter2Plugin;
 import de.hpi.swa.trufflesqueak.nodes.plugins.JPEGReaderPlugin;
@@ -84,6 +86,7 @@ public final class PrimitiveNodeFactory {
         fillPrimitiveTable(indexPrimitives);
 
         final AbstractPrimitiveFactoryHolder[] plugins = new AbstractPrimitiveFactoryHolder[]{
+                        new AioPlugin(),
                         new B2DPlugin(),
                         new BitBltPlugin(),
                         new BMPReadWriterPlugin(),
@@ -94,6 +97,7 @@ public final class PrimitiveNodeFactory {
                         new FilePlugin(),
                         new FloatArrayPlugin(),
                         new Float64ArrayPlugin(),
+                        new FramebufferPlugin(),
                         new TruffleSqueakPlugin(),
                         new HostWindowPlugin(),
                         new JPEGReaderPlugin(),
@@ -6,11 +6,8 @@
 package de.hpi.swa.trufflesqueak.nodes.primitives.impl;
 
 import java.lang.management.ManagementFactory;
-import java.lang.ref.Reference;
-import java.lang.ref.ReferenceQueue;
 import java.util.Arrays;
 import java.util.List;
-import java.util.logging.Level;
 
 import javax.management.InstanceNotFoundException;
 import javax.management.MBeanException;
@@ -30,10 +27,12 @@ import com.oracle.truffle.api.dsl.ImportStatic;
 import com.oracle.truffle.api.dsl.NodeFactory;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.ExplodeLoop;
 import com.oracle.truffle.api.nodes.NodeCost;
 import com.oracle.truffle.api.nodes.NodeInfo;
 
 import de.hpi.swa.trufflesqueak.SqueakLanguage;
+import de.hpi.swa.trufflesqueak.SqueakOptions.GCPolicy;
 import de.hpi.swa.trufflesqueak.exceptions.PrimitiveExceptions.PrimitiveFailed;
 import de.hpi.swa.trufflesqueak.exceptions.ProcessSwitch;
 import de.hpi.swa.trufflesqueak.exceptions.SqueakExceptions.SqueakException;
@@ -75,6 +74,7 @@ import de.hpi.swa.trufflesqueak.nodes.dispatch.DispatchSendNode.DispatchSendSele
 import de.hpi.swa.trufflesqueak.nodes.dispatch.DispatchSendNode.DispatchSendSyntaxErrorNode;
 import de.hpi.swa.trufflesqueak.nodes.dispatch.DispatchSendNodeFactory.DispatchSendSelectorNodeGen;
 import de.hpi.swa.trufflesqueak.nodes.interrupts.CheckForInterruptsNode;
+import de.hpi.swa.trufflesqueak.nodes.interrupts.CheckForInterruptsState;
 import de.hpi.swa.trufflesqueak.nodes.primitives.AbstractPrimitiveFactoryHolder;
 import de.hpi.swa.trufflesqueak.nodes.primitives.AbstractPrimitiveNode;
 import de.hpi.swa.trufflesqueak.nodes.primitives.AbstractSingletonPrimitiveNode;
@@ -94,7 +94,6 @@ import de.hpi.swa.trufflesqueak.nodes.process.RemoveProcessFromListNode;
 import de.hpi.swa.trufflesqueak.nodes.process.ResumeProcessNode;
 import de.hpi.swa.trufflesqueak.nodes.process.SignalSemaphoreNode;
 import de.hpi.swa.trufflesqueak.nodes.process.WakeHighestPriorityNode;
-import de.hpi.swa.trufflesqueak.util.LogUtils;
 import de.hpi.swa.trufflesqueak.util.MiscUtils;
 
 public final class ControlPrimitives extends AbstractPrimitiveFactoryHolder {
@@ -123,8 +122,30 @@ public final class ControlPrimitives extends AbstractPrimitiveFactoryHolder {
         }
     }
 
+    /**
+     * Perform primitives cache dispatch in two levels: each of up to
+     * {@link #getPerformCacheSize()} selectors gets its own {@link LookupMethodNode}, which in turn
+     * caches lookups per receiver class. Once a site has seen more selectors, it turns megamorphic
+     * and uses a single {@link LookupMethodNode}, which falls back to the global method cache.
+     */
     protected abstract static class AbstractPerformPrimitiveNode extends AbstractPrimitiveNode {
-        protected static final int CACHE_LIMIT = 2;
+        protected static final int getPerformCacheSize() {
+            return SqueakLanguage.getContext().options.performCacheSize;
+        }
+
+        /**
+         * Copies a cached number of arguments, so that the compiler can virtualize the array when it
+         * inlines the send.
+         */
+        @ExplodeLoop
+        protected static final Object[] toReceiverAndArguments(final Object receiver, final ArrayObject arguments, final int numArgs, final ArrayObjectReadNode readNode) {
+            final Object[] receiverAndArguments = new Object[1 + numArgs];
+            receiverAndArguments[0] = receiver;
+            for (int i = 0; i < numArgs; i++) {
+                receiverAndArguments[1 + i] = readNode.execute(arguments, i);
+            }
+            return receiverAndArguments;
+        }
 
         protected final DispatchSendNode createDispatchSendNode(final NativeObject selector) {
             final SqueakImageContext image = lookupContext();
@@ -163,7 +184,7 @@ public final class ControlPrimitives extends AbstractPrimitiveFactoryHolder {
     @SqueakPrimitive(indices = 83)
     protected abstract static class PrimPerform1Node extends AbstractPrimPerformNode implements BinaryPrimitiveFallback {
         @SuppressWarnings("unused")
-        @Specialization(guards = "selector == cachedSelector", limit = "CACHE_LIMIT")
+        @Specialization(guards = "selector == cachedSelector", limit = "getPerformCacheSize()")
         protected static final Object perform0Cached(final VirtualFrame frame, final Object receiver, final NativeObject selector,
                         @Cached("selector") final NativeObject cachedSelector,
                         @Cached final SqueakObjectClassNode lookupClassNode,
@@ -172,7 +193,6 @@ public final class ControlPrimitives extends AbstractPrimitiveFactoryHolder {
             return dispatchCached(frame, cachedSelector, new Object[]{receiver}, lookupClassNode, lookupMethodNode, dispatchNode);
         }
 
-        @SuppressWarnings("unused")
         @Specialization(replaces = "perform0Cached")
         protected static final Object perform0(final VirtualFrame frame, final Object receiver, final NativeObject selector,
                         @Cached final SqueakObjectClassNode lookupClassNode,
@@ -186,7 +206,7 @@ public final class ControlPrimitives extends AbstractPrimitiveFactoryHolder {
     @SqueakPrimitive(indices = 83)
     protected abstract static class PrimPerform2Node extends AbstractPrimPerformNode implements TernaryPrimitiveFallback {
         @SuppressWarnings("unused")
-        @Specialization(guards = {"selector == cachedSelector"}, limit = "CACHE_LIMIT")
+        @Specialization(guards = {"selector == cachedSelector"}, limit = "getPerformCacheSize()")
         protected static final Object perform1Cached(final VirtualFrame frame, final Object receiver, final NativeObject selector, final Object object1,
                         @Cached("selector") final NativeObject cachedSelector,
                         @Cached final SqueakObjectClassNode lookupClassNode,
@@ -195,7 +215,6 @@ public final class ControlPrimitives extends AbstractPrimitiveFactoryHolder {
             return dispatchCached(frame, cachedSelector, new Object[]{receiver, object1}, lookupClassNode, lookupMethodNode, dispatchNode);
         }
 
-        @SuppressWarnings("unused")
         @Specialization(replaces = "perform1Cached")
         protected static final Object perform1(final VirtualFrame frame, final Object receiver, final NativeObject selector, final Object object1,
                         @Cached final SqueakObjectClassNode lookupClassNode,
@@ -210,7 +229,7 @@ public final class ControlPrimitives extends AbstractPrimitiveFactoryHolder {
     @SqueakPrimitive(indices = 83)
     protected abstract static class PrimPerform3Node extends AbstractPrimPerformNode implements QuaternaryPrimitiveFallback {
         @SuppressWarnings("unused")
-        @Specialization(guards = {"selector == cachedSelector"}, limit = "CACHE_LIMIT")
+        @Specialization(guards = {"selector == cachedSelector"}, limit = "getPerformCacheSize()")
         protected static final Object perform2Cached(final VirtualFrame frame, final Object receiver, final NativeObject selector, final Object object1, final Object object2,
                         @Cached("selector") final NativeObject cachedSelector,
                         @Cached final SqueakObjectClassNode lookupClassNode,
@@ -219,7 +238,6 @@ public final class ControlPrimitives extends AbstractPrimitiveFactoryHolder {
             return dispatchCached(frame, cachedSelector, new Object[]{receiver, object1, object2}, lookupClassNode, lookupMethodNode, dispatchNode);
         }
 
-        @SuppressWarnings("unused")
         @Specialization(replaces = "perform2Cached")
         protected static final Object perform2(final VirtualFrame frame, final Object receiver, final NativeObject selector, final Object object1, final Object object2,
                         @Cached final SqueakObjectClassNode lookupClassNode,
@@ -233,7 +251,7 @@ public final class ControlPrimitives extends AbstractPrimitiveFactoryHolder {
     @SqueakPrimitive(indices = 83)
     protected abstract static class PrimPerform4Node extends AbstractPrimPerformNode implements QuinaryPrimitiveFallback {
         @SuppressWarnings("unused")
-        @Specialization(guards = {"selector == cachedSelector"}, limit = "CACHE_LIMIT")
+        @Specialization(guards = {"selector == cachedSelector"}, limit = "getPerformCacheSize()")
         protected static final Object perform3Cached(final VirtualFrame frame, final Object receiver, final NativeObject selector, final Object object1, final Object object2,
                         final Object object3,
                         @Cached("selector") final NativeObject cachedSelector,
@@ -243,7 +261,6 @@ public final class ControlPrimitives extends AbstractPrimitiveFactoryHolder {
             return dispatchCached(frame, cachedSelector, new Object[]{receiver, object1, object2, object3}, lookupClassNode, lookupMethodNode, dispatchNode);
         }
 
-        @SuppressWarnings("unused")
         @Specialization(replaces = "perform3Cached")
         protected static final Object perform3(final VirtualFrame frame, final Object receiver, final NativeObject selector, final Object object1, final Object object2,
                         final Object object3,
@@ -258,7 +275,7 @@ public final class ControlPrimitives extends AbstractPrimitiveFactoryHolder {
     @SqueakPrimitive(indices = 83)
     protected abstract static class PrimPerform5Node extends AbstractPrimPerformNode implements SenaryPrimitiveFallback {
         @SuppressWarnings("unused")
-        @Specialization(guards = {"selector == cachedSelector"}, limit = "CACHE_LIMIT")
+        @Specialization(guards = {"selector == cachedSelector"}, limit = "getPerformCacheSize()")
         protected static final Object perform4Cached(final VirtualFrame frame, final Object receiver, final NativeObject selector, final Object object1, final Object object2, final Object object3,
                         final Object object4,
                         @Cached("selector") final NativeObject cachedSelector,
@@ -268,7 +285,6 @@ public final class ControlPrimitives extends AbstractPrimitiveFactoryHolder {
             return dispatchCached(frame, cachedSelector, new Object[]{receiver, object1, object2, object3, object4}, lookupClassNode, lookupMethodNode, dispatchNode);
         }
 
-        @SuppressWarnings("unused")
         @Specialization(replaces = "perform4Cached")
         protected static final Object perform4(final VirtualFrame frame, final Object receiver, final NativeObject selector, final Object object1, final Object object2, final Object object3,
                         final Object object4,
@@ -283,7 +299,7 @@ public final class ControlPrimitives extends AbstractPrimitiveFactoryHolder {
     @SqueakPrimitive(indices = 83)
     protected abstract static class PrimPerform6Node extends AbstractPrimPerformNode implements SeptenaryPrimitiveFallback {
         @SuppressWarnings("unused")
-        @Specialization(guards = {"selector == cachedSelector"}, limit = "CACHE_LIMIT")
+        @Specialization(guards = {"selector == cachedSelector"}, limit = "getPerformCacheSize()")
         protected static final Object perform5Cached(final VirtualFrame frame, final Object receiver, final NativeObject selector, final Object object1, final Object object2,
                         final Object object3, final Object object4, final Object object5,
                         @Cached("selector") final NativeObject cachedSelector,
@@ -293,7 +309,6 @@ public final class ControlPrimitives extends AbstractPrimitiveFactoryHolder {
             return dispatchCached(frame, cachedSelector, new Object[]{receiver, object1, object2, object3, object4, object5}, lookupClassNode, lookupMethodNode, dispatchNode);
         }
 
-        @SuppressWarnings("unused")
         @Specialization(replaces = "perform5Cached")
         protected static final Object perform5(final VirtualFrame frame, final Object receiver, final NativeObject selector, final Object object1, final Object object2,
                         final Object object3, final Object object4, final Object object5,
@@ -307,21 +322,23 @@ public final class ControlPrimitives extends AbstractPrimitiveFactoryHolder {
     @GenerateNodeFactory
     @SqueakPrimitive(indices = 84)
     protected abstract static class PrimPerformWithArgumentsNode extends AbstractPerformPrimitiveNode implements TernaryPrimitiveFallback {
-        @Child private ArrayObjectToObjectArrayWithFirstNode getObjectArrayNode = ArrayObjectToObjectArrayWithFirstNode.create();
-
-        @Specialization(guards = "selector == cachedSelector", limit = "CACHE_LIMIT")
-        protected final Object performCached(final VirtualFrame frame, final Object receiver, @SuppressWarnings("unused") final NativeObject selector, final ArrayObject arguments,
+        @Specialization(guards = {"selector == cachedSelector", "sizeNode.execute(arguments) == cachedNumArgs"}, limit = "getPerformCacheSize()")
+        protected static final Object performCached(final VirtualFrame frame, final Object receiver, @SuppressWarnings("unused") final NativeObject selector, final ArrayObject arguments,
                         @Cached("selector") final NativeObject cachedSelector,
+                        @SuppressWarnings("unused") @Cached final ArrayObjectSizeNode sizeNode,
+                        @Cached("sizeNode.execute(arguments)") final int cachedNumArgs,
+                        @Cached final ArrayObjectReadNode readNode,
                         @Cached final SqueakObjectClassNode lookupClassNode,
                         @Cached final LookupMethodNode lookupMethodNode,
                         @Cached("createDispatchSendNode(cachedSelector)") final DispatchSendNode dispatchNode) {
             final ClassObject rcvrClass = lookupClassNode.executeLookup(receiver);
             final Object lookupResult = lookupMethodNode.executeLookup(rcvrClass, cachedSelector);
-            return dispatchNode.executeSend(frame, cachedSelector, lookupResult, rcvrClass, getObjectArrayNode.execute(receiver, arguments));
+            return dispatchNode.executeSend(frame, cachedSelector, lookupResult, rcvrClass, toReceiverAndArguments(receiver, arguments, cachedNumArgs, readNode));
         }
 
         @Specialization(replaces = "performCached")
-        protected final Object perform(final VirtualFrame frame, final Object receiver, final NativeObject selector, final ArrayObject arguments,
+        protected static final Object perform(final VirtualFrame frame, final Object receiver, final NativeObject selector, final ArrayObject arguments,
+                        @Cached final ArrayObjectToObjectArrayWithFirstNode getObjectArrayNode,
                         @Cached final SqueakObjectClassNode lookupClassNode,
                         @Cached final LookupMethodNode lookupMethodNode,
                         @Cached final DispatchSendSelectorNode dispatchNode) {
@@ -493,7 +510,7 @@ public final class ControlPrimitives extends AbstractPrimitiveFactoryHolder {
     @SqueakPrimitive(indices = 100)
     /* Object>>#perform:withArguments:inSuperclass: */
     protected abstract static class PrimPerformWithArgumentsInSuperclass4Node extends AbstractPrimPerformWithArgumentsInSuperclassNode implements QuaternaryPrimitiveFallback {
-        @Specialization(guards = "selector == cachedSelector", limit = "CACHE_LIMIT")
+        @Specialization(guards = "selector == cachedSelector", limit = "getPerformCacheSize()")
         protected final Object performCached(final VirtualFrame frame, final Object receiver, @SuppressWarnings("unused") final NativeObject selector, final ArrayObject arguments,
                         final ClassObject superClass,
                         @Cached("selector") final NativeObject cachedSelector,
@@ -514,7 +531,7 @@ public final class ControlPrimitives extends AbstractPrimitiveFactoryHolder {
     @SqueakPrimitive(indices = 100)
     /* Context>>#object:perform:withArguments:inClass: */
     protected abstract static class PrimPerformWithArgumentsInSuperclass5Node extends AbstractPrimPerformWithArgumentsInSuperclassNode implements QuinaryPrimitiveFallback {
-        @Specialization(guards = "selector == cachedSelector", limit = "CACHE_LIMIT")
+        @Specialization(guards = "selector == cachedSelector", limit = "getPerformCacheSize()")
         protected final Object performContextCached(final VirtualFrame frame, @SuppressWarnings("unused") final Object receiver, final Object target,
                         @SuppressWarnings("unused") final NativeObject selector, final ArrayObject arguments, final ClassObject superClass,
                         @Cached("selector") final NativeObject cachedSelector,
@@ -756,18 +773,13 @@ public final class ControlPrimitives extends AbstractPrimitiveFactoryHolder {
         }
 
         @Specialization
-        protected static final long doGC(@SuppressWarnings("unused") final Object receiver,
-                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+        protected static final long doGC(@SuppressWarnings("unused") final Object receiver) {
             if (TruffleOptions.AOT) {
                 /* System.gc() triggers full GC by default in SVM (see https://git.io/JvY7g). */
                 MiscUtils.systemGC();
             } else {
                 forceFullGC();
             }
-            final boolean hasPendingFinalizations = LogUtils.GC_IS_LOGGABLE_FINE ? hasPendingFinalizationsWithLogging(image) : hasPendingFinalizations(image);
-            if (hasPendingFinalizations) {
-                image.interrupt.setPendingFinalizations(true);
-            }
             return MiscUtils.runtimeFreeMemory();
         }
 
@@ -782,41 +794,25 @@ public final class ControlPrimitives extends AbstractPrimitiveFactoryHolder {
                 e.printStackTrace();
             }
         }
-
-        @TruffleBoundary
-        private static boolean hasPendingFinalizations(final SqueakImageContext image) {
-            return image.weakPointersQueue.poll() != null;
-        }
-
-        @TruffleBoundary
-        private static boolean hasPendingFinalizationsWithLogging(final SqueakImageContext image) {
-            final ReferenceQueue<Object> queue = image.weakPointersQueue;
-            Reference<?> element = queue.poll();
-            int count = 0;
-            while (element != null) {
-                count++;
-                element = queue.poll();
-            }
-            LogUtils.GC.log(Level.FINE, "Number of garbage collected WeakPointersObjects: {0}", count);
-            return count > 0;
-        }
     }
 
+    @GenerateNodeFactory
     @SqueakPrimitive(indices = 131)
-    private static final class PrimIncrementalGCNode extends AbstractSingletonPrimitiveNode {
-        private static final PrimIncrementalGCNode SINGLETON = new PrimIncrementalGCNode();
+    protected abstract static class PrimIncrementalGCNode extends AbstractPrimitiveNode {
 
-        @Override
-        public Object execute() {
-            /* Cannot force incremental GC in Java, suggesting a normal GC instead. */
-            MiscUtils.systemGC();
+        /**
+         * Java cannot be asked for a young-only collection. Unless the full policy is selected,
+         * this primitive therefore leaves collections to the JVM. WeakPointersObjects cleared by
+         * any collection are picked up by the reference handler of {@link CheckForInterruptsState}.
+         */
+        @Specialization
+        protected static final long doGC(@SuppressWarnings("unused") final Object receiver,
+                        @CachedContext(SqueakLanguage.class) final SqueakImageContext image) {
+            if (image.options.incrementalGCPolicy == GCPolicy.FULL) {
+                MiscUtils.systemGC();
+            }
             return MiscUtils.runtimeFreeMemory();
         }
-
-        @Override
-        protected AbstractPrimitiveNode getSingleton() {
-            return SINGLETON;
-        }
     }
 
     @NodeInfo(cost = NodeCost.NONE)
@@ -1370,7 +1366,6 @@ public final class ControlPrimitives extends AbstractPrimitiveFactoryHolder {
                         PrimQuickReturnZeroNode.SINGLETON,
                         PrimQuickReturnOneNode.SINGLETON,
                         PrimQuickReturnTwoNode.SINGLETON,
-                        PrimBytesLeftNode.SINGLETON,
-                        PrimIncrementalGCNode.SINGLETON);
+                        PrimBytesLeftNode.SINGLETON);
     }
 }
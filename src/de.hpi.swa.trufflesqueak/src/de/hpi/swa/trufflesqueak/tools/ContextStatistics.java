@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2017-2021 Software Architecture Group, Hasso Plattner Institute
+ *
+ * Licensed under the MIT License.
+ */
+package de.hpi.swa.trufflesqueak.tools;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map.Entry;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import de.hpi.swa.trufflesqueak.SqueakOptions;
+import de.hpi.swa.trufflesqueak.model.CompiledCodeObject;
+
+/**
+ * Counts per {@link CompiledCodeObject} how often frames are materialized into contexts, how often
+ * the doesNotNeedSender assumption is invalidated, and how often thisContext is pushed. Methods
+ * with high counts destroy compiled performance, because their senders can no longer be called
+ * without a sender and their frames escape. Enabled with {@link SqueakOptions#ContextStats}, the
+ * top offenders of each kind are printed when the image context is disposed.
+ */
+public final class ContextStatistics {
+    private static final int TOP_OFFENDERS = 20;
+
+    private static final int MATERIALIZATIONS = 0;
+    private static final int SENDER_INVALIDATIONS = 1;
+    private static final int THIS_CONTEXT_ACCESSES = 2;
+    private static final String[] TITLES = {"Context materializations", "doesNotNeedSender assumption invalidations", "thisContext accesses"};
+
+    private final HashMap<CompiledCodeObject, long[]> counters = new HashMap<>();
+
+    @TruffleBoundary
+    public void recordMaterialization(final CompiledCodeObject code) {
+        record(code, MATERIALIZATIONS);
+    }
+
+    @TruffleBoundary
+    public void recordSenderInvalidation(final CompiledCodeObject code) {
+        record(code, SENDER_INVALIDATIONS);
+    }
+
+    @TruffleBoundary
+    public void recordThisContextAccess(final CompiledCodeObject code) {
+        record(code, THIS_CONTEXT_ACCESSES);
+    }
+
+    private synchronized void record(final CompiledCodeObject code, final int kind) {
+        counters.computeIfAbsent(code, c -> new long[TITLES.length])[kind]++;
+    }
+
+    @TruffleBoundary
+    public synchronized void print(final PrintWriter out) {
+        out.println("[trufflesqueak] Context statistics (top " + TOP_OFFENDERS + " per kind):");
+        for (int kind = 0; kind < TITLES.length; kind++) {
+            final int index = kind;
+            final List<Entry<CompiledCodeObject, long[]>> entries = new ArrayList<>();
+            long total = 0;
+            for (final Entry<CompiledCodeObject, long[]> entry : counters.entrySet()) {
+                if (entry.getValue()[index] > 0) {
+                    entries.add(entry);
+                    total += entry.getValue()[index];
+                }
+            }
+            entries.sort((a, b) -> Long.compare(b.getValue()[index], a.getValue()[index]));
+            out.println(String.format("  %s: %d in %d methods and blocks", TITLES[kind], total, entries.size()));
+            for (int i = 0; i < Math.min(TOP_OFFENDERS, entries.size()); i++) {
+                final Entry<CompiledCodeObject, long[]> entry = entries.get(i);
+                out.println(String.format("  %12d  %s", entry.getValue()[index], toDisplayString(entry.getKey())));
+            }
+        }
+        out.flush();
+    }
+
+    private static String toDisplayString(final CompiledCodeObject code) {
+        /* Shadow blocks of old-style closures print like their outer method. */
+        return code.hasOuterMethod() ? "[] in " + code.getOuterMethod() : code.toString();
+    }
+}
@@ -16,12 +16,16 @@ import java.io.IOException;
 import java.lang.management.CompilationMXBean;
 import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.security.SecureRandom;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Locale;
 import java.util.Properties;
 
 import com.oracle.truffle.api.CompilerDirectives;
@@ -58,23 +62,91 @@ public final class MiscUtils {
     }
 
     @TruffleBoundary
-    public static long getCollectionCount() {
+    public static long getCollectionCount(final boolean young) {
         long totalCollectionCount = 0;
         for (final GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
-            totalCollectionCount += Math.max(gcBean.getCollectionCount(), 0);
+            if (isYoungCollector(gcBean) == young) {
+                totalCollectionCount += Math.max(gcBean.getCollectionCount(), 0);
+            }
         }
         return totalCollectionCount;
     }
 
     @TruffleBoundary
-    public static long getCollectionTime() {
+    public static long getCollectionTime(final boolean young) {
         long totalCollectionTime = 0;
         for (final GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
-            totalCollectionTime += Math.max(gcBean.getCollectionTime(), 0);
+            if (isYoungCollector(gcBean) == young) {
+                totalCollectionTime += Math.max(gcBean.getCollectionTime(), 0);
+            }
         }
         return totalCollectionTime;
     }
 
+    /*
+     * Collectors and memory pools are told apart by name, as the management API does not classify
+     * them. Names differ between collectors (e.g., "G1 Young Generation", "PS Scavenge", "Copy",
+     * "ParNew", and "young generation scavenger" in SubstrateVM). Collectors without generations,
+     * such as ZGC and Shenandoah, count as old-generation collectors.
+     */
+    private static boolean isYoungCollector(final GarbageCollectorMXBean gcBean) {
+        final String name = gcBean.getName().toLowerCase(Locale.ROOT);
+        return name.contains("young") || (name.contains("scavenge") && !name.contains("complete")) || name.contains("minor") || name.equals("copy") || name.equals("parnew");
+    }
+
+    private static boolean isYoungPool(final String name) {
+        return name.contains("eden") || name.contains("survivor") || name.contains("young");
+    }
+
+    private static boolean isOldPool(final String name) {
+        return name.contains("old") || name.contains("tenured");
+    }
+
+    /**
+     * @return committed bytes of the young generation (eden and survivor spaces) if {@code young},
+     *         or of the old generation otherwise, or {@code -1} if there is no such pool.
+     */
+    @TruffleBoundary
+    public static long getGenerationSize(final boolean young) {
+        long size = -1;
+        for (final MemoryPoolMXBean poolBean : ManagementFactory.getMemoryPoolMXBeans()) {
+            final String name = poolBean.getName().toLowerCase(Locale.ROOT);
+            if (poolBean.getType() == MemoryType.HEAP && (young ? isYoungPool(name) : isOldPool(name))) {
+                size = Math.max(size, 0) + poolBean.getUsage().getCommitted();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return committed bytes of the eden space, or {@code -1} if there is no such pool.
+     */
+    @TruffleBoundary
+    public static long getEdenSize() {
+        for (final MemoryPoolMXBean poolBean : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (poolBean.getType() == MemoryType.HEAP && poolBean.getName().toLowerCase(Locale.ROOT).contains("eden")) {
+                return poolBean.getUsage().getCommitted();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return committed but unused bytes of the old generation, or {@code -1} if there is no such
+     *         pool.
+     */
+    @TruffleBoundary
+    public static long getOldGenerationFree() {
+        long free = -1;
+        for (final MemoryPoolMXBean poolBean : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (poolBean.getType() == MemoryType.HEAP && isOldPool(poolBean.getName().toLowerCase(Locale.ROOT))) {
+                final MemoryUsage usage = poolBean.getUsage();
+                free = Math.max(free, 0) + usage.getCommitted() - usage.getUsed();
+            }
+        }
+        return free;
+    }
+
     @TruffleBoundary
     public static String getGraalVMInformation() {
         final String graalVMVersion = System.getProperty("graalvm.version", "");
@@ -113,19 +113,23 @@ public final class ObjectGraphUtils {
                 if (!FrameAccess.isTruffleSqueakFrame(current)) {
                     return null;
                 }
-                for (final Object argument : current.getArguments()) {
-                    addIfUnmarked(argument);
-                }
-                addIfUnmarked(FrameAccess.findContext(current));
-                FrameAccess.iterateStackSlots(current, slot -> {
-                    if (current.isObject(slot)) {
-                        addIfUnmarked(FrameUtil.getObjectSafe(current, slot));
-                    }
-                });
+                addObjectsFromFrame(current);
                 return null;
             });
         }
 
+        public void addObjectsFromFrame(final Frame frame) {
+            for (final Object argument : frame.getArguments()) {
+                addIfUnmarked(argument);
+            }
+            addIfUnmarked(FrameAccess.findContext(frame));
+            FrameAccess.iterateStackSlots(frame, slot -> {
+                if (frame.isObject(slot)) {
+                    addIfUnmarked(FrameUtil.getObjectSafe(frame, slot));
+                }
+            });
+        }
+
         public void addIfUnmarked(final AbstractSqueakObjectWithClassAndHash object) {
             if (object != null && !object.isMarked(currentMarkingFlag)) {
                 deque.add(object);
@@ -28,6 +28,40 @@ public final class UnsafeUtils {
         }
     }
 
+    /** Returns the Unsafe offset of the first element of a primitive array. */
+    public static long getArrayBaseOffset(final Object primitiveArray) {
+        if (primitiveArray instanceof byte[]) {
+            return Unsafe.ARRAY_BYTE_BASE_OFFSET;
+        } else if (primitiveArray instanceof short[]) {
+            return Unsafe.ARRAY_SHORT_BASE_OFFSET;
+        } else if (primitiveArray instanceof int[]) {
+            return Unsafe.ARRAY_INT_BASE_OFFSET;
+        } else if (primitiveArray instanceof long[]) {
+            return Unsafe.ARRAY_LONG_BASE_OFFSET;
+        } else if (primitiveArray instanceof double[]) {
+            return Unsafe.ARRAY_DOUBLE_BASE_OFFSET;
+        } else {
+            throw CompilerDirectives.shouldNotReachHere("Unexpected array: " + primitiveArray);
+        }
+    }
+
+    /** Returns the size of the elements of a primitive array in bytes. */
+    public static long getArrayByteSize(final Object primitiveArray) {
+        if (primitiveArray instanceof byte[]) {
+            return ((byte[]) primitiveArray).length;
+        } else if (primitiveArray instanceof short[]) {
+            return (long) ((short[]) primitiveArray).length * Short.BYTES;
+        } else if (primitiveArray instanceof int[]) {
+            return (long) ((int[]) primitiveArray).length * Integer.BYTES;
+        } else if (primitiveArray instanceof long[]) {
+            return (long) ((long[]) primitiveArray).length * Long.BYTES;
+        } else if (primitiveArray instanceof double[]) {
+            return (long) ((double[]) primitiveArray).length * Double.BYTES;
+        } else {
+            throw CompilerDirectives.shouldNotReachHere("Unexpected array: " + primitiveArray);
+        }
+    }
+
     public static boolean getBoolAt(final AbstractPointersObject object, final long address) {
         return UNSAFE.getBoolean(object, address);
     }
@@ -42,6 +76,10 @@ public final class UnsafeUtils {
         return UNSAFE.getByte(storage, Unsafe.ARRAY_BYTE_BASE_OFFSET + index * Unsafe.ARRAY_BYTE_INDEX_SCALE);
     }
 
+    public static byte getByteAt(final Object object, final long address) {
+        return UNSAFE.getByte(object, address);
+    }
+
     public static char getChar(final char[] storage, final long index) {
         assert 0 <= index && index < storage.length;
         return UNSAFE.getChar(storage, Unsafe.ARRAY_CHAR_BASE_OFFSET + index * Unsafe.ARRAY_CHAR_INDEX_SCALE);
@@ -103,7 +141,7 @@ public final class UnsafeUtils {
         return UNSAFE.getLong(storage, Unsafe.ARRAY_LONG_BASE_OFFSET + index * Unsafe.ARRAY_LONG_INDEX_SCALE);
     }
 
-    public static long getLongAt(final AbstractPointersObject object, final long address) {
+    public static long getLongAt(final Object object, final long address) {
         return UNSAFE.getLong(object, address);
     }
 
@@ -136,6 +174,10 @@ public final class UnsafeUtils {
         return UNSAFE.getShort(storage, Unsafe.ARRAY_SHORT_BASE_OFFSET + index * Unsafe.ARRAY_SHORT_INDEX_SCALE);
     }
 
+    public static short getShortAt(final Object object, final long address) {
+        return UNSAFE.getShort(object, address);
+    }
+
     public static short getShortFromBytes(final byte[] bytes, final long index) {
         assert 0 <= index && index <= bytes.length;
         return UNSAFE.getShort(bytes, Unsafe.ARRAY_BYTE_BASE_OFFSET + index * Unsafe.ARRAY_BYTE_INDEX_SCALE);
@@ -171,6 +213,10 @@ public final class UnsafeUtils {
         UNSAFE.putByte(storage, Unsafe.ARRAY_BYTE_BASE_OFFSET + index * Unsafe.ARRAY_BYTE_INDEX_SCALE, value);
     }
 
+    public static void putByteAt(final Object object, final long address, final byte value) {
+        UNSAFE.putByte(object, address, value);
+    }
+
     public static void putChar(final char[] storage, final long index, final char value) {
         assert 0 <= index && index < storage.length;
         UNSAFE.putChar(storage, Unsafe.ARRAY_CHAR_BASE_OFFSET + index * Unsafe.ARRAY_CHAR_INDEX_SCALE, value);
@@ -231,7 +277,7 @@ public final class UnsafeUtils {
         UNSAFE.putLong(storage, Unsafe.ARRAY_LONG_BASE_OFFSET + index * Unsafe.ARRAY_LONG_INDEX_SCALE, value);
     }
 
-    public static void putLongAt(final AbstractPointersObject object, final long address, final long value) {
+    public static void putLongAt(final Object object, final long address, final long value) {
         UNSAFE.putLong(object, address, value);
     }
 
@@ -264,6 +310,10 @@ public final class UnsafeUtils {
         UNSAFE.putShort(storage, Unsafe.ARRAY_SHORT_BASE_OFFSET + index * Unsafe.ARRAY_SHORT_INDEX_SCALE, value);
     }
 
+    public static void putShortAt(final Object object, final long address, final short value) {
+        UNSAFE.putShort(object, address, value);
+    }
+
     public static RuntimeException throwException(final Throwable e) {
         UNSAFE.throwException(e);
         return CompilerDirectives.shouldNotReachHere();